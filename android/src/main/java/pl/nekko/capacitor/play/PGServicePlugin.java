@@ -1,38 +1,35 @@
 package pl.nekko.capacitor.play;
 
-import static androidx.activity.result.ActivityResultCallerKt.registerForActivityResult;
-
 import android.Manifest;
-import android.content.Intent;
+import android.os.Looper;
 import android.util.Log;
 
-import androidx.activity.ComponentActivity;
-import androidx.activity.result.ActivityResult;
-import androidx.activity.result.ActivityResultCallback;
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
-
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
-import com.getcapacitor.annotation.ActivityCallback;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.Permission;
-import com.google.android.gms.auth.api.identity.Identity;
-import com.google.android.gms.auth.api.identity.SignInClient;
-import com.google.android.gms.common.api.ApiException;
-import com.google.android.gms.games.AuthenticationResult;
-import com.google.android.gms.games.GamesSignInClient;
-import com.google.android.gms.games.PlayGames;
 import com.google.android.gms.games.PlayGamesSdk;
-import com.google.android.gms.games.PlayersClient;
-import com.google.android.gms.games.SnapshotsClient;
 
+import java.util.concurrent.CountDownLatch;
+
+import pl.nekko.capacitor.play.core.AuthStateCache;
+import pl.nekko.capacitor.play.core.GamesBackend;
+import pl.nekko.capacitor.play.core.InFlightCalls;
+import pl.nekko.capacitor.play.core.PlayGamesClients;
+import pl.nekko.capacitor.play.core.PluginExecutors;
+import pl.nekko.capacitor.play.core.PluginMetrics;
+import pl.nekko.capacitor.play.core.RateLimiter;
+import pl.nekko.capacitor.play.core.ResilientCalls;
+import pl.nekko.capacitor.play.core.StartupPhases;
 import pl.nekko.capacitor.play.managers.AchievementsManager;
 import pl.nekko.capacitor.play.managers.AuthManager;
+import pl.nekko.capacitor.play.managers.EventsManager;
 import pl.nekko.capacitor.play.managers.LeaderboardsManager;
+import pl.nekko.capacitor.play.managers.MetricsManager;
 import pl.nekko.capacitor.play.managers.SavedGamesManager;
+import pl.nekko.capacitor.play.managers.UiLaunchQueue;
 
 @CapacitorPlugin(
         name = "PGService",
@@ -44,121 +41,529 @@ public class PGServicePlugin extends Plugin {
 
     private static final String TAG = "PGService";
 
-    // Managery dla poszczególnych funkcjonalności
-    private AuthManager authManager;
-    private LeaderboardsManager leaderboardsManager;
-    private AchievementsManager achievementsManager;
-    private SavedGamesManager savedGamesManager;
+    // Managery dla poszczególnych funkcjonalności – tworzone przy pierwszym użyciu lub w prefetchu.
+    // Pola są volatile: utworzony manager jest odczytywany bez monitora, więc wątek główny
+    // (onPause, zmiana gracza) nie czeka na tworzenie klientów trwające na pgs-io.
+    private volatile AuthManager authManager;
+    private volatile LeaderboardsManager leaderboardsManager;
+    private volatile AchievementsManager achievementsManager;
+    private volatile SavedGamesManager savedGamesManager;
+    private volatile EventsManager eventsManager;
+    private MetricsManager metricsManager;
+    private volatile GamesBackend backend;
+    // PlayGamesSdk.initialize musi działać na wątku głównym; pozostałe wątki czekają na ten zatrzask
+    private final CountDownLatch sdkReady = new CountDownLatch(1);
+    private boolean sdkInitialized = false;
+
+    private PluginExecutors executors;
+    private PluginMetrics metrics;
+    private StartupPhases startup;
+    private InFlightCalls calls;
+    private ResilientCalls resilience;
+    private RateLimiter rateLimiter;
+    private AuthStateCache authState;
+    private UiLaunchQueue leaderboardUi;
+    private UiLaunchQueue achievementsUi;
+    private UiLaunchQueue savedGamesUi;
 
     @Override
     public void load() {
+        long start = System.nanoTime();
         Log.d(TAG, "PGServicePlugin loading");
 
-        // Inicjalizacja SDK Google Play Games
-        PlayGamesSdk.initialize(bridge.getActivity());
-
-        // Inicjalizacja managerów
-        authManager = new AuthManager(getBridge());
-        leaderboardsManager = new LeaderboardsManager(getBridge());
-        achievementsManager = new AchievementsManager(getBridge());
-        savedGamesManager = new SavedGamesManager(getBridge());
-
-        GamesSignInClient gamesSignInClient = PlayGames.getGamesSignInClient(bridge.getActivity());
-
-        gamesSignInClient.isAuthenticated().addOnCompleteListener(isAuthenticatedTask -> {
-            boolean isAuthenticated =
-                    (isAuthenticatedTask.isSuccessful() &&
-                            isAuthenticatedTask.getResult().isAuthenticated());
-
-            if (isAuthenticated) {
-                Log.d(TAG, "PGServicePlugin isAuthenticated");
-                // Continue with Play Games Services
-            } else {
-                Log.d(TAG, "PGServicePlugin not isAuthenticated");
-                // Disable your integration with Play Games Services or show a
-                // login button to ask  players to sign-in. Clicking it should
-                // call GamesSignInClient.signIn().
-            }
+        executors = new PluginExecutors();
+        metrics = new PluginMetrics(executors.io());
+        startup = new StartupPhases(metrics);
+        calls = new InFlightCalls(executors.io());
+        resilience = new ResilientCalls(executors.io());
+        resilience.setListener(event -> bridge.triggerWindowJSEvent("circuitStateChanged", event.toString()));
+        rateLimiter = new RateLimiter(executors.io());
+        authState = AuthStateCache.getInstance();
+        // Każda zmiana stanu uwierzytelnienia trafia do JS, także gdy wywołał ją inny manager
+        authState.setListener((isAuthenticated, sequence, reason) ->
+                auth().onAuthStateChanged(isAuthenticated, sequence, reason));
+        // Dane przypisane do gracza są czyszczone przy wylogowaniu i przełączeniu konta
+        authState.setPlayerListener((previousPlayerId, playerId) -> onPlayerChanged());
+
+        // Launchery aktywności trzeba zarejestrować przed startem aktywności, więc tylko to dzieje się od razu
+        leaderboardUi = new UiLaunchQueue(getBridge(), "leaderboards", calls, executors.main());
+        achievementsUi = new UiLaunchQueue(getBridge(), "achievements", calls, executors.main());
+        savedGamesUi = new UiLaunchQueue(getBridge(), "saved games", calls, executors.main());
+        metricsManager = new MetricsManager(getBridge(), metrics, executors);
+        metricsManager.addSource("inFlight", calls);
+        metricsManager.addSource("resilience", resilience);
+        metricsManager.addSource("rateLimits", rateLimiter);
+        metricsManager.addSource("startup", startup);
+
+        // SDK, klienci i managery powstają, gdy wątek główny nie ma nic do roboty, albo przy pierwszym wywołaniu.
+        // SDK inicjalizujemy na wątku głównym, a managery tworzymy w tle dopiero po nim.
+        Looper.getMainLooper().getQueue().addIdleHandler(() -> {
+            initializeSdk();
+            executors.io().execute(this::prefetch);
+            return false;
         });
 
-        Log.d(TAG, "PGServicePlugin initialized with all managers");
+        startup.record("load", start);
+        Log.d(TAG, "PGServicePlugin loaded, managers deferred");
+    }
+
+    /**
+     * Tworzy managery w tle i raz sprawdza stan uwierzytelnienia.
+     */
+    private void prefetch() {
+        long start = System.nanoTime();
+        AuthManager auth = auth();
+        long checkStart = System.nanoTime();
+        auth.checkInitialAuthState()
+                .addOnCompleteListener(executors.io(), task -> startup.record("authCheck", checkStart));
+        leaderboards();
+        achievements();
+        savedGames();
+        startup.record("prefetch", start);
+    }
+
+    /**
+     * Inicjalizuje SDK Play Games. Wywoływane tylko na wątku głównym; kolejne wywołania nic nie robią.
+     */
+    private void initializeSdk() {
+        if (sdkInitialized) {
+            return;
+        }
+        sdkInitialized = true;
+        long start = System.nanoTime();
+        try {
+            PlayGamesSdk.initialize(bridge.getActivity());
+        } catch (RuntimeException e) {
+            // Klienci zgłoszą błąd przy pierwszym wywołaniu – nie blokujemy czekających wątków
+            Log.e(TAG, "Failed to initialize Play Games SDK", e);
+        } finally {
+            startup.record("sdk", start);
+            sdkReady.countDown();
+        }
+    }
+
+    /**
+     * Czeka na inicjalizację SDK, w razie potrzeby zlecając ją wątkowi głównemu.
+     * Nie może być wywołane pod monitorem pluginu – wątek główny nie może czekać na ten wątek.
+     */
+    private void awaitSdk() {
+        if (sdkReady.getCount() == 0) {
+            return;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            initializeSdk();
+            return;
+        }
+        bridge.executeOnMainThread(this::initializeSdk);
+        try {
+            sdkReady.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Tworzy wspólny backend dla wszystkich managerów po inicjalizacji SDK.
+     */
+    private GamesBackend backend() {
+        GamesBackend existing = backend;
+        if (existing != null) {
+            return existing;
+        }
+        awaitSdk();
+        synchronized (this) {
+            if (backend == null) {
+                long start = System.nanoTime();
+                backend = new PlayGamesClients(bridge.getActivity(), metrics, resilience, rateLimiter);
+                startup.record("clients", start);
+            }
+            return backend;
+        }
+    }
+
+    private AuthManager auth() {
+        AuthManager existing = authManager;
+        if (existing != null) {
+            return existing;
+        }
+        GamesBackend games = backend();
+        synchronized (this) {
+            if (authManager == null) {
+                long start = System.nanoTime();
+                authManager = new AuthManager(getBridge(), games, authState, calls, executors);
+                startup.record("authManager", start);
+            }
+            return authManager;
+        }
+    }
+
+    private LeaderboardsManager leaderboards() {
+        LeaderboardsManager existing = leaderboardsManager;
+        if (existing != null) {
+            return existing;
+        }
+        GamesBackend games = backend();
+        synchronized (this) {
+            if (leaderboardsManager == null) {
+                long start = System.nanoTime();
+                leaderboardsManager = new LeaderboardsManager(getBridge(), games, authState, calls, leaderboardUi, executors);
+                startup.record("leaderboardsManager", start);
+            }
+            return leaderboardsManager;
+        }
+    }
+
+    private AchievementsManager achievements() {
+        AchievementsManager existing = achievementsManager;
+        if (existing != null) {
+            return existing;
+        }
+        GamesBackend games = backend();
+        synchronized (this) {
+            if (achievementsManager == null) {
+                long start = System.nanoTime();
+                achievementsManager = new AchievementsManager(getBridge(), games, achievementsUi, executors);
+                startup.record("achievementsManager", start);
+            }
+            return achievementsManager;
+        }
+    }
+
+    private SavedGamesManager savedGames() {
+        SavedGamesManager existing = savedGamesManager;
+        if (existing != null) {
+            return existing;
+        }
+        GamesBackend games = backend();
+        synchronized (this) {
+            if (savedGamesManager == null) {
+                long start = System.nanoTime();
+                savedGamesManager = new SavedGamesManager(getBridge(), games, authState, savedGamesUi, executors, metrics);
+                startup.record("savedGamesManager", start);
+            }
+            return savedGamesManager;
+        }
+    }
+
+    private EventsManager events() {
+        EventsManager existing = eventsManager;
+        if (existing != null) {
+            return existing;
+        }
+        GamesBackend games = backend();
+        synchronized (this) {
+            if (eventsManager == null) {
+                long start = System.nanoTime();
+                EventsManager created = new EventsManager(getBridge(), games, executors);
+                metricsManager.addSource("events", created);
+                eventsManager = created;
+                startup.record("eventsManager", start);
+            }
+            return eventsManager;
+        }
+    }
+
+    /**
+     * Czyści pamięci podręczne przypisane do poprzedniego gracza (tylko w istniejących managerach).
+     */
+    private void onPlayerChanged() {
+        Log.d(TAG, "Player changed, resetting player-scoped caches");
+        LeaderboardsManager leaderboards = leaderboardsManager;
+        AchievementsManager achievements = achievementsManager;
+        SavedGamesManager savedGames = savedGamesManager;
+        EventsManager events = eventsManager;
+        if (leaderboards != null) {
+            leaderboards.onPlayerChanged();
+        }
+        if (achievements != null) {
+            achievements.onPlayerChanged();
+        }
+        if (savedGames != null) {
+            savedGames.onPlayerChanged();
+        }
+        if (events != null) {
+            events.onPlayerChanged();
+        }
+    }
+
+    @Override
+    protected void handleOnResume() {
+        super.handleOnResume();
+        AuthManager auth = authManager;
+        // Przed prefetchem stan sprawdzi i tak checkInitialAuthState
+        if (auth != null) {
+            auth.onResume();
+        }
+    }
+
+    @Override
+    protected void handleOnPause() {
+        super.handleOnPause();
+        // Przy wstrzymaniu aplikacji wysyłamy wszystko, co czeka w kolejkach (tylko w istniejących managerach)
+        LeaderboardsManager leaderboards = leaderboardsManager;
+        AchievementsManager achievements = achievementsManager;
+        SavedGamesManager savedGames = savedGamesManager;
+        EventsManager events = eventsManager;
+        if (leaderboards != null) {
+            leaderboards.onPause();
+        }
+        if (achievements != null) {
+            achievements.onPause();
+        }
+        if (savedGames != null) {
+            savedGames.onPause();
+        }
+        if (events != null) {
+            events.onPause();
+        }
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        super.handleOnDestroy();
+        // Żadna obietnica nie może zostać bez odpowiedzi po zamknięciu aktywności
+        calls.rejectAll("Plugin destroyed");
+    }
+
+    // ========== Konfiguracja ==========
+
+    @PluginMethod
+    public void configure(PluginCall call) {
+        JSObject authCache = call.getObject("authCache");
+        if (authCache != null) {
+            Integer ttlMs = authCache.getInteger("ttlMs");
+            if (ttlMs != null && ttlMs >= 0) {
+                AuthStateCache.getInstance().setTtlMs(ttlMs);
+            }
+        }
+        JSObject avatarCache = call.getObject("avatarCache");
+        if (avatarCache != null) {
+            auth().configureAvatarCache(avatarCache);
+        }
+        JSObject scoreQueue = call.getObject("scoreQueue");
+        if (scoreQueue != null) {
+            leaderboards().configureScoreQueue(scoreQueue);
+        }
+        JSObject scoreCache = call.getObject("scoreCache");
+        if (scoreCache != null) {
+            leaderboards().configureScoreCache(scoreCache);
+        }
+        JSObject incrementBuffer = call.getObject("incrementBuffer");
+        if (incrementBuffer != null) {
+            achievements().configureIncrementBuffer(incrementBuffer);
+        }
+        JSObject savedGames = call.getObject("savedGames");
+        if (savedGames != null) {
+            savedGames().configure(savedGames);
+        }
+        JSObject eventsOptions = call.getObject("events");
+        if (eventsOptions != null) {
+            events().configure(eventsOptions);
+        }
+        JSObject callsOptions = call.getObject("calls");
+        if (callsOptions != null) {
+            calls.configure(callsOptions);
+        }
+        JSObject resilienceOptions = call.getObject("resilience");
+        if (resilienceOptions != null) {
+            resilience.configure(resilienceOptions);
+        }
+        JSObject rateLimits = call.getObject("rateLimits");
+        if (rateLimits != null) {
+            rateLimiter.configure(rateLimits);
+        }
+        JSObject metricsOptions = call.getObject("metrics");
+        if (metricsOptions != null) {
+            metricsManager.configure(metricsOptions);
+        }
+        call.resolve();
+    }
+
+    /**
+     * Przekazuje wywołanie do managera i zapisuje metrykę plugin.&lt;metoda&gt;. Mierzony jest czas
+     * obsłużenia wywołania; opóźnienia sieciowe zbierają metryki zadań Play Games.
+     */
+    private void dispatch(PluginCall call, Runnable handler) {
+        String operation = "plugin." + call.getMethodName();
+        long start = System.nanoTime();
+        try {
+            handler.run();
+        } catch (RuntimeException e) {
+            metrics.record(operation, System.nanoTime() - start, e);
+            throw e;
+        }
+        metrics.record(operation, System.nanoTime() - start, null);
     }
 
     // ========== Metody uwierzytelniania ==========
 
     @PluginMethod
     public void signIn(PluginCall call) {
-        authManager.signIn(call);
+        dispatch(call, () -> auth().signIn(call));
     }
 
     @PluginMethod
     public void signOut(PluginCall call) {
-        authManager.signOut(call);
+        dispatch(call, () -> auth().signOut(call));
     }
 
     @PluginMethod
     public void isSignedIn(PluginCall call) {
-        authManager.isSignedIn(call);
+        dispatch(call, () -> auth().isSignedIn(call));
     }
 
     @PluginMethod
     public void getPlayerInfo(PluginCall call) {
-        authManager.getPlayerInfo(call);
+        dispatch(call, () -> auth().getPlayerInfo(call));
     }
 
     // ========== Metody tablic wyników ==========
 
     @PluginMethod
     public void showLeaderboard(PluginCall call) {
-        leaderboardsManager.showLeaderboard(call);
+        dispatch(call, () -> leaderboards().showLeaderboard(call));
     }
 
     @PluginMethod
     public void showAllLeaderboards(PluginCall call) {
-        leaderboardsManager.showAllLeaderboards(call);
+        dispatch(call, () -> leaderboards().showAllLeaderboards(call));
     }
 
     @PluginMethod
     public void submitScore(PluginCall call) {
-        leaderboardsManager.submitScore(call);
+        dispatch(call, () -> leaderboards().submitScore(call));
+    }
+
+    @PluginMethod
+    public void submitScores(PluginCall call) {
+        dispatch(call, () -> leaderboards().submitScores(call));
+    }
+
+    @PluginMethod
+    public void loadTopScores(PluginCall call) {
+        dispatch(call, () -> leaderboards().loadTopScores(call));
+    }
+
+    @PluginMethod
+    public void loadPlayerCenteredScores(PluginCall call) {
+        dispatch(call, () -> leaderboards().loadPlayerCenteredScores(call));
+    }
+
+    @PluginMethod
+    public void loadCurrentPlayerScore(PluginCall call) {
+        dispatch(call, () -> leaderboards().loadCurrentPlayerScore(call));
+    }
+
+    @PluginMethod
+    public void flushScores(PluginCall call) {
+        dispatch(call, () -> leaderboards().flushScores(call));
     }
 
     // ========== Metody osiągnięć ==========
 
     @PluginMethod
     public void showAchievements(PluginCall call) {
-        achievementsManager.showAchievements(call);
+        dispatch(call, () -> achievements().showAchievements(call));
+    }
+
+    @PluginMethod
+    public void getAchievements(PluginCall call) {
+        dispatch(call, () -> achievements().getAchievements(call));
     }
 
     @PluginMethod
     public void unlockAchievement(PluginCall call) {
-        achievementsManager.unlockAchievement(call);
+        dispatch(call, () -> achievements().unlockAchievement(call));
+    }
+
+    @PluginMethod
+    public void unlockAchievements(PluginCall call) {
+        dispatch(call, () -> achievements().unlockAchievements(call));
     }
 
     @PluginMethod
     public void incrementAchievement(PluginCall call) {
-        achievementsManager.incrementAchievement(call);
+        dispatch(call, () -> achievements().incrementAchievement(call));
+    }
+
+    @PluginMethod
+    public void incrementAchievements(PluginCall call) {
+        dispatch(call, () -> achievements().incrementAchievements(call));
+    }
+
+    @PluginMethod
+    public void flushAchievementIncrements(PluginCall call) {
+        dispatch(call, () -> achievements().flushAchievementIncrements(call));
     }
 
     @PluginMethod
     public void revealAchievement(PluginCall call) {
-        achievementsManager.revealAchievement(call);
+        dispatch(call, () -> achievements().revealAchievement(call));
     }
 
     // ========== Metody zapisów gry ==========
 
     @PluginMethod
     public void saveGameData(PluginCall call) {
-        savedGamesManager.saveGameData(call);
+        dispatch(call, () -> savedGames().saveGameData(call));
     }
 
     @PluginMethod
     public void loadGameData(PluginCall call) {
-        savedGamesManager.loadGameData(call);
+        dispatch(call, () -> savedGames().loadGameData(call));
+    }
+
+    @PluginMethod
+    public void saveGameFile(PluginCall call) {
+        dispatch(call, () -> savedGames().saveGameFile(call));
+    }
+
+    @PluginMethod
+    public void loadGameFile(PluginCall call) {
+        dispatch(call, () -> savedGames().loadGameFile(call));
     }
 
     @PluginMethod
     public void showSavedGames(PluginCall call) {
-        savedGamesManager.showSavedGames(call);
+        dispatch(call, () -> savedGames().showSavedGames(call));
+    }
+
+    @PluginMethod
+    public void listSavedGames(PluginCall call) {
+        dispatch(call, () -> savedGames().listSavedGames(call));
+    }
+
+    // ========== Metody zdarzeń ==========
+
+    @PluginMethod
+    public void incrementEvent(PluginCall call) {
+        dispatch(call, () -> events().incrementEvent(call));
+    }
+
+    @PluginMethod
+    public void incrementEvents(PluginCall call) {
+        dispatch(call, () -> events().incrementEvents(call));
+    }
+
+    @PluginMethod
+    public void flushEvents(PluginCall call) {
+        dispatch(call, () -> events().flushEvents(call));
+    }
+
+    @PluginMethod
+    public void loadEvents(PluginCall call) {
+        dispatch(call, () -> events().loadEvents(call));
+    }
+
+    // ========== Metryki ==========
+
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        metricsManager.getMetrics(call);
+    }
+
+    @PluginMethod
+    public void resetMetrics(PluginCall call) {
+        metricsManager.resetMetrics(call);
     }
 }
@@ -0,0 +1,238 @@
+package pl.nekko.capacitor.play.core;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+/**
+ * Procesowa pamięć podręczna stanu uwierzytelnienia. Wynik isAuthenticated()
+ * jest ważny przez TTL, a równoległe zapytania współdzielą jedno wywołanie.
+ * Stan aktualizują wyniki logowania, wylogowania i błędy SIGN_IN_REQUIRED.
+ * <p>
+ * Każda zmiana stanu (także pierwszy ustalony stan) dostaje kolejny numer sekwencji
+ * i trafia do słuchacza. Powtórzenie tego samego stanu nie jest publikowane.
+ * <p>
+ * Obok stanu logowania pamiętany jest identyfikator gracza. Zmiana gracza (wylogowanie albo
+ * przełączenie konta) trafia do słuchacza gracza, który czyści pamięci podręczne przypisane
+ * do poprzedniego gracza; przełączenie konta jest też publikowane jako przejście stanu.
+ */
+public final class AuthStateCache {
+    private static final String TAG = "AuthStateCache";
+    private static final long DEFAULT_TTL_MS = 60_000;
+
+    public static final String REASON_CHECK = "check";
+    public static final String REASON_SIGN_IN = "signIn";
+    public static final String REASON_SIGN_OUT = "signOut";
+    public static final String REASON_REAUTH = "reauth";
+    public static final String REASON_SIGN_IN_REQUIRED = "signInRequired";
+    public static final String REASON_PLAYER_CHANGED = "playerChanged";
+
+    public interface Listener {
+        /**
+         * Wywoływany poza monitorem, na wątku, który zmienił stan.
+         */
+        void onAuthStateChanged(boolean isAuthenticated, long sequence, String reason);
+    }
+
+    public interface PlayerListener {
+        /**
+         * Wywoływany poza monitorem, zanim zmiana stanu trafi do {@link Listener}.
+         * playerId jest null po wylogowaniu.
+         */
+        void onPlayerChanged(String previousPlayerId, String playerId);
+    }
+
+    private static final AuthStateCache INSTANCE = new AuthStateCache();
+
+    private Boolean authenticated;
+    private Boolean published;
+    private long sequence;
+    private long updatedAt;
+    private long ttlMs = DEFAULT_TTL_MS;
+    private String playerId;
+    private Task<Boolean> inFlight;
+    private volatile Listener listener;
+    private volatile PlayerListener playerListener;
+
+    /**
+     * Osobna instancja, np. dla testów i benchmarków – plugin korzysta z {@link #getInstance()}.
+     */
+    public AuthStateCache() {
+    }
+
+    public static AuthStateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Zwraca stan uwierzytelnienia z pamięci podręcznej lub odpytuje klienta, gdy wpis wygasł.
+     */
+    public Task<Boolean> isAuthenticated(GamesBackend.SignIn signInClient) {
+        return isAuthenticated(signInClient, false);
+    }
+
+    public synchronized Task<Boolean> isAuthenticated(GamesBackend.SignIn signInClient, boolean forceRefresh) {
+        if (!forceRefresh && isFresh()) {
+            return Tasks.forResult(authenticated);
+        }
+        if (inFlight != null && !inFlight.isComplete()) {
+            return inFlight;
+        }
+        inFlight = signInClient.isAuthenticated().continueWith(task -> {
+            if (!task.isSuccessful()) {
+                // Błąd sprawdzenia (np. brak sieci) nie oznacza wylogowania – zostaje ostatni znany stan
+                // i wpis pozostaje nieświeży, więc kolejne sprawdzenie znów odpyta klienta
+                Boolean known = current();
+                Log.w(TAG, "Auth check failed, keeping last known state=" + known, task.getException());
+                if (known == null) {
+                    throw task.getException() != null ? task.getException() : new IllegalStateException("Auth check cancelled");
+                }
+                return known;
+            }
+            boolean isAuthenticated = task.getResult() != null && task.getResult().isAuthenticated();
+            update(isAuthenticated, REASON_CHECK);
+            return isAuthenticated;
+        });
+        return inFlight;
+    }
+
+    public void update(boolean isAuthenticated) {
+        update(isAuthenticated, REASON_CHECK);
+    }
+
+    /**
+     * Zapisuje stan uwierzytelnienia znany z wyniku logowania lub wylogowania
+     * i publikuje go, jeśli różni się od ostatnio opublikowanego.
+     */
+    public void update(boolean isAuthenticated, String reason) {
+        long changed;
+        String previousPlayerId;
+        synchronized (this) {
+            authenticated = isAuthenticated;
+            updatedAt = SystemClock.elapsedRealtime();
+            // Wylogowanie zapomina gracza; zalogowanie ustala go dopiero updatePlayer
+            previousPlayerId = playerId;
+            if (!isAuthenticated) {
+                playerId = null;
+            }
+            if (published != null && published == isAuthenticated) {
+                changed = 0;
+            } else {
+                published = isAuthenticated;
+                changed = ++sequence;
+            }
+        }
+        if (!isAuthenticated && previousPlayerId != null) {
+            notifyPlayerChanged(previousPlayerId, null);
+        }
+        if (changed == 0) {
+            return;
+        }
+        Log.d(TAG, "Auth state changed, authenticated=" + isAuthenticated + ", reason=" + reason + ", sequence=" + changed);
+        notifyAuthStateChanged(isAuthenticated, changed, reason);
+    }
+
+    /**
+     * Zapisuje identyfikator gracza wczytany po zalogowaniu lub sprawdzeniu stanu. Inny gracz niż
+     * dotychczasowy oznacza przełączenie konta: słuchacz gracza czyści jego dane, a przejście
+     * jest publikowane z przyczyną {@link #REASON_PLAYER_CHANGED}. Ignorowane, gdy użytkownik
+     * jest w międzyczasie wylogowany.
+     */
+    public void updatePlayer(String newPlayerId) {
+        String previousPlayerId;
+        long changed = 0;
+        synchronized (this) {
+            if (newPlayerId == null || Boolean.FALSE.equals(authenticated) || newPlayerId.equals(playerId)) {
+                return;
+            }
+            previousPlayerId = playerId;
+            playerId = newPlayerId;
+            if (previousPlayerId != null) {
+                changed = ++sequence;
+            }
+        }
+        if (previousPlayerId == null) {
+            // Pierwszy gracz po starcie lub zalogowaniu – pamięci podręczne nie mają czyjego stanu wyczyścić
+            return;
+        }
+        Log.d(TAG, "Player changed, sequence=" + changed);
+        notifyPlayerChanged(previousPlayerId, newPlayerId);
+        notifyAuthStateChanged(true, changed, REASON_PLAYER_CHANGED);
+    }
+
+    /**
+     * Identyfikator bieżącego gracza lub null, jeśli nie jest jeszcze znany albo nikt nie jest zalogowany.
+     */
+    public synchronized String playerId() {
+        return playerId;
+    }
+
+    private void notifyAuthStateChanged(boolean isAuthenticated, long changed, String reason) {
+        Listener current = listener;
+        if (current != null) {
+            current.onAuthStateChanged(isAuthenticated, changed, reason);
+        }
+    }
+
+    private void notifyPlayerChanged(String previousPlayerId, String newPlayerId) {
+        PlayerListener current = playerListener;
+        if (current != null) {
+            current.onPlayerChanged(previousPlayerId, newPlayerId);
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setPlayerListener(PlayerListener playerListener) {
+        this.playerListener = playerListener;
+    }
+
+    public synchronized void invalidate() {
+        authenticated = null;
+        updatedAt = 0;
+    }
+
+    /**
+     * Oznacza użytkownika jako niezalogowanego, jeśli błąd wywołania Play Games oznacza utratę sesji.
+     */
+    public void onApiFailure(Exception e) {
+        if (e instanceof ApiException
+                && ((ApiException) e).getStatusCode() == CommonStatusCodes.SIGN_IN_REQUIRED) {
+            Log.d(TAG, "Sign in required, session lost");
+            update(false, REASON_SIGN_IN_REQUIRED);
+        }
+    }
+
+    /**
+     * Zwraca ostatni znany stan bez odpytywania klienta lub null, jeśli nie jest znany.
+     */
+    public synchronized Boolean peek() {
+        return isFresh() ? authenticated : null;
+    }
+
+    /**
+     * Ostatni opublikowany stan niezależnie od TTL lub null, jeśli stan nie był jeszcze ustalony.
+     * Aktualność zapewniają zdarzenia: logowanie, wylogowanie, błędy API i sprawdzenie przy wznowieniu.
+     */
+    public synchronized Boolean current() {
+        return published;
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public synchronized void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    private boolean isFresh() {
+        return authenticated != null && SystemClock.elapsedRealtime() - updatedAt < ttlMs;
+    }
+}
@@ -0,0 +1,18 @@
+package pl.nekko.capacitor.play.core;
+
+/**
+ * Wywołanie odrzucone bez kontaktu z Play Games, bo obwód {@link ResilientCalls} jest otwarty.
+ */
+public class CircuitOpenException extends Exception {
+
+    private final long retryAfterMs;
+
+    public CircuitOpenException(String operation, long retryAfterMs) {
+        super("Play Games backend unavailable, " + operation + " not attempted (retry in " + retryAfterMs + " ms)");
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,111 @@
+package pl.nekko.capacitor.play.core;
+
+import android.content.Intent;
+
+import com.google.android.gms.games.AnnotatedData;
+import com.google.android.gms.games.AuthenticationResult;
+import com.google.android.gms.games.LeaderboardsClient;
+import com.google.android.gms.games.Player;
+import com.google.android.gms.games.SnapshotsClient;
+import com.google.android.gms.games.achievement.AchievementBuffer;
+import com.google.android.gms.games.event.EventBuffer;
+import com.google.android.gms.games.leaderboard.LeaderboardScore;
+import com.google.android.gms.games.leaderboard.LeaderboardScoreBuffer;
+import com.google.android.gms.games.leaderboard.ScoreSubmissionData;
+import com.google.android.gms.games.snapshot.Snapshot;
+import com.google.android.gms.games.snapshot.SnapshotContents;
+import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataBuffer;
+import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
+import com.google.android.gms.tasks.Task;
+
+/**
+ * Granica między managerami a usługami Play Games.
+ * <p>
+ * Każdy interfejs zawiera tylko metody faktycznie używane przez pluginy, z sygnaturami
+ * zgodnymi z klientami Play Games. Produkcyjną implementacją jest {@link PlayGamesClients};
+ * testy mogą podstawić własny backend, np. w pamięci, i uruchamiać managery na zwykłej JVM.
+ */
+public interface GamesBackend {
+
+    SignIn getSignIn();
+
+    Players getPlayers();
+
+    Leaderboards getLeaderboards();
+
+    Achievements getAchievements();
+
+    Snapshots getSnapshots();
+
+    Events getEvents();
+
+    interface SignIn {
+        Task<AuthenticationResult> isAuthenticated();
+
+        Task<AuthenticationResult> signIn();
+    }
+
+    interface Players {
+        Task<Player> getCurrentPlayer();
+    }
+
+    interface Leaderboards {
+        Task<Intent> getLeaderboardIntent(String leaderboardId);
+
+        Task<Intent> getAllLeaderboardsIntent();
+
+        Task<ScoreSubmissionData> submitScoreImmediate(String leaderboardId, long score);
+
+        Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadTopScores(String leaderboardId, int timeSpan,
+                int collection, int maxResults, boolean forceReload);
+
+        Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadPlayerCenteredScores(String leaderboardId,
+                int timeSpan, int collection, int maxResults, boolean forceReload);
+
+        Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadMoreScores(LeaderboardScoreBuffer buffer,
+                int maxResults, int pageDirection);
+
+        Task<AnnotatedData<LeaderboardScore>> loadCurrentPlayerLeaderboardScore(String leaderboardId, int timeSpan,
+                int collection);
+    }
+
+    interface Achievements {
+        Task<Intent> getAchievementsIntent();
+
+        Task<Void> unlockImmediate(String achievementId);
+
+        Task<Void> revealImmediate(String achievementId);
+
+        void increment(String achievementId, int steps);
+
+        Task<Boolean> incrementImmediate(String achievementId, int steps);
+
+        Task<AnnotatedData<AchievementBuffer>> load(boolean forceReload);
+    }
+
+    interface Snapshots {
+        Task<SnapshotsClient.DataOrConflict<Snapshot>> open(String fileName, boolean createIfNotFound,
+                int conflictPolicy);
+
+        Task<SnapshotsClient.DataOrConflict<Snapshot>> resolveConflict(String conflictId, Snapshot snapshot);
+
+        Task<SnapshotsClient.DataOrConflict<Snapshot>> resolveConflict(String conflictId, String snapshotId,
+                SnapshotMetadataChange metadataChange, SnapshotContents contents);
+
+        Task<SnapshotMetadata> commitAndClose(Snapshot snapshot, SnapshotMetadataChange metadataChange);
+
+        Task<Void> discardAndClose(Snapshot snapshot);
+
+        Task<AnnotatedData<SnapshotMetadataBuffer>> load(boolean forceReload);
+
+        Task<Intent> getSelectSnapshotIntent(String title, boolean allowAddButton, boolean allowDelete,
+                int maxSnapshots);
+    }
+
+    interface Events {
+        void increment(String eventId, int incrementAmount);
+
+        Task<AnnotatedData<EventBuffer>> load(boolean forceReload);
+    }
+}
@@ -0,0 +1,178 @@
+package pl.nekko.capacitor.play.core;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+
+/**
+ * Rejestr wywołań, które plugin przetrzymuje dłużej niż trwa obsługa metody, np. czekających
+ * na zamknięcie aktywności UI. Wywołania są zapisane pod callbackId, więc żadna obietnica nie
+ * ginie bez odpowiedzi – przy zamknięciu pluginu wszystkie pozostałe są odrzucane.
+ * <p>
+ * Rejestr łączy też identyczne odczyty: dopóki zadanie o danym kluczu trwa, kolejni
+ * wywołujący dostają to samo zadanie zamiast wysyłać nowe zapytanie.
+ */
+public final class InFlightCalls implements MetricsSource {
+    private static final String TAG = "InFlightCalls";
+
+    public static final String UI_BUSY_QUEUE = "queue";
+    public static final String UI_BUSY_REJECT = "reject";
+
+    public interface Loader<T> {
+        Task<T> load();
+    }
+
+    private static final class Entry {
+        final PluginCall call;
+        final String operation;
+        final long startedAt;
+
+        Entry(PluginCall call, String operation, long startedAt) {
+            this.call = call;
+            this.operation = operation;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private final Executor executor;
+    private final Map<String, Entry> calls = new LinkedHashMap<>();
+    private final Map<String, Task<?>> shared = new HashMap<>();
+    private long sharedLoads;
+    private long joinedLoads;
+    private volatile String uiBusyPolicy = UI_BUSY_QUEUE;
+
+    public InFlightCalls(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Zapisuje wywołanie jako oczekujące na odpowiedź.
+     */
+    public synchronized void track(PluginCall call, String operation) {
+        calls.put(call.getCallbackId(), new Entry(call, operation, SystemClock.elapsedRealtime()));
+    }
+
+    /**
+     * Usuwa wywołanie z rejestru. Zwraca false, jeśli nie było zapisane.
+     */
+    public synchronized boolean release(PluginCall call) {
+        return calls.remove(call.getCallbackId()) != null;
+    }
+
+    public synchronized int size() {
+        return calls.size();
+    }
+
+    /**
+     * Zwraca zadanie o danym kluczu, jeśli jeszcze trwa, albo uruchamia nowe.
+     * Wynik i błąd trafiają do wszystkich wywołujących.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Task<T> singleFlight(String key, Loader<T> loader) {
+        TaskCompletionSource<T> reserved;
+        synchronized (this) {
+            Task<?> running = shared.get(key);
+            if (running != null) {
+                joinedLoads++;
+                return (Task<T>) running;
+            }
+            sharedLoads++;
+            // Klucz jest zajęty, zanim loader wystartuje – równoległe wywołania dołączą do tego zadania
+            reserved = new TaskCompletionSource<>();
+            shared.put(key, reserved.getTask());
+        }
+        // Zadanie startuje poza monitorem – loader może wywołać kod, który sam korzysta z rejestru
+        Task<T> task;
+        try {
+            task = loader.load();
+        } catch (RuntimeException e) {
+            unshare(key, reserved.getTask());
+            reserved.setException(e);
+            return reserved.getTask();
+        }
+        if (task.isComplete()) {
+            complete(key, reserved, task);
+            return task;
+        }
+        task.addOnCompleteListener(executor, completed -> complete(key, reserved, completed));
+        return reserved.getTask();
+    }
+
+    /**
+     * Zwalnia klucz i przekazuje wynik zadania wywołującym, którzy do niego dołączyli.
+     */
+    private <T> void complete(String key, TaskCompletionSource<T> reserved, Task<T> completed) {
+        unshare(key, reserved.getTask());
+        if (completed.isSuccessful()) {
+            reserved.setResult(completed.getResult());
+        } else if (completed.isCanceled()) {
+            reserved.setException(new CancellationException("Shared load cancelled: " + key));
+        } else {
+            reserved.setException(completed.getException());
+        }
+    }
+
+    private synchronized void unshare(String key, Task<?> task) {
+        if (shared.get(key) == task) {
+            shared.remove(key);
+        }
+    }
+
+    /**
+     * Odrzuca wszystkie zapisane wywołania, np. przy zamykaniu pluginu.
+     */
+    public void rejectAll(String message) {
+        List<Entry> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(calls.values());
+            calls.clear();
+        }
+        for (Entry entry : pending) {
+            Log.d(TAG, "Rejecting in-flight call " + entry.call.getCallbackId() + " (" + entry.operation + ")");
+            entry.call.reject(message);
+        }
+    }
+
+    /**
+     * Domyślna reakcja na wywołanie UI, gdy inna aktywność jest już otwarta: queue albo reject.
+     */
+    public String getUiBusyPolicy() {
+        return uiBusyPolicy;
+    }
+
+    public void configure(JSObject options) {
+        String whenUiBusy = options.getString("whenUiBusy");
+        if (UI_BUSY_QUEUE.equals(whenUiBusy) || UI_BUSY_REJECT.equals(whenUiBusy)) {
+            uiBusyPolicy = whenUiBusy;
+        }
+        Log.d(TAG, "In-flight calls configured, whenUiBusy=" + uiBusyPolicy);
+    }
+
+    @Override
+    public synchronized JSObject toJSObject() {
+        long now = SystemClock.elapsedRealtime();
+        long oldest = 0;
+        for (Entry entry : calls.values()) {
+            oldest = Math.max(oldest, now - entry.startedAt);
+        }
+        JSObject result = new JSObject();
+        result.put("calls", calls.size());
+        result.put("oldestMs", oldest);
+        result.put("sharedTasks", shared.size());
+        result.put("sharedLoads", sharedLoads);
+        result.put("joinedLoads", joinedLoads);
+        return result;
+    }
+}
@@ -0,0 +1,10 @@
+package pl.nekko.capacitor.play.core;
+
+import com.getcapacitor.JSObject;
+
+/**
+ * Składnik pluginu, którego stan jest dołączany do getMetrics i zdarzenia metricsReport.
+ */
+public interface MetricsSource {
+    JSObject toJSObject();
+}
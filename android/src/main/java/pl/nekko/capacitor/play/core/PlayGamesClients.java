@@ -0,0 +1,295 @@
+package pl.nekko.capacitor.play.core;
+
+import android.app.Activity;
+import android.content.Intent;
+
+import com.google.android.gms.games.AchievementsClient;
+import com.google.android.gms.games.AnnotatedData;
+import com.google.android.gms.games.AuthenticationResult;
+import com.google.android.gms.games.EventsClient;
+import com.google.android.gms.games.GamesSignInClient;
+import com.google.android.gms.games.LeaderboardsClient;
+import com.google.android.gms.games.PlayGames;
+import com.google.android.gms.games.Player;
+import com.google.android.gms.games.PlayersClient;
+import com.google.android.gms.games.SnapshotsClient;
+import com.google.android.gms.games.achievement.AchievementBuffer;
+import com.google.android.gms.games.event.EventBuffer;
+import com.google.android.gms.games.leaderboard.LeaderboardScore;
+import com.google.android.gms.games.leaderboard.LeaderboardScoreBuffer;
+import com.google.android.gms.games.leaderboard.ScoreSubmissionData;
+import com.google.android.gms.games.snapshot.Snapshot;
+import com.google.android.gms.games.snapshot.SnapshotContents;
+import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataBuffer;
+import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
+import com.google.android.gms.tasks.Task;
+
+/**
+ * Produkcyjny {@link GamesBackend} oparty na klientach Play Games. Każdy klient jest tworzony raz,
+ * przy pierwszym użyciu, i współdzielony przez wszystkie managery.
+ * Klienci są opakowani przez {@link PluginMetrics}, więc każde zadanie jest mierzone, a zapisy
+ * dodatkowo przez {@link ResilientCalls} – każda próba jest mierzona osobno. Zapisy tablic wyników
+ * i osiągnięć przechodzą najpierw przez {@link RateLimiter}, więc jedno wywołanie zużywa jeden żeton
+ * niezależnie od liczby ponowień.
+ */
+public class PlayGamesClients implements GamesBackend {
+
+    private final Activity activity;
+    private final PluginMetrics metrics;
+    private final ResilientCalls resilience;
+    private final RateLimiter rateLimiter;
+
+    private SignIn signIn;
+    private Players players;
+    private Leaderboards leaderboards;
+    private Achievements achievements;
+    private Snapshots snapshots;
+    private Events events;
+
+    public PlayGamesClients(Activity activity, PluginMetrics metrics, ResilientCalls resilience,
+                            RateLimiter rateLimiter) {
+        this.activity = activity;
+        this.metrics = metrics;
+        this.resilience = resilience;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public synchronized SignIn getSignIn() {
+        if (signIn == null) {
+            signIn = metrics.instrument(SignIn.class, new SignInAdapter(PlayGames.getGamesSignInClient(activity)), "signIn");
+        }
+        return signIn;
+    }
+
+    @Override
+    public synchronized Players getPlayers() {
+        if (players == null) {
+            players = metrics.instrument(Players.class, new PlayersAdapter(PlayGames.getPlayersClient(activity)), "players");
+        }
+        return players;
+    }
+
+    @Override
+    public synchronized Leaderboards getLeaderboards() {
+        if (leaderboards == null) {
+            leaderboards = rateLimiter.limit(Leaderboards.class, resilience.protect(Leaderboards.class,
+                    metrics.instrument(Leaderboards.class,
+                            new LeaderboardsAdapter(PlayGames.getLeaderboardsClient(activity)), "leaderboards"),
+                    "leaderboards", "submitScoreImmediate"), "submitScoreImmediate");
+        }
+        return leaderboards;
+    }
+
+    @Override
+    public synchronized Achievements getAchievements() {
+        if (achievements == null) {
+            achievements = rateLimiter.limit(Achievements.class, resilience.protect(Achievements.class,
+                    metrics.instrument(Achievements.class,
+                            new AchievementsAdapter(PlayGames.getAchievementsClient(activity)), "achievements"),
+                    "achievements", "unlockImmediate", "revealImmediate", "incrementImmediate"),
+                    "unlockImmediate", "revealImmediate", "incrementImmediate");
+        }
+        return achievements;
+    }
+
+    @Override
+    public synchronized Snapshots getSnapshots() {
+        if (snapshots == null) {
+            // commitAndClose nie jest ponawiane: zamyka snapshot także po błędzie, a ponowienie
+            // użyłoby zamkniętego snapshotu – wymagałoby ponownego otwarcia i zapisu zawartości
+            snapshots = metrics.instrument(Snapshots.class,
+                    new SnapshotsAdapter(PlayGames.getSnapshotsClient(activity)), "snapshots");
+        }
+        return snapshots;
+    }
+
+    @Override
+    public synchronized Events getEvents() {
+        if (events == null) {
+            events = metrics.instrument(Events.class, new EventsAdapter(PlayGames.getEventsClient(activity)), "events");
+        }
+        return events;
+    }
+
+    private static final class SignInAdapter implements SignIn {
+        private final GamesSignInClient client;
+
+        SignInAdapter(GamesSignInClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public Task<AuthenticationResult> isAuthenticated() {
+            return client.isAuthenticated();
+        }
+
+        @Override
+        public Task<AuthenticationResult> signIn() {
+            return client.signIn();
+        }
+    }
+
+    private static final class PlayersAdapter implements Players {
+        private final PlayersClient client;
+
+        PlayersAdapter(PlayersClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public Task<Player> getCurrentPlayer() {
+            return client.getCurrentPlayer();
+        }
+    }
+
+    private static final class LeaderboardsAdapter implements Leaderboards {
+        private final LeaderboardsClient client;
+
+        LeaderboardsAdapter(LeaderboardsClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public Task<Intent> getLeaderboardIntent(String leaderboardId) {
+            return client.getLeaderboardIntent(leaderboardId);
+        }
+
+        @Override
+        public Task<Intent> getAllLeaderboardsIntent() {
+            return client.getAllLeaderboardsIntent();
+        }
+
+        @Override
+        public Task<ScoreSubmissionData> submitScoreImmediate(String leaderboardId, long score) {
+            return client.submitScoreImmediate(leaderboardId, score);
+        }
+
+        @Override
+        public Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadTopScores(String leaderboardId,
+                int timeSpan, int collection, int maxResults, boolean forceReload) {
+            return client.loadTopScores(leaderboardId, timeSpan, collection, maxResults, forceReload);
+        }
+
+        @Override
+        public Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadPlayerCenteredScores(String leaderboardId,
+                int timeSpan, int collection, int maxResults, boolean forceReload) {
+            return client.loadPlayerCenteredScores(leaderboardId, timeSpan, collection, maxResults, forceReload);
+        }
+
+        @Override
+        public Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadMoreScores(LeaderboardScoreBuffer buffer,
+                int maxResults, int pageDirection) {
+            return client.loadMoreScores(buffer, maxResults, pageDirection);
+        }
+
+        @Override
+        public Task<AnnotatedData<LeaderboardScore>> loadCurrentPlayerLeaderboardScore(String leaderboardId,
+                int timeSpan, int collection) {
+            return client.loadCurrentPlayerLeaderboardScore(leaderboardId, timeSpan, collection);
+        }
+    }
+
+    private static final class AchievementsAdapter implements Achievements {
+        private final AchievementsClient client;
+
+        AchievementsAdapter(AchievementsClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public Task<Intent> getAchievementsIntent() {
+            return client.getAchievementsIntent();
+        }
+
+        @Override
+        public Task<Void> unlockImmediate(String achievementId) {
+            return client.unlockImmediate(achievementId);
+        }
+
+        @Override
+        public Task<Void> revealImmediate(String achievementId) {
+            return client.revealImmediate(achievementId);
+        }
+
+        @Override
+        public void increment(String achievementId, int steps) {
+            client.increment(achievementId, steps);
+        }
+
+        @Override
+        public Task<Boolean> incrementImmediate(String achievementId, int steps) {
+            return client.incrementImmediate(achievementId, steps);
+        }
+
+        @Override
+        public Task<AnnotatedData<AchievementBuffer>> load(boolean forceReload) {
+            return client.load(forceReload);
+        }
+    }
+
+    private static final class SnapshotsAdapter implements Snapshots {
+        private final SnapshotsClient client;
+
+        SnapshotsAdapter(SnapshotsClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public Task<SnapshotsClient.DataOrConflict<Snapshot>> open(String fileName, boolean createIfNotFound,
+                int conflictPolicy) {
+            return client.open(fileName, createIfNotFound, conflictPolicy);
+        }
+
+        @Override
+        public Task<SnapshotsClient.DataOrConflict<Snapshot>> resolveConflict(String conflictId, Snapshot snapshot) {
+            return client.resolveConflict(conflictId, snapshot);
+        }
+
+        @Override
+        public Task<SnapshotsClient.DataOrConflict<Snapshot>> resolveConflict(String conflictId, String snapshotId,
+                SnapshotMetadataChange metadataChange, SnapshotContents contents) {
+            return client.resolveConflict(conflictId, snapshotId, metadataChange, contents);
+        }
+
+        @Override
+        public Task<SnapshotMetadata> commitAndClose(Snapshot snapshot, SnapshotMetadataChange metadataChange) {
+            return client.commitAndClose(snapshot, metadataChange);
+        }
+
+        @Override
+        public Task<Void> discardAndClose(Snapshot snapshot) {
+            return client.discardAndClose(snapshot);
+        }
+
+        @Override
+        public Task<AnnotatedData<SnapshotMetadataBuffer>> load(boolean forceReload) {
+            return client.load(forceReload);
+        }
+
+        @Override
+        public Task<Intent> getSelectSnapshotIntent(String title, boolean allowAddButton, boolean allowDelete,
+                int maxSnapshots) {
+            return client.getSelectSnapshotIntent(title, allowAddButton, allowDelete, maxSnapshots);
+        }
+    }
+
+    private static final class EventsAdapter implements Events {
+        private final EventsClient client;
+
+        EventsAdapter(EventsClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public void increment(String eventId, int incrementAmount) {
+            client.increment(eventId, incrementAmount);
+        }
+
+        @Override
+        public Task<AnnotatedData<EventBuffer>> load(boolean forceReload) {
+            return client.load(forceReload);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package pl.nekko.capacitor.play.core;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wykonawcy dla kontynuacji zadań Play Games.
+ * <p>
+ * Domyślnie listenery Task działają na wątku głównym, więc odczyt snapshotów, dekodowanie
+ * i budowanie JSObject dla dużych zapisów blokowałyby UI. Managery przekazują wszystkie
+ * kontynuacje do {@link #io()}, a na {@link #main()} trafiają tylko uruchomienia aktywności.
+ */
+public class PluginExecutors {
+    private static final int MAX_IO_THREADS = 4;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final Executor io;
+    private final Executor main;
+
+    public PluginExecutors() {
+        this(createIoExecutor(), new MainThreadExecutor());
+    }
+
+    public PluginExecutors(Executor io, Executor main) {
+        this.io = io;
+        this.main = main;
+    }
+
+    /**
+     * Pula wątków dla I/O i przetwarzania danych.
+     */
+    public Executor io() {
+        return io;
+    }
+
+    /**
+     * Wątek główny – wyłącznie dla operacji wymagających UI (uruchamianie aktywności).
+     */
+    public Executor main() {
+        return main;
+    }
+
+    private static Executor createIoExecutor() {
+        // Zadania są krótkie i głównie czekają na dysk – kilka wątków wystarcza
+        int threads = Math.max(2, Math.min(MAX_IO_THREADS, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("pgs-io-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final class MainThreadExecutor implements Executor {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                command.run();
+            } else {
+                handler.post(command);
+            }
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
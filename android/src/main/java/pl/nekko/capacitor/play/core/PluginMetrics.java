@@ -0,0 +1,194 @@
+package pl.nekko.capacitor.play.core;
+
+import com.getcapacitor.JSObject;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.tasks.Task;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metryki wywołań pluginu i zadań Play Games: histogram opóźnień, liczba sukcesów,
+ * błędy według typu wyjątku oraz rozmiary przesyłanych danych.
+ * <p>
+ * Zapis jest bezblokadowy (liczniki atomowe), a zadania są mierzone przez listener
+ * dodawany do istniejącego Task, więc instrumentacja nie zmienia przepływu wywołań.
+ */
+public class PluginMetrics {
+
+    private static final class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong successes = new AtomicLong();
+        final ConcurrentHashMap<String, AtomicLong> failures = new ConcurrentHashMap<>();
+
+        void reset() {
+            latency.reset();
+            successes.set(0);
+            failures.clear();
+        }
+    }
+
+    private static final class SizeStats {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalBytes = new AtomicLong();
+        final AtomicLong maxBytes = new AtomicLong();
+
+        void reset() {
+            count.set(0);
+            totalBytes.set(0);
+            maxBytes.set(0);
+        }
+    }
+
+    private final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SizeStats> sizes = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private volatile long resetAt = System.currentTimeMillis();
+
+    public PluginMetrics(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void record(String operation, long durationNanos, Exception failure) {
+        OperationStats stats = statsFor(operation);
+        stats.latency.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        if (failure == null) {
+            stats.successes.incrementAndGet();
+        } else {
+            stats.failures.computeIfAbsent(failureKey(failure), key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    public void recordSize(String name, long bytes) {
+        SizeStats stats = sizes.get(name);
+        if (stats == null) {
+            stats = sizes.computeIfAbsent(name, key -> new SizeStats());
+        }
+        stats.count.incrementAndGet();
+        stats.totalBytes.addAndGet(bytes);
+        long previous;
+        while (bytes > (previous = stats.maxBytes.get()) && !stats.maxBytes.compareAndSet(previous, bytes)) {
+            // Ponawiamy, dopóki inny wątek nie zapisze większej wartości
+        }
+    }
+
+    /**
+     * Opakowuje klienta Play Games tak, aby każde zwracane przez niego zadanie było mierzone
+     * pod nazwą {@code prefiks.metoda}.
+     */
+    @SuppressWarnings("unchecked")
+    public <C> C instrument(Class<C> clientInterface, C client, String prefix) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = method.invoke(client, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Task) {
+                String operation = prefix + "." + method.getName();
+                ((Task<?>) result).addOnCompleteListener(executor, completed -> record(operation,
+                        System.nanoTime() - start, failureOf(completed)));
+            }
+            return result;
+        };
+        return (C) Proxy.newProxyInstance(clientInterface.getClassLoader(), new Class<?>[]{clientInterface}, handler);
+    }
+
+    public void reset() {
+        for (OperationStats stats : operations.values()) {
+            stats.reset();
+        }
+        for (SizeStats stats : sizes.values()) {
+            stats.reset();
+        }
+        resetAt = System.currentTimeMillis();
+    }
+
+    public JSObject toJSObject() {
+        JSObject operationsJson = new JSObject();
+        for (Map.Entry<String, OperationStats> entry : new TreeMap<>(operations).entrySet()) {
+            OperationStats stats = entry.getValue();
+            if (stats.latency.count() == 0) {
+                continue;
+            }
+            JSObject failures = new JSObject();
+            long failureCount = 0;
+            for (Map.Entry<String, AtomicLong> failure : stats.failures.entrySet()) {
+                failures.put(failure.getKey(), failure.getValue().get());
+                failureCount += failure.getValue().get();
+            }
+            JSObject json = new JSObject();
+            json.put("count", stats.latency.count());
+            json.put("success", stats.successes.get());
+            json.put("failure", failureCount);
+            json.put("failures", failures);
+            json.put("meanMs", round(stats.latency.meanMicros() / 1000.0));
+            json.put("p50Ms", round(stats.latency.percentileMicros(50) / 1000.0));
+            json.put("p90Ms", round(stats.latency.percentileMicros(90) / 1000.0));
+            json.put("p99Ms", round(stats.latency.percentileMicros(99) / 1000.0));
+            json.put("maxMs", round(stats.latency.maxMicros() / 1000.0));
+            operationsJson.put(entry.getKey(), json);
+        }
+
+        JSObject sizesJson = new JSObject();
+        for (Map.Entry<String, SizeStats> entry : new TreeMap<>(sizes).entrySet()) {
+            SizeStats stats = entry.getValue();
+            long count = stats.count.get();
+            if (count == 0) {
+                continue;
+            }
+            JSObject json = new JSObject();
+            json.put("count", count);
+            json.put("totalBytes", stats.totalBytes.get());
+            json.put("maxBytes", stats.maxBytes.get());
+            json.put("meanBytes", stats.totalBytes.get() / count);
+            sizesJson.put(entry.getKey(), json);
+        }
+
+        JSObject result = new JSObject();
+        result.put("since", resetAt);
+        result.put("timestamp", System.currentTimeMillis());
+        result.put("operations", operationsJson);
+        result.put("payloads", sizesJson);
+        return result;
+    }
+
+    private OperationStats statsFor(String operation) {
+        OperationStats stats = operations.get(operation);
+        return stats != null ? stats : operations.computeIfAbsent(operation, key -> new OperationStats());
+    }
+
+    /**
+     * Anulowane zadanie nie jest udane, ale nie ma wyjątku – liczymy je jako osobny rodzaj błędu.
+     */
+    private static Exception failureOf(Task<?> completed) {
+        if (completed.isSuccessful()) {
+            return null;
+        }
+        if (completed.isCanceled()) {
+            return new CancellationException("Task cancelled");
+        }
+        return completed.getException();
+    }
+
+    private static String failureKey(Exception failure) {
+        if (failure instanceof ApiException) {
+            return "ApiException:" + ((ApiException) failure).getStatusCode();
+        }
+        return failure != null ? failure.getClass().getSimpleName() : "Unknown";
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
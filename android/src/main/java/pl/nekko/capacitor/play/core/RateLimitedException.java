@@ -0,0 +1,11 @@
+package pl.nekko.capacitor.play.core;
+
+/**
+ * Wywołanie odrzucone przez {@link RateLimiter}, bo budżet zapisów danej klasy operacji jest wyczerpany.
+ */
+public class RateLimitedException extends Exception {
+
+    public RateLimitedException(String bucket) {
+        super("Rate limit exceeded for " + bucket + ", call shed");
+    }
+}
@@ -0,0 +1,280 @@
+package pl.nekko.capacitor.play.core;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Ogranicznik zapisów do Play Games oparty na kubełkach żetonów – osobny kubełek dla każdej
+ * klasy operacji (submitScore, unlock, increment, reveal). Gdy kubełek jest pusty, wywołanie
+ * czeka w kolejce na żeton (policy=queue) albo od razu kończy się {@link RateLimitedException}
+ * (policy=shed). Przepełniona kolejka również odrzuca.
+ */
+public final class RateLimiter implements MetricsSource {
+    private static final String TAG = "RateLimiter";
+
+    public static final String POLICY_QUEUE = "queue";
+    public static final String POLICY_SHED = "shed";
+
+    private static final String IMMEDIATE_SUFFIX = "Immediate";
+
+    private static final class Waiting {
+        final Method method;
+        final Object client;
+        final Object[] args;
+        final TaskCompletionSource<Object> source;
+        final long queuedAt;
+
+        Waiting(Method method, Object client, Object[] args, TaskCompletionSource<Object> source, long queuedAt) {
+            this.method = method;
+            this.client = client;
+            this.args = args;
+            this.source = source;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    private static final class Bucket {
+        final String name;
+        double capacity = 30;
+        double refillPerSecond = 5;
+        String policy = POLICY_QUEUE;
+        int maxQueue = 200;
+
+        double tokens = capacity;
+        long refilledAt = SystemClock.elapsedRealtime();
+        final ArrayDeque<Waiting> waiting = new ArrayDeque<>();
+        boolean drainScheduled;
+
+        long admitted;
+        long delayed;
+        long shed;
+        long maxDelayMs;
+
+        Bucket(String name) {
+            this.name = name;
+        }
+
+        void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerSecond / 1000.0);
+            refilledAt = now;
+        }
+
+        /**
+         * Czas do uzbierania pełnego żetonu.
+         */
+        long msUntilToken() {
+            return Math.max(1, (long) Math.ceil((1 - tokens) * 1000.0 / refillPerSecond));
+        }
+    }
+
+    private final Executor executor;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, Bucket> buckets = new LinkedHashMap<>();
+
+    public RateLimiter(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Opakowuje klienta tak, aby wskazane metody zwracające Task przechodziły przez kubełek
+     * nazwany od metody bez przyrostka Immediate (np. submitScoreImmediate → submitScore).
+     */
+    @SuppressWarnings("unchecked")
+    public <C> C limit(Class<C> clientInterface, C client, String... methods) {
+        Set<String> limited = new HashSet<>(Arrays.asList(methods));
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (!limited.contains(method.getName())) {
+                try {
+                    return method.invoke(client, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            return acquire(bucketName(method.getName()), method, client, args);
+        };
+        return (C) Proxy.newProxyInstance(clientInterface.getClassLoader(), new Class<?>[]{clientInterface},
+                invocationHandler);
+    }
+
+    private static String bucketName(String method) {
+        return method.endsWith(IMMEDIATE_SUFFIX)
+                ? method.substring(0, method.length() - IMMEDIATE_SUFFIX.length())
+                : method;
+    }
+
+    private Task<Object> acquire(String name, Method method, Object client, Object[] args) {
+        TaskCompletionSource<Object> source;
+        synchronized (this) {
+            Bucket bucket = bucket(name);
+            bucket.refill(SystemClock.elapsedRealtime());
+            if (bucket.waiting.isEmpty() && bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                bucket.admitted++;
+                source = null;
+            } else if (POLICY_QUEUE.equals(bucket.policy) && bucket.waiting.size() < bucket.maxQueue) {
+                source = new TaskCompletionSource<>();
+                bucket.waiting.add(new Waiting(method, client, args, source, SystemClock.elapsedRealtime()));
+                bucket.delayed++;
+                scheduleDrain(bucket);
+            } else {
+                bucket.shed++;
+                Log.d(TAG, name + " shed, tokens=" + bucket.tokens + ", waiting=" + bucket.waiting.size());
+                return Tasks.forException(new RateLimitedException(name));
+            }
+        }
+        if (source == null) {
+            return invoke(method, client, args);
+        }
+        return source.getTask();
+    }
+
+    private void scheduleDrain(Bucket bucket) {
+        if (bucket.drainScheduled) {
+            return;
+        }
+        bucket.drainScheduled = true;
+        handler.postDelayed(() -> executor.execute(() -> drain(bucket)), bucket.msUntilToken());
+    }
+
+    /**
+     * Uruchamia oczekujące wywołania, na które starcza żetonów, i planuje kolejne opróżnienie.
+     */
+    private void drain(Bucket bucket) {
+        ArrayDeque<Waiting> ready = new ArrayDeque<>();
+        synchronized (this) {
+            bucket.drainScheduled = false;
+            long now = SystemClock.elapsedRealtime();
+            bucket.refill(now);
+            while (!bucket.waiting.isEmpty() && bucket.tokens >= 1) {
+                Waiting next = bucket.waiting.poll();
+                bucket.tokens -= 1;
+                bucket.admitted++;
+                bucket.maxDelayMs = Math.max(bucket.maxDelayMs, now - next.queuedAt);
+                ready.add(next);
+            }
+            if (!bucket.waiting.isEmpty()) {
+                scheduleDrain(bucket);
+            }
+        }
+        for (Waiting waiting : ready) {
+            invoke(waiting.method, waiting.client, waiting.args).addOnCompleteListener(executor, completed -> {
+                if (completed.isSuccessful()) {
+                    waiting.source.setResult(completed.getResult());
+                } else {
+                    waiting.source.setException(completed.getException());
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Task<Object> invoke(Method method, Object client, Object[] args) {
+        try {
+            return (Task<Object>) method.invoke(client, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            return Tasks.forException(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+        } catch (IllegalAccessException e) {
+            return Tasks.forException(e);
+        }
+    }
+
+    private Bucket bucket(String name) {
+        Bucket bucket = buckets.get(name);
+        if (bucket == null) {
+            bucket = new Bucket(name);
+            buckets.put(name, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * Konfiguruje kubełki: { submitScore: { capacity, refillPerSecond, policy, maxQueue }, unlock: {...}, ... }.
+     * Przejście na policy=shed odrzuca wywołania, które czekały w kolejce.
+     */
+    public void configure(JSObject options) {
+        List<Waiting> dropped = new ArrayList<>();
+        synchronized (this) {
+            Iterator<String> names = options.keys();
+            while (names.hasNext()) {
+                String name = names.next();
+                JSObject settings = options.getJSObject(name);
+                if (settings == null) {
+                    continue;
+                }
+                Bucket bucket = bucket(name);
+                bucket.refill(SystemClock.elapsedRealtime());
+                double capacity = settings.optDouble("capacity", bucket.capacity);
+                if (capacity >= 1) {
+                    bucket.capacity = capacity;
+                    bucket.tokens = Math.min(bucket.tokens, capacity);
+                }
+                double refill = settings.optDouble("refillPerSecond", bucket.refillPerSecond);
+                // Zerowe tempo nigdy nie uzupełni żetonu – wywołania w kolejce czekałyby bez końca
+                if (refill > 0) {
+                    bucket.refillPerSecond = refill;
+                }
+                String policy = settings.getString("policy");
+                if (POLICY_QUEUE.equals(policy) || POLICY_SHED.equals(policy)) {
+                    bucket.policy = policy;
+                }
+                Integer maxQueue = settings.getInteger("maxQueue");
+                if (maxQueue != null && maxQueue >= 0) {
+                    bucket.maxQueue = maxQueue;
+                }
+                while (bucket.waiting.size() > (POLICY_SHED.equals(bucket.policy) ? 0 : bucket.maxQueue)) {
+                    dropped.add(bucket.waiting.pollLast());
+                    bucket.shed++;
+                }
+                Log.d(TAG, "Rate limit " + name + " configured, capacity=" + bucket.capacity
+                        + ", refillPerSecond=" + bucket.refillPerSecond + ", policy=" + bucket.policy);
+            }
+        }
+        for (Waiting waiting : dropped) {
+            waiting.source.setException(new RateLimitedException(bucketName(waiting.method.getName())));
+        }
+    }
+
+    @Override
+    public synchronized JSObject toJSObject() {
+        JSObject result = new JSObject();
+        long now = SystemClock.elapsedRealtime();
+        for (Bucket bucket : buckets.values()) {
+            bucket.refill(now);
+            JSObject item = new JSObject();
+            item.put("tokens", bucket.tokens);
+            item.put("capacity", bucket.capacity);
+            item.put("refillPerSecond", bucket.refillPerSecond);
+            item.put("policy", bucket.policy);
+            item.put("queued", bucket.waiting.size());
+            item.put("admitted", bucket.admitted);
+            item.put("delayed", bucket.delayed);
+            item.put("shed", bucket.shed);
+            item.put("maxDelayMs", bucket.maxDelayMs);
+            result.put(bucket.name, item);
+        }
+        return result;
+    }
+}
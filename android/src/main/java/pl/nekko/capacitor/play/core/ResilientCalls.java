@@ -0,0 +1,360 @@
+package pl.nekko.capacitor.play.core;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Warstwa odporności dla zapisów do Play Games (*Immediate).
+ * <ul>
+ * <li>Błędy przejściowe są ponawiane z wykładniczym opóźnieniem z losowym rozrzutem (full jitter).</li>
+ * <li>Każda operacja ma budżet ponowień: błąd zabiera żeton, sukces oddaje jego część, a ponowienia
+ * są wstrzymywane, gdy zostanie mniej niż połowa żetonów.</li>
+ * <li>Wspólny obwód otwiera się po serii błędów przejściowych; wtedy wywołania od razu kończą się
+ * {@link CircuitOpenException}, a po openMs jedno wywołanie próbne decyduje o zamknięciu obwodu.</li>
+ * </ul>
+ * Operacje nieidempotentne (metody increment*, czyli incrementImmediate) nie są ponawiane nigdy:
+ * nawet błąd sieci mógł nadejść po zastosowaniu kroków przez serwer, a ponowienie doliczyłoby je
+ * drugi raz. Ich błędy przejściowe nadal liczą się do obwodu.
+ */
+public final class ResilientCalls implements MetricsSource {
+    private static final String TAG = "ResilientCalls";
+
+    public static final String CLOSED = "closed";
+    public static final String OPEN = "open";
+    public static final String HALF_OPEN = "halfOpen";
+
+    public interface Listener {
+        /**
+         * Wywoływany poza monitorem przy każdej zmianie stanu obwodu.
+         */
+        void onCircuitStateChanged(JSObject event);
+    }
+
+    private interface Attempt<T> {
+        Task<T> start() throws Exception;
+    }
+
+    private static final class Budget {
+        double tokens;
+        long retries;
+        long denied;
+
+        Budget(double tokens) {
+            this.tokens = tokens;
+        }
+    }
+
+    private final Executor executor;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Random random = new Random();
+    private final Map<String, Budget> budgets = new HashMap<>();
+    private volatile Listener listener;
+
+    private int maxAttempts = 3;
+    private long baseDelayMs = 200;
+    private long maxDelayMs = 5_000;
+    private int failureThreshold = 5;
+    private long openMs = 30_000;
+    private double retryBudget = 10;
+
+    private String state = CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long shortCircuited;
+
+    public ResilientCalls(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Opakowuje klienta tak, aby wskazane metody zwracające Task przechodziły przez ponowienia
+     * i obwód. Pozostałe metody są wywoływane bez zmian.
+     */
+    @SuppressWarnings("unchecked")
+    public <C> C protect(Class<C> clientInterface, C client, String prefix, String... methods) {
+        Set<String> protectedMethods = new HashSet<>(Arrays.asList(methods));
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (!protectedMethods.contains(method.getName())) {
+                try {
+                    return method.invoke(client, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            String operation = prefix + "." + method.getName();
+            return execute(operation, isIdempotent(method.getName()), () -> {
+                try {
+                    return (Task<Object>) method.invoke(client, args);
+                } catch (InvocationTargetException e) {
+                    throw (Exception) e.getCause();
+                }
+            });
+        };
+        return (C) Proxy.newProxyInstance(clientInterface.getClassLoader(), new Class<?>[]{clientInterface},
+                invocationHandler);
+    }
+
+    /**
+     * Inkrementacja wysłana dwa razy doliczyłaby kroki dwa razy. Rozstrzyga sama nazwa metody,
+     * więc każda nowa metoda nieidempotentna w {@link GamesBackend} musi zaczynać się od increment.
+     */
+    private static boolean isIdempotent(String method) {
+        return !method.startsWith("increment");
+    }
+
+    private <T> Task<T> execute(String operation, boolean idempotent, Attempt<T> attempt) {
+        TaskCompletionSource<T> source = new TaskCompletionSource<>();
+        run(operation, idempotent, attempt, source, 1);
+        return source.getTask();
+    }
+
+    private <T> void run(String operation, boolean idempotent, Attempt<T> attempt, TaskCompletionSource<T> source,
+                         int number) {
+        long retryAfter = admit(operation);
+        if (retryAfter >= 0) {
+            source.setException(new CircuitOpenException(operation, retryAfter));
+            return;
+        }
+        Task<T> task;
+        try {
+            task = attempt.start();
+        } catch (Exception e) {
+            onCompleted(operation, false);
+            source.setException(e);
+            return;
+        }
+        task.addOnCompleteListener(executor, completed -> {
+            if (completed.isSuccessful()) {
+                onSuccess(operation);
+                source.setResult(completed.getResult());
+                return;
+            }
+            Exception e = completed.getException();
+            if (!isTransient(e)) {
+                onCompleted(operation, false);
+                source.setException(e);
+                return;
+            }
+            onCompleted(operation, true);
+            long delay = idempotent && number < maxAttempts() ? retryDelay(operation, number) : -1;
+            if (delay < 0) {
+                source.setException(e);
+                return;
+            }
+            Log.d(TAG, operation + " failed with a transient error, retry " + number + " in " + delay + " ms");
+            handler.postDelayed(() -> executor.execute(() -> run(operation, idempotent, attempt, source, number + 1)),
+                    delay);
+        });
+    }
+
+    /**
+     * Błędy sieci i połączenia z usługami Google Play oraz przekroczenia czasu. Ponawiane są
+     * tylko dla operacji idempotentnych.
+     */
+    public static boolean isTransient(Exception e) {
+        if (!(e instanceof ApiException)) {
+            return false;
+        }
+        switch (((ApiException) e).getStatusCode()) {
+            case CommonStatusCodes.NETWORK_ERROR:
+            case CommonStatusCodes.INTERRUPTED:
+            case CommonStatusCodes.API_NOT_CONNECTED:
+            case CommonStatusCodes.RECONNECTION_TIMED_OUT:
+            case CommonStatusCodes.RECONNECTION_TIMED_OUT_DURING_UPDATE:
+            case CommonStatusCodes.TIMEOUT:
+            case CommonStatusCodes.INTERNAL_ERROR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Zwraca -1, jeśli wywołanie może przejść, albo czas do następnej próby przy otwartym obwodzie.
+     */
+    private long admit(String operation) {
+        JSObject event = null;
+        long retryAfter = -1;
+        synchronized (this) {
+            if (OPEN.equals(state)) {
+                long remaining = openedAt + openMs - SystemClock.elapsedRealtime();
+                if (remaining > 0) {
+                    retryAfter = remaining;
+                } else {
+                    event = transition(HALF_OPEN, operation);
+                }
+            }
+            if (retryAfter < 0 && HALF_OPEN.equals(state)) {
+                if (probeInFlight) {
+                    retryAfter = baseDelayMs;
+                } else {
+                    probeInFlight = true;
+                }
+            }
+            if (retryAfter >= 0) {
+                shortCircuited++;
+            }
+        }
+        publish(event);
+        return retryAfter;
+    }
+
+    private void onSuccess(String operation) {
+        JSObject event;
+        synchronized (this) {
+            Budget budget = budget(operation);
+            budget.tokens = Math.min(retryBudget, budget.tokens + 0.1);
+            event = onReachable(operation);
+        }
+        publish(event);
+    }
+
+    /**
+     * Zapisuje zakończone niepowodzeniem wywołanie. Błąd nieprzejściowy oznacza, że backend
+     * odpowiada, więc nie liczy się do otwarcia obwodu.
+     */
+    private void onCompleted(String operation, boolean transientFailure) {
+        JSObject event = null;
+        synchronized (this) {
+            if (!transientFailure) {
+                event = onReachable(operation);
+            } else {
+                Budget budget = budget(operation);
+                budget.tokens = Math.max(0, budget.tokens - 1);
+                consecutiveFailures++;
+                probeInFlight = false;
+                if (HALF_OPEN.equals(state)
+                        || (CLOSED.equals(state) && consecutiveFailures >= failureThreshold)) {
+                    openedAt = SystemClock.elapsedRealtime();
+                    event = transition(OPEN, operation);
+                }
+            }
+        }
+        publish(event);
+    }
+
+    private JSObject onReachable(String operation) {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        return CLOSED.equals(state) ? null : transition(CLOSED, operation);
+    }
+
+    /**
+     * Zwraca opóźnienie kolejnej próby albo -1, gdy budżet ponowień operacji jest wyczerpany
+     * lub obwód jest otwarty.
+     */
+    private synchronized long retryDelay(String operation, int attempt) {
+        Budget budget = budget(operation);
+        if (OPEN.equals(state) || budget.tokens <= retryBudget / 2) {
+            budget.denied++;
+            return -1;
+        }
+        budget.retries++;
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return (long) (random.nextDouble() * ceiling);
+    }
+
+    private synchronized int maxAttempts() {
+        return maxAttempts;
+    }
+
+    private Budget budget(String operation) {
+        Budget budget = budgets.get(operation);
+        if (budget == null) {
+            budget = new Budget(retryBudget);
+            budgets.put(operation, budget);
+        }
+        return budget;
+    }
+
+    private JSObject transition(String next, String operation) {
+        JSObject event = new JSObject();
+        event.put("state", next);
+        event.put("previous", state);
+        event.put("operation", operation);
+        event.put("consecutiveFailures", consecutiveFailures);
+        event.put("retryAfterMs", OPEN.equals(next) ? openMs : 0);
+        Log.d(TAG, "Circuit " + state + " -> " + next + " after " + operation);
+        state = next;
+        return event;
+    }
+
+    private void publish(JSObject event) {
+        Listener current = listener;
+        if (event != null && current != null) {
+            current.onCircuitStateChanged(event);
+        }
+    }
+
+    public synchronized void configure(JSObject options) {
+        Integer attempts = options.getInteger("maxAttempts");
+        if (attempts != null && attempts >= 1) {
+            maxAttempts = attempts;
+        }
+        Integer base = options.getInteger("baseDelayMs");
+        if (base != null && base >= 0) {
+            baseDelayMs = base;
+        }
+        Integer max = options.getInteger("maxDelayMs");
+        if (max != null && max >= 0) {
+            maxDelayMs = max;
+        }
+        Integer threshold = options.getInteger("failureThreshold");
+        if (threshold != null && threshold >= 1) {
+            failureThreshold = threshold;
+        }
+        Integer open = options.getInteger("openMs");
+        if (open != null && open >= 0) {
+            openMs = open;
+        }
+        Integer budget = options.getInteger("retryBudget");
+        if (budget != null && budget >= 0) {
+            retryBudget = budget;
+            budgets.clear();
+        }
+        Log.d(TAG, "Resilience configured, maxAttempts=" + maxAttempts + ", failureThreshold=" + failureThreshold
+                + ", openMs=" + openMs);
+    }
+
+    @Override
+    public synchronized JSObject toJSObject() {
+        JSObject operations = new JSObject();
+        for (Map.Entry<String, Budget> entry : budgets.entrySet()) {
+            JSObject item = new JSObject();
+            item.put("tokens", entry.getValue().tokens);
+            item.put("retries", entry.getValue().retries);
+            item.put("denied", entry.getValue().denied);
+            operations.put(entry.getKey(), item);
+        }
+        JSObject result = new JSObject();
+        result.put("state", state);
+        result.put("consecutiveFailures", consecutiveFailures);
+        result.put("shortCircuited", shortCircuited);
+        result.put("operations", operations);
+        return result;
+    }
+}
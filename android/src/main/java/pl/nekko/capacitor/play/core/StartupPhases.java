@@ -0,0 +1,74 @@
+package pl.nekko.capacitor.play.core;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Przebieg uruchamiania pluginu: każda faza (rejestracja w load(), inicjalizacja SDK, tworzenie
+ * managerów, sprawdzenie logowania) zapisuje, kiedy się zaczęła względem load(), ile trwała
+ * i na którym wątku. Czasy trafiają też do metryk jako startup.&lt;faza&gt;.
+ */
+public final class StartupPhases implements MetricsSource {
+    private static final String TAG = "StartupPhases";
+
+    private static final class Phase {
+        final String name;
+        final long offsetMs;
+        final double durationMs;
+        final String thread;
+
+        Phase(String name, long offsetMs, double durationMs, String thread) {
+            this.name = name;
+            this.offsetMs = offsetMs;
+            this.durationMs = durationMs;
+            this.thread = thread;
+        }
+    }
+
+    private final PluginMetrics metrics;
+    private final long loadedAt = SystemClock.elapsedRealtime();
+    private final List<Phase> phases = new ArrayList<>();
+
+    public StartupPhases(PluginMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Zapisuje fazę rozpoczętą w chwili startNanos (System.nanoTime()).
+     */
+    public void record(String name, long startNanos) {
+        long durationNanos = System.nanoTime() - startNanos;
+        long offsetMs = SystemClock.elapsedRealtime() - loadedAt - durationNanos / 1_000_000;
+        Phase phase = new Phase(name, Math.max(0, offsetMs), durationNanos / 1e6, Thread.currentThread().getName());
+        synchronized (this) {
+            phases.add(phase);
+        }
+        metrics.record("startup." + name, durationNanos, null);
+        Log.d(TAG, "Startup phase " + name + " took " + phase.durationMs + " ms on " + phase.thread);
+    }
+
+    @Override
+    public synchronized JSObject toJSObject() {
+        JSArray list = new JSArray();
+        long completedMs = 0;
+        for (Phase phase : phases) {
+            JSObject item = new JSObject();
+            item.put("name", phase.name);
+            item.put("offsetMs", phase.offsetMs);
+            item.put("durationMs", phase.durationMs);
+            item.put("thread", phase.thread);
+            list.put(item);
+            completedMs = Math.max(completedMs, phase.offsetMs + Math.round(phase.durationMs));
+        }
+        JSObject result = new JSObject();
+        result.put("phases", list);
+        result.put("completedMs", completedMs);
+        return result;
+    }
+}
@@ -0,0 +1,206 @@
+package pl.nekko.capacitor.play.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Implementacja skrótu xxHash64 używana do szybkiego porównywania zawartości zapisów.
+ */
+public final class XxHash64 {
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private XxHash64() {
+    }
+
+    public static long hash(byte[] data) {
+        return hash(data, 0, data.length, 0);
+    }
+
+    public static long hash(byte[] data, int offset, int length, long seed) {
+        Streaming hash = new Streaming(seed);
+        hash.update(data, offset, length);
+        return hash.digest();
+    }
+
+    /**
+     * Skrót pozostałych bajtów bufora (od position do limit) bez kopiowania ich na stertę –
+     * np. pliku zmapowanego w pamięci. Pozycja bufora nie zmienia się.
+     */
+    public static long hash(ByteBuffer data) {
+        Streaming hash = new Streaming();
+        hash.update(data);
+        return hash.digest();
+    }
+
+    /**
+     * Skrót liczony przyrostowo z kolejnych fragmentów danych – daje ten sam wynik co
+     * {@link #hash(byte[])} dla ich złączenia. Jedyna implementacja algorytmu w tej klasie;
+     * pozostałe metody hash przekazują dane tutaj.
+     */
+    public static final class Streaming {
+        private final byte[] pending = new byte[32];
+        private final long seed;
+        private int pendingLength;
+        private long total;
+        private long v1;
+        private long v2;
+        private long v3;
+        private long v4;
+
+        public Streaming() {
+            this(0);
+        }
+
+        public Streaming(long seed) {
+            this.seed = seed;
+            v1 = seed + PRIME1 + PRIME2;
+            v2 = seed + PRIME2;
+            v3 = seed;
+            v4 = seed - PRIME1;
+        }
+
+        public void update(byte[] data, int offset, int length) {
+            total += length;
+            int position = offset;
+            int end = offset + length;
+            if (pendingLength > 0) {
+                int count = Math.min(32 - pendingLength, length);
+                System.arraycopy(data, position, pending, pendingLength, count);
+                pendingLength += count;
+                position += count;
+                if (pendingLength < 32) {
+                    return;
+                }
+                stripe(pending, 0);
+                pendingLength = 0;
+            }
+            while (position + 32 <= end) {
+                stripe(data, position);
+                position += 32;
+            }
+            pendingLength = end - position;
+            System.arraycopy(data, position, pending, 0, pendingLength);
+        }
+
+        /**
+         * Dolicza pozostałe bajty bufora (od position do limit). Pozycja bufora nie zmienia się.
+         */
+        public void update(ByteBuffer data) {
+            ByteBuffer buffer = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            int position = buffer.position();
+            int end = buffer.limit();
+            total += end - position;
+            if (pendingLength > 0) {
+                int count = Math.min(32 - pendingLength, end - position);
+                buffer.get(pending, pendingLength, count);
+                pendingLength += count;
+                position += count;
+                if (pendingLength < 32) {
+                    return;
+                }
+                stripe(pending, 0);
+                pendingLength = 0;
+            }
+            while (position + 32 <= end) {
+                v1 = round(v1, buffer.getLong(position));
+                v2 = round(v2, buffer.getLong(position + 8));
+                v3 = round(v3, buffer.getLong(position + 16));
+                v4 = round(v4, buffer.getLong(position + 24));
+                position += 32;
+            }
+            pendingLength = end - position;
+            buffer.position(position);
+            buffer.get(pending, 0, pendingLength);
+        }
+
+        private void stripe(byte[] data, int position) {
+            v1 = round(v1, readLong(data, position));
+            v2 = round(v2, readLong(data, position + 8));
+            v3 = round(v3, readLong(data, position + 16));
+            v4 = round(v4, readLong(data, position + 24));
+        }
+
+        public long digest() {
+            long hash;
+            if (total >= 32) {
+                hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                hash = mergeRound(hash, v1);
+                hash = mergeRound(hash, v2);
+                hash = mergeRound(hash, v3);
+                hash = mergeRound(hash, v4);
+            } else {
+                hash = seed + PRIME5;
+            }
+            hash += total;
+
+            int position = 0;
+            while (position + 8 <= pendingLength) {
+                hash ^= round(0, readLong(pending, position));
+                hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+                position += 8;
+            }
+            if (position + 4 <= pendingLength) {
+                hash ^= (readInt(pending, position) & 0xFFFFFFFFL) * PRIME1;
+                hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+                position += 4;
+            }
+            while (position < pendingLength) {
+                hash ^= (pending[position] & 0xFFL) * PRIME5;
+                hash = Long.rotateLeft(hash, 11) * PRIME1;
+                position++;
+            }
+
+            hash ^= hash >>> 33;
+            hash *= PRIME2;
+            hash ^= hash >>> 29;
+            hash *= PRIME3;
+            hash ^= hash >>> 32;
+            return hash;
+        }
+    }
+
+    /**
+     * Zwraca skrót jako 16-znakowy ciąg szesnastkowy.
+     */
+    public static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        StringBuilder result = new StringBuilder(16);
+        for (int i = hex.length(); i < 16; i++) {
+            result.append('0');
+        }
+        return result.append(hex).toString();
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME1;
+    }
+
+    private static long mergeRound(long accumulator, long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME1 + PRIME4;
+    }
+
+    private static long readLong(byte[] data, int position) {
+        return (data[position] & 0xFFL)
+                | (data[position + 1] & 0xFFL) << 8
+                | (data[position + 2] & 0xFFL) << 16
+                | (data[position + 3] & 0xFFL) << 24
+                | (data[position + 4] & 0xFFL) << 32
+                | (data[position + 5] & 0xFFL) << 40
+                | (data[position + 6] & 0xFFL) << 48
+                | (data[position + 7] & 0xFFL) << 56;
+    }
+
+    private static int readInt(byte[] data, int position) {
+        return (data[position] & 0xFF)
+                | (data[position + 1] & 0xFF) << 8
+                | (data[position + 2] & 0xFF) << 16
+                | (data[position + 3] & 0xFF) << 24;
+    }
+}
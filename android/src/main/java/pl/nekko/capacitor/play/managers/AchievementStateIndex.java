@@ -0,0 +1,165 @@
+package pl.nekko.capacitor.play.managers;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.google.android.gms.games.achievement.Achievement;
+import com.google.android.gms.games.achievement.AchievementBuffer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lokalny indeks stanu osiągnięć wczytany raz z AchievementsClient.load.
+ * Dane trzymane są w tablicach równoległych, a mapa wiąże ID z pozycją,
+ * dzięki czemu sprawdzenie stanu przed wywołaniem sieciowym jest tanie.
+ */
+class AchievementStateIndex {
+
+    private final Map<String, Integer> positions = new HashMap<>();
+    private String[] ids = new String[0];
+    private String[] names = new String[0];
+    private String[] descriptions = new String[0];
+    private int[] types = new int[0];
+    private int[] states = new int[0];
+    private int[] currentSteps = new int[0];
+    private int[] totalSteps = new int[0];
+    private boolean loaded = false;
+    private int generation = 0;
+
+    /**
+     * Zastępuje zawartość indeksu danymi z bufora. Bufor musi zostać zwolniony przez wywołującego.
+     * Dane wczytywane dla pokolenia sprzed {@link #clear()} (poprzedniego gracza) są pomijane.
+     */
+    synchronized boolean load(AchievementBuffer buffer, int expectedGeneration) {
+        if (expectedGeneration != generation) {
+            return false;
+        }
+        int count = buffer.getCount();
+        positions.clear();
+        ids = new String[count];
+        names = new String[count];
+        descriptions = new String[count];
+        types = new int[count];
+        states = new int[count];
+        currentSteps = new int[count];
+        totalSteps = new int[count];
+        for (int i = 0; i < count; i++) {
+            Achievement achievement = buffer.get(i);
+            ids[i] = achievement.getAchievementId();
+            names[i] = achievement.getName();
+            descriptions[i] = achievement.getDescription();
+            types[i] = achievement.getType();
+            states[i] = achievement.getState();
+            if (achievement.getType() == Achievement.TYPE_INCREMENTAL) {
+                currentSteps[i] = achievement.getCurrentSteps();
+                totalSteps[i] = achievement.getTotalSteps();
+            }
+            positions.put(ids[i], i);
+        }
+        loaded = true;
+        return true;
+    }
+
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    synchronized int generation() {
+        return generation;
+    }
+
+    /**
+     * Zapomina stan osiągnięć, np. po zmianie gracza. Kolejne zapytania trafiają do SDK do czasu
+     * ponownego wczytania.
+     */
+    synchronized void clear() {
+        positions.clear();
+        ids = new String[0];
+        names = new String[0];
+        descriptions = new String[0];
+        types = new int[0];
+        states = new int[0];
+        currentSteps = new int[0];
+        totalSteps = new int[0];
+        loaded = false;
+        generation++;
+    }
+
+    /**
+     * Czy osiągnięcie jest już odblokowane. Nieznane ID zawsze zwraca false.
+     */
+    synchronized boolean isUnlocked(String achievementId) {
+        Integer position = positions.get(achievementId);
+        return position != null && states[position] == Achievement.STATE_UNLOCKED;
+    }
+
+    /**
+     * Czy osiągnięcie jest już widoczne (odkryte lub odblokowane).
+     */
+    synchronized boolean isVisible(String achievementId) {
+        Integer position = positions.get(achievementId);
+        return position != null && states[position] != Achievement.STATE_HIDDEN;
+    }
+
+    synchronized void markUnlocked(String achievementId) {
+        Integer position = positions.get(achievementId);
+        if (position != null) {
+            states[position] = Achievement.STATE_UNLOCKED;
+            if (types[position] == Achievement.TYPE_INCREMENTAL) {
+                currentSteps[position] = totalSteps[position];
+            }
+        }
+    }
+
+    synchronized void markRevealed(String achievementId) {
+        Integer position = positions.get(achievementId);
+        if (position != null && states[position] == Achievement.STATE_HIDDEN) {
+            states[position] = Achievement.STATE_REVEALED;
+        }
+    }
+
+    /**
+     * Dodaje kroki do osiągnięcia przyrostowego; po osiągnięciu celu oznacza je jako odblokowane.
+     */
+    synchronized void addSteps(String achievementId, int steps) {
+        Integer position = positions.get(achievementId);
+        if (position == null || types[position] != Achievement.TYPE_INCREMENTAL) {
+            return;
+        }
+        currentSteps[position] = Math.min(totalSteps[position], currentSteps[position] + steps);
+        if (currentSteps[position] >= totalSteps[position]) {
+            states[position] = Achievement.STATE_UNLOCKED;
+        } else if (states[position] == Achievement.STATE_HIDDEN) {
+            states[position] = Achievement.STATE_REVEALED;
+        }
+    }
+
+    synchronized JSArray toJSArray() {
+        JSArray result = new JSArray();
+        for (int i = 0; i < ids.length; i++) {
+            JSObject item = new JSObject();
+            item.put("achievementId", ids[i]);
+            item.put("name", names[i]);
+            item.put("description", descriptions[i]);
+            item.put("state", stateName(states[i]));
+            item.put("incremental", types[i] == Achievement.TYPE_INCREMENTAL);
+            if (types[i] == Achievement.TYPE_INCREMENTAL) {
+                item.put("currentSteps", currentSteps[i]);
+                item.put("totalSteps", totalSteps[i]);
+            }
+            result.put(item);
+        }
+        return result;
+    }
+
+    private static String stateName(int state) {
+        switch (state) {
+            case Achievement.STATE_UNLOCKED:
+                return "unlocked";
+            case Achievement.STATE_REVEALED:
+                return "revealed";
+            default:
+                return "hidden";
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pl.nekko.capacitor.play.managers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bufor sumujący kroki osiągnięć przyrostowych. Liczniki są bezblokadowe –
+ * wpisy nie są usuwane z mapy, tylko zerowane przy opróżnianiu, dzięki czemu
+ * równoległe dodawanie nigdy nie gubi kroków.
+ */
+class AchievementStepBuffer {
+
+    private final ConcurrentHashMap<String, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Dodaje kroki do bufora i zwraca aktualną sumę oczekującą dla danego osiągnięcia.
+     */
+    int add(String achievementId, int steps) {
+        return pending.computeIfAbsent(achievementId, id -> new AtomicInteger()).addAndGet(steps);
+    }
+
+    /**
+     * Zwraca zsumowane kroki dla wszystkich osiągnięć i zeruje liczniki.
+     */
+    Map<String, Integer> drain() {
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        for (Map.Entry<String, AtomicInteger> entry : pending.entrySet()) {
+            int steps = entry.getValue().getAndSet(0);
+            if (steps > 0) {
+                batch.put(entry.getKey(), steps);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Odrzuca wszystkie oczekujące kroki i zwraca ich sumę.
+     */
+    int clear() {
+        int dropped = 0;
+        for (AtomicInteger counter : pending.values()) {
+            dropped += counter.getAndSet(0);
+        }
+        return dropped;
+    }
+
+    boolean isEmpty() {
+        for (AtomicInteger counter : pending.values()) {
+            if (counter.get() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,71 +1,77 @@
 package pl.nekko.capacitor.play.managers;
 
-import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.activity.result.ActivityResult;
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
 
 import com.getcapacitor.Bridge;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.PluginCall;
-import com.google.android.gms.games.AchievementsClient;
-import com.google.android.gms.games.PlayGames;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.games.achievement.AchievementBuffer;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import pl.nekko.capacitor.play.core.CircuitOpenException;
+import pl.nekko.capacitor.play.core.GamesBackend;
+import pl.nekko.capacitor.play.core.PluginExecutors;
+import pl.nekko.capacitor.play.core.RateLimitedException;
 
 public class AchievementsManager {
     private static final String TAG = "AchievementsManager";
     private static final int RC_ACHIEVEMENTS = 9003;
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 30_000;
 
     private final Bridge bridge;
-    private final AchievementsClient achievementsClient;
-    private PluginCall savedAchievementsCall;
-    private ActivityResultLauncher<Intent> achievementsLauncher;
+    private final GamesBackend.Achievements achievementsClient;
+    private final Executor executor;
+    private final UiLaunchQueue achievementsUi;
 
-    public AchievementsManager(Bridge bridge) {
+    // Lokalny indeks stanu osiągnięć
+    private final AchievementStateIndex stateIndex = new AchievementStateIndex();
+    private Task<Void> stateIndexLoad;
+
+    // Buforowanie kroków osiągnięć przyrostowych
+    private final AchievementStepBuffer stepBuffer = new AchievementStepBuffer();
+    private final Handler flushHandler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduledFlush = () -> flushBufferedSteps(null);
+    private volatile boolean bufferedMode = false;
+    private volatile boolean fireAndForget = false;
+    private volatile long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+    private volatile int flushThreshold = 0;
+    private boolean flushScheduled = false;
+
+    public AchievementsManager(Bridge bridge, GamesBackend backend, UiLaunchQueue achievementsUi, PluginExecutors executors) {
         this.bridge = bridge;
-        this.achievementsClient = PlayGames.getAchievementsClient(bridge.getActivity());
-        
-        // Rejestrujemy launcher dla aktywności osiągnięć
-        achievementsLauncher = bridge.registerForActivityResult(
-                new ActivityResultContracts.StartActivityForResult(),
-                this::handleAchievementsResult
-        );
+        this.achievementsClient = backend.getAchievements();
+        this.executor = executors.io();
+        this.achievementsUi = achievementsUi;
         
         Log.d(TAG, "AchievementsManager initialized");
     }
 
     public void showAchievements(PluginCall call) {
         Log.d(TAG, "showAchievements method called");
-        savedAchievementsCall = call;
-        achievementsClient.getAchievementsIntent()
-                .addOnSuccessListener(intent -> {
-                    try {
-                        call.setKeepAlive(true);
-                        // Uruchamiamy aktywność za pomocą zarejestrowanego launcher'a
-                        achievementsLauncher.launch(intent);
-                        Log.d(TAG, "Achievements activity started");
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to start achievements activity", e);
-                        call.reject("Failed to start achievements: " + e.getMessage());
-                        savedAchievementsCall = null;
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to show achievements", e);
-                    call.reject("Failed to show achievements: " + e.getMessage());
-                    savedAchievementsCall = null;
-                });
+        achievementsUi.launch(call, "show achievements",
+                achievementsClient::getAchievementsIntent, this::handleAchievementsResult);
     }
 
-    private void handleAchievementsResult(ActivityResult result) {
+    private void handleAchievementsResult(PluginCall call, ActivityResult result) {
         Log.d(TAG, "Achievements activity result received, resultCode: " + result.getResultCode());
-        if (savedAchievementsCall != null) {
-            JSObject res = new JSObject();
-            res.put("message", "Achievements activity closed");
-            savedAchievementsCall.resolve(res);
-            savedAchievementsCall = null;
-        }
+        JSObject res = new JSObject();
+        res.put("message", "Achievements activity closed");
+        call.resolve(res);
     }
 
     public void unlockAchievement(PluginCall call) {
@@ -77,14 +83,21 @@ public class AchievementsManager {
             return;
         }
 
-        achievementsClient.unlockImmediate(achievementId)
-                .addOnSuccessListener(unused -> {
+        prefetchStateIndex();
+        if (stateIndex.isUnlocked(achievementId)) {
+            // Osiągnięcie jest już odblokowane – odpowiadamy lokalnie, bez wywołania sieciowego
+            resolveUnchanged(call);
+            return;
+        }
+
+        unlockTracked(achievementId)
+                .addOnSuccessListener(executor, unused -> {
                     Log.d(TAG, "Achievement unlocked successfully");
                     JSObject result = new JSObject();
                     result.put("success", true);
                     call.resolve(result);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(executor, e -> {
                     Log.e(TAG, "Failed to unlock achievement", e);
                     call.reject("Failed to unlock achievement: " + e.getMessage());
                 });
@@ -104,20 +117,128 @@ public class AchievementsManager {
             call.reject("Steps value is required");
             return;
         }
+        if (steps <= 0) {
+            call.reject("Steps value must be positive");
+            return;
+        }
+
+        prefetchStateIndex();
+        if (stateIndex.isUnlocked(achievementId)) {
+            resolveUnchanged(call);
+            return;
+        }
 
-        achievementsClient.incrementImmediate(achievementId, steps)
-                .addOnSuccessListener(unused -> {
+        if (call.getBoolean("buffered", bufferedMode)) {
+            // Kroki trafiają do bufora – obietnica JS jest rozwiązywana od razu
+            int pendingSteps = stepBuffer.add(achievementId, steps);
+            if (flushThreshold > 0 && pendingSteps >= flushThreshold) {
+                flushBufferedSteps(null);
+            } else {
+                scheduleFlush();
+            }
+            JSObject result = new JSObject();
+            result.put("success", true);
+            result.put("buffered", true);
+            call.resolve(result);
+            return;
+        }
+
+        incrementTracked(achievementId, steps)
+                .addOnSuccessListener(executor, unused -> {
                     Log.d(TAG, "Achievement incremented successfully");
                     JSObject result = new JSObject();
                     result.put("success", true);
                     call.resolve(result);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(executor, e -> {
                     Log.e(TAG, "Failed to increment achievement", e);
                     call.reject("Failed to increment achievement: " + e.getMessage());
                 });
     }
 
+    /**
+     * Odblokowuje wiele osiągnięć w jednym wywołaniu. Zapytania idą równolegle,
+     * a wynik zawiera status każdej pozycji.
+     */
+    public void unlockAchievements(PluginCall call) {
+        Log.d(TAG, "unlockAchievements method called");
+        JSArray achievementIds = call.getArray("achievementIds");
+        if (achievementIds == null || achievementIds.length() == 0) {
+            call.reject("Achievement IDs are required");
+            return;
+        }
+
+        prefetchStateIndex();
+        List<String> ids = new ArrayList<>(achievementIds.length());
+        List<Task<?>> unlocks = new ArrayList<>(achievementIds.length());
+        for (int i = 0; i < achievementIds.length(); i++) {
+            Object value = achievementIds.opt(i);
+            String achievementId = value instanceof String ? (String) value : null;
+            ids.add(achievementId);
+            if (achievementId == null || achievementId.isEmpty()) {
+                unlocks.add(Tasks.forException(new IllegalArgumentException("Achievement ID is required")));
+            } else if (stateIndex.isUnlocked(achievementId)) {
+                unlocks.add(Tasks.forResult(null));
+            } else {
+                unlocks.add(unlockTracked(achievementId));
+            }
+        }
+        resolveBatch(call, ids, unlocks, "Failed to unlock achievement");
+    }
+
+    /**
+     * Zwiększa wiele osiągnięć przyrostowych w jednym wywołaniu.
+     */
+    public void incrementAchievements(PluginCall call) {
+        Log.d(TAG, "incrementAchievements method called");
+        JSArray increments = call.getArray("increments");
+        if (increments == null || increments.length() == 0) {
+            call.reject("Increments are required");
+            return;
+        }
+
+        prefetchStateIndex();
+        List<String> ids = new ArrayList<>(increments.length());
+        List<Task<?>> tasks = new ArrayList<>(increments.length());
+        for (int i = 0; i < increments.length(); i++) {
+            JSONObject entry = increments.optJSONObject(i);
+            String achievementId = entry != null ? entry.optString("achievementId", null) : null;
+            ids.add(achievementId);
+            if (achievementId == null || achievementId.isEmpty()) {
+                tasks.add(Tasks.forException(new IllegalArgumentException("Achievement ID is required")));
+            } else if (!entry.has("steps")) {
+                tasks.add(Tasks.forException(new IllegalArgumentException("Steps value is required")));
+            } else if (entry.optInt("steps", 0) <= 0) {
+                tasks.add(Tasks.forException(new IllegalArgumentException("Steps value must be positive")));
+            } else if (stateIndex.isUnlocked(achievementId)) {
+                tasks.add(Tasks.forResult(true));
+            } else {
+                tasks.add(incrementTracked(achievementId, entry.optInt("steps", 0)));
+            }
+        }
+        resolveBatch(call, ids, tasks, "Failed to increment achievement");
+    }
+
+    private void resolveBatch(PluginCall call, List<String> ids, List<Task<?>> tasks, String errorPrefix) {
+        Tasks.whenAllComplete(tasks).addOnCompleteListener(executor, allTask -> {
+            JSArray results = new JSArray();
+            for (int i = 0; i < tasks.size(); i++) {
+                Task<?> task = tasks.get(i);
+                JSObject item = new JSObject();
+                item.put("achievementId", ids.get(i));
+                item.put("success", task.isSuccessful());
+                if (!task.isSuccessful()) {
+                    Log.e(TAG, errorPrefix, task.getException());
+                    item.put("error", errorPrefix + ": " + task.getException().getMessage());
+                }
+                results.put(item);
+            }
+            JSObject result = new JSObject();
+            result.put("results", results);
+            call.resolve(result);
+        });
+    }
+
     public void revealAchievement(PluginCall call) {
         Log.d(TAG, "revealAchievement method called");
         String achievementId = call.getString("achievementId");
@@ -127,16 +248,249 @@ public class AchievementsManager {
             return;
         }
 
+        prefetchStateIndex();
+        if (stateIndex.isVisible(achievementId)) {
+            // Osiągnięcie jest już widoczne – odkrywanie niczego nie zmieni
+            resolveUnchanged(call);
+            return;
+        }
+
         achievementsClient.revealImmediate(achievementId)
-                .addOnSuccessListener(unused -> {
+                .addOnSuccessListener(executor, unused -> {
+                    stateIndex.markRevealed(achievementId);
                     Log.d(TAG, "Achievement revealed successfully");
                     JSObject result = new JSObject();
                     result.put("success", true);
                     call.resolve(result);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(executor, e -> {
                     Log.e(TAG, "Failed to reveal achievement", e);
                     call.reject("Failed to reveal achievement: " + e.getMessage());
                 });
     }
+
+    /**
+     * Konfiguruje buforowanie kroków osiągnięć przyrostowych.
+     */
+    public void configureIncrementBuffer(JSObject options) {
+        bufferedMode = options.getBoolean("enabled", bufferedMode);
+        fireAndForget = options.getBoolean("fireAndForget", fireAndForget);
+        Integer interval = options.getInteger("flushIntervalMs");
+        if (interval != null && interval > 0) {
+            flushIntervalMs = interval;
+        }
+        Integer threshold = options.getInteger("flushThreshold");
+        if (threshold != null && threshold >= 0) {
+            flushThreshold = threshold;
+        }
+        Log.d(TAG, "Increment buffer configured, enabled=" + bufferedMode + ", flushIntervalMs=" + flushIntervalMs
+                + ", flushThreshold=" + flushThreshold + ", fireAndForget=" + fireAndForget);
+    }
+
+    /**
+     * Wysyła natychmiast wszystkie zbuforowane kroki.
+     */
+    public void flushAchievementIncrements(PluginCall call) {
+        Log.d(TAG, "flushAchievementIncrements method called");
+        flushBufferedSteps(call);
+    }
+
+    /**
+     * Wywoływane przy wstrzymaniu aplikacji – nie zostawiamy kroków w pamięci.
+     */
+    public void onPause() {
+        if (!stepBuffer.isEmpty()) {
+            flushBufferedSteps(null);
+        }
+    }
+
+    private synchronized void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flushHandler.postDelayed(scheduledFlush, flushIntervalMs);
+        }
+    }
+
+    private synchronized void cancelScheduledFlush() {
+        flushHandler.removeCallbacks(scheduledFlush);
+        flushScheduled = false;
+    }
+
+    /**
+     * Wysyła zbuforowane kroki. Do bufora wracają tylko kroki, które na pewno nie dotarły do serwera
+     * (limit wywołań, otwarty obwód, brak zalogowania) – po błędzie sieci lub przekroczeniu czasu
+     * przyrost mógł zostać już zastosowany, a ponowne wysłanie policzyłoby kroki dwa razy.
+     * Takie kroki są odrzucane i zliczane jako dropped.
+     */
+    private void flushBufferedSteps(PluginCall call) {
+        cancelScheduledFlush();
+        Map<String, Integer> batch = stepBuffer.drain();
+        if (batch.isEmpty()) {
+            resolveFlush(call, 0, 0, 0, 0);
+            return;
+        }
+        int generation = stateIndex.generation();
+
+        Log.d(TAG, "Flushing buffered steps for " + batch.size() + " achievements");
+        if (fireAndForget) {
+            int totalSteps = 0;
+            for (Map.Entry<String, Integer> entry : batch.entrySet()) {
+                achievementsClient.increment(entry.getKey(), entry.getValue());
+                stateIndex.addSteps(entry.getKey(), entry.getValue());
+                totalSteps += entry.getValue();
+            }
+            resolveFlush(call, batch.size(), totalSteps, 0, 0);
+            return;
+        }
+
+        List<String> ids = new ArrayList<>(batch.keySet());
+        List<Task<?>> increments = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            increments.add(incrementTracked(id, batch.get(id)));
+        }
+        Tasks.whenAllComplete(increments).addOnCompleteListener(executor, allTask -> {
+            int flushed = 0;
+            int totalSteps = 0;
+            int failed = 0;
+            int dropped = 0;
+            // Po zmianie gracza kroki poprzedniego nie mogą wrócić do bufora
+            boolean samePlayer = stateIndex.generation() == generation;
+            for (int i = 0; i < increments.size(); i++) {
+                String id = ids.get(i);
+                Exception e = increments.get(i).getException();
+                if (increments.get(i).isSuccessful()) {
+                    flushed++;
+                    totalSteps += batch.get(id);
+                } else if (samePlayer && isNotSent(e)) {
+                    Log.e(TAG, "Failed to increment buffered achievement " + id + ", steps kept", e);
+                    stepBuffer.add(id, batch.get(id));
+                    failed++;
+                } else {
+                    Log.e(TAG, "Failed to increment buffered achievement " + id + ", steps dropped", e);
+                    dropped++;
+                }
+            }
+            if (failed > 0) {
+                scheduleFlush();
+            }
+            Log.d(TAG, "Buffered steps flushed, achievements=" + flushed + ", steps=" + totalSteps + ", failed=" + failed
+                    + ", dropped=" + dropped);
+            resolveFlush(call, flushed, totalSteps, failed, dropped);
+        });
+    }
+
+    /**
+     * Czy błąd powstał, zanim przyrost dotarł do serwera.
+     */
+    private static boolean isNotSent(Exception e) {
+        if (e instanceof RateLimitedException || e instanceof CircuitOpenException) {
+            return true;
+        }
+        return e instanceof ApiException
+                && ((ApiException) e).getStatusCode() == CommonStatusCodes.SIGN_IN_REQUIRED;
+    }
+
+    private void resolveFlush(PluginCall call, int achievements, int steps, int failed, int dropped) {
+        if (call == null) {
+            return;
+        }
+        JSObject result = new JSObject();
+        result.put("achievements", achievements);
+        result.put("steps", steps);
+        result.put("failed", failed);
+        result.put("dropped", dropped);
+        call.resolve(result);
+    }
+
+    /**
+     * Zwraca listę osiągnięć z lokalnego indeksu, wczytując go przy pierwszym użyciu.
+     */
+    public void getAchievements(PluginCall call) {
+        Log.d(TAG, "getAchievements method called");
+        loadStateIndex(call.getBoolean("forceReload", false))
+                .addOnSuccessListener(executor, unused -> {
+                    JSObject result = new JSObject();
+                    result.put("achievements", stateIndex.toJSArray());
+                    call.resolve(result);
+                })
+                .addOnFailureListener(executor, e -> {
+                    Log.e(TAG, "Failed to load achievements", e);
+                    call.reject("Failed to load achievements: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Wywoływane po wylogowaniu lub przełączeniu konta: indeks poprzedniego gracza nie może
+     * odpowiadać na odblokowania i przyrosty nowego. Niewysłane kroki są odrzucane – SDK
+     * wysłałby je w imieniu nowego gracza.
+     */
+    public void onPlayerChanged() {
+        cancelScheduledFlush();
+        int dropped = stepBuffer.clear();
+        synchronized (this) {
+            stateIndex.clear();
+            stateIndexLoad = null;
+        }
+        Log.d(TAG, "Achievement state reset after player change, dropped steps=" + dropped);
+    }
+
+    /**
+     * Wczytuje indeks w tle, jeśli nie był jeszcze wczytany. Do tego czasu wywołania idą do sieci.
+     */
+    private void prefetchStateIndex() {
+        if (!stateIndex.isLoaded()) {
+            loadStateIndex(false);
+        }
+    }
+
+    private synchronized Task<Void> loadStateIndex(boolean forceReload) {
+        if (stateIndexLoad != null && !stateIndexLoad.isComplete()) {
+            return stateIndexLoad;
+        }
+        if (!forceReload && stateIndex.isLoaded()) {
+            return Tasks.forResult(null);
+        }
+        int generation = stateIndex.generation();
+        stateIndexLoad = achievementsClient.load(forceReload).continueWith(executor, task -> {
+            AchievementBuffer buffer = task.getResult().get();
+            try {
+                if (stateIndex.load(buffer, generation)) {
+                    Log.d(TAG, "Achievement state index loaded, count=" + buffer.getCount());
+                }
+            } finally {
+                buffer.release();
+            }
+            return null;
+        });
+        return stateIndexLoad;
+    }
+
+    /**
+     * Indeks jest aktualizowany w kontynuacji, więc wywołujący widzi go już zmienionego,
+     * gdy zwrócone zadanie się zakończy.
+     */
+    private Task<Void> unlockTracked(String achievementId) {
+        return achievementsClient.unlockImmediate(achievementId).onSuccessTask(executor, unused -> {
+            stateIndex.markUnlocked(achievementId);
+            return Tasks.forResult(null);
+        });
+    }
+
+    private Task<Boolean> incrementTracked(String achievementId, int steps) {
+        return achievementsClient.incrementImmediate(achievementId, steps).onSuccessTask(executor, unlocked -> {
+            if (Boolean.TRUE.equals(unlocked)) {
+                stateIndex.markUnlocked(achievementId);
+            } else {
+                stateIndex.addSteps(achievementId, steps);
+            }
+            return Tasks.forResult(unlocked);
+        });
+    }
+
+    private void resolveUnchanged(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("success", true);
+        result.put("unchanged", true);
+        call.resolve(result);
+    }
 }
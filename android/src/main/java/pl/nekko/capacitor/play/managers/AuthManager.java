@@ -1,54 +1,164 @@
 package pl.nekko.capacitor.play.managers;
 
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import com.getcapacitor.Bridge;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.PluginCall;
-import com.google.android.gms.auth.api.identity.Identity;
-import com.google.android.gms.auth.api.identity.SignInClient;
 import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.images.ImageManager;
 import com.google.android.gms.games.AuthenticationResult;
-import com.google.android.gms.games.GamesSignInClient;
-import com.google.android.gms.games.PlayGames;
-import com.google.android.gms.games.PlayersClient;
+import com.google.android.gms.games.Player;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import pl.nekko.capacitor.play.core.AuthStateCache;
+import pl.nekko.capacitor.play.core.GamesBackend;
+import pl.nekko.capacitor.play.core.InFlightCalls;
+import pl.nekko.capacitor.play.core.PluginExecutors;
 
 public class AuthManager {
     private static final String TAG = "AuthManager";
     private static final int RC_SIGN_IN = 9001;
+    private static final long AVATAR_TIMEOUT_MS = 10_000;
 
     private final Bridge bridge;
-    private final GamesSignInClient gamesSignInClient;
-    private final PlayersClient playersClient;
-    private final SignInClient oneTapClient;
+    private final GamesBackend.SignIn gamesSignInClient;
+    private final GamesBackend.Players playersClient;
+    private final AuthStateCache authState;
+    private final InFlightCalls calls;
+    private final Executor executor;
+    private final PlayerAvatarCache avatarCache;
+    // ImageManager trzyma słuchaczy przez słabe referencje – bez tego zbioru GC może je zebrać przed wywołaniem
+    private final Set<ImageManager.OnImageLoadedListener> avatarListeners = Collections.synchronizedSet(new HashSet<>());
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile CachedPlayer cachedPlayer;
+    private long lastPublishedSequence;
+    private boolean initialPublished;
     private boolean isSigningIn = false;
 
-    public AuthManager(Bridge bridge) {
+    public AuthManager(Bridge bridge, GamesBackend backend, AuthStateCache authState, InFlightCalls calls,
+                       PluginExecutors executors) {
         this.bridge = bridge;
-        this.gamesSignInClient = PlayGames.getGamesSignInClient(bridge.getActivity());
-        this.playersClient = PlayGames.getPlayersClient(bridge.getActivity());
-        this.oneTapClient = Identity.getSignInClient(bridge.getActivity());
-        
-        // Sprawdzamy stan uwierzytelnienia przy inicjalizacji
-        checkInitialAuthState();
-        
+        this.gamesSignInClient = backend.getSignIn();
+        this.playersClient = backend.getPlayers();
+        this.authState = authState;
+        this.calls = calls;
+        this.executor = executors.io();
+        this.avatarCache = new PlayerAvatarCache(bridge.getContext());
+
         Log.d(TAG, "AuthManager initialized");
     }
 
-    private void checkInitialAuthState() {
-        gamesSignInClient.isAuthenticated().addOnCompleteListener(isAuthenticatedTask -> {
-            boolean isAuthenticated =
-                    (isAuthenticatedTask.isSuccessful() &&
-                            isAuthenticatedTask.getResult().isAuthenticated());
-
+    /**
+     * Jednorazowe sprawdzenie stanu uwierzytelnienia przy starcie. Wynik trafia do pamięci
+     * podręcznej (kolejne isSignedIn nie odpytują klienta) i do JS jako signInStatusChanged.
+     * Jeśli stan był już znany z poprzedniej instancji pluginu, jest publikowany ponownie,
+     * żeby nowy kontekst JS dostał stan początkowy. Nieudane sprawdzenie (stan nieznany)
+     * też jest publikowane – jako niezalogowany, z błędem – żeby JS nie czekał na stan bez końca.
+     */
+    public Task<Boolean> checkInitialAuthState() {
+        return checkAuthState(false).addOnCompleteListener(executor, task -> {
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Initial auth check failed", task.getException());
+                Exception e = task.getException();
+                publishAuthState(false, authState.getSequence(), AuthStateCache.REASON_CHECK, true,
+                        "Auth check failed: " + (e != null ? e.getMessage() : "cancelled"));
+                return;
+            }
+            boolean isAuthenticated = task.getResult();
             if (isAuthenticated) {
                 Log.d(TAG, "User is already authenticated");
             } else {
                 Log.d(TAG, "User is not authenticated");
             }
+            publishAuthState(isAuthenticated, authState.getSequence(), AuthStateCache.REASON_CHECK, true, null);
+        });
+    }
+
+    /**
+     * Sprawdza stan po powrocie aktywności na pierwszy plan. Klient jest odpytywany tylko wtedy,
+     * gdy stan jest starszy niż TTL; zmiana trafia do JS przez strumień stanu.
+     */
+    public void onResume() {
+        checkAuthState(false);
+    }
+
+    /**
+     * Sprawdza stan w kliencie (po upływie TTL lub z forceRefresh), a po potwierdzeniu zalogowania
+     * wczytuje też profil: przełączenie konta poza aplikacją nie zmienia stanu logowania, tylko
+     * gracza, a tę zmianę wykrywa {@link AuthStateCache#updatePlayer}. Błąd profilu nie zmienia wyniku.
+     */
+    private Task<Boolean> checkAuthState(boolean forceRefresh) {
+        boolean queried = forceRefresh || authState.peek() == null;
+        Task<Boolean> check = authState.isAuthenticated(gamesSignInClient, forceRefresh);
+        if (!queried) {
+            return check;
+        }
+        return check.onSuccessTask(executor, isAuthenticated -> {
+            if (!isAuthenticated) {
+                return Tasks.forResult(false);
+            }
+            return loadCurrentPlayer(true).continueWith(executor, task -> {
+                if (!task.isSuccessful()) {
+                    Log.e(TAG, "Failed to refresh player after auth check", task.getException());
+                }
+                return true;
+            });
         });
     }
 
+    /**
+     * Słuchacz {@link AuthStateCache}: publikuje zmianę stanu jako signInStatusChanged.
+     */
+    public void onAuthStateChanged(boolean isAuthenticated, long sequence, String reason) {
+        if (!isAuthenticated) {
+            invalidatePlayer();
+        }
+        publishAuthState(isAuthenticated, sequence, reason, false, null);
+    }
+
+    /**
+     * Wysyła zdarzenie signInStatusChanged. Każdy numer sekwencji trafia do JS co najwyżej raz;
+     * ponowienie stanu początkowego (replay) wysyłane jest tylko, gdy nic jeszcze nie opublikowano.
+     * Stan nieznany (sekwencja 0) nie zajmuje numeru – pierwsze prawdziwe przejście i tak trafi do JS.
+     */
+    private void publishAuthState(boolean isAuthenticated, long sequence, String reason, boolean replay, String error) {
+        JSObject event;
+        synchronized (this) {
+            if (replay ? initialPublished : sequence <= lastPublishedSequence) {
+                return;
+            }
+            event = isAuthenticated && cachedPlayer != null ? cachedPlayer.toJSObject() : new JSObject();
+            event.put("isSignedIn", isAuthenticated);
+            event.put("sequence", sequence);
+            event.put("reason", reason);
+            event.put("initial", !initialPublished);
+            if (error != null) {
+                event.put("error", error);
+            }
+            initialPublished = true;
+            lastPublishedSequence = Math.max(lastPublishedSequence, sequence);
+        }
+        bridge.triggerWindowJSEvent("signInStatusChanged", event.toString());
+    }
+
     public void signIn(PluginCall call) {
         Log.d(TAG, "signIn method called");
         gamesSignInClient.signIn()
@@ -56,30 +166,31 @@ public class AuthManager {
                     try {
                         // Uzyskujemy wynik logowania – może rzucić ApiException, jeśli coś poszło nie tak
                         AuthenticationResult authResult = task.getResult(ApiException.class);
+                        boolean wasAuthenticated = Boolean.TRUE.equals(authState.peek());
 
                         if (authResult.isAuthenticated()) {
-                            // Po udanym logowaniu pobieramy informacje o graczu
-                            playersClient.getCurrentPlayer()
-                                    .addOnSuccessListener(player -> {
-                                        JSObject res = new JSObject();
+                            // Po udanym logowaniu pobieramy informacje o graczu (z pamięci, jeśli stan się nie zmienił).
+                            // Stan publikujemy dopiero potem, żeby zdarzenie zawierało profil gracza.
+                            loadCurrentPlayer(!wasAuthenticated)
+                                    .addOnSuccessListener(executor, player -> {
+                                        authState.update(true, AuthStateCache.REASON_SIGN_IN);
+                                        // Przed update(true) gracz wylogowanego użytkownika jest ignorowany
+                                        authState.updatePlayer(player.playerId);
+                                        JSObject res = player.toJSObject();
                                         res.put("isSignedIn", true);
-                                        res.put("playerId", player.getPlayerId());
-                                        res.put("displayName", player.getDisplayName());
-                                        if (player.getIconImageUri() != null) {
-                                            res.put("imageUrl", player.getIconImageUri().toString());
-                                            Log.d(TAG, "image: " + player.getIconImageUri().toString());
-                                        }
                                         call.resolve(res);
-                                        bridge.triggerWindowJSEvent("signInStatusChanged", res.toString());
                                     })
-                                    .addOnFailureListener(e -> {
+                                    .addOnFailureListener(executor, e -> {
+                                        // Logowanie się udało – brak profilu nie zmienia stanu, tylko go nie uzupełnia
                                         Log.e(TAG, "Failed to get player info", e);
+                                        authState.update(true, AuthStateCache.REASON_SIGN_IN);
                                         JSObject res = new JSObject();
-                                        res.put("isSignedIn", false);
+                                        res.put("isSignedIn", true);
                                         res.put("error", "Failed to get player info: " + e.getMessage());
                                         call.resolve(res);
                                     });
                         } else {
+                            authState.update(false, AuthStateCache.REASON_SIGN_IN);
                             JSObject res = new JSObject();
                             res.put("isSignedIn", false);
                             res.put("error", "Sign in failed.");
@@ -101,27 +212,40 @@ public class AuthManager {
 
         // Przygotowujemy obiekt do zwrócenia
         JSObject result = new JSObject();
-        // Ustawiamy isSignedIn = false (symulacja wylogowania)
+        // Ustawiamy isSignedIn = false (symulacja wylogowania); słuchacze dostaną zdarzenie ze strumienia stanu
         result.put("isSignedIn", false);
+        authState.update(false, AuthStateCache.REASON_SIGN_OUT);
+        avatarCache.clear();
         result.put("message", "Simulated signOut performed. No real tokens revoked.");
 
         // Zwracamy wynik do Capacitor
         call.resolve(result);
-
-        // Powiadamiamy słuchaczy
-        bridge.triggerWindowJSEvent("signInStatusChanged", result.toString());
     }
 
+    /**
+     * Odpowiada z lokalnego stanu, gdy jest znany; klient jest odpytywany tylko przy forceRefresh
+     * lub przed ustaleniem pierwszego stanu.
+     */
     public void isSignedIn(PluginCall call) {
         Log.d(TAG, "isSignedIn method called");
-        gamesSignInClient.isAuthenticated()
-                .addOnSuccessListener(authResult -> {
-                    Log.d(TAG, "isAuthenticated check successful, authenticated=" + authResult.isAuthenticated());
+        boolean forceRefresh = call.getBoolean("forceRefresh", false);
+        Boolean known = authState.current();
+        if (known != null && !forceRefresh) {
+            JSObject result = new JSObject();
+            result.put("isSignedIn", known);
+            result.put("sequence", authState.getSequence());
+            call.resolve(result);
+            return;
+        }
+        checkAuthState(forceRefresh)
+                .addOnSuccessListener(executor, isAuthenticated -> {
+                    Log.d(TAG, "isAuthenticated check successful, authenticated=" + isAuthenticated);
                     JSObject result = new JSObject();
-                    result.put("isSignedIn", authResult.isAuthenticated());
+                    result.put("isSignedIn", isAuthenticated);
+                    result.put("sequence", authState.getSequence());
                     call.resolve(result);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(executor, e -> {
                     Log.e(TAG, "isAuthenticated check failed", e);
                     JSObject result = new JSObject();
                     result.put("isSignedIn", false);
@@ -131,21 +255,176 @@ public class AuthManager {
 
     public void getPlayerInfo(PluginCall call) {
         Log.d(TAG, "getPlayerInfo method called");
-        playersClient.getCurrentPlayer()
-                .addOnSuccessListener(player -> {
+        JSArray avatarSizes = call.getArray("avatarSizes");
+        boolean asBase64 = "base64".equals(call.getString("avatarFormat"));
+        loadCurrentPlayer(call.getBoolean("forceReload", false))
+                .addOnSuccessListener(executor, player -> {
                     Log.d(TAG, "Player info retrieved successfully");
-                    JSObject result = new JSObject();
-                    result.put("playerId", player.getPlayerId());
-                    result.put("displayName", player.getDisplayName());
-                    if (player.getIconImageUri() != null) {
-                        result.put("imageUrl", player.getIconImageUri().toString());
-                        Log.d(TAG, "image: " + player.getIconImageUri().toString());
+                    JSObject result = player.toJSObject();
+                    if (avatarSizes == null || avatarSizes.length() == 0) {
+                        call.resolve(result);
+                        return;
                     }
-                    call.resolve(result);
+                    resolveWithAvatars(call, result, player, avatarSizes, asBase64);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(executor, e -> {
                     Log.e(TAG, "Failed to get player info", e);
                     call.reject("Failed to get player info: " + e.getMessage());
                 });
     }
+
+    /**
+     * Konfiguruje pamięć podręczną awatarów.
+     */
+    public void configureAvatarCache(JSObject options) {
+        Integer maxBytes = options.getInteger("maxBytes");
+        if (maxBytes != null && maxBytes > 0) {
+            avatarCache.setMaxBytes(maxBytes);
+        }
+    }
+
+    /**
+     * Zwraca profil bieżącego gracza z pamięci lub pobiera go z PlayersClient.
+     */
+    private Task<CachedPlayer> loadCurrentPlayer(boolean forceReload) {
+        CachedPlayer cached = cachedPlayer;
+        if (!forceReload && cached != null) {
+            return Tasks.forResult(cached);
+        }
+        // Równoległe wywołania bez profilu w pamięci współdzielą jedno zapytanie
+        return calls.singleFlight("players.getCurrentPlayer", () ->
+                playersClient.getCurrentPlayer().continueWith(executor, task -> {
+                    CachedPlayer player = new CachedPlayer(task.getResult());
+                    cachedPlayer = player;
+                    authState.updatePlayer(player.playerId);
+                    return player;
+                }));
+    }
+
+    private void invalidatePlayer() {
+        cachedPlayer = null;
+    }
+
+    /**
+     * Dołącza awatary w żądanych rozmiarach. Brakujące rozmiary są dekodowane raz przez
+     * ImageManager, skalowane i zapisywane na dysku.
+     */
+    private void resolveWithAvatars(PluginCall call, JSObject result, CachedPlayer player, JSArray avatarSizes, boolean asBase64) {
+        List<Integer> sizes = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < avatarSizes.length(); i++) {
+            Object value = avatarSizes.opt(i);
+            if (value instanceof Number && ((Number) value).intValue() > 0) {
+                int size = ((Number) value).intValue();
+                sizes.add(size);
+                if (avatarCache.get(player.playerId, size) == null) {
+                    missing.add(size);
+                }
+            }
+        }
+
+        Uri imageUri = player.hiResImageUri != null ? player.hiResImageUri : player.iconImageUri;
+        if (missing.isEmpty() || imageUri == null) {
+            attachAvatars(result, player, sizes, asBase64);
+            call.resolve(result);
+            return;
+        }
+
+        // Wywołanie rozwiązuje to, co nastąpi pierwsze: wczytanie obrazu albo upływ czasu
+        AtomicBoolean settled = new AtomicBoolean(false);
+        ImageManager.OnImageLoadedListener[] listener = new ImageManager.OnImageLoadedListener[1];
+        Runnable timeout = () -> {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            avatarListeners.remove(listener[0]);
+            Log.e(TAG, "Timed out loading avatar image");
+            executor.execute(() -> {
+                result.put("avatarError", "Timed out loading avatar image");
+                attachAvatars(result, player, sizes, asBase64);
+                call.resolve(result);
+            });
+        };
+        listener[0] = (uri, drawable, isRequestedDrawable) -> {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            avatarListeners.remove(listener[0]);
+            mainHandler.removeCallbacks(timeout);
+            // Skalowanie i zapis plików poza wątkiem głównym
+            executor.execute(() -> {
+                if (drawable instanceof BitmapDrawable && ((BitmapDrawable) drawable).getBitmap() != null) {
+                    Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+                    for (int size : missing) {
+                        try {
+                            avatarCache.put(player.playerId, size, bitmap);
+                        } catch (IOException e) {
+                            Log.e(TAG, "Failed to cache avatar", e);
+                        }
+                    }
+                } else {
+                    Log.e(TAG, "Failed to load avatar image");
+                    result.put("avatarError", "Failed to load avatar image");
+                }
+                attachAvatars(result, player, sizes, asBase64);
+                call.resolve(result);
+            });
+        };
+        avatarListeners.add(listener[0]);
+        mainHandler.postDelayed(timeout, AVATAR_TIMEOUT_MS);
+
+        // ImageManager musi być używany na wątku głównym
+        bridge.executeOnMainThread(() -> ImageManager.create(bridge.getContext()).loadImage(listener[0], imageUri));
+    }
+
+    private void attachAvatars(JSObject result, CachedPlayer player, List<Integer> sizes, boolean asBase64) {
+        JSArray avatars = new JSArray();
+        for (int size : sizes) {
+            File file = avatarCache.get(player.playerId, size);
+            if (file == null) {
+                continue;
+            }
+            JSObject avatar = new JSObject();
+            avatar.put("size", size);
+            if (asBase64) {
+                try {
+                    avatar.put("data", PlayerAvatarCache.toBase64(file));
+                } catch (IOException e) {
+                    Log.e(TAG, "Failed to read cached avatar", e);
+                    continue;
+                }
+            } else {
+                avatar.put("path", file.getAbsolutePath());
+            }
+            avatars.put(avatar);
+        }
+        result.put("avatars", avatars);
+    }
+
+    /**
+     * Niezmienny profil gracza przechowywany w pamięci do czasu zmiany stanu logowania.
+     */
+    private static final class CachedPlayer {
+        final String playerId;
+        final String displayName;
+        final Uri iconImageUri;
+        final Uri hiResImageUri;
+
+        CachedPlayer(Player player) {
+            this.playerId = player.getPlayerId();
+            this.displayName = player.getDisplayName();
+            this.iconImageUri = player.getIconImageUri();
+            this.hiResImageUri = player.getHiResImageUri();
+        }
+
+        JSObject toJSObject() {
+            JSObject result = new JSObject();
+            result.put("playerId", playerId);
+            result.put("displayName", displayName);
+            if (iconImageUri != null) {
+                result.put("imageUrl", iconImageUri.toString());
+            }
+            return result;
+        }
+    }
 }
@@ -0,0 +1,241 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.google.android.gms.tasks.Task;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Autozapis z opóźnieniem: każdy saveId ma własny, szeregowy tor. Nowsze dane zastępują
+ * oczekujące, a zatwierdzany jest tylko ostatni zestaw – po okresie ciszy (quietMs) albo
+ * najpóźniej po maxDelayMs od pierwszej zmiany. W czasie commitu kolejne dane czekają
+ * na jego zakończenie, więc zapisy tego samego slotu nigdy się nie ścigają.
+ * <p>
+ * Wszystkie wywołania z toru są rozwiązywane wynikiem commitu; zastąpione dostają coalesced=true.
+ */
+class AutosaveDebouncer {
+    private static final String TAG = "AutosaveDebouncer";
+
+    interface Committer {
+        Task<JSObject> commit(PendingSave save);
+    }
+
+    static final class PendingSave {
+        final String saveId;
+        final byte[] dataBytes;
+        final String description;
+        final String contentHash;
+        final boolean force;
+        final SnapshotMergeStrategy strategy;
+        final String conflictPath;
+
+        PendingSave(String saveId, byte[] dataBytes, String description, String contentHash, boolean force,
+                    SnapshotMergeStrategy strategy, String conflictPath) {
+            this.saveId = saveId;
+            this.dataBytes = dataBytes;
+            this.description = description;
+            this.contentHash = contentHash;
+            this.force = force;
+            this.strategy = strategy;
+            this.conflictPath = conflictPath;
+        }
+    }
+
+    private final class Lane {
+        final String saveId;
+        final Runnable timer = () -> commit(this);
+        PendingSave pending;
+        List<PluginCall> waiting = new ArrayList<>();
+        long firstQueuedAt;
+        boolean committing;
+        boolean flushRequested;
+
+        Lane(String saveId) {
+            this.saveId = saveId;
+        }
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final Committer committer;
+    private final Executor executor;
+
+    private long quietMs = 2000;
+    private long maxDelayMs = 10000;
+
+    AutosaveDebouncer(Committer committer, Executor executor) {
+        this.committer = committer;
+        this.executor = executor;
+    }
+
+    synchronized void configure(Integer quietMs, Integer maxDelayMs) {
+        if (quietMs != null && quietMs >= 0) {
+            this.quietMs = quietMs;
+        }
+        if (maxDelayMs != null && maxDelayMs >= 0) {
+            this.maxDelayMs = maxDelayMs;
+        }
+        // Maksymalne opóźnienie nie może być krótsze niż okres ciszy
+        this.maxDelayMs = Math.max(this.quietMs, this.maxDelayMs);
+    }
+
+    /**
+     * Dodaje dane do toru danego zapisu i przesuwa termin commitu.
+     */
+    synchronized void submit(PendingSave save, PluginCall call) {
+        Lane lane = lanes.get(save.saveId);
+        if (lane == null) {
+            lane = new Lane(save.saveId);
+            lanes.put(save.saveId, lane);
+        }
+        if (lane.pending == null) {
+            lane.firstQueuedAt = SystemClock.uptimeMillis();
+        }
+        lane.pending = save;
+        lane.waiting.add(call);
+        schedule(lane);
+    }
+
+    /**
+     * Zatwierdza natychmiast wszystkie oczekujące dane (np. przy wstrzymaniu aplikacji).
+     */
+    synchronized void flushAll() {
+        for (Lane lane : new ArrayList<>(lanes.values())) {
+            if (lane.pending == null) {
+                continue;
+            }
+            if (lane.committing) {
+                // Commit już trwa – kolejny ruszy zaraz po nim
+                lane.flushRequested = true;
+            } else {
+                handler.removeCallbacks(lane.timer);
+                commit(lane);
+            }
+        }
+    }
+
+    /**
+     * Porzuca wszystkie oczekujące dane i odrzuca czekające wywołania (np. po zmianie gracza).
+     * Trwający commit nie jest przerywany. Zwraca liczbę porzuconych zapisów.
+     */
+    int cancelAll(String reason) {
+        List<PluginCall> rejected = new ArrayList<>();
+        int dropped = 0;
+        synchronized (this) {
+            for (Lane lane : new ArrayList<>(lanes.values())) {
+                handler.removeCallbacks(lane.timer);
+                if (lane.pending != null) {
+                    dropped++;
+                }
+                rejected.addAll(lane.waiting);
+                lane.pending = null;
+                lane.waiting = new ArrayList<>();
+                lane.flushRequested = false;
+                if (!lane.committing) {
+                    lanes.remove(lane.saveId);
+                }
+            }
+        }
+        for (PluginCall call : rejected) {
+            call.reject(reason);
+        }
+        return dropped;
+    }
+
+    synchronized int pendingCount() {
+        int count = 0;
+        for (Lane lane : lanes.values()) {
+            if (lane.pending != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void schedule(Lane lane) {
+        if (lane.committing) {
+            return;
+        }
+        handler.removeCallbacks(lane.timer);
+        long deadline = lane.firstQueuedAt + maxDelayMs - SystemClock.uptimeMillis();
+        handler.postDelayed(lane.timer, Math.max(0, Math.min(quietMs, deadline)));
+    }
+
+    private void commit(Lane lane) {
+        PendingSave save;
+        List<PluginCall> calls;
+        synchronized (this) {
+            if (lane.committing || lane.pending == null) {
+                return;
+            }
+            save = lane.pending;
+            calls = lane.waiting;
+            lane.pending = null;
+            lane.waiting = new ArrayList<>();
+            lane.committing = true;
+            lane.flushRequested = false;
+        }
+
+        Task<JSObject> committed;
+        try {
+            committed = committer.commit(save);
+        } catch (RuntimeException e) {
+            // Bez tego tor zostałby na zawsze w stanie committing i kolejne zapisy by utknęły
+            Log.e(TAG, "Autosave commit failed to start, ID: " + save.saveId, e);
+            for (PluginCall call : calls) {
+                call.reject("Autosave failed: " + e.getMessage());
+            }
+            onCommitFinished(lane);
+            return;
+        }
+        committed.addOnCompleteListener(executor, task -> {
+            for (int i = 0; i < calls.size(); i++) {
+                PluginCall call = calls.get(i);
+                if (!task.isSuccessful()) {
+                    call.reject(task.getException() != null ? task.getException().getMessage() : "Autosave failed");
+                    continue;
+                }
+                // Ostatnie wywołanie niesie zatwierdzone dane, wcześniejsze zostały zastąpione
+                boolean coalesced = i < calls.size() - 1;
+                JSObject result = copy(task.getResult());
+                result.put("coalesced", coalesced);
+                if (coalesced) {
+                    result.put("committed", false);
+                }
+                call.resolve(result);
+            }
+            onCommitFinished(lane);
+        });
+    }
+
+    private synchronized void onCommitFinished(Lane lane) {
+        lane.committing = false;
+        if (lane.pending == null) {
+            lanes.remove(lane.saveId);
+        } else if (lane.flushRequested) {
+            handler.post(lane.timer);
+        } else {
+            schedule(lane);
+        }
+    }
+
+    private static JSObject copy(JSObject source) {
+        try {
+            return new JSObject(source.toString());
+        } catch (JSONException e) {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package pl.nekko.capacitor.play.managers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bufor sumujący przyrosty zdarzeń Play Games. Jak {@link AchievementStepBuffer} jest bezblokadowy
+ * i nie usuwa wpisów, ale liczy na long – zdarzenie wywoływane co klatkę może między opróżnieniami
+ * przekroczyć zakres int, więc jedno opróżnienie wysyła najwyżej Integer.MAX_VALUE, a reszta czeka.
+ */
+class EventIncrementBuffer {
+
+    private final ConcurrentHashMap<String, AtomicLong> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Dodaje przyrost i zwraca aktualną sumę oczekującą dla zdarzenia.
+     */
+    long add(String eventId, long amount) {
+        // get przed computeIfAbsent – na gorącej ścieżce licznik prawie zawsze już istnieje
+        AtomicLong counter = pending.get(eventId);
+        if (counter == null) {
+            counter = pending.computeIfAbsent(eventId, id -> new AtomicLong());
+        }
+        return counter.addAndGet(amount);
+    }
+
+    long pending(String eventId) {
+        AtomicLong counter = pending.get(eventId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * Zwraca zsumowane przyrosty i odejmuje je od liczników; przyrosty dodane w międzyczasie zostają.
+     */
+    Map<String, Integer> drain() {
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : pending.entrySet()) {
+            long amount = entry.getValue().get();
+            if (amount > 0) {
+                int taken = (int) Math.min(amount, Integer.MAX_VALUE);
+                entry.getValue().addAndGet(-taken);
+                batch.put(entry.getKey(), taken);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Odrzuca wszystkie oczekujące przyrosty i zwraca ich sumę.
+     */
+    long clear() {
+        long dropped = 0;
+        for (AtomicLong counter : pending.values()) {
+            dropped += counter.getAndSet(0);
+        }
+        return dropped;
+    }
+
+    boolean isEmpty() {
+        for (AtomicLong counter : pending.values()) {
+            if (counter.get() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,118 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.os.SystemClock;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.google.android.gms.games.event.Event;
+import com.google.android.gms.games.event.EventBuffer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lokalny indeks zdarzeń wczytany z EventsClient.load. Wartości są uzupełniane o przyrosty
+ * wysłane po wczytaniu, więc odczyt w granicach TTL nie wymaga zapytania do Play Games.
+ * Wartości należą do bieżącego gracza – po zmianie gracza indeks jest czyszczony.
+ */
+class EventIndex {
+
+    private final Map<String, Integer> positions = new HashMap<>();
+    private String[] ids = new String[0];
+    private String[] names = new String[0];
+    private String[] descriptions = new String[0];
+    private String[] formattedValues = new String[0];
+    private long[] values = new long[0];
+    private boolean[] visible = new boolean[0];
+    private long loadedAt = -1;
+    private int generation = 0;
+
+    /**
+     * Zastępuje zawartość indeksu danymi z bufora. Bufor musi zostać zwolniony przez wywołującego.
+     * Dane wczytywane dla pokolenia sprzed {@link #clear()} (poprzedniego gracza) są pomijane.
+     */
+    synchronized boolean load(EventBuffer buffer, int expectedGeneration) {
+        if (expectedGeneration != generation) {
+            return false;
+        }
+        int count = buffer.getCount();
+        positions.clear();
+        ids = new String[count];
+        names = new String[count];
+        descriptions = new String[count];
+        formattedValues = new String[count];
+        values = new long[count];
+        visible = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            Event event = buffer.get(i);
+            ids[i] = event.getEventId();
+            names[i] = event.getName();
+            descriptions[i] = event.getDescription();
+            formattedValues[i] = event.getFormattedValue();
+            values[i] = event.getValue();
+            visible[i] = event.isVisible();
+            positions.put(ids[i], i);
+        }
+        loadedAt = SystemClock.elapsedRealtime();
+        return true;
+    }
+
+    synchronized boolean isFresh(long ttlMs) {
+        return loadedAt >= 0 && SystemClock.elapsedRealtime() - loadedAt < ttlMs;
+    }
+
+    synchronized int generation() {
+        return generation;
+    }
+
+    /**
+     * Zapomina wczytane zdarzenia, np. po zmianie gracza.
+     */
+    synchronized void clear() {
+        positions.clear();
+        ids = new String[0];
+        names = new String[0];
+        descriptions = new String[0];
+        formattedValues = new String[0];
+        values = new long[0];
+        visible = new boolean[0];
+        loadedAt = -1;
+        generation++;
+    }
+
+    /**
+     * Dolicza wysłany przyrost. Sformatowana wartość z serwera przestaje wtedy pasować, więc jest pomijana.
+     */
+    synchronized void addValue(String eventId, long amount) {
+        Integer position = positions.get(eventId);
+        if (position != null) {
+            values[position] += amount;
+            formattedValues[position] = null;
+        }
+    }
+
+    /**
+     * Zwraca zdarzenia (wszystkie albo tylko wskazane), z przyrostami czekającymi jeszcze w buforze.
+     */
+    synchronized JSArray toJSArray(Set<String> eventIds, EventIncrementBuffer pending) {
+        JSArray result = new JSArray();
+        for (int i = 0; i < ids.length; i++) {
+            if (eventIds != null && !eventIds.contains(ids[i])) {
+                continue;
+            }
+            JSObject item = new JSObject();
+            item.put("eventId", ids[i]);
+            item.put("name", names[i]);
+            item.put("description", descriptions[i]);
+            item.put("value", values[i]);
+            if (formattedValues[i] != null) {
+                item.put("formattedValue", formattedValues[i]);
+            }
+            item.put("pending", pending.pending(ids[i]));
+            item.put("visible", visible[i]);
+            result.put(item);
+        }
+        return result;
+    }
+}
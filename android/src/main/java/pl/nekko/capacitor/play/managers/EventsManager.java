@@ -0,0 +1,321 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import com.google.android.gms.games.event.EventBuffer;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.json.JSONObject;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import pl.nekko.capacitor.play.core.GamesBackend;
+import pl.nekko.capacitor.play.core.MetricsSource;
+import pl.nekko.capacitor.play.core.PluginExecutors;
+
+/**
+ * Zdarzenia Play Games (EventsClient). Przyrosty z gry są sumowane lokalnie dla każdego zdarzenia
+ * i wysyłane zbiorczo co flushIntervalMs, po przekroczeniu flushThreshold albo przy wstrzymaniu
+ * aplikacji – wywołanie z gry nie dotyka sieci ani SDK.
+ * <p>
+ * Bufor i indeks należą do bieżącego gracza. SDK wysyła przyrosty w imieniu gracza zalogowanego
+ * w chwili wysłania, więc po wylogowaniu lub przełączeniu konta niewysłane przyrosty są
+ * odrzucane (nie mogą trafić na konto innego gracza), a indeks jest czyszczony.
+ */
+public class EventsManager implements MetricsSource {
+    private static final String TAG = "EventsManager";
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 30_000;
+    private static final long DEFAULT_TTL_MS = 5 * 60_000;
+
+    private final Bridge bridge;
+    private final GamesBackend.Events eventsClient;
+    private final Executor executor;
+
+    private final EventIncrementBuffer buffer = new EventIncrementBuffer();
+    private final EventIndex index = new EventIndex();
+    private Task<Void> indexLoad;
+    private boolean indexLoadForced;
+
+    private final Handler flushHandler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduledFlush = () -> flushBuffered(null);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+    private volatile long flushThreshold = 0;
+    private volatile long ttlMs = DEFAULT_TTL_MS;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    public EventsManager(Bridge bridge, GamesBackend backend, PluginExecutors executors) {
+        this.bridge = bridge;
+        this.eventsClient = backend.getEvents();
+        this.executor = executors.io();
+
+        Log.d(TAG, "EventsManager initialized");
+    }
+
+    /**
+     * Dolicza przyrost zdarzenia do bufora. Obietnica JS jest rozwiązywana od razu.
+     */
+    public void incrementEvent(PluginCall call) {
+        String eventId = call.getString("eventId");
+        Integer amount = call.getInt("amount", 1);
+
+        if (eventId == null || eventId.isEmpty()) {
+            call.reject("Event ID is required");
+            return;
+        }
+        if (amount == null || amount <= 0) {
+            call.reject("Increment amount must be positive");
+            return;
+        }
+
+        long pending = add(eventId, amount);
+        JSObject result = new JSObject();
+        result.put("success", true);
+        result.put("pending", pending);
+        call.resolve(result);
+    }
+
+    /**
+     * Dolicza wiele przyrostów w jednym wywołaniu – np. zebranych przez grę w jednej klatce.
+     */
+    public void incrementEvents(PluginCall call) {
+        JSArray increments = call.getArray("increments");
+        if (increments == null || increments.length() == 0) {
+            call.reject("Increments are required");
+            return;
+        }
+
+        JSArray results = new JSArray();
+        for (int i = 0; i < increments.length(); i++) {
+            JSONObject entry = increments.optJSONObject(i);
+            String eventId = entry != null ? entry.optString("eventId", null) : null;
+            int amount = entry != null ? entry.optInt("amount", 1) : 0;
+            JSObject item = new JSObject();
+            item.put("eventId", eventId);
+            if (eventId == null || eventId.isEmpty()) {
+                item.put("success", false);
+                item.put("error", "Event ID is required");
+            } else if (amount <= 0) {
+                item.put("success", false);
+                item.put("error", "Increment amount must be positive");
+            } else {
+                item.put("success", true);
+                item.put("pending", add(eventId, amount));
+            }
+            results.put(item);
+        }
+        JSObject result = new JSObject();
+        result.put("results", results);
+        call.resolve(result);
+    }
+
+    private long add(String eventId, int amount) {
+        received.incrementAndGet();
+        long pending = buffer.add(eventId, amount);
+        if (flushThreshold > 0 && pending >= flushThreshold) {
+            flushBuffered(null);
+        } else {
+            scheduleFlush();
+        }
+        return pending;
+    }
+
+    /**
+     * Wysyła natychmiast wszystkie zsumowane przyrosty.
+     */
+    public void flushEvents(PluginCall call) {
+        Log.d(TAG, "flushEvents method called");
+        flushBuffered(call);
+    }
+
+    /**
+     * Wywoływane przy wstrzymaniu aplikacji – nie zostawiamy przyrostów w pamięci.
+     */
+    public void onPause() {
+        if (!buffer.isEmpty()) {
+            flushBuffered(null);
+        }
+    }
+
+    /**
+     * Wywoływane po wylogowaniu lub przełączeniu konta.
+     */
+    public void onPlayerChanged() {
+        cancelScheduledFlush();
+        long dropped = buffer.clear();
+        synchronized (this) {
+            index.clear();
+            indexLoad = null;
+        }
+        Log.d(TAG, "Events reset after player change, dropped amount=" + dropped);
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            flushHandler.postDelayed(scheduledFlush, flushIntervalMs);
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        flushHandler.removeCallbacks(scheduledFlush);
+        flushScheduled.set(false);
+    }
+
+    private void flushBuffered(PluginCall call) {
+        cancelScheduledFlush();
+        Map<String, Integer> batch = buffer.drain();
+        long total = 0;
+        int failed = 0;
+        for (Map.Entry<String, Integer> entry : batch.entrySet()) {
+            try {
+                eventsClient.increment(entry.getKey(), entry.getValue());
+                index.addValue(entry.getKey(), entry.getValue());
+                total += entry.getValue();
+            } catch (RuntimeException e) {
+                // Niewysłany przyrost wraca do bufora na następną próbę
+                Log.e(TAG, "Failed to increment event " + entry.getKey(), e);
+                buffer.add(entry.getKey(), entry.getValue());
+                failed++;
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushes.incrementAndGet();
+            sent.addAndGet(batch.size() - failed);
+            Log.d(TAG, "Buffered events flushed, events=" + (batch.size() - failed) + ", amount=" + total
+                    + ", failed=" + failed);
+        }
+        if (failed > 0 || !buffer.isEmpty()) {
+            scheduleFlush();
+        }
+        if (call != null) {
+            JSObject result = new JSObject();
+            result.put("events", batch.size() - failed);
+            result.put("amount", total);
+            result.put("failed", failed);
+            call.resolve(result);
+        }
+    }
+
+    /**
+     * Zwraca zdarzenia z lokalnego indeksu; po upływie TTL lub z forceReload wczytuje je z Play Games.
+     */
+    public void loadEvents(PluginCall call) {
+        Log.d(TAG, "loadEvents method called");
+        JSArray eventIds = call.getArray("eventIds");
+        Set<String> filter = null;
+        if (eventIds != null) {
+            filter = new HashSet<>();
+            for (int i = 0; i < eventIds.length(); i++) {
+                Object value = eventIds.opt(i);
+                if (value instanceof String) {
+                    filter.add((String) value);
+                }
+            }
+        }
+
+        boolean forceReload = call.getBoolean("forceReload", false);
+        if (!forceReload && index.isFresh(ttlMs)) {
+            resolveEvents(call, filter, true);
+            return;
+        }
+        Set<String> requested = filter;
+        loadIndex(forceReload)
+                .addOnSuccessListener(executor, unused -> resolveEvents(call, requested, false))
+                .addOnFailureListener(executor, e -> {
+                    Log.e(TAG, "Failed to load events", e);
+                    call.reject("Failed to load events: " + e.getMessage());
+                });
+    }
+
+    private void resolveEvents(PluginCall call, Set<String> filter, boolean fromCache) {
+        JSObject result = new JSObject();
+        result.put("events", index.toJSArray(filter, buffer));
+        result.put("fromCache", fromCache);
+        call.resolve(result);
+    }
+
+    /**
+     * Wczytuje indeks; równoległe wywołania współdzielą jedno zapytanie. Wymuszone wczytanie
+     * nie korzysta z trwającego zwykłego (mogło trafić w pamięć podręczną Play Games) – startuje po nim.
+     */
+    private synchronized Task<Void> loadIndex(boolean forceReload) {
+        if (indexLoad != null && !indexLoad.isComplete()) {
+            if (!forceReload || indexLoadForced) {
+                return indexLoad;
+            }
+            indexLoad = indexLoad.continueWithTask(executor, previous -> fetchIndex(true));
+        } else {
+            indexLoad = fetchIndex(forceReload);
+        }
+        indexLoadForced = forceReload;
+        return indexLoad;
+    }
+
+    private Task<Void> fetchIndex(boolean forceReload) {
+        int generation = index.generation();
+        return eventsClient.load(forceReload).continueWith(executor, task -> {
+            EventBuffer events = task.getResult().get();
+            try {
+                if (index.load(events, generation)) {
+                    Log.d(TAG, "Events index loaded, count=" + events.getCount());
+                }
+            } finally {
+                events.release();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Konfiguruje buforowanie przyrostów i czas ważności indeksu.
+     */
+    public void configure(JSObject options) {
+        Integer interval = options.getInteger("flushIntervalMs");
+        if (interval != null && interval > 0) {
+            flushIntervalMs = interval;
+            // Zaplanowane już wysłanie liczone było ze starym interwałem
+            if (flushScheduled.get()) {
+                flushHandler.removeCallbacks(scheduledFlush);
+                flushHandler.postDelayed(scheduledFlush, flushIntervalMs);
+            }
+        }
+        Integer threshold = options.getInteger("flushThreshold");
+        if (threshold != null && threshold >= 0) {
+            flushThreshold = threshold;
+        }
+        Integer ttl = options.getInteger("ttlMs");
+        if (ttl != null && ttl >= 0) {
+            ttlMs = ttl;
+        }
+        Log.d(TAG, "Events configured, flushIntervalMs=" + flushIntervalMs + ", flushThreshold=" + flushThreshold
+                + ", ttlMs=" + ttlMs);
+    }
+
+    /**
+     * Skuteczność agregacji: ile wywołań z gry przypadło na jedno wywołanie EventsClient.
+     */
+    @Override
+    public JSObject toJSObject() {
+        JSObject result = new JSObject();
+        result.put("received", received.get());
+        result.put("sent", sent.get());
+        result.put("flushes", flushes.get());
+        result.put("hasPending", !buffer.isEmpty());
+        return result;
+    }
+}
@@ -0,0 +1,109 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.os.SystemClock;
+
+import com.getcapacitor.JSObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pamięć podręczna LRU dla wyników zapytań o tablice wyników. Wpis jest świeży
+ * przez TTL, a potem przez okno stale-while-revalidate może być jeszcze zwrócony,
+ * podczas gdy w tle pobierana jest nowa wersja.
+ */
+class LeaderboardScoreCache {
+    private static final int DEFAULT_MAX_ENTRIES = 64;
+    private static final long DEFAULT_TTL_MS = 60_000;
+    private static final long DEFAULT_STALE_WHILE_REVALIDATE_MS = 5 * 60_000;
+
+    enum Freshness { FRESH, STALE, MISSING }
+
+    static final class Entry {
+        final JSObject payload;
+        final long fetchedAt;
+
+        Entry(JSObject payload, long fetchedAt) {
+            this.payload = payload;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long ttlMs = DEFAULT_TTL_MS;
+    private long staleWhileRevalidateMs = DEFAULT_STALE_WHILE_REVALIDATE_MS;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Klucz wpisu. Wyniki wokół gracza, jego wynik i kolekcja znajomych zależą od gracza,
+     * więc klucz zawiera jego ID (pusty, gdy gracz nie jest jeszcze znany).
+     */
+    static String key(String playerId, String kind, String leaderboardId, int timeSpan, int collection,
+                      int maxResults, int page) {
+        return (playerId != null ? playerId : "") + '|' + kind + '|' + leaderboardId + '|' + timeSpan + '|'
+                + collection + '|' + maxResults + '|' + page;
+    }
+
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, JSObject payload) {
+        entries.put(key, new Entry(payload, SystemClock.elapsedRealtime()));
+    }
+
+    synchronized Freshness freshness(Entry entry) {
+        if (entry == null) {
+            return Freshness.MISSING;
+        }
+        long age = SystemClock.elapsedRealtime() - entry.fetchedAt;
+        if (age < ttlMs) {
+            return Freshness.FRESH;
+        }
+        return age < ttlMs + staleWhileRevalidateMs ? Freshness.STALE : Freshness.MISSING;
+    }
+
+    /**
+     * Usuwa wszystkie wpisy dotyczące danej tablicy wyników, np. po wysłaniu nowego wyniku.
+     */
+    synchronized void invalidate(String leaderboardId) {
+        String marker = '|' + leaderboardId + '|';
+        Iterator<String> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().contains(marker)) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Usuwa wszystkie wpisy, np. po zmianie gracza.
+     */
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized void configure(Integer maxEntries, Integer ttlMs, Integer staleWhileRevalidateMs) {
+        if (maxEntries != null && maxEntries > 0) {
+            this.maxEntries = maxEntries;
+        }
+        if (ttlMs != null && ttlMs >= 0) {
+            this.ttlMs = ttlMs;
+        }
+        if (staleWhileRevalidateMs != null && staleWhileRevalidateMs >= 0) {
+            this.staleWhileRevalidateMs = staleWhileRevalidateMs;
+        }
+        while (entries.size() > this.maxEntries) {
+            Iterator<String> keys = entries.keySet().iterator();
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -1,39 +1,77 @@
 package pl.nekko.capacitor.play.managers;
 
-import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.activity.result.ActivityResult;
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
 
 import com.getcapacitor.Bridge;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.PluginCall;
 import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
 import com.google.android.gms.games.AuthenticationResult;
-import com.google.android.gms.games.GamesSignInClient;
+import com.google.android.gms.games.AnnotatedData;
 import com.google.android.gms.games.LeaderboardsClient;
-import com.google.android.gms.games.PlayGames;
+import com.google.android.gms.games.PageDirection;
+import com.google.android.gms.games.leaderboard.LeaderboardScore;
+import com.google.android.gms.games.leaderboard.LeaderboardScoreBuffer;
+import com.google.android.gms.games.leaderboard.LeaderboardVariant;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import pl.nekko.capacitor.play.core.AuthStateCache;
+import pl.nekko.capacitor.play.core.CircuitOpenException;
+import pl.nekko.capacitor.play.core.GamesBackend;
+import pl.nekko.capacitor.play.core.InFlightCalls;
+import pl.nekko.capacitor.play.core.PluginExecutors;
+import pl.nekko.capacitor.play.core.RateLimitedException;
+import pl.nekko.capacitor.play.core.ResilientCalls;
 
 public class LeaderboardsManager {
     private static final String TAG = "LeaderboardsManager";
     private static final int RC_LEADERBOARD = 9002;
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 30_000;
+    private static final int MAX_SCORES_PER_PAGE = 25;
 
     private final Bridge bridge;
-    private final LeaderboardsClient leaderboardsClient;
-    private PluginCall savedLeaderboardCall;
-    private ActivityResultLauncher<Intent> leaderboardLauncher;
+    private final GamesBackend.Leaderboards leaderboardsClient;
+    private final GamesBackend.SignIn signInClient;
+    private final AuthStateCache authState;
+    private final Executor executor;
+    private final InFlightCalls calls;
+    private final UiLaunchQueue leaderboardUi;
+
+    // Tryb kolejkowania wyników (write-behind)
+    private final ScoreSubmissionQueue scoreQueue = new ScoreSubmissionQueue();
+    private final Handler flushHandler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduledFlush = () -> flushQueuedScores(null);
+    private volatile boolean queuedMode = false;
+    private volatile long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+    private boolean flushScheduled = false;
+    // Zmienia się przy każdej zmianie gracza – wyniki z poprzedniego konta nie wracają do kolejki
+    private volatile int playerGeneration = 0;
 
-    public LeaderboardsManager(Bridge bridge) {
+    // Pamięć podręczna zapytań o wyniki
+    private final LeaderboardScoreCache scoreCache = new LeaderboardScoreCache();
+
+    public LeaderboardsManager(Bridge bridge, GamesBackend backend, AuthStateCache authState, InFlightCalls calls,
+                               UiLaunchQueue leaderboardUi, PluginExecutors executors) {
         this.bridge = bridge;
-        this.leaderboardsClient = PlayGames.getLeaderboardsClient(bridge.getActivity());
-        
-        // Rejestrujemy launcher dla aktywności tablic wyników
-        leaderboardLauncher = bridge.registerForActivityResult(
-                new ActivityResultContracts.StartActivityForResult(),
-                this::handleLeaderboardResult
-        );
+        this.leaderboardsClient = backend.getLeaderboards();
+        this.signInClient = backend.getSignIn();
+        this.authState = authState;
+        this.calls = calls;
+        this.executor = executors.io();
+        this.leaderboardUi = leaderboardUi;
         
         Log.d(TAG, "LeaderboardsManager initialized");
     }
@@ -45,58 +83,22 @@ public class LeaderboardsManager {
             call.reject("Leaderboard ID is required");
             return;
         }
-        savedLeaderboardCall = call;
         Log.d(TAG, "Showing leaderboard with ID: " + leaderboardId);
-        leaderboardsClient.getLeaderboardIntent(leaderboardId)
-                .addOnSuccessListener(intent -> {
-                    try {
-                        call.setKeepAlive(true);
-                        // Launcher został już zarejestrowany, teraz tylko uruchamiamy aktywność
-                        leaderboardLauncher.launch(intent);
-                        Log.d(TAG, "Leaderboard activity started");
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to start leaderboard activity", e);
-                        call.reject("Failed to start leaderboard: " + e.getMessage());
-                        savedLeaderboardCall = null;
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to show leaderboard", e);
-                    call.reject("Failed to show leaderboard: " + e.getMessage());
-                    savedLeaderboardCall = null;
-                });
+        leaderboardUi.launch(call, "show leaderboard",
+                () -> leaderboardsClient.getLeaderboardIntent(leaderboardId), this::handleLeaderboardResult);
     }
 
-    private void handleLeaderboardResult(ActivityResult result) {
+    private void handleLeaderboardResult(PluginCall call, ActivityResult result) {
         Log.d(TAG, "Leaderboard activity result received, resultCode: " + result.getResultCode());
-        if (savedLeaderboardCall != null) {
-            JSObject res = new JSObject();
-            res.put("message", "Leaderboard activity closed");
-            savedLeaderboardCall.resolve(res);
-            savedLeaderboardCall = null;
-        }
+        JSObject res = new JSObject();
+        res.put("message", "Leaderboard activity closed");
+        call.resolve(res);
     }
 
     public void showAllLeaderboards(PluginCall call) {
         Log.d(TAG, "showAllLeaderboards method called");
-        savedLeaderboardCall = call;
-        leaderboardsClient.getAllLeaderboardsIntent()
-                .addOnSuccessListener(intent -> {
-                    try {
-                        call.setKeepAlive(true);
-                        leaderboardLauncher.launch(intent);
-                        Log.d(TAG, "All leaderboards activity started");
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to start all leaderboards activity", e);
-                        call.reject("Failed to show all leaderboards: " + e.getMessage());
-                        savedLeaderboardCall = null;
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to show all leaderboards", e);
-                    call.reject("Failed to show all leaderboards: " + e.getMessage());
-                    savedLeaderboardCall = null;
-                });
+        leaderboardUi.launch(call, "show all leaderboards",
+                leaderboardsClient::getAllLeaderboardsIntent, this::handleLeaderboardResult);
     }
 
     public void submitScore(PluginCall call) {
@@ -118,22 +120,89 @@ public class LeaderboardsManager {
 
         long score = Math.round(scoreRaw);
 
-        // Pobieramy klienta autentykacji
-        GamesSignInClient signInClient = PlayGames.getGamesSignInClient(bridge.getActivity());
-        signInClient.isAuthenticated().addOnCompleteListener(task -> {
-            boolean isAuthenticated = false;
-            if (task.isSuccessful() && task.getResult() != null) {
-                isAuthenticated = task.getResult().isAuthenticated();
+        if (call.getBoolean("queued", queuedMode)) {
+            // Wynik trafia do kolejki – obietnica JS jest rozwiązywana od razu
+            scoreQueue.offer(leaderboardId, score, call.getBoolean("lowerIsBetter", false));
+            scheduleFlush();
+            JSObject result = new JSObject();
+            result.put("success", true);
+            result.put("queued", true);
+            call.resolve(result);
+            return;
+        }
+
+        withAuthentication(call, () -> submitScoreInternal(call, leaderboardId, score));
+    }
+
+    /**
+     * Wysyła wiele wyników w jednym wywołaniu – zapytania do Play Games idą równolegle,
+     * a obietnica JS jest rozwiązywana raz, z wynikiem dla każdej pozycji.
+     */
+    public void submitScores(PluginCall call) {
+        Log.d(TAG, "submitScores method called");
+        JSArray scores = call.getArray("scores");
+        if (scores == null || scores.length() == 0) {
+            call.reject("Scores are required");
+            return;
+        }
+
+        withAuthentication(call, () -> {
+            List<String> leaderboardIds = new ArrayList<>(scores.length());
+            List<Task<?>> submissions = new ArrayList<>(scores.length());
+            for (int i = 0; i < scores.length(); i++) {
+                JSONObject entry = scores.optJSONObject(i);
+                String leaderboardId = entry != null ? entry.optString("leaderboardId", null) : null;
+                if (leaderboardId == null || leaderboardId.isEmpty()) {
+                    leaderboardIds.add(null);
+                    submissions.add(Tasks.forException(new IllegalArgumentException("Leaderboard ID is required")));
+                } else if (!entry.has("score")) {
+                    leaderboardIds.add(leaderboardId);
+                    submissions.add(Tasks.forException(new IllegalArgumentException("Score is required")));
+                } else {
+                    leaderboardIds.add(leaderboardId);
+                    submissions.add(leaderboardsClient.submitScoreImmediate(leaderboardId, Math.round(entry.optDouble("score", 0))));
+                }
             }
+
+            Tasks.whenAllComplete(submissions).addOnCompleteListener(executor, allTask -> {
+                JSArray results = new JSArray();
+                for (int i = 0; i < submissions.size(); i++) {
+                    Task<?> submission = submissions.get(i);
+                    JSObject item = new JSObject();
+                    item.put("leaderboardId", leaderboardIds.get(i));
+                    item.put("success", submission.isSuccessful());
+                    if (submission.isSuccessful()) {
+                        scoreCache.invalidate(leaderboardIds.get(i));
+                    } else {
+                        Log.e(TAG, "Failed to submit score", submission.getException());
+                        authState.onApiFailure(submission.getException());
+                        item.put("error", "Failed to submit score: " + submission.getException().getMessage());
+                    }
+                    results.put(item);
+                }
+                JSObject result = new JSObject();
+                result.put("results", results);
+                call.resolve(result);
+            });
+        });
+    }
+
+    /**
+     * Uruchamia akcję, gdy użytkownik jest zalogowany, w razie potrzeby ponawiając autentykację.
+     */
+    private void withAuthentication(PluginCall call, Runnable action) {
+        // Stan autentykacji pochodzi ze wspólnej pamięci podręcznej – bez IPC przy każdym wyniku
+        authState.isAuthenticated(signInClient).addOnSuccessListener(executor, isAuthenticated -> {
             if (!isAuthenticated) {
                 // Użytkownik nie jest zalogowany – próbujemy ponownej autentykacji
                 Log.d(TAG, "User not authenticated. Re-authenticating...");
-                signInClient.signIn().addOnCompleteListener(authTask -> {
+                signInClient.signIn().addOnCompleteListener(executor, authTask -> {
                     try {
                         AuthenticationResult authResult = authTask.getResult(ApiException.class);
+                        authState.update(authResult.isAuthenticated(), AuthStateCache.REASON_REAUTH);
                         if (authResult.isAuthenticated()) {
                             Log.d(TAG, "Re-authentication successful, submitting score");
-                            submitScoreInternal(call, leaderboardId, score);
+                            action.run();
                         } else {
                             Log.e(TAG, "Re-authentication failed");
                             call.reject("Failed to re-authenticate user.");
@@ -145,23 +214,405 @@ public class LeaderboardsManager {
                 });
             } else {
                 // Użytkownik jest już zalogowany – wysyłamy wynik
-                submitScoreInternal(call, leaderboardId, score);
+                action.run();
             }
+        }).addOnFailureListener(executor, e -> {
+            // Sprawdzenie nie powiodło się, a stan nie jest jeszcze znany (np. zimny start bez sieci)
+            Log.e(TAG, "Failed to check authentication", e);
+            authState.onApiFailure(e);
+            call.reject("Failed to check authentication: " + e.getMessage());
         });
     }
 
     private void submitScoreInternal(PluginCall call, String leaderboardId, long score) {
 //        leaderboardsClient.submitScore(leaderboardId, score);
         leaderboardsClient.submitScoreImmediate(leaderboardId, score)
-                .addOnSuccessListener(unused -> {
+                .addOnSuccessListener(executor, unused -> {
                     Log.d(TAG, "Score submitted successfully");
+                    scoreCache.invalidate(leaderboardId);
                     JSObject result = new JSObject();
                     result.put("success", true);
                     call.resolve(result);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(executor, e -> {
                     Log.e(TAG, "Failed to submit score", e);
+                    authState.onApiFailure(e);
                     call.reject("Failed to submit score: " + e.getMessage());
                 });
     }
+
+    /**
+     * Konfiguruje tryb kolejkowania wyników.
+     */
+    public void configureScoreQueue(JSObject options) {
+        queuedMode = options.getBoolean("enabled", queuedMode);
+        Integer interval = options.getInteger("flushIntervalMs");
+        if (interval != null && interval > 0) {
+            flushIntervalMs = interval;
+        }
+        Log.d(TAG, "Score queue configured, enabled=" + queuedMode + ", flushIntervalMs=" + flushIntervalMs);
+    }
+
+    /**
+     * Wysyła natychmiast wszystkie zakolejkowane wyniki.
+     */
+    public void flushScores(PluginCall call) {
+        Log.d(TAG, "flushScores method called");
+        flushQueuedScores(call);
+    }
+
+    /**
+     * Wywoływane po wylogowaniu lub przełączeniu konta. Klucze zawierają ID gracza, ale wpisy
+     * zapisane, zanim był znany, mają pusty identyfikator, więc czyścimy wszystko.
+     */
+    public void onPlayerChanged() {
+        int dropped;
+        synchronized (this) {
+            playerGeneration++;
+            cancelScheduledFlush();
+            dropped = scoreQueue.clear();
+        }
+        scoreCache.clear();
+        Log.d(TAG, "Leaderboards reset after player change, dropped scores=" + dropped);
+    }
+
+    /**
+     * Wywoływane przy wstrzymaniu aplikacji – nie zostawiamy wyników w pamięci.
+     */
+    public void onPause() {
+        if (scoreQueue.size() > 0) {
+            flushQueuedScores(null);
+        }
+    }
+
+    private synchronized void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flushHandler.postDelayed(scheduledFlush, flushIntervalMs);
+        }
+    }
+
+    private synchronized void cancelScheduledFlush() {
+        flushHandler.removeCallbacks(scheduledFlush);
+        flushScheduled = false;
+    }
+
+    private void flushQueuedScores(PluginCall call) {
+        cancelScheduledFlush();
+        int generation = playerGeneration;
+        List<ScoreSubmissionQueue.PendingScore> batch = scoreQueue.drain();
+        if (batch.isEmpty()) {
+            resolveFlush(call, 0, 0, 0);
+            return;
+        }
+
+        Log.d(TAG, "Flushing " + batch.size() + " queued scores");
+        authState.isAuthenticated(signInClient).addOnSuccessListener(executor, isAuthenticated -> {
+            if (!isAuthenticated) {
+                // Bez logowania nie wysyłamy – wyniki wracają do kolejki na następną próbę
+                Log.d(TAG, "User not authenticated, keeping " + batch.size() + " scores queued");
+                requeue(batch, generation);
+                if (call != null) {
+                    call.reject("User is not authenticated");
+                }
+                return;
+            }
+
+            List<Task<?>> submissions = new ArrayList<>(batch.size());
+            for (ScoreSubmissionQueue.PendingScore pendingScore : batch) {
+                submissions.add(leaderboardsClient.submitScoreImmediate(pendingScore.leaderboardId, pendingScore.score));
+            }
+            Tasks.whenAllComplete(submissions).addOnCompleteListener(executor, allTask -> {
+                List<ScoreSubmissionQueue.PendingScore> failed = new ArrayList<>();
+                int submitted = 0;
+                int dropped = 0;
+                for (int i = 0; i < submissions.size(); i++) {
+                    Exception e = submissions.get(i).getException();
+                    if (submissions.get(i).isSuccessful()) {
+                        scoreCache.invalidate(batch.get(i).leaderboardId);
+                        submitted++;
+                    } else if (isRetryable(e)) {
+                        Log.e(TAG, "Failed to submit queued score for " + batch.get(i).leaderboardId + ", score kept", e);
+                        authState.onApiFailure(e);
+                        failed.add(batch.get(i));
+                    } else {
+                        // Błąd trwały (np. nieznana tablica) – ponawianie nic nie da
+                        Log.e(TAG, "Failed to submit queued score for " + batch.get(i).leaderboardId + ", score dropped", e);
+                        dropped++;
+                    }
+                }
+                requeue(failed, generation);
+                Log.d(TAG, "Queued scores flushed, submitted=" + submitted + ", failed=" + failed.size()
+                        + ", dropped=" + dropped);
+                resolveFlush(call, submitted, failed.size(), dropped);
+            });
+        }).addOnFailureListener(executor, e -> {
+            // Stan logowania nieznany – wyniki wracają do kolejki na następną próbę
+            Log.e(TAG, "Failed to check authentication, keeping " + batch.size() + " scores queued", e);
+            authState.onApiFailure(e);
+            requeue(batch, generation);
+            if (call != null) {
+                call.reject("Failed to check authentication: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Przywraca wyniki do kolejki, o ile w międzyczasie nie zmienił się gracz.
+     */
+    private synchronized void requeue(List<ScoreSubmissionQueue.PendingScore> scores, int generation) {
+        if (scores.isEmpty()) {
+            return;
+        }
+        if (generation != playerGeneration) {
+            Log.d(TAG, "Player changed during flush, dropped scores=" + scores.size());
+            return;
+        }
+        for (ScoreSubmissionQueue.PendingScore pendingScore : scores) {
+            scoreQueue.offer(pendingScore);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Wynik mógł nie dotrzeć do serwera z przyczyn przejściowych. Wysyłanie najlepszego wyniku
+     * jest idempotentne, więc ponowienie go nie zmienia tablicy.
+     */
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof RateLimitedException || e instanceof CircuitOpenException) {
+            return true;
+        }
+        if (e instanceof ApiException && ((ApiException) e).getStatusCode() == CommonStatusCodes.SIGN_IN_REQUIRED) {
+            return true;
+        }
+        return ResilientCalls.isTransient(e);
+    }
+
+    private void resolveFlush(PluginCall call, int submitted, int failed, int dropped) {
+        if (call == null) {
+            return;
+        }
+        JSObject result = new JSObject();
+        result.put("submitted", submitted);
+        result.put("failed", failed);
+        result.put("dropped", dropped);
+        result.put("pending", scoreQueue.size());
+        call.resolve(result);
+    }
+
+    /**
+     * Konfiguruje pamięć podręczną zapytań o wyniki.
+     */
+    public void configureScoreCache(JSObject options) {
+        scoreCache.configure(
+                options.getInteger("maxEntries"),
+                options.getInteger("ttlMs"),
+                options.getInteger("staleWhileRevalidateMs"));
+        Log.d(TAG, "Score cache configured");
+    }
+
+    /**
+     * Pobiera stronę najlepszych wyników tablicy.
+     */
+    public void loadTopScores(PluginCall call) {
+        Log.d(TAG, "loadTopScores method called");
+        loadScores(call, "top");
+    }
+
+    /**
+     * Pobiera stronę wyników wokół pozycji bieżącego gracza.
+     */
+    public void loadPlayerCenteredScores(PluginCall call) {
+        Log.d(TAG, "loadPlayerCenteredScores method called");
+        loadScores(call, "centered");
+    }
+
+    /**
+     * Pobiera wynik bieżącego gracza w danej tablicy.
+     */
+    public void loadCurrentPlayerScore(PluginCall call) {
+        Log.d(TAG, "loadCurrentPlayerScore method called");
+        String leaderboardId = call.getString("leaderboardId");
+        if (leaderboardId == null || leaderboardId.isEmpty()) {
+            call.reject("Leaderboard ID is required");
+            return;
+        }
+        int timeSpan = parseTimeSpan(call.getString("timeSpan"));
+        int collection = parseCollection(call.getString("collection"));
+        String key = LeaderboardScoreCache.key(authState.playerId(), "player", leaderboardId, timeSpan, collection, 1, 0);
+
+        resolveCached(call, key, call.getBoolean("forceReload", false), () ->
+                leaderboardsClient.loadCurrentPlayerLeaderboardScore(leaderboardId, timeSpan, collection)
+                        .continueWith(executor, task -> {
+                            LeaderboardScore score = task.getResult().get();
+                            JSObject payload = new JSObject();
+                            if (score != null) {
+                                payload.put("score", scoreToJSObject(score));
+                            }
+                            return payload;
+                        }));
+    }
+
+    private void loadScores(PluginCall call, String kind) {
+        String leaderboardId = call.getString("leaderboardId");
+        if (leaderboardId == null || leaderboardId.isEmpty()) {
+            call.reject("Leaderboard ID is required");
+            return;
+        }
+        int timeSpan = parseTimeSpan(call.getString("timeSpan"));
+        int collection = parseCollection(call.getString("collection"));
+        int maxResults = Math.max(1, Math.min(MAX_SCORES_PER_PAGE, call.getInt("maxResults", MAX_SCORES_PER_PAGE)));
+        int page = Math.max(0, call.getInt("page", 0));
+        boolean forceReload = call.getBoolean("forceReload", false);
+        String playerId = authState.playerId();
+        String key = LeaderboardScoreCache.key(playerId, kind, leaderboardId, timeSpan, collection, maxResults, page);
+
+        resolveCached(call, key, forceReload, () ->
+                fetchScoresPage(playerId, kind, leaderboardId, timeSpan, collection, maxResults, page, forceReload));
+    }
+
+    private interface ScoreFetch {
+        Task<JSObject> start();
+    }
+
+    /**
+     * Odpowiada z pamięci podręcznej, gdy to możliwe. Nieświeży wpis jest zwracany od razu
+     * i odświeżany w tle; brakujący wpis jest pobierany z sieci.
+     */
+    private void resolveCached(PluginCall call, String key, boolean forceReload, ScoreFetch fetch) {
+        LeaderboardScoreCache.Entry entry = forceReload ? null : scoreCache.get(key);
+        LeaderboardScoreCache.Freshness freshness = scoreCache.freshness(entry);
+        // Równoległe identyczne zapytania (i odświeżanie w tle) współdzielą jedno pobranie
+        String flightKey = "scores|" + key + (forceReload ? "|force" : "");
+        if (freshness != LeaderboardScoreCache.Freshness.MISSING) {
+            call.resolve(withCacheInfo(entry.payload, true, freshness == LeaderboardScoreCache.Freshness.STALE));
+            if (freshness == LeaderboardScoreCache.Freshness.STALE) {
+                calls.singleFlight(flightKey, fetch::start)
+                        .addOnSuccessListener(executor, payload -> scoreCache.put(key, payload))
+                        .addOnFailureListener(executor, e -> Log.e(TAG, "Failed to revalidate cached scores", e));
+            }
+            return;
+        }
+
+        calls.singleFlight(flightKey, fetch::start)
+                .addOnSuccessListener(executor, payload -> {
+                    scoreCache.put(key, payload);
+                    call.resolve(withCacheInfo(payload, false, false));
+                })
+                .addOnFailureListener(executor, e -> {
+                    Log.e(TAG, "Failed to load scores", e);
+                    authState.onApiFailure(e);
+                    call.reject("Failed to load scores: " + e.getMessage());
+                });
+    }
+
+    /**
+     * Pobiera stronę wyników. SDK nie ma zapytania od przesunięcia, więc strona N wymaga
+     * wczytania pierwszej strony i N wywołań loadMoreScores. Doczytywanie kończy się wcześniej,
+     * gdy dane się wyczerpią, a wszystkie pobrane po drodze strony trafiają do pamięci podręcznej,
+     * żeby powrót do wcześniejszej strony nie wymagał zapytań.
+     * Wszystkie bufory są zwalniane po skopiowaniu danych.
+     */
+    private Task<JSObject> fetchScoresPage(String playerId, String kind, String leaderboardId, int timeSpan,
+                                           int collection, int maxResults, int page, boolean forceReload) {
+        List<LeaderboardsClient.LeaderboardScores> loaded = new ArrayList<>();
+        Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> first = "top".equals(kind)
+                ? leaderboardsClient.loadTopScores(leaderboardId, timeSpan, collection, maxResults, forceReload)
+                : leaderboardsClient.loadPlayerCenteredScores(leaderboardId, timeSpan, collection, maxResults, forceReload);
+
+        Task<LeaderboardsClient.LeaderboardScores> current = first.continueWith(executor, task -> {
+            LeaderboardsClient.LeaderboardScores scores = task.getResult().get();
+            loaded.add(scores);
+            return scores;
+        });
+        for (int i = 0; i < page; i++) {
+            int loadedPages = i + 1;
+            current = current.continueWithTask(executor, task -> {
+                LeaderboardsClient.LeaderboardScores previous = task.getResult();
+                if (previous.getScores().getCount() < loadedPages * maxResults) {
+                    // Ostatnia wczytana strona była niepełna – dalszych wyników nie ma
+                    return Tasks.forResult(previous);
+                }
+                return leaderboardsClient.loadMoreScores(previous.getScores(), maxResults, PageDirection.NEXT)
+                        .continueWith(executor, more -> {
+                            LeaderboardsClient.LeaderboardScores scores = more.getResult().get();
+                            loaded.add(scores);
+                            return scores;
+                        });
+            });
+        }
+
+        return current.continueWith(executor, task -> {
+            try {
+                // Bufor po loadMoreScores zawiera również poprzednie strony
+                LeaderboardScoreBuffer buffer = task.getResult().getScores();
+                for (int earlier = 0; earlier < page; earlier++) {
+                    scoreCache.put(LeaderboardScoreCache.key(playerId, kind, leaderboardId, timeSpan, collection,
+                            maxResults, earlier), pagePayload(buffer, maxResults, earlier));
+                }
+                return pagePayload(buffer, maxResults, page);
+            } finally {
+                for (LeaderboardsClient.LeaderboardScores scores : loaded) {
+                    scores.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Kopiuje stronę z bufora zawierającego strony od pierwszej; strona za końcem danych jest pusta.
+     */
+    private static JSObject pagePayload(LeaderboardScoreBuffer buffer, int maxResults, int page) {
+        int start = Math.min(page * maxResults, buffer.getCount());
+        int end = Math.min(buffer.getCount(), start + maxResults);
+        JSArray scores = new JSArray();
+        for (int i = start; i < end; i++) {
+            scores.put(scoreToJSObject(buffer.get(i)));
+        }
+        JSObject payload = new JSObject();
+        payload.put("scores", scores);
+        payload.put("page", page);
+        return payload;
+    }
+
+    private static JSObject withCacheInfo(JSObject payload, boolean fromCache, boolean stale) {
+        JSObject result = new JSObject();
+        result.put("scores", payload.opt("scores"));
+        result.put("page", payload.opt("page"));
+        result.put("score", payload.opt("score"));
+        result.put("fromCache", fromCache);
+        result.put("stale", stale);
+        return result;
+    }
+
+    private static JSObject scoreToJSObject(LeaderboardScore score) {
+        JSObject item = new JSObject();
+        item.put("rank", score.getRank());
+        item.put("displayRank", score.getDisplayRank());
+        item.put("rawScore", score.getRawScore());
+        item.put("displayScore", score.getDisplayScore());
+        item.put("timestampMillis", score.getTimestampMillis());
+        item.put("scoreTag", score.getScoreTag());
+        item.put("displayName", score.getScoreHolderDisplayName());
+        if (score.getScoreHolder() != null) {
+            item.put("playerId", score.getScoreHolder().getPlayerId());
+        }
+        return item;
+    }
+
+    private static int parseTimeSpan(String timeSpan) {
+        if ("daily".equals(timeSpan)) {
+            return LeaderboardVariant.TIME_SPAN_DAILY;
+        }
+        if ("weekly".equals(timeSpan)) {
+            return LeaderboardVariant.TIME_SPAN_WEEKLY;
+        }
+        return LeaderboardVariant.TIME_SPAN_ALL_TIME;
+    }
+
+    private static int parseCollection(String collection) {
+        return "friends".equals(collection)
+                ? LeaderboardVariant.COLLECTION_FRIENDS
+                : LeaderboardVariant.COLLECTION_PUBLIC;
+    }
 }
@@ -0,0 +1,106 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import pl.nekko.capacitor.play.core.MetricsSource;
+import pl.nekko.capacitor.play.core.PluginExecutors;
+import pl.nekko.capacitor.play.core.PluginMetrics;
+
+/**
+ * Udostępnia metryki pluginu przez getMetrics/resetMetrics i okresowe zdarzenie metricsReport.
+ */
+public class MetricsManager {
+    private static final String TAG = "MetricsManager";
+
+    private final Bridge bridge;
+    private final PluginMetrics metrics;
+    private final Map<String, MetricsSource> sources = new LinkedHashMap<>();
+    private final Executor executor;
+    private final Handler reportHandler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduledReport = this::onReportTimer;
+
+    private long reportIntervalMs = 0;
+    private boolean resetAfterReport = false;
+
+    public MetricsManager(Bridge bridge, PluginMetrics metrics, PluginExecutors executors) {
+        this.bridge = bridge;
+        this.metrics = metrics;
+        this.executor = executors.io();
+        Log.d(TAG, "MetricsManager initialized");
+    }
+
+    /**
+     * Dołącza stan składnika do metryk pod podaną nazwą.
+     */
+    public synchronized void addSource(String name, MetricsSource source) {
+        sources.put(name, source);
+    }
+
+    /**
+     * Zwraca bieżący stan metryk.
+     */
+    public void getMetrics(PluginCall call) {
+        call.resolve(snapshot());
+    }
+
+    /**
+     * Metryki operacji uzupełnione o stan zarejestrowanych składników.
+     */
+    private synchronized JSObject snapshot() {
+        JSObject result = metrics.toJSObject();
+        for (Map.Entry<String, MetricsSource> source : sources.entrySet()) {
+            result.put(source.getKey(), source.getValue().toJSObject());
+        }
+        return result;
+    }
+
+    /**
+     * Zeruje wszystkie liczniki i histogramy.
+     */
+    public void resetMetrics(PluginCall call) {
+        metrics.reset();
+        call.resolve();
+    }
+
+    /**
+     * Konfiguruje okresowe raporty. Interwał 0 wyłącza zdarzenia.
+     */
+    public synchronized void configure(JSObject options) {
+        Integer interval = options.getInteger("reportIntervalMs");
+        if (interval != null && interval >= 0) {
+            reportIntervalMs = interval;
+        }
+        resetAfterReport = options.getBoolean("resetAfterReport", resetAfterReport);
+        reportHandler.removeCallbacks(scheduledReport);
+        if (reportIntervalMs > 0) {
+            reportHandler.postDelayed(scheduledReport, reportIntervalMs);
+        }
+        Log.d(TAG, "Metrics configured, reportIntervalMs=" + reportIntervalMs + ", resetAfterReport=" + resetAfterReport);
+    }
+
+    private synchronized void onReportTimer() {
+        if (reportIntervalMs <= 0) {
+            return;
+        }
+        boolean reset = resetAfterReport;
+        // Budowanie raportu nie powinno obciążać wątku głównego
+        executor.execute(() -> {
+            JSObject report = snapshot();
+            if (reset) {
+                metrics.reset();
+            }
+            bridge.triggerWindowJSEvent("metricsReport", report.toString());
+        });
+        reportHandler.postDelayed(scheduledReport, reportIntervalMs);
+    }
+}
@@ -0,0 +1,111 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Base64;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Dyskowa pamięć podręczna awatarów graczy. Każdy rozmiar jest zapisywany jako
+ * osobny plik PNG, a łączny rozmiar katalogu jest ograniczony – najstarsze pliki
+ * są usuwane po przekroczeniu limitu.
+ */
+class PlayerAvatarCache {
+    private static final String TAG = "PlayerAvatarCache";
+    private static final String DIRECTORY = "pgs_avatars";
+    private static final long DEFAULT_MAX_BYTES = 2 * 1024 * 1024;
+
+    private final File directory;
+    private volatile long maxBytes = DEFAULT_MAX_BYTES;
+
+    PlayerAvatarCache(Context context) {
+        this.directory = new File(context.getCacheDir(), DIRECTORY);
+    }
+
+    void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Zwraca plik z awatarem w danym rozmiarze albo null, jeśli nie ma go jeszcze na dysku.
+     */
+    File get(String playerId, int size) {
+        File file = fileFor(playerId, size);
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * Skaluje awatar do zadanego rozmiaru i zapisuje go na dysku.
+     */
+    synchronized File put(String playerId, int size, Bitmap source) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create avatar cache directory");
+        }
+        Bitmap scaled = source.getWidth() == size && source.getHeight() == size
+                ? source
+                : Bitmap.createScaledBitmap(source, size, size, true);
+        File file = fileFor(playerId, size);
+        try (OutputStream out = new FileOutputStream(file)) {
+            scaled.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } finally {
+            if (scaled != source) {
+                scaled.recycle();
+            }
+        }
+        trim();
+        return file;
+    }
+
+    static String toBase64(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(bytes);
+        }
+        return "data:image/png;base64," + Base64.encodeToString(bytes, Base64.NO_WRAP);
+    }
+
+    synchronized void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private File fileFor(String playerId, int size) {
+        return new File(directory, playerId.replaceAll("[^A-Za-z0-9_-]", "_") + "_" + size + ".png");
+    }
+
+    private void trim() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            total -= file.length();
+            if (!file.delete()) {
+                Log.w(TAG, "Failed to delete cached avatar " + file.getName());
+            }
+        }
+    }
+}
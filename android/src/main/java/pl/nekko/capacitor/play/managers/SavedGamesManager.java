@@ -2,42 +2,78 @@ package pl.nekko.capacitor.play.managers;
 
 import android.app.Activity;
 import android.content.Intent;
+import android.util.Base64;
 import android.util.Log;
 
 import androidx.activity.result.ActivityResult;
-import androidx.activity.result.ActivityResultLauncher;
-import androidx.activity.result.contract.ActivityResultContracts;
 
 import com.getcapacitor.Bridge;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.PluginCall;
-import com.google.android.gms.games.PlayGames;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.games.GamesClientStatusCodes;
 import com.google.android.gms.games.SnapshotsClient;
 import com.google.android.gms.games.snapshot.Snapshot;
 import com.google.android.gms.games.snapshot.SnapshotContents;
 import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataBuffer;
 import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+import pl.nekko.capacitor.play.core.AuthStateCache;
+import pl.nekko.capacitor.play.core.GamesBackend;
+import pl.nekko.capacitor.play.core.PluginExecutors;
+import pl.nekko.capacitor.play.core.PluginMetrics;
+import pl.nekko.capacitor.play.core.XxHash64;
 
 public class SavedGamesManager {
     private static final String TAG = "SavedGamesManager";
+    private static final long DEFAULT_INDEX_TTL_MS = 5 * 60_000;
 
     private final Bridge bridge;
-    private final SnapshotsClient snapshotsClient;
-
-    private PluginCall savedGamesCall;
-    private ActivityResultLauncher<Intent> savedGamesLauncher;
-
-    public SavedGamesManager(Bridge bridge) {
+    private final GamesBackend.Snapshots snapshotsClient;
+    private final Executor executor;
+    private final PluginMetrics metrics;
+    private final AuthStateCache authState;
+    private final SnapshotHashStore hashStore;
+    private final SnapshotMirror mirror;
+    private final SnapshotStreamer streamer;
+    private final SnapshotConflictResolver conflictResolver;
+    private final AutosaveDebouncer autosave;
+    private final SnapshotMetadataIndex metadataIndex = new SnapshotMetadataIndex();
+    private Task<Void> metadataIndexLoad;
+    private volatile long indexTtlMs = DEFAULT_INDEX_TTL_MS;
+
+    // Domyślna strategia konfliktów; null oznacza politykę MOST_RECENTLY_MODIFIED
+    private volatile String conflictStrategy;
+    private volatile String conflictPath;
+    private volatile boolean autosaveEnabled = false;
+
+    private final UiLaunchQueue savedGamesUi;
+
+    public SavedGamesManager(Bridge bridge, GamesBackend backend, AuthStateCache authState, UiLaunchQueue savedGamesUi,
+                             PluginExecutors executors, PluginMetrics metrics) {
         this.bridge = bridge;
-        this.snapshotsClient = PlayGames.getSnapshotsClient(bridge.getActivity());
-
-        // Rejestrujemy launcher dla aktywności zapisów gry
-        savedGamesLauncher = bridge.registerForActivityResult(
-                new ActivityResultContracts.StartActivityForResult(),
-                this::handleSavedGamesResult
-        );
+        this.snapshotsClient = backend.getSnapshots();
+        this.executor = executors.io();
+        this.metrics = metrics;
+        this.authState = authState;
+        this.hashStore = new SnapshotHashStore(bridge.getContext(), authState);
+        this.mirror = new SnapshotMirror(bridge.getContext(), authState);
+        this.streamer = new SnapshotStreamer(bridge);
+        this.conflictResolver = new SnapshotConflictResolver(snapshotsClient, executor);
+        this.autosave = new AutosaveDebouncer(this::commitSave, executor);
+        this.savedGamesUi = savedGamesUi;
 
         Log.d(TAG, "SavedGamesManager initialized");
     }
@@ -61,58 +97,122 @@ public class SavedGamesManager {
             saveId = "save_" + System.currentTimeMillis();
         }
 
-        byte[] dataBytes = data.getBytes();
-        String finalSaveId = saveId;
+        // Dane tekstowe zapisujemy jako UTF-8, a binarne (base64) jako surowe bajty
+        boolean binary = "base64".equals(call.getString("encoding", "utf8"));
+        byte[] rawBytes;
+        try {
+            rawBytes = toRawBytes(data, binary);
+        } catch (IllegalArgumentException e) {
+            call.reject("Save data is not valid base64");
+            return;
+        }
+        Boolean compress = call.getBoolean("compress");
+        byte[] dataBytes = compress == null
+                ? SnapshotCodec.encode(rawBytes, binary)
+                : SnapshotCodec.encode(rawBytes, binary, compress ? SnapshotCodec.COMPRESSION_DEFLATE : SnapshotCodec.COMPRESSION_NONE);
+        String contentHash = XxHash64.toHex(XxHash64.hash(rawBytes));
+
+        String strategyName = call.getString("conflictStrategy", conflictStrategy);
+        SnapshotMergeStrategy strategy = SnapshotMergeStrategies.get(strategyName);
+        if (strategyName != null && strategy == null) {
+            call.reject("Unknown conflict strategy: " + strategyName);
+            return;
+        }
+
+        AutosaveDebouncer.PendingSave save = new AutosaveDebouncer.PendingSave(saveId, dataBytes, description,
+                contentHash, call.getBoolean("force", false), strategy, call.getString("conflictPath", conflictPath));
+
+        // W trybie autozapisu commit odkładamy – zostanie zapisany tylko najnowszy stan
+        if (call.getBoolean("autosave", autosaveEnabled)) {
+            Log.d(TAG, "Save queued for autosave, ID: " + saveId);
+            autosave.submit(save, call);
+            return;
+        }
+
+        commitSave(save)
+                .addOnSuccessListener(executor, call::resolve)
+                .addOnFailureListener(executor, e -> call.reject(e.getMessage()));
+    }
+
+    /**
+     * Otwiera snapshot, zapisuje dane i zatwierdza je. Wynik zawsze trafia do zadania –
+     * błędy API jako success=false, a nierozwiązany konflikt jako wyjątek (odrzucenie wywołania).
+     */
+    private Task<JSObject> commitSave(AutosaveDebouncer.PendingSave save) {
+        // Pomijamy zapis, jeśli dane i opis nie zmieniły się od ostatniego commitu
+        if (!save.force && hashStore.isUnchanged(save.saveId, save.contentHash, save.description)) {
+            Log.d(TAG, "Save data unchanged, skipping commit for ID: " + save.saveId);
+            JSObject result = new JSObject();
+            result.put("success", true);
+            result.put("saveId", save.saveId);
+            result.put("unchanged", true);
+            result.put("committed", false);
+            result.put("contentHash", save.contentHash);
+            return Tasks.forResult(result);
+        }
 
-        snapshotsClient
-                .open(saveId, /* createIfNotFound= */ true, SnapshotsClient.RESOLUTION_POLICY_MOST_RECENTLY_MODIFIED)
-                .addOnSuccessListener(openResult -> {
-                    // openResult jest typu SnapshotsClient.DataOrConflict<Snapshot>
-                    SnapshotsClient.DataOrConflict<Snapshot> dataOrConflict = openResult;
-                    Snapshot snapshot = dataOrConflict.getData();
+        return conflictResolver
+                .open(save.saveId, /* createIfNotFound= */ true, save.strategy, save.conflictPath)
+                .continueWithTask(executor, openTask -> {
+                    if (!openTask.isSuccessful()) {
+                        Log.e(TAG, "Failed to open snapshot", openTask.getException());
+                        return Tasks.forResult(failure("Failed to open snapshot: ", openTask.getException()));
+                    }
+                    Snapshot snapshot = openTask.getResult();
 
-                    // Jeśli wystąpił konflikt lub snapshot jest nullem, trzeba to obsłużyć
+                    // Bez strategii konflikt kończy się brakiem snapshotu
                     if (snapshot == null) {
-                        // Tu można obsłużyć conflict, np. dataOrConflict.getConflict()
-                        call.reject("Snapshot conflict or error occurred.");
-                        return;
+                        return Tasks.forException(new IllegalStateException("Snapshot conflict or error occurred."));
                     }
 
-                    // Zapisujemy dane do snapshotContents
-                    SnapshotContents contents = snapshot.getSnapshotContents();
-                    contents.writeBytes(dataBytes);
-
-                    // Tworzymy metadane
-                    SnapshotMetadataChange metadataChange = new SnapshotMetadataChange.Builder()
-                            .setDescription(description)
-                            .build();
-
-                    // Commitujemy zmiany i zamykamy
-                    snapshotsClient.commitAndClose(snapshot, metadataChange)
-                            .addOnSuccessListener(snapshotMetadata -> {
-                                Log.d(TAG, "Game saved successfully with ID: " + finalSaveId);
-                                JSObject result = new JSObject();
-                                result.put("success", true);
-                                result.put("saveId", finalSaveId);
-                                call.resolve(result);
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "Failed to commit save", e);
-                                JSObject result = new JSObject();
-                                result.put("success", false);
-                                result.put("error", "Failed to commit save: " + e.getMessage());
-                                call.resolve(result);
-                            });
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to open snapshot", e);
-                    JSObject result = new JSObject();
-                    result.put("success", false);
-                    result.put("error", "Failed to open snapshot: " + e.getMessage());
-                    call.resolve(result);
+                    Task<SnapshotMetadata> commit;
+                    try {
+                        // Zapisujemy dane do snapshotContents
+                        SnapshotContents contents = snapshot.getSnapshotContents();
+                        contents.writeBytes(save.dataBytes);
+                        metrics.recordSize("snapshots.write", save.dataBytes.length);
+
+                        // Tworzymy metadane
+                        SnapshotMetadataChange metadataChange = new SnapshotMetadataChange.Builder()
+                                .setDescription(save.description)
+                                .build();
+
+                        // Commitujemy zmiany i zamykamy
+                        commit = snapshotsClient.commitAndClose(snapshot, metadataChange);
+                    } catch (RuntimeException e) {
+                        // Otwarty snapshot blokuje slot, dopóki nie zostanie zamknięty
+                        Log.e(TAG, "Error writing snapshot contents", e);
+                        snapshotsClient.discardAndClose(snapshot);
+                        return Tasks.forResult(failure("Error writing snapshot contents: ", e));
+                    }
+                    return commit.continueWith(executor, commitTask -> {
+                        if (!commitTask.isSuccessful()) {
+                            Log.e(TAG, "Failed to commit save", commitTask.getException());
+                            return failure("Failed to commit save: ", commitTask.getException());
+                        }
+                        Log.d(TAG, "Game saved successfully with ID: " + save.saveId);
+                        long lastModified = commitTask.getResult().getLastModifiedTimestamp();
+                        hashStore.put(save.saveId, save.contentHash, save.description);
+                        writeMirror(save.saveId, lastModified, save.description, save.dataBytes);
+                        metadataIndex.markCommitted(save.saveId, save.description, lastModified);
+                        JSObject result = new JSObject();
+                        result.put("success", true);
+                        result.put("saveId", save.saveId);
+                        result.put("unchanged", false);
+                        result.put("committed", true);
+                        result.put("contentHash", save.contentHash);
+                        return result;
+                    });
                 });
     }
 
+    private static JSObject failure(String prefix, Exception e) {
+        JSObject result = new JSObject();
+        result.put("success", false);
+        result.put("error", prefix + (e != null ? e.getMessage() : "unknown error"));
+        return result;
+    }
+
     /**
      * Ładuje dane gry z chmury.
      */
@@ -122,12 +222,32 @@ public class SavedGamesManager {
             call.reject("Save ID is required");
             return;
         }
+        if (call.getBoolean("stream", false)) {
+            streamGameData(call, saveId);
+            return;
+        }
 
-        snapshotsClient.open(saveId, false, SnapshotsClient.RESOLUTION_POLICY_MOST_RECENTLY_MODIFIED)
-                .addOnSuccessListener(openResult -> {
-                    SnapshotsClient.DataOrConflict<Snapshot> dataOrConflict = openResult;
-                    Snapshot snapshot = dataOrConflict.getData();
+        // Najpierw lokalna kopia – chmura jest sprawdzana w tle
+        if (!call.getBoolean("forceReload", false)) {
+            SnapshotMirror.Entry cached = readMirror(saveId);
+            if (cached != null) {
+                Log.d(TAG, "Serving save from local mirror, ID: " + saveId);
+                metrics.recordSize("mirror.read", cached.data.length);
+                resolveLoaded(call, saveId, cached.data, cached.description, cached.lastModifiedTimestamp, true);
+                revalidateMirror(saveId, cached.lastModifiedTimestamp);
+                return;
+            }
+        }
 
+        String strategyName = call.getString("conflictStrategy", conflictStrategy);
+        SnapshotMergeStrategy strategy = SnapshotMergeStrategies.get(strategyName);
+        if (strategyName != null && strategy == null) {
+            call.reject("Unknown conflict strategy: " + strategyName);
+            return;
+        }
+
+        conflictResolver.open(saveId, false, strategy, call.getString("conflictPath", conflictPath))
+                .addOnSuccessListener(executor, snapshot -> {
                     if (snapshot == null) {
                         call.reject("Snapshot conflict or error occurred.");
                         return;
@@ -138,6 +258,7 @@ public class SavedGamesManager {
                     byte[] dataBytes;
                     try {
                         dataBytes = contents.readFully();
+                        metrics.recordSize("snapshots.read", dataBytes.length);
                     } catch (IOException e) {
                         Log.e(TAG, "Error reading snapshot contents", e);
                         JSObject errorResult = new JSObject();
@@ -149,28 +270,21 @@ public class SavedGamesManager {
                         return;
                     }
 
-                    // Dalej przetwarzamy dataBytes...
-                    String data = new String(dataBytes);
-
                     // Metadane
                     SnapshotMetadata metadata = snapshot.getMetadata();
                     long lastModified = metadata.getLastModifiedTimestamp();
                     String desc = metadata.getDescription();
 
-                    // Tworzymy wynik
-                    JSObject result = new JSObject();
-                    result.put("success", true);
-                    result.put("saveId", saveId);
-                    result.put("data", data);
-                    result.put("description", desc);
-                    result.put("lastModifiedTimestamp", lastModified);
-                    call.resolve(result);
+                    if (resolveLoaded(call, saveId, dataBytes, desc, lastModified, false)) {
+                        writeMirror(saveId, lastModified, desc, dataBytes);
+                    }
 
                     // Zamykamy snapshot bez zapisu
                     snapshotsClient.discardAndClose(snapshot);
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(executor, e -> {
                     Log.e(TAG, "Failed to open snapshot", e);
+                    dropMirrorIfDeleted(saveId, e);
                     JSObject result = new JSObject();
                     result.put("success", false);
                     result.put("error", "Failed to open snapshot: " + e.getMessage());
@@ -178,6 +292,548 @@ public class SavedGamesManager {
                 });
     }
 
+    /**
+     * Ładowanie strumieniowe: zawartość trafia do JS zdarzeniami savedGameChunk, a wywołanie
+     * rozwiązuje się po ostatnim kawałku samymi metadanymi.
+     * <p>
+     * {@link SnapshotStreamer#stream} blokuje wątek do odebrania ostatniego kawałka przez WebView,
+     * więc zarówno kopia lokalna, jak i chmura są strumieniowane na wątku pgs-io. Przez cały czas
+     * strumienia zajmuje on jeden z 2–4 wątków puli – pozostałe operacje wtyczki dzielą resztę.
+     */
+    private void streamGameData(PluginCall call, String saveId) {
+        String streamId = call.getString("streamId", saveId);
+        int chunkSize = SnapshotStreamer.chunkSize(call.getInt("chunkSize"));
+
+        if (call.getBoolean("forceReload", false)) {
+            streamFromCloud(call, saveId, streamId, chunkSize);
+            return;
+        }
+        executor.execute(() -> {
+            SnapshotMirror.Location cached = null;
+            try {
+                cached = mirror.locate(saveId);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to read local mirror", e);
+            }
+            if (cached != null) {
+                Log.d(TAG, "Streaming save from local mirror, ID: " + saveId);
+                try (FileInputStream in = new FileInputStream(cached.file); FileChannel source = in.getChannel()) {
+                    SnapshotStreamer.Result streamed = streamer.stream(source, cached.dataOffset, cached.dataLength,
+                            saveId, streamId, chunkSize);
+                    metrics.recordSize("mirror.read", cached.dataLength);
+                    call.resolve(streamResult(saveId, streamId, streamed, cached.description,
+                            cached.lastModifiedTimestamp, true));
+                } catch (IOException e) {
+                    Log.e(TAG, "Error streaming local mirror", e);
+                    call.resolve(streamFailure(streamId, "Error streaming snapshot contents: ", e));
+                    return;
+                }
+                revalidateMirror(saveId, cached.lastModifiedTimestamp);
+                return;
+            }
+            streamFromCloud(call, saveId, streamId, chunkSize);
+        });
+    }
+
+    private void streamFromCloud(PluginCall call, String saveId, String streamId, int chunkSize) {
+        String strategyName = call.getString("conflictStrategy", conflictStrategy);
+        SnapshotMergeStrategy strategy = SnapshotMergeStrategies.get(strategyName);
+        if (strategyName != null && strategy == null) {
+            call.reject("Unknown conflict strategy: " + strategyName);
+            return;
+        }
+
+        conflictResolver.open(saveId, false, strategy, call.getString("conflictPath", conflictPath))
+                .addOnSuccessListener(executor, snapshot -> {
+                    if (snapshot == null) {
+                        call.reject("Snapshot conflict or error occurred.");
+                        return;
+                    }
+                    try {
+                        SnapshotMetadata metadata = snapshot.getMetadata();
+                        long lastModified = metadata.getLastModifiedTimestamp();
+                        String desc = metadata.getDescription();
+                        FileChannel source = SnapshotFiles.openSnapshot(snapshot.getSnapshotContents());
+                        long length = source.size();
+                        metrics.recordSize("snapshots.read", length);
+                        SnapshotStreamer.Result streamed = streamer.stream(source, 0, length, saveId, streamId, chunkSize);
+                        hashStore.put(saveId, streamed.contentHash, desc);
+                        try {
+                            mirror.write(saveId, lastModified, desc, ByteBuffer.allocate(0), source, 0, length);
+                        } catch (IOException e) {
+                            Log.e(TAG, "Failed to write local mirror", e);
+                        }
+                        call.resolve(streamResult(saveId, streamId, streamed, desc, lastModified, false));
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error streaming snapshot contents", e);
+                        call.resolve(streamFailure(streamId, "Error streaming snapshot contents: ", e));
+                    } finally {
+                        snapshotsClient.discardAndClose(snapshot);
+                    }
+                })
+                .addOnFailureListener(executor, e -> {
+                    Log.e(TAG, "Failed to open snapshot", e);
+                    dropMirrorIfDeleted(saveId, e);
+                    call.resolve(streamFailure(streamId, "Failed to open snapshot: ", e));
+                });
+    }
+
+    private static JSObject streamResult(String saveId, String streamId, SnapshotStreamer.Result streamed,
+                                         String description, long lastModified, boolean fromCache) {
+        JSObject result = new JSObject();
+        result.put("success", true);
+        result.put("saveId", saveId);
+        result.put("streamId", streamId);
+        result.put("chunks", streamed.chunks);
+        result.put("size", streamed.size);
+        result.put("encoding", streamed.binary ? "base64" : "utf8");
+        result.put("compressed", streamed.compressed);
+        result.put("contentHash", streamed.contentHash);
+        result.put("description", description);
+        result.put("lastModifiedTimestamp", lastModified);
+        result.put("fromCache", fromCache);
+        return result;
+    }
+
+    private static JSObject streamFailure(String streamId, String prefix, Exception e) {
+        JSObject result = failure(prefix, e);
+        result.put("streamId", streamId);
+        return result;
+    }
+
+    /**
+     * Dekoduje zapisane bajty i rozwiązuje wywołanie. Zwraca false, jeśli dane są uszkodzone.
+     */
+    private boolean resolveLoaded(PluginCall call, String saveId, byte[] dataBytes, String description,
+                                  long lastModified, boolean fromCache) {
+        // Dekodujemy dane – format rozpoznajemy po nagłówku
+        SnapshotCodec.Payload payload;
+        try {
+            payload = SnapshotCodec.decode(dataBytes);
+        } catch (IOException e) {
+            Log.e(TAG, "Error decoding snapshot contents", e);
+            JSObject errorResult = new JSObject();
+            errorResult.put("success", false);
+            errorResult.put("error", "Error decoding snapshot contents: " + e.getMessage());
+            call.resolve(errorResult);
+            return false;
+        }
+        String contentHash = XxHash64.toHex(XxHash64.hash(payload.data));
+        if (!fromCache) {
+            // Zawartość z chmury staje się punktem odniesienia dla kolejnych zapisów
+            hashStore.put(saveId, contentHash, description);
+        }
+        String data = toData(payload);
+
+        // Tworzymy wynik
+        JSObject result = new JSObject();
+        result.put("success", true);
+        result.put("saveId", saveId);
+        result.put("data", data);
+        result.put("encoding", payload.binary ? "base64" : "utf8");
+        result.put("compressed", payload.compressed);
+        result.put("contentHash", contentHash);
+        result.put("description", description);
+        result.put("lastModifiedTimestamp", lastModified);
+        result.put("fromCache", fromCache);
+        call.resolve(result);
+        return true;
+    }
+
+    /**
+     * Zamienia dane z JS na bajty zapisu: tekst jako UTF-8, base64 jako surowe bajty.
+     */
+    static byte[] toRawBytes(String data, boolean binary) {
+        return binary ? Base64.decode(data, Base64.NO_WRAP) : data.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Zamienia zdekodowaną zawartość z powrotem na ciąg dla JS.
+     */
+    static String toData(SnapshotCodec.Payload payload) {
+        return payload.binary
+                ? Base64.encodeToString(payload.data, Base64.NO_WRAP)
+                : new String(payload.data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Zapisuje do chmury zawartość pliku z prywatnego katalogu aplikacji. Plik jest przepisywany
+     * do snapshotu kanałem, bez przechodzenia przez mostek i bez kompresji.
+     */
+    public void saveGameFile(PluginCall call) {
+        Log.d(TAG, "saveGameFile method called");
+        String saveId = call.getString("saveId");
+        String path = call.getString("path");
+        String description = call.getString("description", "");
+        if (path == null || path.isEmpty()) {
+            call.reject("File path is required");
+            return;
+        }
+        if (saveId == null || saveId.isEmpty()) {
+            saveId = "save_" + System.currentTimeMillis();
+        }
+        // Pliki są domyślnie binarne; utf8 oznacza tekst, który loadGameData zwróci jako ciąg
+        boolean binary = !"utf8".equals(call.getString("encoding", "base64"));
+
+        File file;
+        String contentHash;
+        try {
+            file = SnapshotFiles.resolve(bridge.getContext(), path);
+            if (!file.isFile()) {
+                call.reject("File not found: " + path);
+                return;
+            }
+            if (file.length() > Integer.MAX_VALUE - SnapshotCodec.HEADER_SIZE) {
+                call.reject("File is too large for a snapshot: " + path);
+                return;
+            }
+            contentHash = SnapshotFiles.hash(file);
+        } catch (IOException e) {
+            call.reject(e.getMessage());
+            return;
+        }
+
+        String strategyName = call.getString("conflictStrategy", conflictStrategy);
+        SnapshotMergeStrategy strategy = SnapshotMergeStrategies.get(strategyName);
+        if (strategyName != null && strategy == null) {
+            call.reject("Unknown conflict strategy: " + strategyName);
+            return;
+        }
+
+        String id = saveId;
+        if (!call.getBoolean("force", false) && hashStore.isUnchanged(id, contentHash, description)) {
+            Log.d(TAG, "Save file unchanged, skipping commit for ID: " + id);
+            call.resolve(fileSaveResult(id, contentHash, file.length(), false));
+            return;
+        }
+
+        conflictResolver.open(id, /* createIfNotFound= */ true, strategy, call.getString("conflictPath", conflictPath))
+                .continueWithTask(executor, openTask -> {
+                    if (!openTask.isSuccessful()) {
+                        Log.e(TAG, "Failed to open snapshot", openTask.getException());
+                        return Tasks.forResult(failure("Failed to open snapshot: ", openTask.getException()));
+                    }
+                    Snapshot snapshot = openTask.getResult();
+                    if (snapshot == null) {
+                        return Tasks.forException(new IllegalStateException("Snapshot conflict or error occurred."));
+                    }
+
+                    // Długość w nagłówku i liczba przepisanych bajtów pochodzą z tego samego kanału
+                    long length;
+                    ByteBuffer header;
+                    try (FileInputStream in = new FileInputStream(file); FileChannel source = in.getChannel()) {
+                        length = source.size();
+                        if (length > Integer.MAX_VALUE - SnapshotCodec.HEADER_SIZE) {
+                            throw new IOException("File is too large for a snapshot: " + path);
+                        }
+                        header = SnapshotCodec.header((int) length, binary);
+                        long written = SnapshotFiles.writeToSnapshot(source, length, header,
+                                snapshot.getSnapshotContents());
+                        metrics.recordSize("snapshots.write", written);
+                    } catch (IOException | RuntimeException e) {
+                        Log.e(TAG, "Error writing snapshot contents", e);
+                        snapshotsClient.discardAndClose(snapshot);
+                        return Tasks.forResult(failure("Error writing snapshot contents: ", e));
+                    }
+
+                    Task<SnapshotMetadata> commit;
+                    try {
+                        SnapshotMetadataChange metadataChange = new SnapshotMetadataChange.Builder()
+                                .setDescription(description)
+                                .build();
+                        commit = snapshotsClient.commitAndClose(snapshot, metadataChange);
+                    } catch (RuntimeException e) {
+                        Log.e(TAG, "Failed to commit save", e);
+                        snapshotsClient.discardAndClose(snapshot);
+                        return Tasks.forResult(failure("Failed to commit save: ", e));
+                    }
+                    return commit.continueWith(executor, commitTask -> {
+                        if (!commitTask.isSuccessful()) {
+                            Log.e(TAG, "Failed to commit save", commitTask.getException());
+                            return failure("Failed to commit save: ", commitTask.getException());
+                        }
+                        Log.d(TAG, "Game file saved successfully with ID: " + id);
+                        long lastModified = commitTask.getResult().getLastModifiedTimestamp();
+                        hashStore.put(id, contentHash, description);
+                        try (FileInputStream in = new FileInputStream(file); FileChannel source = in.getChannel()) {
+                            mirror.write(id, lastModified, description, header, source, 0, length);
+                        } catch (IOException e) {
+                            Log.e(TAG, "Failed to write local mirror", e);
+                        }
+                        metadataIndex.markCommitted(id, description, lastModified);
+                        return fileSaveResult(id, contentHash, length, true);
+                    });
+                })
+                .addOnSuccessListener(executor, call::resolve)
+                .addOnFailureListener(executor, e -> call.reject(e.getMessage()));
+    }
+
+    private static JSObject fileSaveResult(String saveId, String contentHash, long size, boolean committed) {
+        JSObject result = new JSObject();
+        result.put("success", true);
+        result.put("saveId", saveId);
+        result.put("unchanged", !committed);
+        result.put("committed", committed);
+        result.put("contentHash", contentHash);
+        result.put("size", size);
+        return result;
+    }
+
+    /**
+     * Ładuje zapis do pliku w prywatnym katalogu aplikacji i zwraca tylko ścieżkę z metadanymi.
+     * Podobnie jak loadGameData najpierw korzysta z lokalnej kopii, sprawdzając chmurę w tle.
+     */
+    public void loadGameFile(PluginCall call) {
+        String saveId = call.getString("saveId");
+        String path = call.getString("path");
+        if (saveId == null || saveId.isEmpty()) {
+            call.reject("Save ID is required");
+            return;
+        }
+        if (path == null || path.isEmpty()) {
+            call.reject("File path is required");
+            return;
+        }
+        File target;
+        try {
+            target = SnapshotFiles.resolve(bridge.getContext(), path);
+        } catch (IOException e) {
+            call.reject(e.getMessage());
+            return;
+        }
+
+        if (!call.getBoolean("forceReload", false)) {
+            try {
+                SnapshotMirror.Location cached = mirror.locate(saveId);
+                if (cached != null) {
+                    SnapshotFiles.Copied copied;
+                    try (FileInputStream in = new FileInputStream(cached.file); FileChannel source = in.getChannel()) {
+                        copied = SnapshotFiles.copyPayload(source, cached.dataOffset, cached.dataLength, target);
+                    }
+                    Log.d(TAG, "Serving save file from local mirror, ID: " + saveId);
+                    metrics.recordSize("mirror.read", cached.dataLength);
+                    call.resolve(fileLoadResult(saveId, target, copied, cached.description,
+                            cached.lastModifiedTimestamp, true));
+                    revalidateMirror(saveId, cached.lastModifiedTimestamp);
+                    return;
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to read local mirror", e);
+            }
+        }
+
+        String strategyName = call.getString("conflictStrategy", conflictStrategy);
+        SnapshotMergeStrategy strategy = SnapshotMergeStrategies.get(strategyName);
+        if (strategyName != null && strategy == null) {
+            call.reject("Unknown conflict strategy: " + strategyName);
+            return;
+        }
+
+        conflictResolver.open(saveId, false, strategy, call.getString("conflictPath", conflictPath))
+                .addOnSuccessListener(executor, snapshot -> {
+                    if (snapshot == null) {
+                        call.reject("Snapshot conflict or error occurred.");
+                        return;
+                    }
+                    try {
+                        SnapshotMetadata metadata = snapshot.getMetadata();
+                        long lastModified = metadata.getLastModifiedTimestamp();
+                        String desc = metadata.getDescription();
+                        FileChannel source = SnapshotFiles.openSnapshot(snapshot.getSnapshotContents());
+                        long length = source.size();
+                        metrics.recordSize("snapshots.read", length);
+                        SnapshotFiles.Copied copied = SnapshotFiles.copyPayload(source, 0, length, target);
+                        // Zawartość z chmury staje się punktem odniesienia dla kolejnych zapisów
+                        hashStore.put(saveId, copied.contentHash, desc);
+                        try {
+                            mirror.write(saveId, lastModified, desc, ByteBuffer.allocate(0), source, 0, length);
+                        } catch (IOException e) {
+                            Log.e(TAG, "Failed to write local mirror", e);
+                        }
+                        call.resolve(fileLoadResult(saveId, target, copied, desc, lastModified, false));
+                    } catch (IOException e) {
+                        Log.e(TAG, "Error copying snapshot contents", e);
+                        call.resolve(failure("Error copying snapshot contents: ", e));
+                    } finally {
+                        snapshotsClient.discardAndClose(snapshot);
+                    }
+                })
+                .addOnFailureListener(executor, e -> {
+                    Log.e(TAG, "Failed to open snapshot", e);
+                    dropMirrorIfDeleted(saveId, e);
+                    call.resolve(failure("Failed to open snapshot: ", e));
+                });
+    }
+
+    private static JSObject fileLoadResult(String saveId, File file, SnapshotFiles.Copied copied, String description,
+                                           long lastModified, boolean fromCache) {
+        JSObject result = new JSObject();
+        result.put("success", true);
+        result.put("saveId", saveId);
+        result.put("path", file.getAbsolutePath());
+        result.put("size", copied.size);
+        result.put("encoding", copied.binary ? "base64" : "utf8");
+        result.put("compressed", copied.compressed);
+        result.put("contentHash", copied.contentHash);
+        result.put("description", description);
+        result.put("lastModifiedTimestamp", lastModified);
+        result.put("fromCache", fromCache);
+        return result;
+    }
+
+    /**
+     * Sprawdza w tle, czy wersja w chmurze różni się od lokalnej kopii. Jeśli tak (nowsza
+     * albo starsza, np. przywrócona na innym urządzeniu), aktualizuje kopię i wysyła zdarzenie
+     * savedGameUpdated. Kopia zapisu usuniętego z chmury jest usuwana, a zdarzenie ma deleted: true.
+     * Sprawdzenie używa domyślnej polityki (najnowsza wersja), bo strategia scalania zapisałaby
+     * wynik do chmury, a zwykły odczyt nie może niczego zapisywać.
+     */
+    private void revalidateMirror(String saveId, long cachedLastModified) {
+        conflictResolver.open(saveId, false, null, null)
+                .addOnSuccessListener(executor, snapshot -> {
+                    if (snapshot == null) {
+                        return;
+                    }
+                    try {
+                        SnapshotMetadata metadata = snapshot.getMetadata();
+                        long lastModified = metadata.getLastModifiedTimestamp();
+                        if (lastModified == cachedLastModified) {
+                            return;
+                        }
+                        byte[] dataBytes = snapshot.getSnapshotContents().readFully();
+                        metrics.recordSize("snapshots.read", dataBytes.length);
+                        String contentHash = XxHash64.toHex(XxHash64.hash(SnapshotCodec.decode(dataBytes).data));
+                        hashStore.put(saveId, contentHash, metadata.getDescription());
+                        writeMirror(saveId, lastModified, metadata.getDescription(), dataBytes);
+
+                        Log.d(TAG, "Cloud save differs from local mirror, ID: " + saveId);
+                        JSObject event = new JSObject();
+                        event.put("saveId", saveId);
+                        event.put("lastModifiedTimestamp", lastModified);
+                        event.put("contentHash", contentHash);
+                        bridge.triggerWindowJSEvent("savedGameUpdated", event.toString());
+                    } catch (IOException e) {
+                        Log.e(TAG, "Failed to revalidate local mirror", e);
+                    } finally {
+                        snapshotsClient.discardAndClose(snapshot);
+                    }
+                })
+                .addOnFailureListener(executor, e -> {
+                    if (!dropMirrorIfDeleted(saveId, e)) {
+                        Log.e(TAG, "Failed to revalidate local mirror", e);
+                        return;
+                    }
+                    JSObject event = new JSObject();
+                    event.put("saveId", saveId);
+                    event.put("deleted", true);
+                    bridge.triggerWindowJSEvent("savedGameUpdated", event.toString());
+                });
+    }
+
+    /**
+     * Usuwa lokalną kopię, jeśli otwarcie nie powiodło się, bo zapisu nie ma już w chmurze –
+     * kopia nie może być dalej zwracana. Zwraca true, gdy kopia została usunięta.
+     */
+    private boolean dropMirrorIfDeleted(String saveId, Exception e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException
+                    && ((ApiException) cause).getStatusCode() == GamesClientStatusCodes.SNAPSHOT_NOT_FOUND) {
+                Log.d(TAG, "Save deleted from the cloud, dropping local mirror, ID: " + saveId);
+                mirror.remove(saveId);
+                hashStore.remove(saveId);
+                metadataIndex.invalidate();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SnapshotMirror.Entry readMirror(String saveId) {
+        try {
+            return mirror.read(saveId);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read local mirror", e);
+            return null;
+        }
+    }
+
+    private void writeMirror(String saveId, long lastModified, String description, byte[] dataBytes) {
+        try {
+            mirror.write(saveId, lastModified, description, dataBytes);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write local mirror", e);
+        }
+    }
+
+    /**
+     * Zwraca metadane wszystkich zapisów bez pobierania ich zawartości. Wczytany indeks
+     * jest zwracany od razu, a odświeżany w tle dopiero po upływie indexTtlMs albo po lokalnej
+     * zmianie zapisu; zmiany sygnalizuje zdarzenie savedGamesChanged.
+     */
+    public void listSavedGames(PluginCall call) {
+        Log.d(TAG, "listSavedGames method called");
+        boolean forceReload = call.getBoolean("forceReload", false);
+        if (!forceReload && metadataIndex.isLoaded()) {
+            resolveSavedGamesList(call, true);
+            if (metadataIndex.isInvalidated() || !metadataIndex.isFresh(indexTtlMs)) {
+                refreshMetadataIndex();
+            }
+            return;
+        }
+
+        loadMetadataIndex(forceReload)
+                .addOnSuccessListener(executor, unused -> resolveSavedGamesList(call, false))
+                .addOnFailureListener(executor, e -> {
+                    Log.e(TAG, "Failed to list saved games", e);
+                    call.reject("Failed to list saved games: " + e.getMessage());
+                });
+    }
+
+    private void resolveSavedGamesList(PluginCall call, boolean fromCache) {
+        JSObject result = new JSObject();
+        result.put("saves", metadataIndex.toJSArray(mirror::dataSize));
+        result.put("fromCache", fromCache);
+        call.resolve(result);
+    }
+
+    /**
+     * Odświeża indeks w tle i wysyła zdarzenie, jeśli lista się zmieniła.
+     */
+    private void refreshMetadataIndex() {
+        String before = metadataIndex.toJSArray(mirror::dataSize).toString();
+        loadMetadataIndex(metadataIndex.isInvalidated())
+                .addOnSuccessListener(executor, unused -> {
+                    JSArray saves = metadataIndex.toJSArray(mirror::dataSize);
+                    if (!before.equals(saves.toString())) {
+                        JSObject event = new JSObject();
+                        event.put("saves", saves);
+                        bridge.triggerWindowJSEvent("savedGamesChanged", event.toString());
+                    }
+                })
+                .addOnFailureListener(executor, e -> Log.e(TAG, "Failed to refresh saved games index", e));
+    }
+
+    /**
+     * Wczytuje indeks metadanych; równoległe wywołania współdzielą jedno zapytanie.
+     */
+    private synchronized Task<Void> loadMetadataIndex(boolean forceReload) {
+        if (metadataIndexLoad != null && !metadataIndexLoad.isComplete()) {
+            return metadataIndexLoad;
+        }
+        int generation = metadataIndex.generation();
+        metadataIndexLoad = snapshotsClient.load(forceReload).continueWith(executor, task -> {
+            SnapshotMetadataBuffer buffer = task.getResult().get();
+            try {
+                if (metadataIndex.load(buffer, generation)) {
+                    Log.d(TAG, "Saved games index loaded, count=" + buffer.getCount());
+                }
+            } finally {
+                buffer.release();
+            }
+            return null;
+        });
+        return metadataIndexLoad;
+    }
 
     /**
      * Wyświetla UI z listą zapisanych gier.
@@ -189,57 +845,95 @@ public class SavedGamesManager {
         Boolean allowDelete = call.getBoolean("allowDelete", false);
         Integer maxSavedGames = call.getInt("maxSavedGames", 5);
 
-        savedGamesCall = call;
-
-        snapshotsClient
-                .getSelectSnapshotIntent(title, allowAddButton, allowDelete, maxSavedGames)
-                .addOnSuccessListener(intent -> {
-                    try {
-                        call.setKeepAlive(true);
-                        savedGamesLauncher.launch(intent);
-                        Log.d(TAG, "Saved games UI launched");
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to launch saved games UI", e);
-                        call.reject("Failed to show saved games: " + e.getMessage());
-                        savedGamesCall = null;
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to get saved games intent", e);
-                    call.reject("Failed to show saved games: " + e.getMessage());
-                    savedGamesCall = null;
-                });
+        savedGamesUi.launch(call, "show saved games",
+                () -> snapshotsClient.getSelectSnapshotIntent(title, allowAddButton, allowDelete, maxSavedGames),
+                this::handleSavedGamesResult);
     }
 
     /**
      * Obsługa wyniku z ekranu Saved Games UI.
      */
-    private void handleSavedGamesResult(ActivityResult result) {
+    private void handleSavedGamesResult(PluginCall call, ActivityResult result) {
         Log.d(TAG, "Saved games activity result received, resultCode: " + result.getResultCode());
-        if (savedGamesCall != null) {
-            if (result.getResultCode() == Activity.RESULT_OK && result.getData() != null) {
-                // Użytkownik wybrał lub utworzył zapis
-                Intent data = result.getData();
-                String saveId = data.getStringExtra(SnapshotsClient.EXTRA_SNAPSHOT_METADATA);
-
-                if (saveId != null) {
-                    // Ładujemy wybrany zapis
-                    loadGameData(savedGamesCall);
-                } else {
-                    // Użytkownik utworzył nowy zapis
-                    JSObject res = new JSObject();
-                    res.put("success", true);
-                    res.put("newSave", true);
-                    savedGamesCall.resolve(res);
-                }
+        if (result.getResultCode() == Activity.RESULT_OK && result.getData() != null) {
+            // Użytkownik wybrał lub utworzył zapis
+            Intent data = result.getData();
+            String saveId = data.getStringExtra(SnapshotsClient.EXTRA_SNAPSHOT_METADATA);
+
+            if (saveId != null) {
+                // Ładujemy wybrany zapis
+                loadGameData(call);
             } else {
-                // Użytkownik anulował lub wystąpił błąd
+                // Użytkownik utworzył nowy zapis
                 JSObject res = new JSObject();
-                res.put("success", false);
-                res.put("error", "User canceled or error occurred");
-                savedGamesCall.resolve(res);
+                res.put("success", true);
+                res.put("newSave", true);
+                call.resolve(res);
             }
-            savedGamesCall = null;
+        } else {
+            // Użytkownik anulował lub wystąpił błąd
+            JSObject res = new JSObject();
+            res.put("success", false);
+            res.put("error", "User canceled or error occurred");
+            call.resolve(res);
+        }
+    }
+
+    /**
+     * Konfiguruje kodowanie zawartości snapshotów i domyślną strategię konfliktów.
+     */
+    public void configure(JSObject options) {
+        Integer compressionThreshold = options.getInteger("compressionThreshold");
+        if (compressionThreshold != null && compressionThreshold >= 0) {
+            SnapshotCodec.setCompressionThreshold(compressionThreshold);
+        }
+        if (options.has("conflictStrategy")) {
+            String strategyName = options.getString("conflictStrategy");
+            if (strategyName == null || SnapshotMergeStrategies.get(strategyName) != null) {
+                conflictStrategy = strategyName;
+            } else {
+                Log.w(TAG, "Unknown conflict strategy: " + strategyName);
+            }
+        }
+        if (options.has("conflictPath")) {
+            conflictPath = options.getString("conflictPath");
+        }
+        Integer indexTtl = options.getInteger("indexTtlMs");
+        if (indexTtl != null && indexTtl >= 0) {
+            indexTtlMs = indexTtl;
+        }
+        JSObject autosaveOptions = options.getJSObject("autosave");
+        if (autosaveOptions != null) {
+            configureAutosave(autosaveOptions);
+        }
+    }
+
+    private void configureAutosave(JSObject options) {
+        autosaveEnabled = options.getBoolean("enabled", autosaveEnabled);
+        autosave.configure(options.getInteger("quietMs"), options.getInteger("maxDelayMs"));
+        Log.d(TAG, "Autosave configured, enabled=" + autosaveEnabled);
+    }
+
+    /**
+     * Wywoływane po wylogowaniu lub przełączeniu konta: lista zapisów poprzedniego gracza
+     * nie może być zwrócona nowemu. Kopie lokalne i skróty są kluczowane ID gracza.
+     */
+    public void onPlayerChanged() {
+        // Autozapisy poprzedniego gracza nie mogą trafić na konto nowego
+        int dropped = autosave.cancelAll("Autosave cancelled after player change");
+        synchronized (this) {
+            metadataIndex.clear();
+            metadataIndexLoad = null;
+        }
+        Log.d(TAG, "Saved games reset after player change, dropped autosaves=" + dropped);
+    }
+
+    /**
+     * Wywoływane przy wstrzymaniu aplikacji – oczekujące autozapisy są zatwierdzane od razu.
+     */
+    public void onPause() {
+        if (autosave.pendingCount() > 0) {
+            autosave.flushAll();
         }
     }
 }
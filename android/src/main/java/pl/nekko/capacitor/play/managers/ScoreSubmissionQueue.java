@@ -0,0 +1,68 @@
+package pl.nekko.capacitor.play.managers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kolejka wyników oczekujących na wysłanie. Dla każdej tablicy wyników
+ * przechowuje tylko najlepszy wynik, więc wiele zgłoszeń z kolejnych rund
+ * zamienia się w jedno wywołanie submitScoreImmediate.
+ */
+class ScoreSubmissionQueue {
+
+    static final class PendingScore {
+        final String leaderboardId;
+        final long score;
+        final boolean lowerIsBetter;
+
+        PendingScore(String leaderboardId, long score, boolean lowerIsBetter) {
+            this.leaderboardId = leaderboardId;
+            this.score = score;
+            this.lowerIsBetter = lowerIsBetter;
+        }
+
+        boolean isBetterThan(PendingScore other) {
+            return lowerIsBetter ? score < other.score : score > other.score;
+        }
+    }
+
+    private final Map<String, PendingScore> pending = new LinkedHashMap<>();
+
+    /**
+     * Dodaje wynik do kolejki, zastępując wcześniejszy tylko wtedy, gdy nowy jest lepszy.
+     */
+    synchronized void offer(String leaderboardId, long score, boolean lowerIsBetter) {
+        offer(new PendingScore(leaderboardId, score, lowerIsBetter));
+    }
+
+    synchronized void offer(PendingScore candidate) {
+        PendingScore current = pending.get(candidate.leaderboardId);
+        if (current == null || candidate.isBetterThan(current)) {
+            pending.put(candidate.leaderboardId, candidate);
+        }
+    }
+
+    /**
+     * Zwraca wszystkie oczekujące wyniki i czyści kolejkę.
+     */
+    synchronized List<PendingScore> drain() {
+        List<PendingScore> batch = new ArrayList<>(pending.values());
+        pending.clear();
+        return batch;
+    }
+
+    /**
+     * Usuwa wszystkie oczekujące wyniki i zwraca ich liczbę.
+     */
+    synchronized int clear() {
+        int dropped = pending.size();
+        pending.clear();
+        return dropped;
+    }
+
+    synchronized int size() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,266 @@
+package pl.nekko.capacitor.play.managers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Koder zawartości snapshotów z wersjonowanym nagłówkiem.
+ * <p>
+ * Układ nagłówka: magic "PGSC" (4 bajty), wersja (1), ID kompresji (1), flagi (1),
+ * długość danych przed kompresją (4). Dane bez nagłówka są traktowane jako tekst UTF-8
+ * zapisany przez starsze wersje wtyczki.
+ */
+final class SnapshotCodec {
+
+    static final int HEADER_SIZE = 11;
+    static final byte VERSION = 1;
+    static final byte FLAG_BINARY = 0x01;
+
+    static final byte COMPRESSION_NONE = 0;
+    static final byte COMPRESSION_DEFLATE = 1;
+
+    private static final byte[] MAGIC = {'P', 'G', 'S', 'C'};
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 16 * 1024;
+
+    /**
+     * Algorytm kompresji rejestrowany pod jednobajtowym ID zapisywanym w nagłówku.
+     */
+    interface Compression {
+        byte id();
+
+        byte[] compress(byte[] data);
+
+        byte[] decompress(byte[] source, int offset, int length, int originalLength) throws IOException;
+    }
+
+    /**
+     * Zdekodowana zawartość snapshotu.
+     */
+    static final class Payload {
+        final byte[] data;
+        final boolean binary;
+        final boolean compressed;
+
+        Payload(byte[] data, boolean binary, boolean compressed) {
+            this.data = data;
+            this.binary = binary;
+            this.compressed = compressed;
+        }
+    }
+
+    /**
+     * Pola nagłówka zapisu.
+     */
+    static final class Header {
+        final byte compression;
+        final boolean binary;
+        final int originalLength;
+
+        Header(byte compression, boolean binary, int originalLength) {
+            this.compression = compression;
+            this.binary = binary;
+            this.originalLength = originalLength;
+        }
+    }
+
+    private static final ConcurrentHashMap<Byte, Compression> COMPRESSIONS = new ConcurrentHashMap<>();
+    private static volatile int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+
+    static {
+        register(new DeflateCompression());
+    }
+
+    private SnapshotCodec() {
+    }
+
+    static void register(Compression compression) {
+        COMPRESSIONS.put(compression.id(), compression);
+    }
+
+    static void setCompressionThreshold(int threshold) {
+        compressionThreshold = threshold;
+    }
+
+    /**
+     * Koduje dane. Kompresja jest stosowana od progu rozmiaru i tylko wtedy, gdy zmniejsza dane.
+     */
+    static byte[] encode(byte[] data, boolean binary) {
+        return encode(data, binary, data.length >= compressionThreshold ? COMPRESSION_DEFLATE : COMPRESSION_NONE);
+    }
+
+    static byte[] encode(byte[] data, boolean binary, byte compressionId) {
+        byte[] body = data;
+        byte usedCompression = COMPRESSION_NONE;
+        Compression compression = COMPRESSIONS.get(compressionId);
+        if (compressionId != COMPRESSION_NONE && compression != null) {
+            byte[] compressed = compression.compress(data);
+            if (compressed.length < data.length) {
+                body = compressed;
+                usedCompression = compressionId;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        putHeader(buffer, usedCompression, binary, data.length);
+        buffer.put(body);
+        return buffer.array();
+    }
+
+    /**
+     * Sam nagłówek nieskompresowanej zawartości – do zapisów, których dane są dopisywane
+     * bezpośrednio z pliku.
+     */
+    static ByteBuffer header(int dataLength, boolean binary) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        putHeader(buffer, COMPRESSION_NONE, binary, dataLength);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void putHeader(ByteBuffer buffer, byte compression, boolean binary, int dataLength) {
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.put(compression);
+        buffer.put(binary ? FLAG_BINARY : 0);
+        buffer.putInt(dataLength);
+    }
+
+    /**
+     * Dekoduje dane, rozpoznając format po nagłówku.
+     */
+    static Payload decode(byte[] stored) throws IOException {
+        Header header = readHeader(ByteBuffer.wrap(stored));
+        if (header == null) {
+            return new Payload(stored, false, false);
+        }
+        if (header.compression == COMPRESSION_NONE) {
+            byte[] data = new byte[stored.length - HEADER_SIZE];
+            System.arraycopy(stored, HEADER_SIZE, data, 0, data.length);
+            return new Payload(data, header.binary, false);
+        }
+        Compression compression = COMPRESSIONS.get(header.compression);
+        if (compression == null) {
+            throw new IOException("Unsupported snapshot compression: " + header.compression);
+        }
+        byte[] data = compression.decompress(stored, HEADER_SIZE, stored.length - HEADER_SIZE, header.originalLength);
+        return new Payload(data, header.binary, true);
+    }
+
+    /**
+     * Odczytuje nagłówek od bieżącej pozycji bufora. Zwraca null dla danych bez nagłówka
+     * (starszy format – tekst UTF-8); pozycja bufora nie zmienia się.
+     */
+    static Header readHeader(ByteBuffer stored) throws IOException {
+        ByteBuffer buffer = stored.duplicate();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        for (byte magic : MAGIC) {
+            if (buffer.get() != magic) {
+                return null;
+            }
+        }
+        byte version = buffer.get();
+        // Wersja 0 nigdy nie była zapisywana – taki nagłówek oznacza uszkodzone dane
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot format version: " + version);
+        }
+        byte compression = buffer.get();
+        boolean binary = (buffer.get() & FLAG_BINARY) != 0;
+        int originalLength = buffer.getInt();
+        if (originalLength < 0) {
+            throw new IOException("Corrupted snapshot header, length: " + originalLength);
+        }
+        return new Header(compression, binary, originalLength);
+    }
+
+    /**
+     * Strumień zdekodowanych danych dla zawartości czytanej za nagłówkiem. Deflate jest
+     * rozpakowywany na bieżąco, inne zarejestrowane kompresje – w pamięci.
+     */
+    static InputStream decodingStream(Header header, InputStream body) throws IOException {
+        if (header.compression == COMPRESSION_NONE) {
+            return body;
+        }
+        Compression compression = COMPRESSIONS.get(header.compression);
+        if (compression == null) {
+            throw new IOException("Unsupported snapshot compression: " + header.compression);
+        }
+        if (compression instanceof DeflateCompression) {
+            return new InflaterInputStream(body);
+        }
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int count;
+        while ((count = body.read(chunk)) > 0) {
+            stored.write(chunk, 0, count);
+        }
+        byte[] data = stored.toByteArray();
+        return new ByteArrayInputStream(compression.decompress(data, 0, data.length, header.originalLength));
+    }
+
+    private static final class DeflateCompression implements Compression {
+        // Deflate nie kompresuje lepiej niż około 1032:1, więc większa długość w nagłówku jest fałszywa
+        private static final long MAX_RATIO = 1032;
+
+        @Override
+        public byte id() {
+            return COMPRESSION_DEFLATE;
+        }
+
+        @Override
+        public byte[] compress(byte[] data) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+                byte[] chunk = new byte[8192];
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(chunk);
+                    out.write(chunk, 0, count);
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public byte[] decompress(byte[] source, int offset, int length, int originalLength) throws IOException {
+            // Długość z nagłówka sprawdzamy przed alokacją bufora
+            if (originalLength < 0 || originalLength > length * MAX_RATIO) {
+                throw new IOException("Corrupted snapshot header, length: " + originalLength);
+            }
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(source, offset, length);
+                byte[] data = new byte[originalLength];
+                int position = 0;
+                while (position < originalLength && !inflater.finished()) {
+                    int count = inflater.inflate(data, position, originalLength - position);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    position += count;
+                }
+                if (position != originalLength) {
+                    throw new IOException("Corrupted snapshot data");
+                }
+                return data;
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted snapshot data", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
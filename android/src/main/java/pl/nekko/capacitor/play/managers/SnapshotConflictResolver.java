@@ -0,0 +1,158 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.util.Log;
+
+import com.google.android.gms.games.SnapshotsClient;
+import com.google.android.gms.games.snapshot.Snapshot;
+import com.google.android.gms.games.snapshot.SnapshotContents;
+import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import pl.nekko.capacitor.play.core.GamesBackend;
+
+/**
+ * Otwiera snapshoty z ręcznym rozwiązywaniem konfliktów.
+ * <p>
+ * Przy konflikcie obie wersje są dekodowane, łączone przez {@link SnapshotMergeStrategy},
+ * a wynik trafia do resolveConflict. Pętla powtarza się, dopóki serwer zgłasza kolejne
+ * konflikty (np. zapis z trzeciego urządzenia), ale nie więcej niż {@link #MAX_ATTEMPTS} razy.
+ * Konflikt, który nie trafił do resolveConflict (limit prób, błąd odczytu lub łączenia),
+ * albo którego rozwiązanie się nie powiodło, ma obie wersje zamykane przez discardAndClose.
+ * <p>
+ * Strategie są rejestrowane tylko z kodu natywnego – łączenie działa w tle, przy otwartych
+ * snapshotach, więc nie czeka na odpowiedź z JS.
+ */
+class SnapshotConflictResolver {
+    private static final String TAG = "SnapshotConflictResolver";
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final GamesBackend.Snapshots snapshotsClient;
+    private final Executor executor;
+
+    SnapshotConflictResolver(GamesBackend.Snapshots snapshotsClient, Executor executor) {
+        this.snapshotsClient = snapshotsClient;
+        this.executor = executor;
+    }
+
+    /**
+     * Otwiera snapshot. Bez strategii zachowuje dotychczasową politykę MOST_RECENTLY_MODIFIED
+     * i zwraca null przy nierozwiązanym konflikcie.
+     */
+    Task<Snapshot> open(String saveId, boolean createIfNotFound, SnapshotMergeStrategy strategy, String path) {
+        if (strategy == null) {
+            return snapshotsClient
+                    .open(saveId, createIfNotFound, SnapshotsClient.RESOLUTION_POLICY_MOST_RECENTLY_MODIFIED)
+                    .continueWith(executor, task -> {
+                        SnapshotsClient.DataOrConflict<Snapshot> result = unwrap(task);
+                        if (result.isConflict()) {
+                            // Polityka nie rozwiązała konfliktu – zwracamy null jak dotychczas
+                            discard(result.getConflict());
+                        }
+                        return result.getData();
+                    });
+        }
+        return snapshotsClient
+                .open(saveId, createIfNotFound, SnapshotsClient.RESOLUTION_POLICY_MANUAL)
+                .continueWithTask(executor, task -> resolve(unwrap(task), strategy, path, 0));
+    }
+
+    private Task<Snapshot> resolve(SnapshotsClient.DataOrConflict<Snapshot> result, SnapshotMergeStrategy strategy,
+                                   String path, int attempt) {
+        if (!result.isConflict()) {
+            return Tasks.forResult(result.getData());
+        }
+        SnapshotsClient.SnapshotConflict conflict = result.getConflict();
+        if (attempt >= MAX_ATTEMPTS) {
+            discard(conflict);
+            return Tasks.forException(new IllegalStateException("Snapshot conflict not resolved after " + MAX_ATTEMPTS + " attempts"));
+        }
+
+        Snapshot server = conflict.getSnapshot();
+        Snapshot local = conflict.getConflictingSnapshot();
+        Log.d(TAG, "Resolving snapshot conflict, attempt " + (attempt + 1));
+        Task<SnapshotsClient.DataOrConflict<Snapshot>> next;
+        try {
+            next = merge(conflict, server, local, strategy, path);
+        } catch (IOException | RuntimeException e) {
+            discard(conflict);
+            return Tasks.forException(e);
+        }
+        return next.continueWithTask(executor, task -> {
+            if (!task.isSuccessful()) {
+                discard(conflict);
+            }
+            return resolve(unwrap(task), strategy, path, attempt + 1);
+        });
+    }
+
+    /**
+     * Zamyka obie wersje konfliktu bez zapisu. Wersja przekazana już do resolveConflict mogła
+     * zostać zamknięta – taki błąd tylko logujemy.
+     */
+    private void discard(SnapshotsClient.SnapshotConflict conflict) {
+        for (Snapshot snapshot : new Snapshot[]{conflict.getSnapshot(), conflict.getConflictingSnapshot()}) {
+            try {
+                snapshotsClient.discardAndClose(snapshot);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to discard conflicting snapshot", e);
+            }
+        }
+    }
+
+    /**
+     * Przekazuje dalej oryginalny wyjątek zamiast RuntimeExecutionException z getResult().
+     */
+    private static <T> T unwrap(Task<T> task) throws Exception {
+        if (!task.isSuccessful()) {
+            throw task.getException();
+        }
+        return task.getResult();
+    }
+
+    private Task<SnapshotsClient.DataOrConflict<Snapshot>> merge(SnapshotsClient.SnapshotConflict conflict, Snapshot server,
+                                                                Snapshot local, SnapshotMergeStrategy strategy,
+                                                                String path) throws IOException {
+        SnapshotMergeStrategy.Version serverVersion = toVersion(server);
+        SnapshotMergeStrategy.Version localVersion = toVersion(local);
+
+        byte[] merged;
+        try {
+            merged = strategy.merge(serverVersion, localVersion, path);
+        } catch (Exception e) {
+            // Strategia nie poradziła sobie z danymi (np. binarnymi) – wybieramy nowszą wersję
+            Log.e(TAG, "Merge strategy failed, falling back to newest", e);
+            merged = SnapshotMergeStrategies.newer(serverVersion, localVersion).data;
+        }
+
+        // Wybór jednej ze stron nie wymaga przepisywania danych
+        if (merged == serverVersion.data) {
+            return snapshotsClient.resolveConflict(conflict.getConflictId(), server);
+        }
+        if (merged == localVersion.data) {
+            return snapshotsClient.resolveConflict(conflict.getConflictId(), local);
+        }
+
+        SnapshotMergeStrategy.Version newer = SnapshotMergeStrategies.newer(serverVersion, localVersion);
+        SnapshotContents contents = conflict.getResolutionSnapshotContents();
+        contents.writeBytes(SnapshotCodec.encode(merged, newer.binary));
+        SnapshotMetadataChange metadataChange = new SnapshotMetadataChange.Builder()
+                .fromMetadata(newer == localVersion ? local.getMetadata() : server.getMetadata())
+                .setPlayedTimeMillis(Math.max(serverVersion.playedTime, localVersion.playedTime))
+                .setProgressValue(Math.max(serverVersion.progressValue, localVersion.progressValue))
+                .build();
+        return snapshotsClient.resolveConflict(conflict.getConflictId(), server.getMetadata().getSnapshotId(),
+                metadataChange, contents);
+    }
+
+    private static SnapshotMergeStrategy.Version toVersion(Snapshot snapshot) throws IOException {
+        SnapshotMetadata metadata = snapshot.getMetadata();
+        SnapshotCodec.Payload payload = SnapshotCodec.decode(snapshot.getSnapshotContents().readFully());
+        return new SnapshotMergeStrategy.Version(payload.data, payload.binary, metadata.getLastModifiedTimestamp(),
+                metadata.getProgressValue(), metadata.getPlayedTime(), metadata.getDescription());
+    }
+}
@@ -0,0 +1,175 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.google.android.gms.games.snapshot.SnapshotContents;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import pl.nekko.capacitor.play.core.XxHash64;
+
+/**
+ * Przenoszenie zawartości snapshotów między plikami aplikacji a {@link SnapshotContents}
+ * kanałami plików – duże zapisy nie przechodzą przez mostek WebView ani przez tablice bajtów.
+ * <p>
+ * Ścieżki z JS są przyjmowane tylko w prywatnych katalogach aplikacji (files, cache).
+ */
+final class SnapshotFiles {
+
+    /**
+     * Wynik przepisania zawartości snapshotu do pliku.
+     */
+    static final class Copied {
+        final boolean binary;
+        final boolean compressed;
+        final long size;
+        final String contentHash;
+
+        Copied(boolean binary, boolean compressed, long size, String contentHash) {
+            this.binary = binary;
+            this.compressed = compressed;
+            this.size = size;
+            this.contentHash = contentHash;
+        }
+    }
+
+    private SnapshotFiles() {
+    }
+
+    /**
+     * Zamienia ścieżkę z JS (file:// albo względną wobec katalogu files) na plik
+     * w prywatnym katalogu aplikacji.
+     */
+    static File resolve(Context context, String path) throws IOException {
+        String filePath = path.startsWith("file:") ? Uri.parse(path).getPath() : path;
+        if (filePath == null || filePath.isEmpty()) {
+            throw new IOException("Invalid file path: " + path);
+        }
+        File file = new File(filePath);
+        if (!file.isAbsolute()) {
+            file = new File(context.getFilesDir(), filePath);
+        }
+        File canonical = file.getCanonicalFile();
+        if (!isWithin(canonical, context.getFilesDir()) && !isWithin(canonical, context.getCacheDir())) {
+            throw new IOException("File must be in app-private storage: " + path);
+        }
+        return canonical;
+    }
+
+    private static boolean isWithin(File file, File directory) throws IOException {
+        if (directory == null) {
+            return false;
+        }
+        String root = directory.getCanonicalPath() + File.separator;
+        return file.getPath().startsWith(root);
+    }
+
+    /**
+     * Przepisuje length bajtów źródła od position do kanału docelowego.
+     */
+    static void transfer(FileChannel source, long position, long length, WritableByteChannel target) throws IOException {
+        long done = 0;
+        while (done < length) {
+            long moved = source.transferTo(position + done, length - done, target);
+            if (moved <= 0) {
+                throw new IOException("Unexpected end of file after " + done + " of " + length + " bytes");
+            }
+            done += moved;
+        }
+    }
+
+    /**
+     * Zastępuje zawartość snapshotu nagłówkiem i pierwszymi length bajtami źródła. Długość musi
+     * być tą zapisaną w nagłówku. Deskryptor należy do snapshotu – zamyka go commitAndClose,
+     * więc kanału tu nie zamykamy.
+     */
+    @SuppressWarnings("resource")
+    static long writeToSnapshot(FileChannel source, long length, ByteBuffer header, SnapshotContents contents)
+            throws IOException {
+        FileChannel target = new FileOutputStream(contents.getParcelFileDescriptor().getFileDescriptor()).getChannel();
+        target.position(0);
+        ByteBuffer head = header.duplicate();
+        while (head.hasRemaining()) {
+            target.write(head);
+        }
+        transfer(source, 0, length, target);
+        long total = header.remaining() + length;
+        target.truncate(total);
+        return total;
+    }
+
+    /**
+     * Otwiera zawartość snapshotu do odczytu. Kanału nie zamykamy – deskryptor zamyka discardAndClose.
+     */
+    @SuppressWarnings("resource")
+    static FileChannel openSnapshot(SnapshotContents contents) {
+        return new FileInputStream(contents.getParcelFileDescriptor().getFileDescriptor()).getChannel();
+    }
+
+    /**
+     * Zapisuje do pliku dane zakodowane przez {@link SnapshotCodec}, leżące w źródle od offset.
+     * Dane nieskompresowane są przepisywane kanałem; skompresowane (zapisane przez saveGameData)
+     * są dekodowane w pamięci. Plik docelowy jest podmieniany atomowo.
+     */
+    static Copied copyPayload(FileChannel source, long offset, long length, File target) throws IOException {
+        SnapshotCodec.Header header = readHeader(source, offset, length);
+
+        File parent = target.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory for " + target);
+        }
+        File temp = new File(target.getPath() + ".tmp");
+        boolean binary = header != null && header.binary;
+        boolean compressed = header != null && header.compression != SnapshotCodec.COMPRESSION_NONE;
+        try (FileOutputStream out = new FileOutputStream(temp); FileChannel channel = out.getChannel()) {
+            if (compressed) {
+                ByteBuffer stored = ByteBuffer.allocate((int) length);
+                while (stored.hasRemaining() && source.read(stored, offset + stored.position()) > 0) {
+                    // czytamy całą zapisaną zawartość
+                }
+                ByteBuffer data = ByteBuffer.wrap(SnapshotCodec.decode(stored.array()).data);
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            } else {
+                long skip = header != null ? SnapshotCodec.HEADER_SIZE : 0;
+                transfer(source, offset + skip, length - skip, channel);
+            }
+            channel.force(false);
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Cannot replace " + target);
+        }
+        return new Copied(binary, compressed, target.length(), hash(target));
+    }
+
+    /**
+     * Odczytuje nagłówek {@link SnapshotCodec} zawartości leżącej w źródle od offset.
+     * Odczyt pozycyjny nie zmienia pozycji kanału.
+     */
+    static SnapshotCodec.Header readHeader(FileChannel source, long offset, long length) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(SnapshotCodec.HEADER_SIZE, length));
+        while (head.hasRemaining() && source.read(head, offset + head.position()) > 0) {
+            // czytamy do wypełnienia nagłówka albo końca pliku
+        }
+        head.flip();
+        return SnapshotCodec.readHeader(head);
+    }
+
+    /**
+     * Skrót XXH64 pliku liczony na zmapowanej zawartości.
+     */
+    static String hash(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            return XxHash64.toHex(XxHash64.hash(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+        }
+    }
+}
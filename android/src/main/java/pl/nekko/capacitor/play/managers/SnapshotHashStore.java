@@ -0,0 +1,67 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import pl.nekko.capacitor.play.core.AuthStateCache;
+
+/**
+ * Trwały zapis skrótów ostatnio zatwierdzonej zawartości każdego snapshotu.
+ * Pozwala pominąć open/commit, gdy autozapis przesyła te same dane.
+ * <p>
+ * Skrót opisuje stan znany temu urządzeniu – zapis z innego urządzenia nie jest
+ * tu widoczny, dlatego saveGameData przyjmuje opcję force.
+ * <p>
+ * Wpisy są kluczowane ID gracza – skrót zapisu innego konta nie może pominąć zapisu.
+ * Dopóki gracz nie jest znany, nic nie jest pomijane ani zapamiętywane.
+ */
+class SnapshotHashStore {
+    private static final String PREFERENCES = "pgs_snapshot_hashes";
+    private static final String DESCRIPTION_SUFFIX = "#description";
+
+    private final SharedPreferences preferences;
+    private final AuthStateCache authState;
+
+    SnapshotHashStore(Context context, AuthStateCache authState) {
+        this.preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        this.authState = authState;
+    }
+
+    /**
+     * Czy dane i opis są identyczne z ostatnio zatwierdzonymi dla tego zapisu bieżącego gracza.
+     */
+    boolean isUnchanged(String saveId, String contentHash, String description) {
+        String key = key(saveId);
+        return key != null
+                && contentHash.equals(preferences.getString(key, null))
+                && description.equals(preferences.getString(key + DESCRIPTION_SUFFIX, null));
+    }
+
+    void put(String saveId, String contentHash, String description) {
+        String key = key(saveId);
+        if (key == null) {
+            return;
+        }
+        SharedPreferences.Editor editor = preferences.edit().putString(key, contentHash);
+        if (description != null) {
+            editor.putString(key + DESCRIPTION_SUFFIX, description);
+        }
+        editor.apply();
+    }
+
+    void remove(String saveId) {
+        String key = key(saveId);
+        if (key == null) {
+            return;
+        }
+        preferences.edit()
+                .remove(key)
+                .remove(key + DESCRIPTION_SUFFIX)
+                .apply();
+    }
+
+    private String key(String saveId) {
+        String playerId = authState.playerId();
+        return playerId != null ? playerId + '/' + saveId : null;
+    }
+}
@@ -0,0 +1,108 @@
+package pl.nekko.capacitor.play.managers;
+
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rejestr strategii łączenia konfliktów snapshotów. Wbudowane strategie:
+ * <ul>
+ *     <li>{@code newest} – wygrywa wersja zmodyfikowana później,</li>
+ *     <li>{@code highestProgress} – wygrywa wersja z większą wartością liczbową pod ścieżką JSON
+ *     (np. {@code player.level}) lub, bez ścieżki, z większym progressValue,</li>
+ *     <li>{@code mergeFields} – obiekty JSON są łączone pole po polu, a przy różnych wartościach
+ *     wygrywa nowsza wersja.</li>
+ * </ul>
+ * Aplikacja może zarejestrować własną strategię przez {@link #register(String, SnapshotMergeStrategy)}.
+ */
+public final class SnapshotMergeStrategies {
+
+    public static final String NEWEST = "newest";
+    public static final String HIGHEST_PROGRESS = "highestProgress";
+    public static final String MERGE_FIELDS = "mergeFields";
+
+    private static final ConcurrentHashMap<String, SnapshotMergeStrategy> STRATEGIES = new ConcurrentHashMap<>();
+
+    static {
+        register(NEWEST, (server, local, path) -> newer(server, local).data);
+        register(HIGHEST_PROGRESS, SnapshotMergeStrategies::highestProgress);
+        register(MERGE_FIELDS, SnapshotMergeStrategies::mergeFields);
+    }
+
+    private SnapshotMergeStrategies() {
+    }
+
+    public static void register(String name, SnapshotMergeStrategy strategy) {
+        STRATEGIES.put(name, strategy);
+    }
+
+    public static SnapshotMergeStrategy get(String name) {
+        return name != null ? STRATEGIES.get(name) : null;
+    }
+
+    static SnapshotMergeStrategy.Version newer(SnapshotMergeStrategy.Version server, SnapshotMergeStrategy.Version local) {
+        return local.lastModifiedTimestamp >= server.lastModifiedTimestamp ? local : server;
+    }
+
+    private static byte[] highestProgress(SnapshotMergeStrategy.Version server, SnapshotMergeStrategy.Version local, String path) throws Exception {
+        double serverProgress;
+        double localProgress;
+        if (path == null || path.isEmpty()) {
+            serverProgress = server.progressValue;
+            localProgress = local.progressValue;
+        } else {
+            serverProgress = readNumber(toJson(server), path);
+            localProgress = readNumber(toJson(local), path);
+        }
+        if (serverProgress == localProgress) {
+            return newer(server, local).data;
+        }
+        return localProgress > serverProgress ? local.data : server.data;
+    }
+
+    private static byte[] mergeFields(SnapshotMergeStrategy.Version server, SnapshotMergeStrategy.Version local, String path) throws Exception {
+        boolean localIsNewer = newer(server, local) == local;
+        JSONObject older = toJson(localIsNewer ? server : local);
+        JSONObject newer = toJson(localIsNewer ? local : server);
+        return deepMerge(older, newer).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Łączy obiekty rekurencyjnie; pola obecne w obu obiektach przyjmują wartość z nowszego.
+     */
+    private static JSONObject deepMerge(JSONObject older, JSONObject newer) throws Exception {
+        JSONObject merged = new JSONObject(older.toString());
+        Iterator<String> keys = newer.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object newValue = newer.get(key);
+            Object oldValue = merged.opt(key);
+            if (newValue instanceof JSONObject && oldValue instanceof JSONObject) {
+                merged.put(key, deepMerge((JSONObject) oldValue, (JSONObject) newValue));
+            } else {
+                merged.put(key, newValue);
+            }
+        }
+        return merged;
+    }
+
+    private static JSONObject toJson(SnapshotMergeStrategy.Version version) throws Exception {
+        if (version.binary) {
+            throw new IllegalArgumentException("Binary snapshots cannot be merged as JSON");
+        }
+        return new JSONObject(new String(version.data, StandardCharsets.UTF_8));
+    }
+
+    private static double readNumber(JSONObject json, String path) {
+        Object current = json;
+        for (String segment : path.split("\\.")) {
+            if (!(current instanceof JSONObject)) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            current = ((JSONObject) current).opt(segment);
+        }
+        return current instanceof Number ? ((Number) current).doubleValue() : Double.NEGATIVE_INFINITY;
+    }
+}
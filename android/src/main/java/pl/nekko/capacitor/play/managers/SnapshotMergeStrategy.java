@@ -0,0 +1,34 @@
+package pl.nekko.capacitor.play.managers;
+
+/**
+ * Strategia rozwiązywania konfliktu dwóch wersji snapshotu.
+ * <p>
+ * Strategia otrzymuje zdekodowaną zawartość obu wersji i zwraca zawartość wynikową.
+ * Zwrócenie tablicy {@code data} jednej z wersji (tej samej referencji) oznacza wybór
+ * tej wersji bez ponownego zapisu danych.
+ */
+public interface SnapshotMergeStrategy {
+
+    byte[] merge(Version server, Version local, String path) throws Exception;
+
+    /**
+     * Jedna ze stron konfliktu.
+     */
+    final class Version {
+        public final byte[] data;
+        public final boolean binary;
+        public final long lastModifiedTimestamp;
+        public final long progressValue;
+        public final long playedTime;
+        public final String description;
+
+        Version(byte[] data, boolean binary, long lastModifiedTimestamp, long progressValue, long playedTime, String description) {
+            this.data = data;
+            this.binary = binary;
+            this.lastModifiedTimestamp = lastModifiedTimestamp;
+            this.progressValue = progressValue;
+            this.playedTime = playedTime;
+            this.description = description;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.os.SystemClock;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataBuffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Indeks metadanych zapisów w pamięci. Zawiera wyłącznie metadane – zawartość snapshotów
+ * nigdy nie jest pobierana. Lokalny commit aktualizuje wpis od razu i oznacza indeks
+ * jako nieaktualny, aby następne odświeżenie ominęło pamięć podręczną Play Games.
+ * <p>
+ * Indeks należy do bieżącego gracza – po zmianie gracza jest czyszczony, a wczytanie
+ * rozpoczęte wcześniej jest pomijane.
+ */
+class SnapshotMetadataIndex {
+
+    static final class Entry {
+        final String saveId;
+        final String description;
+        final long lastModifiedTimestamp;
+        final long playedTime;
+        final long progressValue;
+
+        Entry(String saveId, String description, long lastModifiedTimestamp, long playedTime, long progressValue) {
+            this.saveId = saveId;
+            this.description = description;
+            this.lastModifiedTimestamp = lastModifiedTimestamp;
+            this.playedTime = playedTime;
+            this.progressValue = progressValue;
+        }
+    }
+
+    interface SizeLookup {
+        /**
+         * Rozmiar zapisanych danych w bajtach albo -1, jeśli nie jest znany.
+         */
+        long sizeOf(String saveId);
+    }
+
+    // Niezmienna lista podmieniana w całości – odczyty nie wymagają blokady
+    private volatile List<Entry> entries;
+    private volatile boolean invalidated;
+    private volatile long loadedAt;
+    private int generation;
+
+    boolean isLoaded() {
+        return entries != null;
+    }
+
+    /**
+     * Czy indeks został wczytany z Play Games nie dawniej niż ttlMs temu.
+     */
+    boolean isFresh(long ttlMs) {
+        return entries != null && SystemClock.elapsedRealtime() - loadedAt < ttlMs;
+    }
+
+    synchronized int generation() {
+        return generation;
+    }
+
+    /**
+     * Czy lokalny commit zmienił zapis od ostatniego wczytania z Play Games.
+     */
+    boolean isInvalidated() {
+        return invalidated;
+    }
+
+    /**
+     * Zastępuje zawartość indeksu, chyba że od rozpoczęcia wczytywania zmienił się gracz.
+     */
+    synchronized boolean load(SnapshotMetadataBuffer buffer, int expectedGeneration) {
+        if (expectedGeneration != generation) {
+            return false;
+        }
+        List<Entry> loaded = new ArrayList<>(buffer.getCount());
+        for (SnapshotMetadata metadata : buffer) {
+            loaded.add(new Entry(metadata.getUniqueName(), metadata.getDescription(),
+                    metadata.getLastModifiedTimestamp(), metadata.getPlayedTime(), metadata.getProgressValue()));
+        }
+        entries = Collections.unmodifiableList(loaded);
+        invalidated = false;
+        loadedAt = SystemClock.elapsedRealtime();
+        return true;
+    }
+
+    /**
+     * Zapomina indeks, np. po zmianie gracza.
+     */
+    synchronized void clear() {
+        entries = null;
+        invalidated = false;
+        generation++;
+    }
+
+    /**
+     * Uwzględnia lokalny commit. Niewczytany indeks pozostaje pusty – i tak zostanie wczytany w całości.
+     */
+    synchronized void markCommitted(String saveId, String description, long lastModifiedTimestamp) {
+        invalidated = true;
+        List<Entry> current = entries;
+        if (current == null) {
+            return;
+        }
+        List<Entry> updated = new ArrayList<>(current.size() + 1);
+        Entry previous = null;
+        for (Entry entry : current) {
+            if (entry.saveId.equals(saveId)) {
+                previous = entry;
+            } else {
+                updated.add(entry);
+            }
+        }
+        updated.add(new Entry(saveId, description, lastModifiedTimestamp,
+                previous != null ? previous.playedTime : -1, previous != null ? previous.progressValue : -1));
+        entries = Collections.unmodifiableList(updated);
+    }
+
+    void invalidate() {
+        invalidated = true;
+    }
+
+    JSArray toJSArray(SizeLookup sizes) {
+        JSArray array = new JSArray();
+        List<Entry> current = entries;
+        if (current == null) {
+            return array;
+        }
+        for (Entry entry : current) {
+            JSObject save = new JSObject();
+            save.put("saveId", entry.saveId);
+            save.put("description", entry.description);
+            save.put("lastModifiedTimestamp", entry.lastModifiedTimestamp);
+            save.put("playedTime", entry.playedTime);
+            save.put("progressValue", entry.progressValue);
+            long size = sizes.sizeOf(entry.saveId);
+            if (size >= 0) {
+                save.put("size", size);
+            }
+            array.put(save);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,226 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import pl.nekko.capacitor.play.core.AuthStateCache;
+import pl.nekko.capacitor.play.core.XxHash64;
+
+/**
+ * Lokalna kopia snapshotów w prywatnym katalogu aplikacji.
+ * <p>
+ * Plik zawiera znacznik lastModifiedTimestamp snapshotu (8 bajtów), długość opisu (4),
+ * opis w UTF-8 i zakodowaną zawartość w formacie {@link SnapshotCodec}. Odczyt odbywa się
+ * przez mapowanie pliku w pamięci (albo kanałem od {@link #locate}), a zapis przez plik
+ * tymczasowy podmieniany atomowo.
+ * Zapisy są szeregowane, bo kontynuacje działają na puli wątków i dzieliłyby plik tymczasowy.
+ * <p>
+ * Kopie każdego gracza leżą w osobnym podkatalogu, więc po zmianie konta nie są zwracane
+ * innemu graczowi. Dopóki gracz nie jest znany, kopii nie ma (odczyt idzie do chmury) i nic
+ * nie jest zapisywane.
+ */
+class SnapshotMirror {
+    private static final String DIRECTORY = "pgs_snapshots";
+    private static final int HEADER_SIZE = 12;
+
+    static final class Entry {
+        final long lastModifiedTimestamp;
+        final String description;
+        final byte[] data;
+
+        Entry(long lastModifiedTimestamp, String description, byte[] data) {
+            this.lastModifiedTimestamp = lastModifiedTimestamp;
+            this.description = description;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Położenie zakodowanej zawartości w pliku kopii – do odczytu kanałem bez wczytywania danych.
+     */
+    static final class Location {
+        final File file;
+        final long dataOffset;
+        final long dataLength;
+        final long lastModifiedTimestamp;
+        final String description;
+
+        Location(File file, long dataOffset, long dataLength, long lastModifiedTimestamp, String description) {
+            this.file = file;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+            this.lastModifiedTimestamp = lastModifiedTimestamp;
+            this.description = description;
+        }
+    }
+
+    private interface BodyWriter {
+        void write(FileChannel channel) throws IOException;
+    }
+
+    private final File directory;
+    private final AuthStateCache authState;
+
+    SnapshotMirror(Context context, AuthStateCache authState) {
+        this.directory = new File(context.getFilesDir(), DIRECTORY);
+        this.authState = authState;
+    }
+
+    /**
+     * Zwraca kopię snapshotu albo null, jeśli nie ma jej na dysku.
+     */
+    Entry read(String saveId) throws IOException {
+        File file = fileFor(saveId);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE) {
+                return null;
+            }
+            long lastModified = buffer.getLong();
+            int descriptionLength = buffer.getInt();
+            if (descriptionLength < 0 || descriptionLength > buffer.remaining()) {
+                return null;
+            }
+            byte[] description = new byte[descriptionLength];
+            buffer.get(description);
+            byte[] data = new byte[buffer.remaining()];
+            buffer.get(data);
+            return new Entry(lastModified, new String(description, StandardCharsets.UTF_8), data);
+        }
+    }
+
+    /**
+     * Zwraca położenie zawartości kopii albo null, jeśli nie ma jej na dysku.
+     */
+    Location locate(String saveId) throws IOException {
+        File file = fileFor(saveId);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < HEADER_SIZE) {
+                return null;
+            }
+            long lastModified = raf.readLong();
+            int descriptionLength = raf.readInt();
+            if (descriptionLength < 0 || descriptionLength > raf.length() - HEADER_SIZE) {
+                return null;
+            }
+            byte[] description = new byte[descriptionLength];
+            raf.readFully(description);
+            long dataOffset = HEADER_SIZE + descriptionLength;
+            return new Location(file, dataOffset, raf.length() - dataOffset, lastModified,
+                    new String(description, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Zapisuje kopię snapshotu. Zawartość musi być już zakodowana przez {@link SnapshotCodec}.
+     */
+    synchronized void write(String saveId, long lastModifiedTimestamp, String description, byte[] data) throws IOException {
+        ByteBuffer body = ByteBuffer.wrap(data);
+        replace(saveId, lastModifiedTimestamp, description, channel -> {
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        });
+    }
+
+    /**
+     * Zapisuje kopię, przepisując zawartość kanałem: najpierw prefix (np. nagłówek
+     * {@link SnapshotCodec}), potem length bajtów źródła od position.
+     */
+    synchronized void write(String saveId, long lastModifiedTimestamp, String description, ByteBuffer prefix,
+                            FileChannel source, long position, long length) throws IOException {
+        replace(saveId, lastModifiedTimestamp, description, channel -> {
+            ByteBuffer head = prefix.duplicate();
+            while (head.hasRemaining()) {
+                channel.write(head);
+            }
+            SnapshotFiles.transfer(source, position, length, channel);
+        });
+    }
+
+    private void replace(String saveId, long lastModifiedTimestamp, String description, BodyWriter body) throws IOException {
+        File target = fileFor(saveId);
+        if (target == null) {
+            return;
+        }
+        File playerDirectory = target.getParentFile();
+        if (!playerDirectory.isDirectory() && !playerDirectory.mkdirs()) {
+            throw new IOException("Cannot create snapshot mirror directory");
+        }
+        byte[] descriptionBytes = (description != null ? description : "").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + descriptionBytes.length);
+        header.putLong(lastModifiedTimestamp);
+        header.putInt(descriptionBytes.length);
+        header.put(descriptionBytes);
+        header.flip();
+
+        File temp = new File(playerDirectory, target.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp); FileChannel channel = out.getChannel()) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            body.write(channel);
+            channel.force(false);
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Cannot replace snapshot mirror for " + saveId);
+        }
+    }
+
+    /**
+     * Rozmiar zakodowanej zawartości w kopii bez jej wczytywania albo -1, gdy kopii nie ma.
+     */
+    long dataSize(String saveId) {
+        File file = fileFor(saveId);
+        if (file == null || !file.isFile()) {
+            return -1;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(8);
+            long size = file.length() - HEADER_SIZE - raf.readInt();
+            return size >= 0 ? size : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    synchronized void remove(String saveId) {
+        File file = fileFor(saveId);
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Plik kopii bieżącego gracza albo null, gdy gracz nie jest znany.
+     */
+    private File fileFor(String saveId) {
+        String playerId = authState.playerId();
+        if (playerId == null) {
+            return null;
+        }
+        return new File(new File(directory, safeName(playerId)), safeName(saveId) + ".snap");
+    }
+
+    private static String safeName(String id) {
+        // Skrót ID zapobiega kolizjom nazw po zamianie niedozwolonych znaków
+        String hash = XxHash64.toHex(XxHash64.hash(id.getBytes(StandardCharsets.UTF_8)));
+        return id.replaceAll("[^A-Za-z0-9_-]", "_") + "_" + hash;
+    }
+}
@@ -0,0 +1,219 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import pl.nekko.capacitor.play.core.XxHash64;
+
+/**
+ * Strumieniowe ładowanie zapisu: zawartość jest czytana z kanału pliku kawałkami stałej
+ * wielkości, dekodowana na bieżąco i wysyłana do JS zdarzeniami savedGameChunk z numerem
+ * kolejnym. Ostatni kawałek niesie skrót całości.
+ * <p>
+ * Pamięć natywna jest ograniczona do jednego bufora kawałka i kilku zdarzeń czekających na
+ * przekazanie do WebView – kolejne kawałki są czytane dopiero, gdy wątek główny odbierze wcześniejsze.
+ * Wątek wywołujący czeka przy tym na wątek główny, więc {@link #stream} wolno wołać tylko z puli io,
+ * nigdy z wątku głównego ani wątku wtyczki.
+ */
+final class SnapshotStreamer {
+    static final String EVENT = "savedGameChunk";
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    static final int MIN_CHUNK_SIZE = 1024;
+    static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private static final int WINDOW = 4;
+    private static final long STALL_TIMEOUT_MS = 10_000;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    static final class Result {
+        final int chunks;
+        final long size;
+        final String contentHash;
+        final boolean binary;
+        final boolean compressed;
+
+        Result(int chunks, long size, String contentHash, boolean binary, boolean compressed) {
+            this.chunks = chunks;
+            this.size = size;
+            this.contentHash = contentHash;
+            this.binary = binary;
+            this.compressed = compressed;
+        }
+    }
+
+    private final Bridge bridge;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    SnapshotStreamer(Bridge bridge) {
+        this.bridge = bridge;
+    }
+
+    static int chunkSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_CHUNK_SIZE;
+        }
+        return Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, requested));
+    }
+
+    /**
+     * Wysyła do JS zawartość zakodowaną przez {@link SnapshotCodec}, leżącą w źródle od offset.
+     * Blokuje wątek wywołujący do wysłania ostatniego kawałka.
+     */
+    Result stream(FileChannel source, long offset, long length, String saveId, String streamId, int chunkSize)
+            throws IOException {
+        SnapshotCodec.Header header = SnapshotFiles.readHeader(source, offset, length);
+        long skip = header != null ? SnapshotCodec.HEADER_SIZE : 0;
+        InputStream body = new BufferedInputStream(new RangeInputStream(source, offset + skip, length - skip),
+                READ_BUFFER_SIZE);
+        boolean binary = header != null && header.binary;
+        boolean compressed = header != null && header.compression != SnapshotCodec.COMPRESSION_NONE;
+        long total = header != null ? header.originalLength : length;
+        try (InputStream in = header != null ? SnapshotCodec.decodingStream(header, body) : body) {
+            return emit(in, saveId, streamId, binary, compressed, total, chunkSize);
+        }
+    }
+
+    private Result emit(InputStream in, String saveId, String streamId, boolean binary, boolean compressed,
+                        long total, int chunkSize) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(in, 1);
+        Semaphore inFlight = new Semaphore(WINDOW);
+        XxHash64.Streaming hash = new XxHash64.Streaming();
+        byte[] buffer = new byte[chunkSize];
+        int carry = 0;
+        int sequence = 0;
+        long offset = 0;
+        boolean last;
+        do {
+            int filled = carry + readFully(input, buffer, carry, chunkSize - carry);
+            last = atEnd(input);
+            // Tekst dzielimy na granicy znaku UTF-8, żeby każdy kawałek był poprawnym ciągiem
+            int cut = binary || last ? filled : utf8Boundary(buffer, filled);
+            hash.update(buffer, 0, cut);
+            if (last && offset + cut != total) {
+                throw new IOException("Corrupted snapshot data");
+            }
+
+            JSObject event = new JSObject();
+            event.put("streamId", streamId);
+            event.put("saveId", saveId);
+            event.put("sequence", sequence);
+            event.put("offset", offset);
+            event.put("totalBytes", total);
+            event.put("encoding", binary ? "base64" : "utf8");
+            event.put("data", binary
+                    ? Base64.encodeToString(buffer, 0, cut, Base64.NO_WRAP)
+                    : new String(buffer, 0, cut, StandardCharsets.UTF_8));
+            event.put("last", last);
+            if (last) {
+                event.put("contentHash", XxHash64.toHex(hash.digest()));
+            }
+            send(event, inFlight);
+
+            offset += cut;
+            sequence++;
+            carry = filled - cut;
+            System.arraycopy(buffer, cut, buffer, 0, carry);
+        } while (!last);
+        return new Result(sequence, offset, XxHash64.toHex(hash.digest()), binary, compressed);
+    }
+
+    /**
+     * Przekazuje zdarzenie do WebView, czekając, aż wątek główny odbierze wcześniejsze
+     * (najwyżej WINDOW kawałków w drodze).
+     */
+    private void send(JSObject event, Semaphore inFlight) throws IOException {
+        try {
+            if (!inFlight.tryAcquire(STALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Saved game stream stalled");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Saved game stream interrupted", e);
+        }
+        bridge.triggerWindowJSEvent(EVENT, event.toString());
+        handler.post(inFlight::release);
+    }
+
+    private static int readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = in.read(buffer, offset + read, length - read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    private static boolean atEnd(PushbackInputStream in) throws IOException {
+        int next = in.read();
+        if (next < 0) {
+            return true;
+        }
+        in.unread(next);
+        return false;
+    }
+
+    /**
+     * Długość najdłuższego prefiksu, który nie kończy się w połowie znaku UTF-8.
+     */
+    static int utf8Boundary(byte[] buffer, int length) {
+        for (int i = length - 1; i >= Math.max(0, length - 3); i--) {
+            int b = buffer[i] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                int width = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+                return i + width > length ? i : length;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Strumień fragmentu kanału czytany pozycyjnie – nie zmienia pozycji współdzielonego deskryptora.
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.end = position + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(length, end - position)), position);
+            if (count < 0) {
+                return -1;
+            }
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package pl.nekko.capacitor.play.managers;
+
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.activity.result.ActivityResult;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.PluginCall;
+import com.google.android.gms.tasks.Task;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+import pl.nekko.capacitor.play.core.InFlightCalls;
+
+/**
+ * Aktywności UI Play Games jednego managera. Naraz otwarta jest co najwyżej jedna; kolejne
+ * wywołania czekają w kolejce albo – przy polityce reject – są od razu odrzucane z kodem UI_BUSY.
+ * Do otrzymania wyniku aktywności wywołanie jest zapisane w {@link InFlightCalls}.
+ * <p>
+ * Launcher jest rejestrowany w konstruktorze, więc kolejkę trzeba utworzyć w load() pluginu,
+ * zanim aktywność wystartuje – nawet jeśli manager, który z niej korzysta, powstaje później.
+ */
+public class UiLaunchQueue {
+    private static final String TAG = "UiLaunchQueue";
+    static final String BUSY_CODE = "UI_BUSY";
+
+    interface IntentSource {
+        Task<Intent> get();
+    }
+
+    interface ResultHandler {
+        void onResult(PluginCall call, ActivityResult result);
+    }
+
+    private static final class Request {
+        final PluginCall call;
+        final String operation;
+        final IntentSource source;
+        final ResultHandler handler;
+
+        Request(PluginCall call, String operation, IntentSource source, ResultHandler handler) {
+            this.call = call;
+            this.operation = operation;
+            this.source = source;
+            this.handler = handler;
+        }
+    }
+
+    private final String name;
+    private final InFlightCalls calls;
+    private final Executor main;
+    private final ActivityResultLauncher<Intent> launcher;
+    private final ArrayDeque<Request> waiting = new ArrayDeque<>();
+    private Request active;
+
+    public UiLaunchQueue(Bridge bridge, String name, InFlightCalls calls, Executor main) {
+        this.name = name;
+        this.calls = calls;
+        this.main = main;
+        this.launcher = bridge.registerForActivityResult(
+                new ActivityResultContracts.StartActivityForResult(),
+                this::onActivityResult
+        );
+    }
+
+    /**
+     * Otwiera aktywność z intencji źródła albo kolejkuje wywołanie, jeśli aktywność jest już otwarta.
+     */
+    void launch(PluginCall call, String operation, IntentSource source, ResultHandler handler) {
+        Request request = new Request(call, operation, source, handler);
+        synchronized (this) {
+            if (active != null) {
+                if (InFlightCalls.UI_BUSY_REJECT.equals(call.getString("whenBusy", calls.getUiBusyPolicy()))) {
+                    Log.d(TAG, operation + " rejected, " + name + " UI is busy");
+                    call.reject("The " + name + " UI is already open", BUSY_CODE);
+                    return;
+                }
+                calls.track(call, operation);
+                waiting.add(request);
+                Log.d(TAG, operation + " queued, waiting=" + waiting.size());
+                return;
+            }
+            active = request;
+        }
+        calls.track(call, operation);
+        start(request);
+    }
+
+    private void start(Request request) {
+        request.source.get()
+                .addOnSuccessListener(main, intent -> {
+                    try {
+                        request.call.setKeepAlive(true);
+                        launcher.launch(intent);
+                        Log.d(TAG, request.operation + " activity started");
+                    } catch (Exception e) {
+                        Log.e(TAG, "Failed to start " + name + " activity", e);
+                        finish(request);
+                        request.call.reject("Failed to " + request.operation + ": " + e.getMessage());
+                    }
+                })
+                .addOnFailureListener(main, e -> {
+                    Log.e(TAG, "Failed to get " + name + " intent", e);
+                    finish(request);
+                    request.call.reject("Failed to " + request.operation + ": " + e.getMessage());
+                });
+    }
+
+    private void onActivityResult(ActivityResult result) {
+        Request request;
+        synchronized (this) {
+            request = active;
+        }
+        if (request == null) {
+            Log.d(TAG, "Activity result without a pending " + name + " call");
+            return;
+        }
+        finish(request);
+        request.handler.onResult(request.call, result);
+    }
+
+    /**
+     * Zwalnia wywołanie z rejestru i uruchamia następne z kolejki.
+     */
+    private void finish(Request request) {
+        calls.release(request.call);
+        Request next;
+        synchronized (this) {
+            if (active != request) {
+                return;
+            }
+            next = waiting.poll();
+            active = next;
+        }
+        if (next != null) {
+            start(next);
+        }
+    }
+}
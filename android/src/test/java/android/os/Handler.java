@@ -0,0 +1,28 @@
+package android.os;
+
+/**
+ * Zastępnik Handler dla testów na zwykłej JVM – zadania trafiają do wątku {@link Looper}.
+ */
+public class Handler {
+    private final Looper looper;
+
+    public Handler(Looper looper) {
+        this.looper = looper;
+    }
+
+    public final Looper getLooper() {
+        return looper;
+    }
+
+    public final boolean post(Runnable runnable) {
+        return looper.post(this, runnable, 0);
+    }
+
+    public final boolean postDelayed(Runnable runnable, long delayMillis) {
+        return looper.post(this, runnable, delayMillis);
+    }
+
+    public final void removeCallbacks(Runnable runnable) {
+        looper.remove(this, runnable);
+    }
+}
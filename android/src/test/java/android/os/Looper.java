@@ -0,0 +1,77 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zastępnik Looper dla testów na zwykłej JVM: wątek główny to jeden wątek demona, na którym
+ * {@link Handler} wykonuje zadania w kolejności zgłoszenia. Na urządzeniu klasa pochodzi z systemu.
+ */
+public final class Looper {
+    private static final Looper MAIN = new Looper("main");
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final List<Posted> posted = new ArrayList<>();
+    private volatile Thread thread;
+
+    private Looper(String name) {
+        scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread created = new Thread(runnable, name);
+            created.setDaemon(true);
+            thread = created;
+            return created;
+        });
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+
+    public static Looper myLooper() {
+        return Thread.currentThread() == MAIN.thread ? MAIN : null;
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    boolean post(Handler handler, Runnable runnable, long delayMillis) {
+        Posted entry = new Posted(handler, runnable);
+        synchronized (posted) {
+            posted.add(entry);
+        }
+        scheduler.schedule(() -> {
+            synchronized (posted) {
+                if (!posted.remove(entry)) {
+                    // Usunięte przez removeCallbacks
+                    return;
+                }
+            }
+            try {
+                runnable.run();
+            } catch (RuntimeException | Error e) {
+                // Na urządzeniu wyjątek zakończyłby proces – tu przynajmniej nie może zginąć po cichu
+                e.printStackTrace();
+            }
+        }, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    void remove(Handler handler, Runnable runnable) {
+        synchronized (posted) {
+            posted.removeIf(entry -> entry.handler == handler && entry.runnable == runnable);
+        }
+    }
+
+    private static final class Posted {
+        final Handler handler;
+        final Runnable runnable;
+
+        Posted(Handler handler, Runnable runnable) {
+            this.handler = handler;
+            this.runnable = runnable;
+        }
+    }
+}
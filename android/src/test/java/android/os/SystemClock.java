@@ -0,0 +1,22 @@
+package android.os;
+
+/**
+ * Zastępnik SystemClock dla testów na zwykłej JVM – oba zegary to monotoniczny zegar JVM.
+ */
+public final class SystemClock {
+
+    private SystemClock() {
+    }
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    public static long elapsedRealtimeNanos() {
+        return System.nanoTime();
+    }
+
+    public static long uptimeMillis() {
+        return System.nanoTime() / 1_000_000;
+    }
+}
@@ -0,0 +1,34 @@
+package android.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Zastępnik Base64 dla testów na zwykłej JVM, oparty na java.util.Base64. Obsługuje flagi
+ * DEFAULT i NO_WRAP – tylko tych używa plugin.
+ */
+public final class Base64 {
+    public static final int DEFAULT = 0;
+    public static final int NO_WRAP = 2;
+
+    private Base64() {
+    }
+
+    public static String encodeToString(byte[] input, int flags) {
+        if ((flags & NO_WRAP) != 0) {
+            return java.util.Base64.getEncoder().encodeToString(input);
+        }
+        // Android DEFAULT łamie wiersze co 76 znaków i kończy znakiem nowej linii
+        String encoded = java.util.Base64.getMimeEncoder(76, new byte[]{'\n'}).encodeToString(input);
+        return encoded.isEmpty() ? encoded : encoded + "\n";
+    }
+
+    public static byte[] decode(String str, int flags) {
+        // Jak na Androidzie: białe znaki są pomijane, a każdy inny niedozwolony znak to błąd
+        String compact = str.replaceAll("\\s", "");
+        try {
+            return java.util.Base64.getDecoder().decode(compact.getBytes(StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("bad base-64", e);
+        }
+    }
+}
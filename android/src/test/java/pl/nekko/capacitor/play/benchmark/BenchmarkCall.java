@@ -0,0 +1,51 @@
+package pl.nekko.capacitor.play.benchmark;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PluginCall bez mostka – zapamiętuje ostatni wynik zamiast wysyłać go do WebView.
+ */
+public class BenchmarkCall extends PluginCall {
+
+    private volatile JSObject lastResult;
+    private volatile String lastError;
+    private final AtomicInteger completions = new AtomicInteger();
+
+    public BenchmarkCall(String methodName, JSObject data) {
+        super(null, "PGService", "benchmark", methodName, data);
+    }
+
+    @Override
+    public void resolve(JSObject data) {
+        lastResult = data;
+        lastError = null;
+        completions.incrementAndGet();
+    }
+
+    @Override
+    public void resolve() {
+        resolve(null);
+    }
+
+    @Override
+    public void reject(String msg, String code, Exception ex, JSObject data) {
+        lastResult = null;
+        lastError = msg;
+        completions.incrementAndGet();
+    }
+
+    public JSObject getLastResult() {
+        return lastResult;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public int getCompletions() {
+        return completions.get();
+    }
+}
@@ -0,0 +1,133 @@
+package pl.nekko.capacitor.play.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimalny harness w stylu JMH: iteracje rozgrzewkowe, iteracje pomiarowe o stałym czasie,
+ * przepustowość (ops/s) z odchyleniem oraz liczba bajtów alokowanych na operację.
+ * <p>
+ * Alokacje są liczone przez ThreadMXBean bieżącego wątku, dlatego mierzone operacje muszą
+ * wykonywać się synchronicznie (testy używają wykonawców uruchamiających zadania w miejscu).
+ * <p>
+ * Parametry: {@code pgs.benchmark.warmup}, {@code pgs.benchmark.iterations},
+ * {@code pgs.benchmark.iterationMs}.
+ */
+public final class BenchmarkRunner {
+
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    public static final class Result {
+        public final String name;
+        public final double opsPerSecond;
+        public final double error;
+        public final double bytesPerOp;
+
+        Result(String name, double opsPerSecond, double error, double bytesPerOp) {
+            this.name = name;
+            this.opsPerSecond = opsPerSecond;
+            this.error = error;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+    // Wyniki trafiają do pola volatile, aby JIT nie usunął martwego kodu
+    private static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final List<Result> results = new ArrayList<>();
+
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    public static BenchmarkRunner fromSystemProperties() {
+        return new BenchmarkRunner(
+                Integer.getInteger("pgs.benchmark.warmup", 3),
+                Integer.getInteger("pgs.benchmark.iterations", 5),
+                Long.getLong("pgs.benchmark.iterationMs", 500L));
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("pgs.benchmark");
+    }
+
+    public Result run(String name, Operation operation) throws Exception {
+        // Rozgrzewka wyznacza też wielkość paczki, aby zegar nie był czytany przy każdej operacji
+        long batch = 1;
+        for (int i = 0; i < warmupIterations; i++) {
+            long[] measured = iteration(operation, batch);
+            batch = Math.max(1, measured[0] / 100);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        double[] scores = new double[measurementIterations];
+        long totalOps = 0;
+        long allocatedBefore = allocatedBytes(threads);
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] measured = iteration(operation, batch);
+            totalOps += measured[0];
+            scores[i] = measured[0] * 1e9 / measured[1];
+        }
+        long allocated = allocatedBytes(threads) - allocatedBefore;
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double stdDev = scores.length > 1 ? Math.sqrt(variance / (scores.length - 1)) : 0;
+
+        Result result = new Result(name, mean, stdDev, allocated >= 0 ? (double) allocated / totalOps : -1);
+        results.add(result);
+        return result;
+    }
+
+    /**
+     * Wykonuje operację w paczkach do upływu czasu iteracji. Zwraca liczbę operacji i czas w ns.
+     */
+    private long[] iteration(Operation operation, long batch) throws Exception {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long i = 0; i < batch; i++) {
+                sink = operation.run();
+            }
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[]{ops, elapsed};
+    }
+
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-48s %5s %14s %12s %12s%n", "Benchmark", "Cnt", "Score (ops/s)", "Error", "B/op"));
+        for (Result result : results) {
+            out.append(String.format(Locale.ROOT, "%-48s %5d %14.1f %12.1f %12s%n", result.name, measurementIterations,
+                    result.opsPerSecond, result.error,
+                    result.bytesPerOp >= 0 ? String.format(Locale.ROOT, "%.1f", result.bytesPerOp) : "n/a"));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package pl.nekko.capacitor.play.benchmark;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import pl.nekko.capacitor.play.core.GamesBackend;
+
+/**
+ * Backend z odpowiedziami w pamięci. Każda metoda zwracająca Task kończy się
+ * natychmiast sukcesem (wynik null), chyba że zarejestrowano dla niej inną odpowiedź.
+ */
+public class FakeGamesBackend implements GamesBackend {
+
+    private final Map<String, Function<Object[], Object>> answers = new HashMap<>();
+
+    private final SignIn signIn = fake(SignIn.class, "signIn");
+    private final Players players = fake(Players.class, "players");
+    private final Leaderboards leaderboards = fake(Leaderboards.class, "leaderboards");
+    private final Achievements achievements = fake(Achievements.class, "achievements");
+    private final Snapshots snapshots = fake(Snapshots.class, "snapshots");
+    private final Events events = fake(Events.class, "events");
+
+    /**
+     * Rejestruje odpowiedź dla metody, np. {@code answer("achievements.load", args -> never())}.
+     */
+    public FakeGamesBackend answer(String method, Function<Object[], Object> answer) {
+        answers.put(method, answer);
+        return this;
+    }
+
+    /**
+     * Zadanie, które nigdy się nie kończy – przydatne dla wczytywania w tle.
+     */
+    public static <T> Task<T> never() {
+        return new TaskCompletionSource<T>().getTask();
+    }
+
+    @Override
+    public SignIn getSignIn() {
+        return signIn;
+    }
+
+    @Override
+    public Players getPlayers() {
+        return players;
+    }
+
+    @Override
+    public Leaderboards getLeaderboards() {
+        return leaderboards;
+    }
+
+    @Override
+    public Achievements getAchievements() {
+        return achievements;
+    }
+
+    @Override
+    public Snapshots getSnapshots() {
+        return snapshots;
+    }
+
+    @Override
+    public Events getEvents() {
+        return events;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <C> C fake(Class<C> clientInterface, String prefix) {
+        return (C) Proxy.newProxyInstance(clientInterface.getClassLoader(), new Class<?>[]{clientInterface},
+                (proxy, method, args) -> {
+                    Function<Object[], Object> answer = answers.get(prefix + "." + method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    if (Task.class.isAssignableFrom(method.getReturnType())) {
+                        return Tasks.forResult(null);
+                    }
+                    if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    if (method.getName().equals("toString")) {
+                        return "Fake" + clientInterface.getSimpleName();
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,961 @@
+package pl.nekko.capacitor.play.benchmark;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import android.content.Intent;
+
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.games.AnnotatedData;
+import com.google.android.gms.games.AuthenticationResult;
+import com.google.android.gms.games.LeaderboardsClient;
+import com.google.android.gms.games.PageDirection;
+import com.google.android.gms.games.Player;
+import com.google.android.gms.games.SnapshotsClient;
+import com.google.android.gms.games.achievement.Achievement;
+import com.google.android.gms.games.achievement.AchievementBuffer;
+import com.google.android.gms.games.event.Event;
+import com.google.android.gms.games.event.EventBuffer;
+import com.google.android.gms.games.leaderboard.LeaderboardScore;
+import com.google.android.gms.games.leaderboard.LeaderboardScoreBuffer;
+import com.google.android.gms.games.leaderboard.ScoreSubmissionData;
+import com.google.android.gms.games.snapshot.Snapshot;
+import com.google.android.gms.games.snapshot.SnapshotContents;
+import com.google.android.gms.games.snapshot.SnapshotMetadata;
+import com.google.android.gms.games.snapshot.SnapshotMetadataBuffer;
+import com.google.android.gms.games.snapshot.SnapshotMetadataChange;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import pl.nekko.capacitor.play.core.GamesBackend;
+
+/**
+ * Emulacja usług Play Games w pamięci: snapshoty z wersjami i konfliktami, tabele wyników,
+ * osiągnięcia i zdarzenia. Pozwala obciążać managery na zwykłej JVM.
+ * <p>
+ * Każde zadanie kończy się po losowym opóźnieniu z zakresu {@link #latency}, z prawdopodobieństwem
+ * {@link #failureRate} kończy się błędem NETWORK_ERROR, a otwarcie snapshotu z prawdopodobieństwem
+ * {@link #conflictRate} zgłasza konflikt. Stan zmienia się dopiero w chwili zakończenia zadania,
+ * jak na serwerze.
+ * <p>
+ * Zatwierdzenie snapshotu otwartego na nieaktualnej wersji nie nadpisuje cicho cudzego zapisu –
+ * poprzednia wersja zostaje zapamiętana i przy następnym otwarciu serwer zgłasza konflikt.
+ */
+public class InMemoryGamesBackend implements GamesBackend {
+
+    /** Jak GamesClientStatusCodes.SNAPSHOT_NOT_FOUND. */
+    public static final int SNAPSHOT_NOT_FOUND = 26570;
+    public static final String PLAYER_ID = "player_local";
+
+    private static final class StoredSnapshot {
+        final String saveId;
+        final String snapshotId;
+        final byte[] data;
+        final String description;
+        final long lastModified;
+        final long playedTime;
+        final long progressValue;
+        final long version;
+
+        StoredSnapshot(String saveId, String snapshotId, byte[] data, String description, long lastModified,
+                       long playedTime, long progressValue, long version) {
+            this.saveId = saveId;
+            this.snapshotId = snapshotId;
+            this.data = data;
+            this.description = description;
+            this.lastModified = lastModified;
+            this.playedTime = playedTime;
+            this.progressValue = progressValue;
+            this.version = version;
+        }
+    }
+
+    /** Otwarty snapshot: wersja, na której go otwarto, i bufor zawartości. */
+    private static final class Handle {
+        final StoredSnapshot base;
+        final byte[][] contents;
+
+        Handle(StoredSnapshot base, byte[][] contents) {
+            this.base = base;
+            this.contents = contents;
+        }
+    }
+
+    private static final class OpenConflict {
+        final String saveId;
+        final StoredSnapshot server;
+        final StoredSnapshot local;
+        final Snapshot[] snapshots;
+
+        OpenConflict(String saveId, StoredSnapshot server, StoredSnapshot local, Snapshot[] snapshots) {
+            this.saveId = saveId;
+            this.server = server;
+            this.local = local;
+            this.snapshots = snapshots;
+        }
+    }
+
+    private static final class Board {
+        final boolean lowerIsBetter;
+        final Map<String, long[]> scores = new HashMap<>();
+
+        Board(boolean lowerIsBetter) {
+            this.lowerIsBetter = lowerIsBetter;
+        }
+    }
+
+    private static final class Page {
+        final String leaderboardId;
+        final int start;
+        final int end;
+
+        Page(String leaderboardId, int start, int end) {
+            this.leaderboardId = leaderboardId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class AchievementState {
+        final int totalSteps;
+        int currentSteps;
+        int state;
+        long lastUpdated;
+
+        AchievementState(int totalSteps, int state) {
+            this.totalSteps = totalSteps;
+            this.state = state;
+        }
+    }
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "in-memory-games");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Random random;
+
+    private volatile long minLatencyMs = 0;
+    private volatile long maxLatencyMs = 0;
+    private volatile double failureRate = 0;
+    private volatile double conflictRate = 0;
+    private volatile boolean signedIn = true;
+
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicInteger snapshotIds = new AtomicInteger();
+
+    // Snapshoty są chronione monitorem backendu, bo open/commit/resolve zmieniają kilka map naraz
+    private final Map<String, StoredSnapshot> snapshots = new HashMap<>();
+    private final Map<String, StoredSnapshot> divergent = new HashMap<>();
+    private final Map<String, OpenConflict> openConflicts = new HashMap<>();
+    private final Map<Snapshot, Handle> handles = new IdentityHashMap<>();
+    private long clock = System.currentTimeMillis();
+
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+    private final Map<LeaderboardScoreBuffer, Page> pages = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<String, AchievementState> achievements = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> events = new ConcurrentHashMap<>();
+    private final AtomicLong eventIncrementCalls = new AtomicLong();
+
+    private final SignIn signInView = new SignInView();
+    private final Players playersView = new PlayersView();
+    private final Leaderboards leaderboardsView = new LeaderboardsView();
+    private final Achievements achievementsView = new AchievementsView();
+    private final Snapshots snapshotsView = new SnapshotsView();
+    private final Events eventsView = new EventsView();
+
+    public InMemoryGamesBackend() {
+        this(System.nanoTime());
+    }
+
+    public InMemoryGamesBackend(long seed) {
+        this.random = new Random(seed);
+    }
+
+    // ========== Konfiguracja ==========
+
+    public InMemoryGamesBackend latency(long minMs, long maxMs) {
+        this.minLatencyMs = minMs;
+        this.maxLatencyMs = Math.max(minMs, maxMs);
+        return this;
+    }
+
+    public InMemoryGamesBackend failureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    public InMemoryGamesBackend conflictRate(double conflictRate) {
+        this.conflictRate = conflictRate;
+        return this;
+    }
+
+    public InMemoryGamesBackend signedIn(boolean signedIn) {
+        this.signedIn = signedIn;
+        return this;
+    }
+
+    /**
+     * Tworzy tabelę wyników z podaną liczbą wyników innych graczy.
+     */
+    public InMemoryGamesBackend leaderboard(String leaderboardId, boolean lowerIsBetter, int otherPlayers) {
+        Board board = new Board(lowerIsBetter);
+        for (int i = 0; i < otherPlayers; i++) {
+            board.scores.put("player_" + i, new long[]{random.nextInt(1_000_000), System.currentTimeMillis()});
+        }
+        boards.put(leaderboardId, board);
+        return this;
+    }
+
+    /**
+     * Tworzy osiągnięcie; totalSteps równe 0 oznacza osiągnięcie zwykłe, większe – przyrostowe.
+     */
+    public InMemoryGamesBackend achievement(String achievementId, int totalSteps) {
+        int type = totalSteps > 0 ? Achievement.TYPE_INCREMENTAL : Achievement.TYPE_STANDARD;
+        achievements.put(achievementId, new AchievementState(type == Achievement.TYPE_INCREMENTAL ? totalSteps : 0,
+                Achievement.STATE_REVEALED));
+        return this;
+    }
+
+    /**
+     * Symuluje zapis z innego urządzenia – przy następnym otwarciu snapshotu serwer zgłosi konflikt.
+     */
+    public synchronized InMemoryGamesBackend injectConflict(String saveId, byte[] data, String description) {
+        StoredSnapshot stored = snapshots.get(saveId);
+        String snapshotId = stored != null ? stored.snapshotId : newSnapshotId();
+        long version = stored != null ? stored.version : 0;
+        divergent.put(saveId, new StoredSnapshot(saveId, snapshotId, data, description, tick(),
+                stored != null ? stored.playedTime : 0, stored != null ? stored.progressValue : 0, version));
+        if (stored == null) {
+            snapshots.put(saveId, new StoredSnapshot(saveId, snapshotId, new byte[0], "", tick(), 0, 0, 0));
+        }
+        return this;
+    }
+
+    // ========== Stan do asercji ==========
+
+    public synchronized byte[] snapshotData(String saveId) {
+        StoredSnapshot stored = snapshots.get(saveId);
+        return stored != null ? stored.data : null;
+    }
+
+    public synchronized boolean hasPendingConflict(String saveId) {
+        return divergent.containsKey(saveId);
+    }
+
+    public synchronized int openSnapshotCount() {
+        return handles.size();
+    }
+
+    public Long playerScore(String leaderboardId) {
+        Board board = boards.get(leaderboardId);
+        if (board == null) {
+            return null;
+        }
+        synchronized (board) {
+            long[] entry = board.scores.get(PLAYER_ID);
+            return entry != null ? entry[0] : null;
+        }
+    }
+
+    public int achievementSteps(String achievementId) {
+        AchievementState state = achievements.get(achievementId);
+        synchronized (state) {
+            return state.currentSteps;
+        }
+    }
+
+    public boolean isUnlocked(String achievementId) {
+        AchievementState state = achievements.get(achievementId);
+        synchronized (state) {
+            return state.state == Achievement.STATE_UNLOCKED;
+        }
+    }
+
+    public long eventValue(String eventId) {
+        AtomicLong value = events.get(eventId);
+        return value != null ? value.get() : 0;
+    }
+
+    /**
+     * Liczba wywołań EventsClient.increment – po agregacji powinna być dużo mniejsza niż liczba zdarzeń z gry.
+     */
+    public long eventIncrementCount() {
+        return eventIncrementCalls.get();
+    }
+
+    public long operationCount() {
+        return operations.get();
+    }
+
+    public long injectedFailureCount() {
+        return injectedFailures.get();
+    }
+
+    public long conflictCount() {
+        return conflicts.get();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public SignIn getSignIn() {
+        return signInView;
+    }
+
+    @Override
+    public Players getPlayers() {
+        return playersView;
+    }
+
+    @Override
+    public Leaderboards getLeaderboards() {
+        return leaderboardsView;
+    }
+
+    @Override
+    public Achievements getAchievements() {
+        return achievementsView;
+    }
+
+    @Override
+    public Snapshots getSnapshots() {
+        return snapshotsView;
+    }
+
+    @Override
+    public Events getEvents() {
+        return eventsView;
+    }
+
+    // ========== Wykonanie zadań ==========
+
+    /**
+     * Uruchamia operację po opóźnieniu. Operacja działa w chwili „odpowiedzi serwera”,
+     * więc równoległe wywołania mogą się przeplatać jak w rzeczywistej usłudze.
+     */
+    private <T> Task<T> submit(Callable<T> operation) {
+        operations.incrementAndGet();
+        TaskCompletionSource<T> source = new TaskCompletionSource<>();
+        Runnable completion = () -> {
+            if (failureRate > 0 && random.nextDouble() < failureRate) {
+                injectedFailures.incrementAndGet();
+                source.setException(new ApiException(new Status(CommonStatusCodes.NETWORK_ERROR, "Injected failure")));
+                return;
+            }
+            try {
+                source.setResult(operation.call());
+            } catch (Exception e) {
+                source.setException(e);
+            }
+        };
+        long latency = minLatencyMs + (maxLatencyMs > minLatencyMs
+                ? (long) (random.nextDouble() * (maxLatencyMs - minLatencyMs)) : 0);
+        if (latency > 0) {
+            scheduler.schedule(completion, latency, TimeUnit.MILLISECONDS);
+        } else {
+            completion.run();
+        }
+        return source.getTask();
+    }
+
+    private static ApiException apiException(int statusCode, String message) {
+        return new ApiException(new Status(statusCode, message));
+    }
+
+    /**
+     * Tworzy obiekt typu Play Games zwracający podane wartości; wartość typu Function
+     * jest wywoływana z argumentami metody. Pozostałe metody zwracają wartości domyślne.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T fake(Class<T> type, Object... answers) {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < answers.length; i += 2) {
+            values.put((String) answers[i], answers[i + 1]);
+        }
+        return mock(type, invocation -> {
+            String name = invocation.getMethod().getName();
+            if (!values.containsKey(name)) {
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+            Object value = values.get(name);
+            return value instanceof Function ? ((Function<Object[], Object>) value).apply(invocation.getArguments()) : value;
+        });
+    }
+
+    private static <T, B> B buffer(Class<B> type, List<T> items) {
+        Function<Object[], Object> get = args -> items.get((Integer) args[0]);
+        Function<Object[], Object> iterator = args -> items.iterator();
+        return fake(type, "getCount", items.size(), "get", get, "iterator", iterator);
+    }
+
+    private static <T> AnnotatedData<T> annotated(T value) {
+        @SuppressWarnings("unchecked")
+        AnnotatedData<T> data = fake(AnnotatedData.class, "get", value, "isStale", false);
+        return data;
+    }
+
+    private static Player player(String playerId, String displayName) {
+        return fake(Player.class, "getPlayerId", playerId, "getDisplayName", displayName);
+    }
+
+    // ========== Logowanie i gracz ==========
+
+    private final class SignInView implements SignIn {
+        @Override
+        public Task<AuthenticationResult> isAuthenticated() {
+            return submit(() -> fake(AuthenticationResult.class, "isAuthenticated", signedIn));
+        }
+
+        @Override
+        public Task<AuthenticationResult> signIn() {
+            return submit(() -> {
+                signedIn = true;
+                return fake(AuthenticationResult.class, "isAuthenticated", true);
+            });
+        }
+    }
+
+    private final class PlayersView implements Players {
+        @Override
+        public Task<Player> getCurrentPlayer() {
+            return submit(() -> player(PLAYER_ID, "Local Player"));
+        }
+    }
+
+    // ========== Tabele wyników ==========
+
+    private Board board(String leaderboardId) throws ApiException {
+        Board board = boards.get(leaderboardId);
+        if (board == null) {
+            throw apiException(CommonStatusCodes.DEVELOPER_ERROR, "Unknown leaderboard: " + leaderboardId);
+        }
+        return board;
+    }
+
+    /**
+     * Zwraca wyniki posortowane od najlepszego; remisy rozstrzyga wcześniejszy czas zgłoszenia.
+     */
+    private static List<Map.Entry<String, long[]>> ranked(Board board) {
+        List<Map.Entry<String, long[]>> entries;
+        synchronized (board) {
+            entries = new ArrayList<>(board.scores.size());
+            for (Map.Entry<String, long[]> entry : board.scores.entrySet()) {
+                entries.add(new HashMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().clone()));
+            }
+        }
+        entries.sort((a, b) -> {
+            int byScore = board.lowerIsBetter ? Long.compare(a.getValue()[0], b.getValue()[0])
+                    : Long.compare(b.getValue()[0], a.getValue()[0]);
+            return byScore != 0 ? byScore : Long.compare(a.getValue()[1], b.getValue()[1]);
+        });
+        return entries;
+    }
+
+    private static LeaderboardScore score(Map.Entry<String, long[]> entry, int rank) {
+        long rawScore = entry.getValue()[0];
+        String displayName = PLAYER_ID.equals(entry.getKey()) ? "Local Player" : entry.getKey();
+        return fake(LeaderboardScore.class,
+                "getRank", (long) rank,
+                "getDisplayRank", String.valueOf(rank),
+                "getRawScore", rawScore,
+                "getDisplayScore", String.valueOf(rawScore),
+                "getTimestampMillis", entry.getValue()[1],
+                "getScoreHolderDisplayName", displayName,
+                "getScoreHolder", player(entry.getKey(), displayName));
+    }
+
+    private AnnotatedData<LeaderboardsClient.LeaderboardScores> scores(String leaderboardId,
+                                                                        List<Map.Entry<String, long[]>> ranked,
+                                                                        int start, int end) {
+        List<LeaderboardScore> page = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            page.add(score(ranked.get(i), i + 1));
+        }
+        LeaderboardScoreBuffer buffer = buffer(LeaderboardScoreBuffer.class, page);
+        Function<Object[], Object> release = args -> pages.remove(buffer);
+        pages.put(buffer, new Page(leaderboardId, start, end));
+        return annotated(fake(LeaderboardsClient.LeaderboardScores.class, "getScores", buffer, "release", release));
+    }
+
+    private final class LeaderboardsView implements Leaderboards {
+        @Override
+        public Task<Intent> getLeaderboardIntent(String leaderboardId) {
+            return submit(() -> {
+                board(leaderboardId);
+                return new Intent();
+            });
+        }
+
+        @Override
+        public Task<Intent> getAllLeaderboardsIntent() {
+            return submit(Intent::new);
+        }
+
+        @Override
+        public Task<ScoreSubmissionData> submitScoreImmediate(String leaderboardId, long score) {
+            return submit(() -> {
+                Board board = board(leaderboardId);
+                synchronized (board) {
+                    long[] best = board.scores.get(PLAYER_ID);
+                    boolean better = best == null || (board.lowerIsBetter ? score < best[0] : score > best[0]);
+                    if (better) {
+                        board.scores.put(PLAYER_ID, new long[]{score, System.currentTimeMillis()});
+                    }
+                }
+                return fake(ScoreSubmissionData.class);
+            });
+        }
+
+        @Override
+        public Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadTopScores(String leaderboardId,
+                int timeSpan, int collection, int maxResults, boolean forceReload) {
+            return submit(() -> {
+                List<Map.Entry<String, long[]>> ranked = ranked(board(leaderboardId));
+                return scores(leaderboardId, ranked, 0, Math.min(maxResults, ranked.size()));
+            });
+        }
+
+        @Override
+        public Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadPlayerCenteredScores(String leaderboardId,
+                int timeSpan, int collection, int maxResults, boolean forceReload) {
+            return submit(() -> {
+                List<Map.Entry<String, long[]>> ranked = ranked(board(leaderboardId));
+                int playerIndex = 0;
+                for (int i = 0; i < ranked.size(); i++) {
+                    if (PLAYER_ID.equals(ranked.get(i).getKey())) {
+                        playerIndex = i;
+                        break;
+                    }
+                }
+                int start = Math.max(0, Math.min(playerIndex - maxResults / 2, ranked.size() - maxResults));
+                return scores(leaderboardId, ranked, start, Math.min(ranked.size(), start + maxResults));
+            });
+        }
+
+        @Override
+        public Task<AnnotatedData<LeaderboardsClient.LeaderboardScores>> loadMoreScores(LeaderboardScoreBuffer buffer,
+                int maxResults, int pageDirection) {
+            return submit(() -> {
+                Page page = pages.get(buffer);
+                if (page == null) {
+                    throw new IllegalStateException("Buffer was released or does not come from this backend");
+                }
+                // Jak w Play Games nowy bufor zawiera również wcześniej wczytane wyniki
+                List<Map.Entry<String, long[]>> ranked = ranked(board(page.leaderboardId));
+                int start = pageDirection == PageDirection.PREV ? Math.max(0, page.start - maxResults) : page.start;
+                int end = pageDirection == PageDirection.NEXT ? Math.min(ranked.size(), page.end + maxResults)
+                        : Math.min(ranked.size(), page.end);
+                return scores(page.leaderboardId, ranked, start, end);
+            });
+        }
+
+        @Override
+        public Task<AnnotatedData<LeaderboardScore>> loadCurrentPlayerLeaderboardScore(String leaderboardId,
+                int timeSpan, int collection) {
+            return submit(() -> {
+                List<Map.Entry<String, long[]>> ranked = ranked(board(leaderboardId));
+                for (int i = 0; i < ranked.size(); i++) {
+                    if (PLAYER_ID.equals(ranked.get(i).getKey())) {
+                        return annotated(score(ranked.get(i), i + 1));
+                    }
+                }
+                return annotated((LeaderboardScore) null);
+            });
+        }
+    }
+
+    // ========== Osiągnięcia ==========
+
+    private AchievementState achievementState(String achievementId) throws ApiException {
+        AchievementState state = achievements.get(achievementId);
+        if (state == null) {
+            throw apiException(CommonStatusCodes.DEVELOPER_ERROR, "Unknown achievement: " + achievementId);
+        }
+        return state;
+    }
+
+    private Boolean applyIncrement(String achievementId, int steps) throws ApiException {
+        AchievementState state = achievementState(achievementId);
+        synchronized (state) {
+            if (state.totalSteps == 0) {
+                throw apiException(CommonStatusCodes.DEVELOPER_ERROR, "Achievement is not incremental: " + achievementId);
+            }
+            if (state.state == Achievement.STATE_UNLOCKED) {
+                return false;
+            }
+            state.currentSteps = Math.min(state.totalSteps, state.currentSteps + steps);
+            state.lastUpdated = System.currentTimeMillis();
+            if (state.currentSteps == state.totalSteps) {
+                state.state = Achievement.STATE_UNLOCKED;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private final class AchievementsView implements Achievements {
+        @Override
+        public Task<Intent> getAchievementsIntent() {
+            return submit(Intent::new);
+        }
+
+        @Override
+        public Task<Void> unlockImmediate(String achievementId) {
+            return submit(() -> {
+                AchievementState state = achievementState(achievementId);
+                synchronized (state) {
+                    state.state = Achievement.STATE_UNLOCKED;
+                    state.currentSteps = state.totalSteps;
+                    state.lastUpdated = System.currentTimeMillis();
+                }
+                return null;
+            });
+        }
+
+        @Override
+        public Task<Void> revealImmediate(String achievementId) {
+            return submit(() -> {
+                AchievementState state = achievementState(achievementId);
+                synchronized (state) {
+                    if (state.state == Achievement.STATE_HIDDEN) {
+                        state.state = Achievement.STATE_REVEALED;
+                    }
+                }
+                return null;
+            });
+        }
+
+        @Override
+        public void increment(String achievementId, int steps) {
+            submit(() -> applyIncrement(achievementId, steps));
+        }
+
+        @Override
+        public Task<Boolean> incrementImmediate(String achievementId, int steps) {
+            return submit(() -> applyIncrement(achievementId, steps));
+        }
+
+        @Override
+        public Task<AnnotatedData<AchievementBuffer>> load(boolean forceReload) {
+            return submit(() -> {
+                List<Achievement> loaded = new ArrayList<>(achievements.size());
+                for (Map.Entry<String, AchievementState> entry : achievements.entrySet()) {
+                    AchievementState state = entry.getValue();
+                    synchronized (state) {
+                        loaded.add(fake(Achievement.class,
+                                "getAchievementId", entry.getKey(),
+                                "getName", entry.getKey(),
+                                "getDescription", "",
+                                "getState", state.state,
+                                "getType", state.totalSteps > 0 ? Achievement.TYPE_INCREMENTAL : Achievement.TYPE_STANDARD,
+                                "getCurrentSteps", state.currentSteps,
+                                "getTotalSteps", state.totalSteps,
+                                "getLastUpdatedTimestamp", state.lastUpdated));
+                    }
+                }
+                return annotated(buffer(AchievementBuffer.class, loaded));
+            });
+        }
+    }
+
+    // ========== Zdarzenia ==========
+
+    private final class EventsView implements Events {
+        @Override
+        public void increment(String eventId, int incrementAmount) {
+            eventIncrementCalls.incrementAndGet();
+            submit(() -> events.computeIfAbsent(eventId, id -> new AtomicLong()).addAndGet(incrementAmount));
+        }
+
+        @Override
+        public Task<AnnotatedData<EventBuffer>> load(boolean forceReload) {
+            return submit(() -> {
+                List<Event> loaded = new ArrayList<>(events.size());
+                for (Map.Entry<String, AtomicLong> entry : events.entrySet()) {
+                    long value = entry.getValue().get();
+                    loaded.add(fake(Event.class,
+                            "getEventId", entry.getKey(),
+                            "getName", entry.getKey(),
+                            "getDescription", "",
+                            "getValue", value,
+                            "getFormattedValue", Long.toString(value),
+                            "isVisible", true));
+                }
+                return annotated(buffer(EventBuffer.class, loaded));
+            });
+        }
+    }
+
+    // ========== Snapshoty ==========
+
+    private String newSnapshotId() {
+        return "snapshot_" + snapshotIds.incrementAndGet();
+    }
+
+    // Znaczniki czasu rosną ściśle, aby strategie „nowszy wygrywa” były deterministyczne
+    private long tick() {
+        clock = Math.max(clock + 1, System.currentTimeMillis());
+        return clock;
+    }
+
+    private static SnapshotMetadata metadata(StoredSnapshot stored) {
+        return fake(SnapshotMetadata.class,
+                "getSnapshotId", stored.snapshotId,
+                "getUniqueName", stored.saveId,
+                "getTitle", stored.saveId,
+                "getDescription", stored.description,
+                "getLastModifiedTimestamp", stored.lastModified,
+                "getPlayedTime", stored.playedTime,
+                "getProgressValue", stored.progressValue,
+                "getDeviceName", "jvm");
+    }
+
+    private static SnapshotContents contents(byte[][] holder) {
+        Function<Object[], Object> readFully = args -> holder[0].clone();
+        Function<Object[], Object> writeBytes = args -> {
+            holder[0] = ((byte[]) args[0]).clone();
+            return true;
+        };
+        return fake(SnapshotContents.class, "readFully", readFully, "writeBytes", writeBytes);
+    }
+
+    /** Wymaga monitora backendu. */
+    private Snapshot openHandle(StoredSnapshot stored) {
+        byte[][] holder = {stored.data.clone()};
+        Snapshot snapshot = fake(Snapshot.class, "getMetadata", metadata(stored), "getSnapshotContents", contents(holder));
+        handles.put(snapshot, new Handle(stored, holder));
+        return snapshot;
+    }
+
+    private static SnapshotsClient.DataOrConflict<Snapshot> data(Snapshot snapshot) {
+        @SuppressWarnings("unchecked")
+        SnapshotsClient.DataOrConflict<Snapshot> result = fake(SnapshotsClient.DataOrConflict.class,
+                "getData", snapshot, "isConflict", false);
+        return result;
+    }
+
+    /** Wymaga monitora backendu. */
+    private SnapshotsClient.DataOrConflict<Snapshot> conflict(String saveId, StoredSnapshot server, StoredSnapshot local) {
+        conflicts.incrementAndGet();
+        String conflictId = UUID.randomUUID().toString();
+        Snapshot serverSnapshot = openHandle(server);
+        Snapshot localSnapshot = openHandle(local);
+        openConflicts.put(conflictId, new OpenConflict(saveId, server, local,
+                new Snapshot[]{serverSnapshot, localSnapshot}));
+        SnapshotsClient.SnapshotConflict conflict = fake(SnapshotsClient.SnapshotConflict.class,
+                "getConflictId", conflictId,
+                "getSnapshot", serverSnapshot,
+                "getConflictingSnapshot", localSnapshot,
+                "getResolutionSnapshotContents", contents(new byte[][]{new byte[0]}));
+        @SuppressWarnings("unchecked")
+        SnapshotsClient.DataOrConflict<Snapshot> result = fake(SnapshotsClient.DataOrConflict.class,
+                "getConflict", conflict, "isConflict", true);
+        return result;
+    }
+
+    private static StoredSnapshot pick(int policy, StoredSnapshot server, StoredSnapshot local) {
+        switch (policy) {
+            case SnapshotsClient.RESOLUTION_POLICY_LONGEST_PLAYTIME:
+                return local.playedTime > server.playedTime ? local : server;
+            case SnapshotsClient.RESOLUTION_POLICY_HIGHEST_PROGRESS:
+                return local.progressValue > server.progressValue ? local : server;
+            case SnapshotsClient.RESOLUTION_POLICY_LAST_KNOWN_GOOD:
+                return local;
+            default:
+                return local.lastModified > server.lastModified ? local : server;
+        }
+    }
+
+    /**
+     * Zapisuje rozstrzygniętą wersję. Wymaga monitora backendu.
+     */
+    private StoredSnapshot store(StoredSnapshot base, byte[] data, SnapshotMetadataChange change) {
+        StoredSnapshot current = snapshots.get(base.saveId);
+        String description = base.description;
+        long playedTime = base.playedTime;
+        long progressValue = base.progressValue;
+        if (change != null) {
+            if (change.getDescription() != null) {
+                description = change.getDescription();
+            }
+            if (change.getPlayedTimeMillis() != null) {
+                playedTime = change.getPlayedTimeMillis();
+            }
+            if (change.getProgressValue() != null) {
+                progressValue = change.getProgressValue();
+            }
+        }
+        StoredSnapshot stored = new StoredSnapshot(base.saveId, base.snapshotId, data, description, tick(),
+                playedTime, progressValue, current.version + 1);
+        snapshots.put(base.saveId, stored);
+        return stored;
+    }
+
+    private void closeConflictHandles(OpenConflict conflict) {
+        for (Snapshot snapshot : conflict.snapshots) {
+            handles.remove(snapshot);
+        }
+    }
+
+    /**
+     * Zapisuje rozwiązanie. Jeśli od zgłoszenia konfliktu ktoś zmienił zapis, serwer od razu
+     * zgłasza nowy konflikt z najnowszą konkurencyjną wersją. Wymaga monitora backendu.
+     */
+    private SnapshotsClient.DataOrConflict<Snapshot> resolve(String conflictId, byte[] data, StoredSnapshot base,
+                                                             SnapshotMetadataChange change) throws ApiException {
+        OpenConflict conflict = openConflicts.remove(conflictId);
+        if (conflict == null) {
+            throw apiException(CommonStatusCodes.DEVELOPER_ERROR, "Unknown conflict: " + conflictId);
+        }
+        closeConflictHandles(conflict);
+        StoredSnapshot current = snapshots.get(conflict.saveId);
+        StoredSnapshot server = divergent.remove(conflict.saveId);
+        StoredSnapshot competing = current != conflict.local ? current : server != conflict.server ? server : null;
+        StoredSnapshot resolved = store(base, data, change);
+        if (competing != null) {
+            divergent.put(conflict.saveId, competing);
+            return conflict(conflict.saveId, competing, resolved);
+        }
+        return data(openHandle(resolved));
+    }
+
+    private final class SnapshotsView implements Snapshots {
+        @Override
+        public Task<SnapshotsClient.DataOrConflict<Snapshot>> open(String fileName, boolean createIfNotFound,
+                int conflictPolicy) {
+            return submit(() -> {
+                synchronized (InMemoryGamesBackend.this) {
+                    StoredSnapshot stored = snapshots.get(fileName);
+                    if (stored == null) {
+                        if (!createIfNotFound) {
+                            throw apiException(SNAPSHOT_NOT_FOUND, "Snapshot not found: " + fileName);
+                        }
+                        stored = new StoredSnapshot(fileName, newSnapshotId(), new byte[0], "", tick(), 0, 0, 0);
+                        snapshots.put(fileName, stored);
+                    }
+                    StoredSnapshot server = divergent.get(fileName);
+                    if (server == null && conflictRate > 0 && random.nextDouble() < conflictRate) {
+                        // Losowy konflikt: inne urządzenie zapisało te same dane nieco później
+                        server = new StoredSnapshot(fileName, stored.snapshotId, stored.data, stored.description,
+                                tick(), stored.playedTime, stored.progressValue, stored.version);
+                        divergent.put(fileName, server);
+                    }
+                    if (server == null) {
+                        return data(openHandle(stored));
+                    }
+                    if (conflictPolicy == SnapshotsClient.RESOLUTION_POLICY_MANUAL) {
+                        return conflict(fileName, server, stored);
+                    }
+                    divergent.remove(fileName);
+                    StoredSnapshot winner = pick(conflictPolicy, server, stored);
+                    return data(openHandle(store(winner, winner.data, null)));
+                }
+            });
+        }
+
+        @Override
+        public Task<SnapshotsClient.DataOrConflict<Snapshot>> resolveConflict(String conflictId, Snapshot snapshot) {
+            return submit(() -> {
+                synchronized (InMemoryGamesBackend.this) {
+                    Handle handle = handles.get(snapshot);
+                    if (handle == null) {
+                        throw new IllegalStateException("Snapshot is closed");
+                    }
+                    return resolve(conflictId, handle.contents[0], handle.base, null);
+                }
+            });
+        }
+
+        @Override
+        public Task<SnapshotsClient.DataOrConflict<Snapshot>> resolveConflict(String conflictId, String snapshotId,
+                SnapshotMetadataChange metadataChange, SnapshotContents contents) {
+            return submit(() -> {
+                synchronized (InMemoryGamesBackend.this) {
+                    OpenConflict conflict = openConflicts.get(conflictId);
+                    StoredSnapshot base = conflict != null ? conflict.server : null;
+                    if (base == null) {
+                        throw apiException(CommonStatusCodes.DEVELOPER_ERROR, "Unknown conflict: " + conflictId);
+                    }
+                    return resolve(conflictId, contents.readFully(), base, metadataChange);
+                }
+            });
+        }
+
+        @Override
+        public Task<SnapshotMetadata> commitAndClose(Snapshot snapshot, SnapshotMetadataChange metadataChange) {
+            return submit(() -> {
+                synchronized (InMemoryGamesBackend.this) {
+                    Handle handle = handles.remove(snapshot);
+                    if (handle == null) {
+                        throw new IllegalStateException("Snapshot is closed");
+                    }
+                    StoredSnapshot current = snapshots.get(handle.base.saveId);
+                    if (current.version != handle.base.version && !divergent.containsKey(current.saveId)) {
+                        // Ktoś zapisał w międzyczasie – jego wersja wróci jako strona konfliktu
+                        divergent.put(current.saveId, current);
+                    }
+                    return metadata(store(handle.base, handle.contents[0], metadataChange));
+                }
+            });
+        }
+
+        @Override
+        public Task<Void> discardAndClose(Snapshot snapshot) {
+            return submit(() -> {
+                synchronized (InMemoryGamesBackend.this) {
+                    handles.remove(snapshot);
+                }
+                return null;
+            });
+        }
+
+        @Override
+        public Task<AnnotatedData<SnapshotMetadataBuffer>> load(boolean forceReload) {
+            return submit(() -> {
+                List<SnapshotMetadata> loaded = new ArrayList<>();
+                synchronized (InMemoryGamesBackend.this) {
+                    for (StoredSnapshot stored : snapshots.values()) {
+                        loaded.add(metadata(stored));
+                    }
+                }
+                return annotated(buffer(SnapshotMetadataBuffer.class, loaded));
+            });
+        }
+
+        @Override
+        public Task<Intent> getSelectSnapshotIntent(String title, boolean allowAddButton, boolean allowDelete,
+                int maxSnapshots) {
+            return submit(Intent::new);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryGamesBackend{operations=" + operations.get() + ", injectedFailures=" + injectedFailures.get()
+                + ", conflicts=" + conflicts.get() + "}";
+    }
+}
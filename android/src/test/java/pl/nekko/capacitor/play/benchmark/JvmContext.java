@@ -0,0 +1,118 @@
+package pl.nekko.capacitor.play.benchmark;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Context dla managerów uruchamianych na zwykłej JVM: katalogi plików i cache wskazują
+ * na katalog tymczasowy, a SharedPreferences są trzymane w pamięci.
+ */
+public final class JvmContext {
+
+    private JvmContext() {
+    }
+
+    public static Context create(File directory) {
+        Map<String, SharedPreferences> preferences = new ConcurrentHashMap<>();
+        return mock(Context.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getFilesDir":
+                    return new File(directory, "files");
+                case "getCacheDir":
+                    return new File(directory, "cache");
+                case "getApplicationContext":
+                    return invocation.getMock();
+                case "getSharedPreferences":
+                    return preferences.computeIfAbsent((String) invocation.getArguments()[0],
+                            name -> sharedPreferences());
+                default:
+                    return RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    /**
+     * SharedPreferences w pamięci – zmiany z edytora są widoczne po apply/commit.
+     */
+    private static SharedPreferences sharedPreferences() {
+        Map<String, Object> values = new ConcurrentHashMap<>();
+        return (SharedPreferences) Proxy.newProxyInstance(SharedPreferences.class.getClassLoader(),
+                new Class<?>[]{SharedPreferences.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("edit")) {
+                        return editor(values);
+                    }
+                    if (name.equals("getAll")) {
+                        return new HashMap<>(values);
+                    }
+                    if (name.equals("contains")) {
+                        return values.containsKey(args[0]);
+                    }
+                    if (name.startsWith("get")) {
+                        Object value = values.get(args[0]);
+                        return value != null ? value : args[1];
+                    }
+                    return defaultValue(proxy, method.getName(), method.getReturnType(), args);
+                });
+    }
+
+    private static SharedPreferences.Editor editor(Map<String, Object> values) {
+        Map<String, Object> pending = new HashMap<>();
+        Object removed = new Object();
+        boolean[] clear = {false};
+        return (SharedPreferences.Editor) Proxy.newProxyInstance(SharedPreferences.Editor.class.getClassLoader(),
+                new Class<?>[]{SharedPreferences.Editor.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("put")) {
+                        pending.put((String) args[0], args[1] != null ? args[1] : removed);
+                        return proxy;
+                    }
+                    if (name.equals("remove")) {
+                        pending.put((String) args[0], removed);
+                        return proxy;
+                    }
+                    if (name.equals("clear")) {
+                        clear[0] = true;
+                        return proxy;
+                    }
+                    if (name.equals("apply") || name.equals("commit")) {
+                        synchronized (values) {
+                            if (clear[0]) {
+                                values.clear();
+                            }
+                            for (Map.Entry<String, Object> entry : pending.entrySet()) {
+                                if (entry.getValue() == removed) {
+                                    values.remove(entry.getKey());
+                                } else {
+                                    values.put(entry.getKey(), entry.getValue());
+                                }
+                            }
+                        }
+                        return name.equals("commit") ? Boolean.TRUE : null;
+                    }
+                    return defaultValue(proxy, name, method.getReturnType(), args);
+                });
+    }
+
+    private static Object defaultValue(Object proxy, String name, Class<?> returnType, Object[] args) {
+        switch (name) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "InMemorySharedPreferences";
+            default:
+                return returnType == boolean.class ? Boolean.FALSE : null;
+        }
+    }
+}
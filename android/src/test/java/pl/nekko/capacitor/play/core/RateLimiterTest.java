@@ -0,0 +1,125 @@
+package pl.nekko.capacitor.play.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Testy {@link RateLimiter}: żetony kubełka, kolejkowanie do uzupełnienia, odrzucanie przy
+ * policy=shed i konfiguracja, która nie może zatrzymać uzupełniania.
+ */
+public class RateLimiterTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    interface Scores {
+        Task<String> submitScoreImmediate(String leaderboardId);
+
+        Task<String> loadTopScores(String leaderboardId);
+    }
+
+    private final AtomicInteger invocations = new AtomicInteger();
+    private final Scores client = new Scores() {
+        @Override
+        public Task<String> submitScoreImmediate(String leaderboardId) {
+            invocations.incrementAndGet();
+            return Tasks.forResult(leaderboardId);
+        }
+
+        @Override
+        public Task<String> loadTopScores(String leaderboardId) {
+            return Tasks.forResult(leaderboardId);
+        }
+    };
+
+    @Test
+    public void shedPolicyRejectsCallsBeyondCapacity() throws Exception {
+        RateLimiter limiter = new RateLimiter(DIRECT);
+        limiter.configure(bucket(3, 0.01, "shed"));
+        Scores limited = limiter.limit(Scores.class, client, "submitScoreImmediate");
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limited.submitScoreImmediate("board").isSuccessful());
+        }
+        Task<String> shed = limited.submitScoreImmediate("board");
+
+        assertTrue(shed.isComplete());
+        assertTrue(shed.getException() instanceof RateLimitedException);
+        assertEquals(3, invocations.get());
+        JSObject metrics = limiter.toJSObject().getJSObject("submitScore");
+        assertEquals(3, metrics.getLong("admitted"));
+        assertEquals(1, metrics.getLong("shed"));
+    }
+
+    @Test
+    public void queuePolicyRunsCallOnceTokenRefills() throws Exception {
+        RateLimiter limiter = new RateLimiter(DIRECT);
+        limiter.configure(bucket(1, 20, "queue"));
+        Scores limited = limiter.limit(Scores.class, client, "submitScoreImmediate");
+
+        assertTrue(limited.submitScoreImmediate("first").isSuccessful());
+        Task<String> queued = limited.submitScoreImmediate("second");
+
+        assertFalse(queued.isComplete());
+        assertEquals("second", Tasks.await(queued, 5, TimeUnit.SECONDS));
+        assertEquals(2, invocations.get());
+        assertEquals(1, limiter.toJSObject().getJSObject("submitScore").getLong("delayed"));
+    }
+
+    @Test
+    public void switchingToShedRejectsQueuedCalls() {
+        RateLimiter limiter = new RateLimiter(DIRECT);
+        limiter.configure(bucket(1, 0.01, "queue"));
+        Scores limited = limiter.limit(Scores.class, client, "submitScoreImmediate");
+        limited.submitScoreImmediate("first");
+        Task<String> queued = limited.submitScoreImmediate("second");
+
+        limiter.configure(new JSObject().put("submitScore", new JSObject().put("policy", "shed")));
+
+        assertTrue(queued.isComplete());
+        assertTrue(queued.getException() instanceof RateLimitedException);
+        assertEquals(1, invocations.get());
+    }
+
+    @Test
+    public void nonPositiveRefillRateIsIgnored() throws Exception {
+        RateLimiter limiter = new RateLimiter(DIRECT);
+        limiter.configure(bucket(5, 2, "queue"));
+
+        limiter.configure(new JSObject().put("submitScore", new JSObject().put("refillPerSecond", 0)));
+        limiter.configure(new JSObject().put("submitScore", new JSObject().put("refillPerSecond", -1)));
+
+        assertEquals(2.0, limiter.toJSObject().getJSObject("submitScore").getDouble("refillPerSecond"), 0);
+    }
+
+    @Test
+    public void methodsNotListedBypassTheLimiter() {
+        RateLimiter limiter = new RateLimiter(DIRECT);
+        limiter.configure(bucket(1, 0.01, "shed"));
+        Scores limited = limiter.limit(Scores.class, client, "submitScoreImmediate");
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limited.loadTopScores("board").isSuccessful());
+        }
+        assertTrue(limited.submitScoreImmediate("board").isSuccessful());
+        assertFalse(limited.submitScoreImmediate("board").isSuccessful());
+    }
+
+    private static JSObject bucket(double capacity, double refillPerSecond, String policy) {
+        JSObject settings = new JSObject();
+        settings.put("capacity", capacity);
+        settings.put("refillPerSecond", refillPerSecond);
+        settings.put("policy", policy);
+        return new JSObject().put("submitScore", settings);
+    }
+}
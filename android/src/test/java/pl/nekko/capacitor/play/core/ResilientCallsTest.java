@@ -0,0 +1,52 @@
+package pl.nekko.capacitor.play.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import pl.nekko.capacitor.play.benchmark.FakeGamesBackend;
+
+/**
+ * incrementImmediate nie może być ponawiane – błąd mógł nadejść po zastosowaniu kroków przez serwer.
+ */
+public class ResilientCallsTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    public void incrementImmediateIsNeverRetried() {
+        int[] statusCodes = {
+                CommonStatusCodes.NETWORK_ERROR,
+                CommonStatusCodes.TIMEOUT,
+                CommonStatusCodes.INTERNAL_ERROR,
+                CommonStatusCodes.RECONNECTION_TIMED_OUT
+        };
+        for (int statusCode : statusCodes) {
+            AtomicInteger attempts = new AtomicInteger();
+            FakeGamesBackend backend = new FakeGamesBackend().answer("achievements.incrementImmediate", args -> {
+                attempts.incrementAndGet();
+                return Tasks.forException(new ApiException(new Status(statusCode)));
+            });
+            ResilientCalls resilience = new ResilientCalls(DIRECT);
+            GamesBackend.Achievements achievements = resilience.protect(GamesBackend.Achievements.class,
+                    backend.getAchievements(), "achievements", "unlockImmediate", "incrementImmediate");
+
+            Task<Boolean> increment = achievements.incrementImmediate("CgkI_achievement", 1);
+
+            assertTrue(increment.isComplete());
+            assertFalse(increment.isSuccessful());
+            assertEquals("Retried after status " + statusCode, 1, attempts.get());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package pl.nekko.capacitor.play.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testy {@link AchievementStepBuffer}: sumowanie kroków, zerowanie przy opróżnianiu
+ * i odrzucaniu oraz kroki dodawane w trakcie opróżniania.
+ */
+public class AchievementStepBufferTest {
+
+    @Test
+    public void addSumsStepsPerAchievement() {
+        AchievementStepBuffer buffer = new AchievementStepBuffer();
+
+        assertEquals(2, buffer.add("a", 2));
+        assertEquals(5, buffer.add("a", 3));
+        assertEquals(1, buffer.add("b", 1));
+
+        Map<String, Integer> batch = buffer.drain();
+        assertEquals(2, batch.size());
+        assertEquals(Integer.valueOf(5), batch.get("a"));
+        assertEquals(Integer.valueOf(1), batch.get("b"));
+    }
+
+    @Test
+    public void drainResetsCountersAndSkipsEmptyOnes() {
+        AchievementStepBuffer buffer = new AchievementStepBuffer();
+        buffer.add("a", 4);
+        buffer.drain();
+        assertTrue(buffer.isEmpty());
+
+        buffer.add("b", 1);
+        Map<String, Integer> batch = buffer.drain();
+
+        assertEquals(1, batch.size());
+        assertEquals(Integer.valueOf(1), batch.get("b"));
+        assertTrue(buffer.drain().isEmpty());
+    }
+
+    @Test
+    public void clearDropsPendingStepsAndReturnsTheirSum() {
+        AchievementStepBuffer buffer = new AchievementStepBuffer();
+        buffer.add("a", 4);
+        buffer.add("b", 6);
+        assertFalse(buffer.isEmpty());
+
+        assertEquals(10, buffer.clear());
+        assertTrue(buffer.isEmpty());
+        assertTrue(buffer.drain().isEmpty());
+        assertEquals(0, buffer.clear());
+    }
+
+    @Test
+    public void drainKeepsStepsAddedConcurrently() throws Exception {
+        AchievementStepBuffer buffer = new AchievementStepBuffer();
+        int threads = 4;
+        int perThread = 100_000;
+        ExecutorService adders = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                String achievementId = "achievement_" + (t % 2);
+                adders.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        buffer.add(achievementId, 1);
+                    }
+                });
+            }
+            adders.shutdown();
+
+            long drained = 0;
+            start.countDown();
+            while (!adders.isTerminated()) {
+                drained += sum(buffer.drain());
+            }
+            assertTrue(adders.awaitTermination(30, TimeUnit.SECONDS));
+            drained += sum(buffer.drain());
+
+            // Żaden krok nie zginął ani nie został wysłany dwa razy
+            assertEquals((long) threads * perThread, drained);
+            assertTrue(buffer.isEmpty());
+        } finally {
+            adders.shutdownNow();
+        }
+    }
+
+    private static long sum(Map<String, Integer> batch) {
+        long total = 0;
+        for (int value : batch.values()) {
+            assertTrue(value > 0);
+            total += value;
+        }
+        return total;
+    }
+}
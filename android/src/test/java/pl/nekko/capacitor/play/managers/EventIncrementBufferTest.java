@@ -0,0 +1,84 @@
+package pl.nekko.capacitor.play.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testy opróżniania {@link EventIncrementBuffer}: limit int na jedno opróżnienie
+ * i przyrosty dodawane w trakcie opróżniania.
+ */
+public class EventIncrementBufferTest {
+
+    @Test
+    public void drainCapsEachEventAtIntMax() {
+        EventIncrementBuffer buffer = new EventIncrementBuffer();
+        long total = Integer.MAX_VALUE * 2L + 5;
+        buffer.add("event", total);
+
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), buffer.drain().get("event"));
+        assertEquals(Integer.MAX_VALUE + 5L, buffer.pending("event"));
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), buffer.drain().get("event"));
+        assertEquals(Integer.valueOf(5), buffer.drain().get("event"));
+        assertTrue(buffer.isEmpty());
+        assertTrue(buffer.drain().isEmpty());
+    }
+
+    @Test
+    public void drainKeepsIncrementsAddedConcurrently() throws Exception {
+        EventIncrementBuffer buffer = new EventIncrementBuffer();
+        int threads = 4;
+        int perThread = 100_000;
+        ExecutorService adders = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                String eventId = "event_" + (t % 2);
+                adders.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        buffer.add(eventId, 1);
+                    }
+                });
+            }
+            adders.shutdown();
+
+            long drained = 0;
+            start.countDown();
+            while (!adders.isTerminated()) {
+                drained += sum(buffer.drain());
+            }
+            assertTrue(adders.awaitTermination(30, TimeUnit.SECONDS));
+            drained += sum(buffer.drain());
+
+            // Żaden przyrost nie zginął ani nie został wysłany dwa razy
+            assertEquals((long) threads * perThread, drained);
+            assertEquals(0, buffer.pending("event_0"));
+            assertEquals(0, buffer.pending("event_1"));
+            assertTrue(buffer.isEmpty());
+        } finally {
+            adders.shutdownNow();
+        }
+    }
+
+    private static long sum(Map<String, Integer> batch) {
+        long total = 0;
+        for (int value : batch.values()) {
+            assertTrue(value > 0);
+            total += value;
+        }
+        return total;
+    }
+}
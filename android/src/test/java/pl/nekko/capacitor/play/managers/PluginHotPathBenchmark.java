@@ -0,0 +1,261 @@
+package pl.nekko.capacitor.play.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Executor;
+
+import pl.nekko.capacitor.play.benchmark.BenchmarkCall;
+import pl.nekko.capacitor.play.benchmark.BenchmarkRunner;
+import pl.nekko.capacitor.play.benchmark.FakeGamesBackend;
+import pl.nekko.capacitor.play.benchmark.JvmContext;
+import pl.nekko.capacitor.play.core.AuthStateCache;
+import pl.nekko.capacitor.play.core.InFlightCalls;
+import pl.nekko.capacitor.play.core.PluginExecutors;
+import pl.nekko.capacitor.play.core.PluginMetrics;
+import pl.nekko.capacitor.play.core.XxHash64;
+
+/**
+ * Benchmarki narzutu pluginu na wywołanie, bez urządzenia i usług Google.
+ * <p>
+ * Uruchomienie: {@code ./gradlew test --tests '*PluginHotPathBenchmark' -Ppgs.benchmark=true}.
+ * Bez tej właściwości test jest pomijany, więc nie spowalnia zwykłego {@code test}.
+ */
+public class PluginHotPathBenchmark {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @BeforeClass
+    public static void requireBenchmarkFlag() {
+        assumeTrue("Benchmarks disabled, run with -Ppgs.benchmark=true", BenchmarkRunner.isEnabled());
+    }
+
+    @Test
+    public void hotPaths() throws Exception {
+        BenchmarkRunner runner = BenchmarkRunner.fromSystemProperties();
+
+        benchmarkArgumentsAndResults(runner);
+        benchmarkSaveConversions(runner, "1KB", 1024);
+        benchmarkSaveConversions(runner, "64KB", 64 * 1024);
+        benchmarkSaveConversions(runner, "1MB", 1024 * 1024);
+        benchmarkAuth(runner);
+        benchmarkLeaderboards(runner);
+        benchmarkAchievements(runner);
+        benchmarkEvents(runner);
+        benchmarkSavedGames(runner);
+
+        System.out.println(runner.report());
+    }
+
+    private void benchmarkArgumentsAndResults(BenchmarkRunner runner) throws Exception {
+        JSObject data = new JSObject();
+        data.put("leaderboardId", "CgkI_leaderboard");
+        data.put("score", 12345.0);
+        data.put("queued", false);
+        data.put("lowerIsBetter", false);
+        BenchmarkCall call = new BenchmarkCall("submitScore", data);
+
+        runner.run("pluginCall.parseArguments", () -> {
+            String leaderboardId = call.getString("leaderboardId");
+            Double score = call.getDouble("score");
+            boolean queued = call.getBoolean("queued", false);
+            boolean lowerIsBetter = call.getBoolean("lowerIsBetter", false);
+            return leaderboardId.length() + Math.round(score) + (queued ? 1 : 0) + (lowerIsBetter ? 1 : 0);
+        });
+
+        runner.run("jsObject.buildAndSerializeResult", () -> {
+            JSObject result = new JSObject();
+            result.put("success", true);
+            result.put("saveId", "slot_1");
+            result.put("unchanged", false);
+            result.put("committed", true);
+            result.put("contentHash", "0123456789abcdef");
+            return result.toString();
+        });
+    }
+
+    private void benchmarkSaveConversions(BenchmarkRunner runner, String label, int size) throws Exception {
+        String text = jsonPayload(size);
+        runner.run("savedGames.encode." + label, () -> {
+            byte[] raw = SavedGamesManager.toRawBytes(text, false);
+            XxHash64.hash(raw);
+            return SnapshotCodec.encode(raw, false);
+        });
+
+        byte[] stored = SnapshotCodec.encode(SavedGamesManager.toRawBytes(text, false), false);
+        assertEquals(text, SavedGamesManager.toData(SnapshotCodec.decode(stored)));
+        runner.run("savedGames.decode." + label, () -> SavedGamesManager.toData(SnapshotCodec.decode(stored)));
+    }
+
+    private void benchmarkAuth(BenchmarkRunner runner) throws Exception {
+        Bridge bridge = mock(Bridge.class);
+        when(bridge.getContext()).thenReturn(JvmContext.create(Files.createTempDirectory("pgs-benchmark").toFile()));
+        AuthManager manager = new AuthManager(bridge, new FakeGamesBackend(), signedIn(), new InFlightCalls(DIRECT),
+                new PluginExecutors(DIRECT, DIRECT));
+
+        // Stan znany z pamięci podręcznej – wywołanie nie dotyka klienta
+        BenchmarkCall call = new BenchmarkCall("isSignedIn", new JSObject());
+        manager.isSignedIn(call);
+        assertTrue(call.getLastResult().getBoolean("isSignedIn", false));
+        runner.run("auth.isSignedIn", () -> {
+            manager.isSignedIn(call);
+            return call.getLastResult();
+        });
+    }
+
+    private void benchmarkLeaderboards(BenchmarkRunner runner) throws Exception {
+        Bridge bridge = mock(Bridge.class);
+        InFlightCalls calls = new InFlightCalls(DIRECT);
+        LeaderboardsManager manager = new LeaderboardsManager(bridge, new FakeGamesBackend(), signedIn(),
+                calls, new UiLaunchQueue(bridge, "leaderboards", calls, DIRECT), new PluginExecutors(DIRECT, DIRECT));
+
+        JSObject data = new JSObject();
+        data.put("leaderboardId", "CgkI_leaderboard");
+        data.put("score", 12345.0);
+        BenchmarkCall call = new BenchmarkCall("submitScore", data);
+        manager.submitScore(call);
+        assertNotNull(call.getLastResult());
+        runner.run("leaderboards.submitScore", () -> {
+            manager.submitScore(call);
+            return call.getLastResult();
+        });
+
+        JSObject queuedData = new JSObject();
+        queuedData.put("leaderboardId", "CgkI_leaderboard");
+        queuedData.put("score", 12345.0);
+        queuedData.put("queued", true);
+        BenchmarkCall queuedCall = new BenchmarkCall("submitScore", queuedData);
+        runner.run("leaderboards.submitScoreQueued", () -> {
+            manager.submitScore(queuedCall);
+            return queuedCall.getLastResult();
+        });
+    }
+
+    private void benchmarkAchievements(BenchmarkRunner runner) throws Exception {
+        // Indeks stanu nigdy się nie wczytuje, więc każde wywołanie przechodzi przez klienta
+        FakeGamesBackend backend = new FakeGamesBackend()
+                .answer("achievements.load", args -> FakeGamesBackend.never());
+        Bridge bridge = mock(Bridge.class);
+        AchievementsManager manager = new AchievementsManager(bridge, backend,
+                new UiLaunchQueue(bridge, "achievements", new InFlightCalls(DIRECT), DIRECT),
+                new PluginExecutors(DIRECT, DIRECT));
+
+        JSObject data = new JSObject();
+        data.put("achievementId", "CgkI_achievement");
+        BenchmarkCall call = new BenchmarkCall("unlockAchievement", data);
+        manager.unlockAchievement(call);
+        assertNotNull(call.getLastResult());
+        runner.run("achievements.unlockAchievement", () -> {
+            manager.unlockAchievement(call);
+            return call.getLastResult();
+        });
+
+        JSObject bufferedData = new JSObject();
+        bufferedData.put("achievementId", "CgkI_achievement");
+        bufferedData.put("steps", 1);
+        bufferedData.put("buffered", true);
+        BenchmarkCall bufferedCall = new BenchmarkCall("incrementAchievement", bufferedData);
+        runner.run("achievements.incrementBuffered", () -> {
+            manager.incrementAchievement(bufferedCall);
+            return bufferedCall.getLastResult();
+        });
+    }
+
+    private void benchmarkEvents(BenchmarkRunner runner) throws Exception {
+        Bridge bridge = mock(Bridge.class);
+        EventsManager manager = new EventsManager(bridge, new FakeGamesBackend(), new PluginExecutors(DIRECT, DIRECT));
+
+        // Zdarzenie wywoływane co klatkę – tylko dodanie do bufora, bez opróżniania
+        JSObject data = new JSObject();
+        data.put("eventId", "CgkI_event");
+        BenchmarkCall call = new BenchmarkCall("incrementEvent", data);
+        manager.incrementEvent(call);
+        assertNotNull(call.getLastResult());
+        runner.run("events.incrementEvent", () -> {
+            manager.incrementEvent(call);
+            return call.getLastResult();
+        });
+    }
+
+    private void benchmarkSavedGames(BenchmarkRunner runner) throws Exception {
+        File directory = Files.createTempDirectory("pgs-benchmark").toFile();
+        Bridge bridge = mock(Bridge.class);
+        when(bridge.getContext()).thenReturn(JvmContext.create(directory));
+        AuthStateCache authState = signedIn();
+        // Sprawdzenie chmury w tle po odczycie kopii lokalnej nigdy się nie kończy
+        FakeGamesBackend backend = new FakeGamesBackend()
+                .answer("snapshots.open", args -> FakeGamesBackend.never());
+        SavedGamesManager manager = new SavedGamesManager(bridge, backend, authState,
+                new UiLaunchQueue(bridge, "saved games", new InFlightCalls(DIRECT), DIRECT),
+                new PluginExecutors(DIRECT, DIRECT), new PluginMetrics(DIRECT));
+
+        String text = jsonPayload(1024);
+        byte[] raw = SavedGamesManager.toRawBytes(text, false);
+        new SnapshotHashStore(bridge.getContext(), authState)
+                .put("slot_1", XxHash64.toHex(XxHash64.hash(raw)), "");
+        new SnapshotMirror(bridge.getContext(), authState)
+                .write("slot_1", 1L, "", SnapshotCodec.encode(raw, false));
+
+        // Niezmienione dane – skrót pasuje do ostatniego commitu, zapis jest pomijany bez otwierania snapshotu
+        JSObject saveData = new JSObject();
+        saveData.put("saveId", "slot_1");
+        saveData.put("data", text);
+        BenchmarkCall save = new BenchmarkCall("saveGameData", saveData);
+        manager.saveGameData(save);
+        assertTrue(save.getLastResult().getBoolean("unchanged", false));
+        runner.run("savedGames.saveUnchanged.1KB", () -> {
+            manager.saveGameData(save);
+            return save.getLastResult();
+        });
+
+        // Odczyt z kopii lokalnej
+        JSObject loadData = new JSObject();
+        loadData.put("saveId", "slot_1");
+        BenchmarkCall load = new BenchmarkCall("loadGameData", loadData);
+        manager.loadGameData(load);
+        assertEquals(text, load.getLastResult().getString("data"));
+        runner.run("savedGames.loadFromMirror.1KB", () -> {
+            manager.loadGameData(load);
+            return load.getLastResult();
+        });
+    }
+
+    /**
+     * Własny stan uwierzytelnienia z zalogowanym graczem – singleton pluginu pozostaje nietknięty.
+     */
+    private static AuthStateCache signedIn() {
+        AuthStateCache authState = new AuthStateCache();
+        authState.update(true);
+        authState.updatePlayer("benchmark_player");
+        return authState;
+    }
+
+    /**
+     * Tekst JSON o zadanym rozmiarze, zbliżony do typowego zapisu stanu gry.
+     */
+    private static String jsonPayload(int size) {
+        StringBuilder builder = new StringBuilder(size + 64).append("{\"items\":[");
+        int i = 0;
+        while (builder.length() < size) {
+            builder.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"item_").append(i)
+                    .append("\",\"level\":").append(i % 50).append(",\"owned\":").append(i % 3 == 0).append('}');
+            i++;
+        }
+        String json = builder.append("]}").toString();
+        assertEquals(json.length(), json.getBytes(StandardCharsets.UTF_8).length);
+        return json;
+    }
+}
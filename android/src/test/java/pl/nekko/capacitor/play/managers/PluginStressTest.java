@@ -0,0 +1,232 @@
+package pl.nekko.capacitor.play.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import pl.nekko.capacitor.play.benchmark.BenchmarkCall;
+import pl.nekko.capacitor.play.benchmark.InMemoryGamesBackend;
+import pl.nekko.capacitor.play.benchmark.JvmContext;
+import pl.nekko.capacitor.play.core.AuthStateCache;
+import pl.nekko.capacitor.play.core.InFlightCalls;
+import pl.nekko.capacitor.play.core.PluginExecutors;
+import pl.nekko.capacitor.play.core.PluginMetrics;
+
+/**
+ * Testy obciążeniowe managerów na backendzie w pamięci: równoległe wywołania z wielu wątków,
+ * opóźnienia, losowe błędy i konflikty snapshotów.
+ * <p>
+ * Uruchomienie: {@code ./gradlew test --tests '*PluginStressTest' -Ppgs.stress=true}.
+ * Liczbę wywołań i wątków zmieniają {@code -Ppgs.stress.operations} i {@code -Ppgs.stress.threads}.
+ */
+public class PluginStressTest {
+
+    private static final long TIMEOUT_MS = 120_000;
+
+    private final int operations = Integer.getInteger("pgs.stress.operations", 2000);
+    private final int threads = Integer.getInteger("pgs.stress.threads", 8);
+
+    private File directory;
+    private Bridge bridge;
+    private ExecutorService io;
+    private ExecutorService callers;
+    private PluginExecutors executors;
+    private InMemoryGamesBackend backend;
+    private InFlightCalls inFlight;
+    private AuthStateCache authState;
+
+    @BeforeClass
+    public static void requireStressFlag() {
+        assumeTrue("Stress tests disabled, run with -Ppgs.stress=true", Boolean.getBoolean("pgs.stress"));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("pgs-stress").toFile();
+        bridge = mock(Bridge.class);
+        when(bridge.getContext()).thenReturn(JvmContext.create(directory));
+        io = Executors.newFixedThreadPool(4);
+        callers = Executors.newFixedThreadPool(threads);
+        // Na JVM nie ma aktywności do uruchomienia – zadania UI wykonujemy w miejscu
+        executors = new PluginExecutors(io, Runnable::run);
+        inFlight = new InFlightCalls(io);
+        backend = new InMemoryGamesBackend(42)
+                .latency(1, 5)
+                .failureRate(0.02)
+                .conflictRate(0.05);
+        // Własna instancja – singleton pluginu zostaje nietknięty dla pozostałych testów
+        authState = new AuthStateCache();
+        authState.setTtlMs(Long.MAX_VALUE / 2);
+        authState.update(true);
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+        io.shutdownNow();
+        backend.shutdown();
+    }
+
+    @Test
+    public void concurrentSavesConverge() throws Exception {
+        PluginMetrics metrics = new PluginMetrics(io);
+        SavedGamesManager manager = new SavedGamesManager(bridge, backend, authState, ui("saved games"),
+                executors, metrics);
+        int slots = 8;
+
+        List<BenchmarkCall> calls = new ArrayList<>(operations);
+        long elapsed = run(operations, i -> {
+            JSObject data = new JSObject();
+            data.put("saveId", "slot_" + (i % slots));
+            data.put("data", "{\"slot\":" + (i % slots) + ",\"seq\":" + i + "}");
+            data.put("force", true);
+            data.put("conflictStrategy", "newest");
+            BenchmarkCall call = new BenchmarkCall("saveGameData", data);
+            synchronized (calls) {
+                calls.add(call);
+            }
+            manager.saveGameData(call);
+        });
+        int succeeded = awaitAll(calls);
+        report("savedGames.saveGameData", elapsed, succeeded);
+        assertTrue("No save succeeded", succeeded > 0);
+
+        // Po ustaniu błędów każdy slot zawiera jeden z zapisów tego slotu
+        backend.failureRate(0).conflictRate(0);
+        for (int slot = 0; slot < slots; slot++) {
+            JSObject data = new JSObject();
+            data.put("saveId", "slot_" + slot);
+            data.put("forceReload", true);
+            data.put("conflictStrategy", "newest");
+            BenchmarkCall load = new BenchmarkCall("loadGameData", data);
+            manager.loadGameData(load);
+            awaitAll(List.of(load));
+            assertNotNull("Load failed: " + load.getLastError(), load.getLastResult());
+            assertTrue(load.getLastResult().getString("data").startsWith("{\"slot\":" + slot + ","));
+        }
+    }
+
+    @Test
+    public void concurrentScoresKeepBest() throws Exception {
+        LeaderboardsManager manager = new LeaderboardsManager(bridge, backend, authState,
+                inFlight, ui("leaderboards"), executors);
+        backend.leaderboard("stress_board", false, 100);
+
+        List<BenchmarkCall> calls = new ArrayList<>(operations);
+        long elapsed = run(operations, i -> {
+            JSObject data = new JSObject();
+            data.put("leaderboardId", "stress_board");
+            data.put("score", (double) ((i * 7919L) % 1_000_003));
+            BenchmarkCall call = new BenchmarkCall("submitScore", data);
+            synchronized (calls) {
+                calls.add(call);
+            }
+            manager.submitScore(call);
+        });
+        int succeeded = awaitAll(calls);
+        report("leaderboards.submitScore", elapsed, succeeded);
+
+        long bestAccepted = Long.MIN_VALUE;
+        for (BenchmarkCall call : calls) {
+            if (call.getLastResult() != null) {
+                bestAccepted = Math.max(bestAccepted, Math.round(call.getDouble("score")));
+            }
+        }
+        Long stored = backend.playerScore("stress_board");
+        assertNotNull(stored);
+        assertTrue("Best accepted score was lost", stored >= bestAccepted);
+    }
+
+    @Test
+    public void concurrentIncrementsAreNotLost() throws Exception {
+        AchievementsManager manager = new AchievementsManager(bridge, backend, ui("achievements"), executors);
+        backend.achievement("stress_incremental", Integer.MAX_VALUE);
+
+        List<BenchmarkCall> calls = new ArrayList<>(operations);
+        long elapsed = run(operations, i -> {
+            JSObject data = new JSObject();
+            data.put("achievementId", "stress_incremental");
+            data.put("steps", 1);
+            BenchmarkCall call = new BenchmarkCall("incrementAchievement", data);
+            synchronized (calls) {
+                calls.add(call);
+            }
+            manager.incrementAchievement(call);
+        });
+        int succeeded = awaitAll(calls);
+        report("achievements.incrementAchievement", elapsed, succeeded);
+
+        // Każdy potwierdzony krok musi dotrzeć do serwera dokładnie raz
+        assertEquals(succeeded, backend.achievementSteps("stress_incremental"));
+    }
+
+    private UiLaunchQueue ui(String name) {
+        return new UiLaunchQueue(bridge, name, inFlight, executors.main());
+    }
+
+    private interface Action {
+        void run(int index);
+    }
+
+    /**
+     * Wywołuje akcję podaną liczbę razy z puli wątków. Zwraca czas wysyłania w ns.
+     */
+    private long run(int count, Action action) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            callers.execute(() -> action.run(index));
+        }
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Czeka, aż każde wywołanie zostanie rozwiązane lub odrzucone, i zwraca liczbę sukcesów.
+     * Każde wywołanie musi zakończyć się dokładnie raz.
+     */
+    private int awaitAll(List<BenchmarkCall> calls) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        for (BenchmarkCall call : calls) {
+            while (call.getCompletions() == 0) {
+                assertTrue("Call did not complete: " + call.getMethodName(), System.currentTimeMillis() < deadline);
+                Thread.sleep(1);
+            }
+        }
+        int succeeded = 0;
+        for (BenchmarkCall call : calls) {
+            assertEquals("Call completed more than once", 1, call.getCompletions());
+            JSObject result = call.getLastResult();
+            if (result != null && result.getBoolean("success", false)) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    private void report(String name, long elapsedNanos, int succeeded) {
+        System.out.println(String.format(Locale.ROOT, "%-36s %6d calls %8.1f calls/s %6d ok  %s", name, operations,
+                operations * 1e9 / elapsedNanos, succeeded, backend));
+    }
+}
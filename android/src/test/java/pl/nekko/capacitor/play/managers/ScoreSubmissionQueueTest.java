@@ -0,0 +1,97 @@
+package pl.nekko.capacitor.play.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Testy {@link ScoreSubmissionQueue}: z kolejnych zgłoszeń dla jednej tablicy zostaje tylko
+ * najlepszy wynik, z uwzględnieniem tablic, w których niższy wynik jest lepszy.
+ */
+public class ScoreSubmissionQueueTest {
+
+    @Test
+    public void keepsHighestScoreByDefault() {
+        ScoreSubmissionQueue queue = new ScoreSubmissionQueue();
+        queue.offer("board", 100, false);
+        queue.offer("board", 250, false);
+        queue.offer("board", 180, false);
+
+        List<ScoreSubmissionQueue.PendingScore> batch = queue.drain();
+
+        assertEquals(1, batch.size());
+        assertEquals(250, batch.get(0).score);
+    }
+
+    @Test
+    public void keepsLowestScoreWhenLowerIsBetter() {
+        ScoreSubmissionQueue queue = new ScoreSubmissionQueue();
+        queue.offer("speedrun", 9_000, true);
+        queue.offer("speedrun", 7_500, true);
+        queue.offer("speedrun", 8_200, true);
+
+        List<ScoreSubmissionQueue.PendingScore> batch = queue.drain();
+
+        assertEquals(1, batch.size());
+        assertEquals(7_500, batch.get(0).score);
+    }
+
+    @Test
+    public void equalScoreDoesNotReplaceQueuedOne() {
+        ScoreSubmissionQueue queue = new ScoreSubmissionQueue();
+        ScoreSubmissionQueue.PendingScore first = new ScoreSubmissionQueue.PendingScore("board", 50, false);
+        queue.offer(first);
+        queue.offer(new ScoreSubmissionQueue.PendingScore("board", 50, false));
+
+        assertSame(first, queue.drain().get(0));
+    }
+
+    @Test
+    public void coalescesPerLeaderboardInOfferOrder() {
+        ScoreSubmissionQueue queue = new ScoreSubmissionQueue();
+        queue.offer("a", 1, false);
+        queue.offer("b", 5, true);
+        queue.offer("a", 3, false);
+        queue.offer("b", 2, true);
+
+        List<ScoreSubmissionQueue.PendingScore> batch = queue.drain();
+
+        assertEquals(2, batch.size());
+        assertEquals("a", batch.get(0).leaderboardId);
+        assertEquals(3, batch.get(0).score);
+        assertEquals("b", batch.get(1).leaderboardId);
+        assertEquals(2, batch.get(1).score);
+    }
+
+    @Test
+    public void requeuedScoreLosesToBetterOneQueuedMeanwhile() {
+        ScoreSubmissionQueue queue = new ScoreSubmissionQueue();
+        queue.offer("board", 100, false);
+        List<ScoreSubmissionQueue.PendingScore> failed = queue.drain();
+        // W trakcie nieudanego wysyłania gracz zdobył lepszy wynik
+        queue.offer("board", 120, false);
+        queue.offer(failed.get(0));
+
+        List<ScoreSubmissionQueue.PendingScore> batch = queue.drain();
+
+        assertEquals(1, batch.size());
+        assertEquals(120, batch.get(0).score);
+    }
+
+    @Test
+    public void drainAndClearEmptyTheQueue() {
+        ScoreSubmissionQueue queue = new ScoreSubmissionQueue();
+        queue.offer("a", 1, false);
+        queue.offer("b", 2, false);
+        assertEquals(2, queue.size());
+
+        assertEquals(2, queue.clear());
+        assertEquals(0, queue.size());
+        assertTrue(queue.drain().isEmpty());
+        assertEquals(0, queue.clear());
+    }
+}
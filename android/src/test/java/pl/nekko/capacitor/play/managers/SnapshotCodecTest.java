@@ -0,0 +1,127 @@
+package pl.nekko.capacitor.play.managers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Testy {@link SnapshotCodec}: zapis i odczyt obu wariantów, dane starszych wersji bez nagłówka
+ * oraz nagłówki uszkodzone, które muszą kończyć się IOException zamiast alokacji albo śmieci.
+ */
+public class SnapshotCodecTest {
+
+    @Test
+    public void roundTripWithoutCompression() throws IOException {
+        byte[] data = "{\"level\":3,\"name\":\"Zażółć\"}".getBytes(StandardCharsets.UTF_8);
+
+        byte[] stored = SnapshotCodec.encode(data, false, SnapshotCodec.COMPRESSION_NONE);
+        SnapshotCodec.Payload payload = SnapshotCodec.decode(stored);
+
+        assertEquals(SnapshotCodec.HEADER_SIZE + data.length, stored.length);
+        assertArrayEquals(data, payload.data);
+        assertFalse(payload.binary);
+        assertFalse(payload.compressed);
+    }
+
+    @Test
+    public void roundTripWithDeflate() throws IOException {
+        byte[] data = new byte[64 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 7);
+        }
+
+        byte[] stored = SnapshotCodec.encode(data, true, SnapshotCodec.COMPRESSION_DEFLATE);
+        SnapshotCodec.Payload payload = SnapshotCodec.decode(stored);
+
+        assertTrue(stored.length < data.length);
+        assertArrayEquals(data, payload.data);
+        assertTrue(payload.binary);
+        assertTrue(payload.compressed);
+    }
+
+    @Test
+    public void incompressibleDataIsStoredAsIs() throws IOException {
+        byte[] data = {1, 2, 3};
+
+        byte[] stored = SnapshotCodec.encode(data, true, SnapshotCodec.COMPRESSION_DEFLATE);
+        SnapshotCodec.Payload payload = SnapshotCodec.decode(stored);
+
+        assertEquals(SnapshotCodec.HEADER_SIZE + data.length, stored.length);
+        assertArrayEquals(data, payload.data);
+        assertFalse(payload.compressed);
+    }
+
+    @Test
+    public void legacyDataWithoutHeaderIsReturnedAsText() throws IOException {
+        byte[] legacy = "{\"coins\":120}".getBytes(StandardCharsets.UTF_8);
+        byte[] tooShort = "PGSC".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(SnapshotCodec.readHeader(ByteBuffer.wrap(legacy)));
+        SnapshotCodec.Payload payload = SnapshotCodec.decode(legacy);
+        assertArrayEquals(legacy, payload.data);
+        assertFalse(payload.binary);
+        assertFalse(payload.compressed);
+        assertArrayEquals(tooShort, SnapshotCodec.decode(tooShort).data);
+    }
+
+    @Test
+    public void readHeaderDoesNotMoveBufferPosition() throws IOException {
+        ByteBuffer stored = ByteBuffer.wrap(SnapshotCodec.encode(new byte[]{42}, true, SnapshotCodec.COMPRESSION_NONE));
+
+        SnapshotCodec.Header header = SnapshotCodec.readHeader(stored);
+
+        assertEquals(0, stored.position());
+        assertEquals(1, header.originalLength);
+        assertTrue(header.binary);
+    }
+
+    @Test
+    public void corruptedHeadersAreRejected() {
+        byte[] valid = SnapshotCodec.encode(new byte[]{1, 2, 3, 4}, false, SnapshotCodec.COMPRESSION_NONE);
+
+        // Wersja 0 nigdy nie była zapisywana, a nowszej ta wersja wtyczki nie zna
+        assertThrows(IOException.class, () -> SnapshotCodec.decode(withByte(valid, 4, 0)));
+        assertThrows(IOException.class, () -> SnapshotCodec.decode(withByte(valid, 4, SnapshotCodec.VERSION + 1)));
+        // Nieznane ID kompresji
+        assertThrows(IOException.class, () -> SnapshotCodec.decode(withByte(valid, 5, 99)));
+        // Ujemna długość danych
+        byte[] negativeLength = valid.clone();
+        ByteBuffer.wrap(negativeLength).putInt(7, -1);
+        assertThrows(IOException.class, () -> SnapshotCodec.decode(negativeLength));
+    }
+
+    @Test
+    public void corruptedDeflateDataIsRejected() {
+        byte[] data = new byte[4096];
+        Arrays.fill(data, (byte) 'a');
+        byte[] stored = SnapshotCodec.encode(data, false, SnapshotCodec.COMPRESSION_DEFLATE);
+
+        // Długość z nagłówka ponad możliwy współczynnik kompresji – odrzucana przed alokacją
+        byte[] inflatedLength = stored.clone();
+        ByteBuffer.wrap(inflatedLength).putInt(7, Integer.MAX_VALUE);
+        assertThrows(IOException.class, () -> SnapshotCodec.decode(inflatedLength));
+        // Urwane dane nie dają pełnej długości
+        byte[] truncated = Arrays.copyOf(stored, SnapshotCodec.HEADER_SIZE + (stored.length - SnapshotCodec.HEADER_SIZE) / 2);
+        assertThrows(IOException.class, () -> SnapshotCodec.decode(truncated));
+        // Śmieci zamiast strumienia deflate
+        byte[] garbage = stored.clone();
+        Arrays.fill(garbage, SnapshotCodec.HEADER_SIZE, garbage.length, (byte) 0xFF);
+        assertThrows(IOException.class, () -> SnapshotCodec.decode(garbage));
+    }
+
+    private static byte[] withByte(byte[] source, int index, int value) {
+        byte[] copy = source.clone();
+        copy[index] = (byte) value;
+        return copy;
+    }
+}
@@ -0,0 +1,52 @@
+package pl.nekko.capacitor.play.managers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Testy {@link SnapshotStreamer#utf8Boundary}: kawałek tekstu nie może kończyć się
+ * w połowie wielobajtowego znaku UTF-8.
+ */
+public class SnapshotStreamerTest {
+
+    @Test
+    public void asciiIsCutAtRequestedLength() {
+        byte[] text = bytes("abcdef");
+
+        assertEquals(6, SnapshotStreamer.utf8Boundary(text, 6));
+        assertEquals(3, SnapshotStreamer.utf8Boundary(text, 3));
+        assertEquals(0, SnapshotStreamer.utf8Boundary(text, 0));
+    }
+
+    @Test
+    public void cutNeverSplitsMultiByteCharacter() {
+        // "a" (1 bajt), "ż" (2), "€" (3), "😀" (4)
+        byte[] text = bytes("aż€😀");
+        int[] expected = {0, 1, 1, 3, 3, 3, 6, 6, 6, 6, 10};
+
+        for (int length = 0; length <= text.length; length++) {
+            assertEquals("length " + length, expected[length], SnapshotStreamer.utf8Boundary(text, length));
+        }
+    }
+
+    @Test
+    public void everyCutDecodesToPrefixOfText() {
+        String source = "Zażółć gęślą jaźń €😀";
+        byte[] text = bytes(source);
+
+        for (int length = 0; length <= text.length; length++) {
+            int cut = SnapshotStreamer.utf8Boundary(text, length);
+            String prefix = new String(text, 0, cut, StandardCharsets.UTF_8);
+            assertTrue(source.startsWith(prefix));
+            assertTrue(length - cut < 4);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
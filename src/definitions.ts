@@ -1,6 +1,13 @@
 import type { PluginListenerHandle } from '@capacitor/core';
 
 export interface PGServicePlugin {
+  /**
+   * Configure optional plugin behaviour (queues, buffers, caches)
+   * @param options Configuration sections to apply
+   * @returns Promise with void result
+   */
+  configure(options: ConfigureOptions): Promise<void>;
+
   /**
    * Sign in the user to Google Play Games Services
    * @returns Promise with sign-in result
@@ -14,29 +21,37 @@ export interface PGServicePlugin {
   signOut(): Promise<void>;
 
   /**
-   * Check if user is signed in to Google Play Games Services
+   * Check if user is signed in to Google Play Games Services.
+   * Once the state is known this is a local read of the plugin's auth state, which is kept current
+   * by sign-in, sign-out, API errors and activity resume; prefer the `signInStatusChanged` stream
+   * over polling. Play Games is asked only before the first state is known or with `forceRefresh`.
+   * @param options Optional options for the check
    * @returns Promise with sign-in status
    */
-  isSignedIn(): Promise<{ isSignedIn: boolean }>;
+  isSignedIn(options?: IsSignedInOptions): Promise<{ isSignedIn: boolean; sequence?: number }>;
 
   /**
-   * Get the currently signed in player information
+   * Get the currently signed in player information.
+   * The profile is cached in memory until the sign-in state changes.
+   * @param options Optional options for avatars and reloading
    * @returns Promise with player data
    */
-  getPlayerInfo(): Promise<PlayerInfo>;
+  getPlayerInfo(options?: GetPlayerInfoOptions): Promise<PlayerInfo>;
 
   /**
-   * Show the leaderboard UI for a specific leaderboard
+   * Show the leaderboard UI for a specific leaderboard.
+   * While another leaderboard UI is open the call waits for it to close, or rejects with code `UI_BUSY`
    * @param options Options containing leaderboard ID
    * @returns Promise with void result
    */
-  showLeaderboard(options: LeaderboardOptions): Promise<void>;
+  showLeaderboard(options: LeaderboardOptions & UiCallOptions): Promise<void>;
 
   /**
    * Show all leaderboards UI
+   * @param options Behaviour while another leaderboard UI is open
    * @returns Promise with void result
    */
-  showAllLeaderboards(): Promise<void>;
+  showAllLeaderboards(options?: UiCallOptions): Promise<void>;
 
   /**
    * Submit a score to a leaderboard
@@ -45,19 +60,74 @@ export interface PGServicePlugin {
    */
   submitScore(options: SubmitScoreOptions): Promise<void>;
 
+  /**
+   * Submit several scores in one call. Submissions run concurrently.
+   * @param options Options containing the scores to submit
+   * @returns Promise with a result for every score
+   */
+  submitScores(options: SubmitScoresOptions): Promise<BatchResult<LeaderboardBatchItem>>;
+
+  /**
+   * Load a page of top scores of a leaderboard.
+   * Results are cached (LRU with TTL and stale-while-revalidate).
+   * @param options Options describing the leaderboard variant and page
+   * @returns Promise with LoadScoresResult
+   */
+  loadTopScores(options: LoadScoresOptions): Promise<LoadScoresResult>;
+
+  /**
+   * Load a page of scores centered on the current player.
+   * Results are cached (LRU with TTL and stale-while-revalidate).
+   * @param options Options describing the leaderboard variant and page
+   * @returns Promise with LoadScoresResult
+   */
+  loadPlayerCenteredScores(options: LoadScoresOptions): Promise<LoadScoresResult>;
+
+  /**
+   * Load the current player's score on a leaderboard
+   * @param options Options describing the leaderboard variant
+   * @returns Promise with LoadCurrentPlayerScoreResult
+   */
+  loadCurrentPlayerScore(options: LeaderboardVariantOptions): Promise<LoadCurrentPlayerScoreResult>;
+
+  /**
+   * Submit all queued scores immediately.
+   * Queued scores not yet sent when the player signs out or switches accounts are dropped,
+   * so they are never submitted for another player
+   * @returns Promise with FlushScoresResult
+   */
+  flushScores(): Promise<FlushScoresResult>;
+
   /**
    * Show the achievements UI
+   * @param options Behaviour while the achievements UI is already open
    * @returns Promise with void result
    */
-  showAchievements(): Promise<void>;
+  showAchievements(options?: UiCallOptions): Promise<void>;
+
+  /**
+   * Get all achievements with their state from the local achievement index.
+   * The index is loaded from Play Games once and kept up to date by unlock/increment/reveal calls.
+   * @param options Optional options for loading achievements
+   * @returns Promise with the list of achievements
+   */
+  getAchievements(options?: GetAchievementsOptions): Promise<{ achievements: AchievementInfo[] }>;
 
   /**
-   * Unlock an achievement
+   * Unlock an achievement.
+   * Already unlocked achievements are answered locally without a network call.
    * @param options Options containing achievement ID
    * @returns Promise with void result
    */
   unlockAchievement(options: AchievementOptions): Promise<void>;
 
+  /**
+   * Unlock several achievements in one call. Unlocks run concurrently.
+   * @param options Options containing achievement IDs
+   * @returns Promise with a result for every achievement
+   */
+  unlockAchievements(options: UnlockAchievementsOptions): Promise<BatchResult<AchievementBatchItem>>;
+
   /**
    * Increment an achievement with the specified amount
    * @param options Options containing achievement ID and increment amount
@@ -66,26 +136,93 @@ export interface PGServicePlugin {
   incrementAchievement(options: IncrementAchievementOptions): Promise<void>;
 
   /**
-   * Reveal a hidden achievement
+   * Increment several achievements in one call. Increments run concurrently.
+   * @param options Options containing achievement IDs and steps
+   * @returns Promise with a result for every achievement
+   */
+  incrementAchievements(options: IncrementAchievementsOptions): Promise<BatchResult<AchievementBatchItem>>;
+
+  /**
+   * Send all buffered achievement steps immediately
+   * @returns Promise with FlushAchievementIncrementsResult
+   */
+  flushAchievementIncrements(): Promise<FlushAchievementIncrementsResult>;
+
+  /**
+   * Reveal a hidden achievement.
+   * Already visible achievements are answered locally without a network call.
    * @param options Options containing achievement ID
    * @returns Promise with void result
    */
   revealAchievement(options: AchievementOptions): Promise<void>;
 
   /**
-   * Save game data to the cloud
+   * Add to a Play Games event. Increments are summed locally per event and sent in batches
+   * (see `configure({ events })`), so calling this every frame is cheap.
+   * Increments not yet sent when the player signs out or switches accounts are dropped,
+   * so they are never credited to another player
+   * @param options Options containing event ID and amount
+   * @returns Promise with IncrementEventResult
+   */
+  incrementEvent(options: IncrementEventOptions): Promise<IncrementEventResult>;
+
+  /**
+   * Add to several events in one call, e.g. everything a game collected during a frame
+   * @param options Options containing event IDs and amounts
+   * @returns Promise with a result for every increment
+   */
+  incrementEvents(options: IncrementEventsOptions): Promise<BatchResult<EventBatchItem>>;
+
+  /**
+   * Send all summed event increments immediately
+   * @returns Promise with FlushEventsResult
+   */
+  flushEvents(): Promise<FlushEventsResult>;
+
+  /**
+   * Get events with their values from the local event index.
+   * The index is loaded from Play Games and reused until `events.ttlMs` passes
+   * @param options Optional options for loading events
+   * @returns Promise with LoadEventsResult
+   */
+  loadEvents(options?: LoadEventsOptions): Promise<LoadEventsResult>;
+
+  /**
+   * Save game data to the cloud.
+   * With `autosave` the commit is debounced per save ID and only the latest data is written.
+   * Autosaves not yet committed when the player signs out or switches accounts are rejected
    * @param options Options containing save data and description
    * @returns Promise with SaveResult
    */
   saveGameData(options: SaveGameOptions): Promise<SaveResult>;
 
   /**
-   * Load saved game data from the cloud
+   * Load saved game data. A local mirror is served first when available and the
+   * cloud copy is checked in the background (see the `savedGameUpdated` event).
+   * The background check always uses the most-recently-modified policy, never `conflictStrategy`,
+   * so serving the mirror does not write to the cloud.
+   * With `stream` the data arrives in `savedGameChunk` events and the result carries only metadata.
    * @param options Options for loading saved game
    * @returns Promise with LoadGameResult
    */
   loadGameData(options: LoadGameOptions): Promise<LoadGameResult>;
 
+  /**
+   * Save the contents of a file in app-private storage to the cloud. The file is streamed
+   * into the snapshot on the native side, so large saves never cross the bridge.
+   * @param options Options containing the file path and description
+   * @returns Promise with SaveFileResult
+   */
+  saveGameFile(options: SaveGameFileOptions): Promise<SaveFileResult>;
+
+  /**
+   * Load a save into a file in app-private storage and return only its path and metadata.
+   * Like `loadGameData`, the local mirror is served first when available.
+   * @param options Options containing the save ID and target path
+   * @returns Promise with LoadGameFileResult
+   */
+  loadGameFile(options: LoadGameFileOptions): Promise<LoadGameFileResult>;
+
   /**
    * Show the saved games UI
    * @param options Options for showing saved games UI
@@ -94,7 +231,19 @@ export interface PGServicePlugin {
   showSavedGames(options: ShowSavedGamesOptions): Promise<LoadGameResult>;
 
   /**
-   * Add listener for sign-in state changes
+   * List saved games without downloading their contents.
+   * A loaded index is returned immediately and refreshed in the background once `savedGames.indexTtlMs` has
+   * passed or after a local save (see the `savedGamesChanged` event).
+   * @param options Options for listing saved games
+   * @returns Promise with ListSavedGamesResult
+   */
+  listSavedGames(options?: ListSavedGamesOptions): Promise<ListSavedGamesResult>;
+
+  /**
+   * Add listener for sign-in state changes.
+   * Every transition is published once with an increasing `sequence`, whatever caused it
+   * (startup check, signIn, signOut, silent re-auth, lost session, activity resume, account switch).
+   * The first event after startup carries the initial state (`initial: true`)
    * @param eventName Event to listen for
    * @param listenerFunc Callback function
    * @returns Promise with listener handle
@@ -104,6 +253,75 @@ export interface PGServicePlugin {
     listenerFunc: (result: SignInResult) => void,
   ): Promise<PluginListenerHandle>;
 
+  /**
+   * Add listener for cloud saves that turned out different from the local mirror, or deleted
+   * @param eventName Event to listen for
+   * @param listenerFunc Callback function
+   * @returns Promise with listener handle
+   */
+  addListener(
+    eventName: 'savedGameUpdated',
+    listenerFunc: (event: SavedGameUpdatedEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Add listener for chunks of a streamed `loadGameData({ stream: true })`.
+   * Chunks arrive in `sequence` order; the one with `last: true` carries the `contentHash` of the whole save
+   * @param eventName Event to listen for
+   * @param listenerFunc Callback function
+   * @returns Promise with listener handle
+   */
+  addListener(
+    eventName: 'savedGameChunk',
+    listenerFunc: (event: SavedGameChunkEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Add listener for changes found by the background refresh of the saved games index
+   * @param eventName Event to listen for
+   * @param listenerFunc Callback function
+   * @returns Promise with listener handle
+   */
+  addListener(
+    eventName: 'savedGamesChanged',
+    listenerFunc: (event: ListSavedGamesResult) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Add listener for periodic metrics reports (see `configure({ metrics })`)
+   * @param eventName Event to listen for
+   * @param listenerFunc Callback function
+   * @returns Promise with listener handle
+   */
+  addListener(
+    eventName: 'metricsReport',
+    listenerFunc: (report: MetricsResult) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Add listener for circuit breaker transitions of Play Games writes (see `configure({ resilience })`).
+   * While the circuit is open, score submissions, achievement updates and snapshot commits fail at once
+   * @param eventName Event to listen for
+   * @param listenerFunc Callback function
+   * @returns Promise with listener handle
+   */
+  addListener(
+    eventName: 'circuitStateChanged',
+    listenerFunc: (event: CircuitStateChangedEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Get latency, outcome and payload size metrics
+   * @returns Promise with MetricsResult
+   */
+  getMetrics(): Promise<MetricsResult>;
+
+  /**
+   * Reset all metrics
+   * @returns Promise with void result
+   */
+  resetMetrics(): Promise<void>;
+
   /**
    * Remove all listeners for this plugin
    * @returns Promise with void result
@@ -133,9 +351,25 @@ export interface SignInResult {
   imageUrl?: string;
   
   /**
-   * Error message if sign in failed
+   * Error message if sign in failed, if signed in but the player profile could not be loaded,
+   * or (on the `initial` event) if the startup auth check failed and the state is unknown
    */
   error?: string;
+
+  /**
+   * True for the first state published after plugin startup
+   */
+  initial?: boolean;
+
+  /**
+   * Auth-state sequence number (events only); increases with every transition
+   */
+  sequence?: number;
+
+  /**
+   * What caused the transition (events only)
+   */
+  reason?: 'check' | 'signIn' | 'signOut' | 'reauth' | 'signInRequired' | 'playerChanged';
 }
 
 export interface PlayerInfo {
@@ -153,6 +387,50 @@ export interface PlayerInfo {
    * URL to the player's profile image
    */
   imageUrl?: string;
+
+  /**
+   * Cached avatars in the requested sizes
+   */
+  avatars?: PlayerAvatar[];
+
+  /**
+   * Error message if the avatar could not be loaded or did not load within 10 seconds
+   */
+  avatarError?: string;
+}
+
+export interface GetPlayerInfoOptions {
+  /**
+   * Reload the profile from Play Games instead of using the in-memory copy
+   */
+  forceReload?: boolean;
+
+  /**
+   * Square avatar sizes in pixels to return
+   */
+  avatarSizes?: number[];
+
+  /**
+   * Return avatars as local file paths (default) or as base64 data URLs
+   */
+  avatarFormat?: 'path' | 'base64';
+}
+
+export interface PlayerAvatar {
+  /**
+   * Avatar size in pixels
+   */
+  size: number;
+
+  /**
+   * Absolute path of the cached PNG file (use Capacitor.convertFileSrc to display it)
+   */
+  path?: string;
+
+  /**
+   * Base64 PNG data URL
+   */
+  data?: string;
 }
 
 export interface LeaderboardOptions {
@@ -167,113 +445,1314 @@ export interface SubmitScoreOptions extends LeaderboardOptions {
    * Score to submit to the leaderboard
    */
   score: number;
-}
 
-export interface AchievementOptions {
   /**
-   * Achievement ID as defined in Google Play Console
+   * Put the score into the write-behind queue instead of submitting it immediately.
+   * Defaults to the `scoreQueue.enabled` configuration.
    */
-  achievementId: string;
+  queued?: boolean;
+
+  /**
+   * Whether a lower score is better on this leaderboard (used when coalescing queued scores)
+   */
+  lowerIsBetter?: boolean;
 }
 
-export interface IncrementAchievementOptions extends AchievementOptions {
+export interface IsSignedInOptions {
   /**
-   * Amount to increment the achievement by
+   * Skip the local auth state and ask Play Games directly
    */
-  steps: number;
+  forceRefresh?: boolean;
 }
 
-export interface SaveGameOptions {
+export interface ConfigureOptions {
   /**
-   * Unique identifier for the save
+   * Shared auth-state cache
    */
-  saveId?: string;
-  
+  authCache?: AuthCacheOptions;
+
   /**
-   * Save data as string (will be encoded as needed)
+   * On-disk avatar cache used by getPlayerInfo
    */
-  data: string;
-  
+  avatarCache?: AvatarCacheOptions;
+
   /**
-   * Human readable description of the save
+   * Write-behind queue for submitScore
    */
-  description: string;
-}
+  scoreQueue?: ScoreQueueOptions;
 
-export interface LoadGameOptions {
   /**
-   * Unique identifier for the save to load
+   * Cache for loadTopScores, loadPlayerCenteredScores and loadCurrentPlayerScore
    */
-  saveId: string;
+  scoreCache?: ScoreCacheOptions;
+
+  /**
+   * Step aggregation buffer for incrementAchievement
+   */
+  incrementBuffer?: IncrementBufferOptions;
+
+  /**
+   * Saved games behaviour
+   */
+  savedGames?: SavedGamesOptions;
+
+  /**
+   * Aggregation of event increments and the event index cache
+   */
+  events?: EventsOptions;
+
+  /**
+   * Periodic metrics reports
+   */
+  metrics?: MetricsOptions;
+
+  /**
+   * Calls held by the plugin while a Play Games UI is open
+   */
+  calls?: CallsOptions;
+
+  /**
+   * Retries and circuit breaker for leaderboard and achievement writes. `incrementAchievement` is never retried,
+   * since a failed call may already have been applied
+   */
+  resilience?: ResilienceOptions;
+
+  /**
+   * Token buckets for leaderboard and achievement writes, by operation class:
+   * `submitScore`, `unlock`, `increment`, `reveal`
+   */
+  rateLimits?: { [operation: string]: RateLimitOptions };
 }
 
-export interface ShowSavedGamesOptions {
+export interface RateLimitOptions {
   /**
-   * Title to show in the saved games UI
+   * Burst size: tokens the bucket can hold (default 30)
    */
-  title: string;
-  
+  capacity?: number;
+
   /**
-   * Whether to allow creating new saves
+   * Sustained rate: tokens added per second (default 5). Must be greater than 0; other values are ignored
    */
-  allowAddButton?: boolean;
-  
+  refillPerSecond?: number;
+
   /**
-   * Whether to allow deleting saves
+   * What happens when the bucket is empty: `queue` delays the call until a token is available,
+   * `shed` fails it at once with a rate-limit error (default `queue`)
    */
-  allowDelete?: boolean;
-  
+  policy?: 'queue' | 'shed';
+
   /**
-   * Maximum number of saves to show
+   * Calls that may wait for a token before further calls are shed (default 200)
    */
-  maxSavedGames?: number;
+  maxQueue?: number;
 }
 
-export interface SaveResult {
+export interface RateLimitMetrics {
+  tokens: number;
+  capacity: number;
+  refillPerSecond: number;
+  policy: 'queue' | 'shed';
+
   /**
-   * Whether save was successful
+   * Calls currently waiting for a token
    */
-  success: boolean;
-  
+  queued: number;
+
   /**
-   * Save ID of the saved game
+   * Calls passed to Play Games
    */
-  saveId?: string;
-  
+  admitted: number;
+
   /**
-   * Error message if save failed
+   * Calls that had to wait for a token
    */
-  error?: string;
+  delayed: number;
+
+  /**
+   * Calls rejected without reaching Play Games
+   */
+  shed: number;
+
+  /**
+   * Longest wait for a token in milliseconds
+   */
+  maxDelayMs: number;
 }
 
-export interface LoadGameResult {
+export interface ResilienceOptions {
   /**
-   * Whether data was successfully loaded
+   * Attempts per call including the first one (default 3)
    */
-  success: boolean;
-  
+  maxAttempts?: number;
+
   /**
-   * Save ID that was loaded
+   * Backoff base; attempt n waits a random time up to `baseDelayMs * 2^(n-1)` (default 200)
    */
-  saveId?: string;
-  
+  baseDelayMs?: number;
+
   /**
-   * The loaded save data
+   * Backoff ceiling in milliseconds (default 5000)
    */
-  data?: string;
-  
+  maxDelayMs?: number;
+
   /**
-   * Description of the save
+   * Consecutive transient failures that open the circuit (default 5)
    */
-  description?: string;
-  
+  failureThreshold?: number;
+
   /**
-   * Last modified timestamp
+   * How long the circuit stays open before a single probe call is let through (default 30000)
    */
-  lastModifiedTimestamp?: number;
-  
+  openMs?: number;
+
   /**
-   * Error message if load failed
+   * Retry tokens per operation. A transient failure takes one, a success returns 0.1,
+   * and retries pause while half or fewer are left (default 10)
    */
-  error?: string;
+  retryBudget?: number;
+}
+
+export type CircuitState = 'closed' | 'open' | 'halfOpen';
+
+export interface CircuitStateChangedEvent {
+  state: CircuitState;
+  previous: CircuitState;
+
+  /**
+   * Operation whose result caused the transition, e.g. `leaderboards.submitScoreImmediate`
+   */
+  operation: string;
+
+  consecutiveFailures: number;
+
+  /**
+   * Time until a probe call is allowed when the circuit opened, otherwise 0
+   */
+  retryAfterMs: number;
+}
+
+export interface ResilienceMetrics {
+  state: CircuitState;
+  consecutiveFailures: number;
+
+  /**
+   * Calls failed at once because the circuit was open
+   */
+  shortCircuited: number;
+
+  /**
+   * Retry budget by operation
+   */
+  operations: { [operation: string]: { tokens: number; retries: number; denied: number } };
+}
+
+export interface CallsOptions {
+  /**
+   * Default behaviour of show* calls while the same UI is already open (default `queue`)
+   */
+  whenUiBusy?: 'queue' | 'reject';
+}
+
+export interface UiCallOptions {
+  /**
+   * `queue` waits until the open UI closes, `reject` fails at once with code `UI_BUSY`.
+   * Defaults to `calls.whenUiBusy`
+   */
+  whenBusy?: 'queue' | 'reject';
+}
+
+export interface MetricsOptions {
+  /**
+   * Interval of `metricsReport` events in milliseconds; 0 disables them (default 0)
+   */
+  reportIntervalMs?: number;
+
+  /**
+   * Reset all metrics after each report, so every report covers one interval
+   */
+  resetAfterReport?: boolean;
+}
+
+export interface OperationMetrics {
+  /**
+   * Number of completed calls
+   */
+  count: number;
+
+  /**
+   * Number of successful calls
+   */
+  success: number;
+
+  /**
+   * Number of failed calls
+   */
+  failure: number;
+
+  /**
+   * Failure counts by exception type, e.g. `ApiException:7`; cancelled tasks count as `CancellationException`
+   */
+  failures: { [type: string]: number };
+
+  meanMs: number;
+  p50Ms: number;
+  p90Ms: number;
+  p99Ms: number;
+  maxMs: number;
+}
+
+export interface PayloadMetrics {
+  count: number;
+  totalBytes: number;
+  maxBytes: number;
+  meanBytes: number;
+}
+
+export interface MetricsResult {
+  /**
+   * Timestamp of the last reset
+   */
+  since: number;
+
+  /**
+   * Timestamp of this snapshot
+   */
+  timestamp: number;
+
+  /**
+   * Stats by operation: `plugin.<method>` for plugin calls (handling time),
+   * `<client>.<method>` for Play Games tasks (e.g. `snapshots.open`, `leaderboards.submitScoreImmediate`)
+   */
+  operations: { [operation: string]: OperationMetrics };
+
+  /**
+   * Payload sizes, e.g. `snapshots.write`, `snapshots.read`, `mirror.read`
+   */
+  payloads: { [name: string]: PayloadMetrics };
+
+  /**
+   * Calls waiting for a response and shared Play Games requests
+   */
+  inFlight: InFlightMetrics;
+
+  /**
+   * Plugin startup phases. Play Games clients and managers are created after the first frame
+   * (idle-time prefetch) or on first use, whichever comes first
+   */
+  startup: StartupMetrics;
+
+  /**
+   * Retry budgets and circuit breaker state
+   */
+  resilience: ResilienceMetrics;
+
+  /**
+   * Rate limiter buckets by operation class
+   */
+  rateLimits: { [operation: string]: RateLimitMetrics };
+
+  /**
+   * Event aggregation. Present once an events method or `configure({ events })` was used
+   */
+  events?: EventsMetrics;
+}
+
+export interface EventsMetrics {
+  /**
+   * Increments received from the game
+   */
+  received: number;
+
+  /**
+   * EventsClient.increment calls made by flushes
+   */
+  sent: number;
+
+  /**
+   * Flushes that sent at least one event
+   */
+  flushes: number;
+
+  /**
+   * Whether increments are waiting in the buffer
+   */
+  hasPending: boolean;
+}
+
+export interface StartupPhase {
+  /**
+   * `load`, `sdk`, `clients`, `<area>Manager`, `authCheck` or `prefetch`
+   */
+  name: string;
+
+  /**
+   * Start of the phase relative to plugin load, in milliseconds
+   */
+  offsetMs: number;
+
+  durationMs: number;
+
+  /**
+   * Thread the phase ran on
+   */
+  thread: string;
+}
+
+export interface StartupMetrics {
+  /**
+   * Completed phases in completion order
+   */
+  phases: StartupPhase[];
+
+  /**
+   * End of the last completed phase relative to plugin load, in milliseconds
+   */
+  completedMs: number;
+}
+
+export interface InFlightMetrics {
+  /**
+   * Calls held by the plugin, e.g. waiting for a UI to close
+   */
+  calls: number;
+
+  /**
+   * Age of the oldest held call in milliseconds
+   */
+  oldestMs: number;
+
+  /**
+   * Requests currently shared between callers
+   */
+  sharedTasks: number;
+
+  /**
+   * Requests started through the shared-request registry
+   */
+  sharedLoads: number;
+
+  /**
+   * Calls that joined an already running request instead of starting a new one
+   */
+  joinedLoads: number;
+}
+
+export interface AuthCacheOptions {
+  /**
+   * How long a known auth state is trusted before asking Play Games again, in milliseconds (default 60000)
+   */
+  ttlMs?: number;
+}
+
+export interface AvatarCacheOptions {
+  /**
+   * Maximum total size of cached avatar files in bytes (default 2 MB)
+   */
+  maxBytes?: number;
+}
+
+export interface ScoreQueueOptions {
+  /**
+   * Queue scores by default instead of submitting them immediately
+   */
+  enabled?: boolean;
+
+  /**
+   * How long queued scores wait before being flushed, in milliseconds (default 30000)
+   */
+  flushIntervalMs?: number;
+}
+
+export interface ScoreCacheOptions {
+  /**
+   * Maximum number of cached pages (default 64)
+   */
+  maxEntries?: number;
+
+  /**
+   * How long a cached page is fresh, in milliseconds (default 60000)
+   */
+  ttlMs?: number;
+
+  /**
+   * How long after the TTL a stale page may still be served while it is refreshed, in milliseconds (default 300000)
+   */
+  staleWhileRevalidateMs?: number;
+}
+
+export interface IncrementBufferOptions {
+  /**
+   * Buffer steps by default instead of sending them immediately
+   */
+  enabled?: boolean;
+
+  /**
+   * How long buffered steps wait before being flushed, in milliseconds (default 30000)
+   */
+  flushIntervalMs?: number;
+
+  /**
+   * Flush as soon as pending steps of a single achievement reach this value (0 disables)
+   */
+  flushThreshold?: number;
+
+  /**
+   * Use fire-and-forget increment instead of incrementImmediate when flushing
+   */
+  fireAndForget?: boolean;
+}
+
+export interface EventsOptions {
+  /**
+   * How long summed increments wait before being flushed, in milliseconds (default 30000)
+   */
+  flushIntervalMs?: number;
+
+  /**
+   * Flush as soon as the pending amount of a single event reaches this value (0 disables)
+   */
+  flushThreshold?: number;
+
+  /**
+   * How long the event index from loadEvents is reused, in milliseconds (default 300000)
+   */
+  ttlMs?: number;
+}
+
+export interface SavedGamesOptions {
+  /**
+   * Payload size in bytes from which saves are compressed (default 16384)
+   */
+  compressionThreshold?: number;
+
+  /**
+   * Default strategy for merging snapshot conflicts. Without it Play Games keeps the most recently modified version.
+   */
+  conflictStrategy?: ConflictStrategy | null;
+
+  /**
+   * Dot-separated JSON path compared by the 'highestProgress' strategy, e.g. 'player.level'.
+   * Without it the snapshot progress value is compared.
+   */
+  conflictPath?: string | null;
+
+  /**
+   * How long the listSavedGames index is served before it is revalidated in the background, in milliseconds
+   * (default 300000)
+   */
+  indexTtlMs?: number;
+
+  /**
+   * Debounced autosave settings
+   */
+  autosave?: AutosaveOptions;
+}
+
+export interface AutosaveOptions {
+  /**
+   * Debounce every `saveGameData` call by default
+   */
+  enabled?: boolean;
+
+  /**
+   * Quiet period after the last change before committing, in milliseconds (default 2000)
+   */
+  quietMs?: number;
+
+  /**
+   * Maximum delay from the first uncommitted change, in milliseconds (default 10000)
+   */
+  maxDelayMs?: number;
+}
+
+/**
+ * Built-in conflict strategies. Apps can register more from native code with
+ * `SnapshotMergeStrategies.register(name, strategy)` and pass their name here.
+ * Custom strategies are Java-only – there is no JavaScript merge callback.
+ */
+export type ConflictStrategy = 'newest' | 'highestProgress' | 'mergeFields' | (string & {});
+
+export interface FlushScoresResult {
+  /**
+   * Number of scores submitted in this flush
+   */
+  submitted: number;
+
+  /**
+   * Number of scores that failed with a transient error (network, timeout, rate limit, sign-in required)
+   * and were put back into the queue
+   */
+  failed: number;
+
+  /**
+   * Number of scores that failed with a permanent error (e.g. unknown leaderboard) and were dropped
+   */
+  dropped: number;
+
+  /**
+   * Number of scores still waiting in the queue
+   */
+  pending: number;
+}
+
+export interface LeaderboardVariantOptions extends LeaderboardOptions {
+  /**
+   * Time span of the scores (default 'allTime')
+   */
+  timeSpan?: 'daily' | 'weekly' | 'allTime';
+
+  /**
+   * Player collection of the scores (default 'public')
+   */
+  collection?: 'public' | 'friends';
+
+  /**
+   * Skip the cache and load from Play Games
+   */
+  forceReload?: boolean;
+}
+
+export interface LoadScoresOptions extends LeaderboardVariantOptions {
+  /**
+   * Number of scores per page, 1-25 (default 25)
+   */
+  maxResults?: number;
+
+  /**
+   * Zero-based page number (default 0)
+   */
+  page?: number;
+}
+
+export interface LeaderboardScoreEntry {
+  /**
+   * Rank of the score
+   */
+  rank: number;
+
+  /**
+   * Formatted rank
+   */
+  displayRank: string;
+
+  /**
+   * Raw score value
+   */
+  rawScore: number;
+
+  /**
+   * Formatted score
+   */
+  displayScore: string;
+
+  /**
+   * When the score was achieved
+   */
+  timestampMillis: number;
+
+  /**
+   * Score tag, if any
+   */
+  scoreTag?: string;
+
+  /**
+   * Display name of the score holder
+   */
+  displayName: string;
+
+  /**
+   * Player ID of the score holder
+   */
+  playerId?: string;
+}
+
+export interface CachedResult {
+  /**
+   * Whether the result was served from the cache
+   */
+  fromCache: boolean;
+
+  /**
+   * Whether the cached result is past its TTL and is being refreshed in the background
+   */
+  stale: boolean;
+}
+
+export interface LoadScoresResult extends CachedResult {
+  /**
+   * Scores on the requested page
+   */
+  scores: LeaderboardScoreEntry[];
+
+  /**
+   * Page that was loaded
+   */
+  page: number;
+}
+
+export interface LoadCurrentPlayerScoreResult extends CachedResult {
+  /**
+   * The current player's score, absent if the player has no score
+   */
+  score?: LeaderboardScoreEntry;
+}
+
+export interface SubmitScoresOptions {
+  /**
+   * Scores to submit
+   */
+  scores: { leaderboardId: string; score: number }[];
+}
+
+export interface AchievementOptions {
+  /**
+   * Achievement ID as defined in Google Play Console
+   */
+  achievementId: string;
+}
+
+export interface IncrementAchievementOptions extends AchievementOptions {
+  /**
+   * Positive amount to increment the achievement by
+   */
+  steps: number;
+
+  /**
+   * Add the steps to the aggregation buffer instead of sending them immediately.
+   * Defaults to the `incrementBuffer.enabled` configuration.
+   */
+  buffered?: boolean;
+}
+
+export interface GetAchievementsOptions {
+  /**
+   * Reload the achievement index from Play Games
+   */
+  forceReload?: boolean;
+}
+
+export interface AchievementInfo {
+  /**
+   * Achievement ID
+   */
+  achievementId: string;
+
+  /**
+   * Achievement name
+   */
+  name: string;
+
+  /**
+   * Achievement description
+   */
+  description: string;
+
+  /**
+   * Current state of the achievement
+   */
+  state: 'unlocked' | 'revealed' | 'hidden';
+
+  /**
+   * Whether the achievement is incremental
+   */
+  incremental: boolean;
+
+  /**
+   * Current steps of an incremental achievement
+   */
+  currentSteps?: number;
+
+  /**
+   * Total steps of an incremental achievement
+   */
+  totalSteps?: number;
+}
+
+export interface UnlockAchievementsOptions {
+  /**
+   * Achievement IDs to unlock
+   */
+  achievementIds: string[];
+}
+
+export interface IncrementAchievementsOptions {
+  /**
+   * Achievements to increment with their step counts
+   */
+  increments: { achievementId: string; steps: number }[];
+}
+
+export interface BatchResult<T> {
+  /**
+   * One result per requested item, in request order
+   */
+  results: T[];
+}
+
+export interface BatchItemResult {
+  /**
+   * Whether the operation on this item succeeded
+   */
+  success: boolean;
+
+  /**
+   * Error message if the operation failed
+   */
+  error?: string;
+}
+
+export interface LeaderboardBatchItem extends BatchItemResult {
+  /**
+   * Leaderboard ID of this item
+   */
+  leaderboardId: string;
+}
+
+export interface AchievementBatchItem extends BatchItemResult {
+  /**
+   * Achievement ID of this item
+   */
+  achievementId: string;
+}
+
+export interface FlushAchievementIncrementsResult {
+  /**
+   * Number of achievements incremented in this flush
+   */
+  achievements: number;
+
+  /**
+   * Total number of steps sent
+   */
+  steps: number;
+
+  /**
+   * Number of achievements whose steps failed before reaching Play Games (rate limit, open circuit,
+   * sign-in required) and were put back into the buffer
+   */
+  failed: number;
+
+  /**
+   * Number of achievements whose steps failed in a way that may already have applied them
+   * (network error, timeout) and were dropped rather than risk counting them twice
+   */
+  dropped: number;
+}
+
+export interface IncrementEventOptions {
+  /**
+   * Event ID from the Play Console
+   */
+  eventId: string;
+
+  /**
+   * Positive amount to add (default 1)
+   */
+  amount?: number;
+}
+
+export interface IncrementEventResult {
+  /**
+   * Whether the increment was accepted
+   */
+  success: boolean;
+
+  /**
+   * Amount of this event waiting for the next flush
+   */
+  pending: number;
+}
+
+export interface IncrementEventsOptions {
+  /**
+   * Events to increment with their amounts (default 1)
+   */
+  increments: { eventId: string; amount?: number }[];
+}
+
+export interface EventBatchItem extends BatchItemResult {
+  /**
+   * Event ID of this item
+   */
+  eventId: string;
+
+  /**
+   * Amount of this event waiting for the next flush
+   */
+  pending?: number;
+}
+
+export interface FlushEventsResult {
+  /**
+   * Number of events sent in this flush
+   */
+  events: number;
+
+  /**
+   * Total amount sent
+   */
+  amount: number;
+
+  /**
+   * Number of events whose increments failed and were put back into the buffer
+   */
+  failed: number;
+}
+
+export interface LoadEventsOptions {
+  /**
+   * Only return these events
+   */
+  eventIds?: string[];
+
+  /**
+   * Reload the event index from Play Games
+   */
+  forceReload?: boolean;
+}
+
+export interface EventInfo {
+  /**
+   * Event ID
+   */
+  eventId: string;
+
+  /**
+   * Event name
+   */
+  name: string;
+
+  /**
+   * Event description
+   */
+  description: string;
+
+  /**
+   * Value from Play Games plus increments sent by this device since the index was loaded
+   */
+  value: number;
+
+  /**
+   * Value formatted by Play Games. Omitted once local increments changed the value
+   */
+  formattedValue?: string;
+
+  /**
+   * Amount still waiting in the local buffer, not included in `value`
+   */
+  pending: number;
+
+  /**
+   * Whether the event is visible to the player
+   */
+  visible: boolean;
+}
+
+export interface LoadEventsResult {
+  /**
+   * Requested events
+   */
+  events: EventInfo[];
+
+  /**
+   * True if the events came from the local index
+   */
+  fromCache: boolean;
+}
+
+export interface SaveGameOptions {
+  /**
+   * Unique identifier for the save
+   */
+  saveId?: string;
+  
+  /**
+   * Save data as string (will be encoded as needed)
+   */
+  data: string;
+  
+  /**
+   * Human readable description of the save
+   */
+  description: string;
+
+  /**
+   * How `data` is encoded: 'utf8' text (default) or 'base64' binary stored as raw bytes
+   */
+  encoding?: 'utf8' | 'base64';
+
+  /**
+   * Force compression on or off. By default data is compressed from `savedGames.compressionThreshold`.
+   */
+  compress?: boolean;
+
+  /**
+   * Commit even if the data and description match the last commit made from this device
+   */
+  force?: boolean;
+
+  /**
+   * Conflict strategy for this call, overrides `savedGames.conflictStrategy`
+   */
+  conflictStrategy?: ConflictStrategy;
+
+  /**
+   * JSON path for the 'highestProgress' strategy, overrides `savedGames.conflictPath`
+   */
+  conflictPath?: string;
+
+  /**
+   * Debounce this save, overrides `savedGames.autosave.enabled`
+   */
+  autosave?: boolean;
+}
+
+export interface LoadGameOptions {
+  /**
+   * Unique identifier for the save to load
+   */
+  saveId: string;
+
+  /**
+   * Skip the local mirror and load from the cloud
+   */
+  forceReload?: boolean;
+
+  /**
+   * Send the data in `savedGameChunk` events instead of the `data` field, keeping native memory
+   * bounded by the chunk size. Chunks of text saves never split a UTF-8 character.
+   */
+  stream?: boolean;
+
+  /**
+   * Stream only: chunk size in bytes of decoded data, 1 KB - 1 MB (default 64 KB)
+   */
+  chunkSize?: number;
+
+  /**
+   * Stream only: ID copied into every chunk event (default: `saveId`)
+   */
+  streamId?: string;
+
+  /**
+   * Conflict strategy for this call, overrides `savedGames.conflictStrategy`
+   */
+  conflictStrategy?: ConflictStrategy;
+
+  /**
+   * JSON path for the 'highestProgress' strategy, overrides `savedGames.conflictPath`
+   */
+  conflictPath?: string;
+}
+
+export interface SaveGameFileOptions {
+  /**
+   * Unique identifier for the save
+   */
+  saveId?: string;
+
+  /**
+   * File in app-private storage: a `file://` URI, an absolute path inside the files or cache
+   * directory, or a path relative to the files directory
+   */
+  path: string;
+
+  /**
+   * Human readable description of the save
+   */
+  description: string;
+
+  /**
+   * How `loadGameData` should return the contents: 'base64' binary (default) or 'utf8' text.
+   * The file is always stored as raw bytes and never compressed.
+   */
+  encoding?: 'utf8' | 'base64';
+
+  /**
+   * Commit even if the file and description match the last commit made from this device
+   */
+  force?: boolean;
+
+  /**
+   * Conflict strategy for this call, overrides `savedGames.conflictStrategy`
+   */
+  conflictStrategy?: ConflictStrategy;
+
+  /**
+   * JSON path for the 'highestProgress' strategy, overrides `savedGames.conflictPath`
+   */
+  conflictPath?: string;
+}
+
+export interface LoadGameFileOptions extends LoadGameOptions {
+  /**
+   * Target file in app-private storage (same forms as `SaveGameFileOptions.path`).
+   * It is replaced atomically.
+   */
+  path: string;
+}
+
+export interface SavedGameChunkEvent {
+  /**
+   * `streamId` of the load call
+   */
+  streamId: string;
+
+  /**
+   * Save ID being streamed
+   */
+  saveId: string;
+
+  /**
+   * Chunk number, starting at 0
+   */
+  sequence: number;
+
+  /**
+   * Byte offset of this chunk in the decoded data
+   */
+  offset: number;
+
+  /**
+   * Size of the decoded data in bytes, for progress reporting
+   */
+  totalBytes: number;
+
+  /**
+   * How `data` is encoded: 'utf8' text or 'base64' binary
+   */
+  encoding: 'utf8' | 'base64';
+
+  /**
+   * Chunk data
+   */
+  data: string;
+
+  /**
+   * True for the final chunk
+   */
+  last: boolean;
+
+  /**
+   * Final chunk only: xxHash64 (hex) of the whole decoded data
+   */
+  contentHash?: string;
+}
+
+export interface SavedGameUpdatedEvent {
+  /**
+   * Save ID whose local mirror was refreshed or dropped
+   */
+  saveId: string;
+
+  /**
+   * Last modified timestamp of the cloud copy (absent when `deleted`)
+   */
+  lastModifiedTimestamp?: number;
+
+  /**
+   * xxHash64 (hex) of the cloud data (absent when `deleted`)
+   */
+  contentHash?: string;
+
+  /**
+   * True when the save no longer exists in the cloud and its local mirror was removed
+   */
+  deleted?: boolean;
+}
+
+export interface ListSavedGamesOptions {
+  /**
+   * Skip the in-memory index and load from Play Games
+   */
+  forceReload?: boolean;
+}
+
+export interface SavedGameMetadata {
+  /**
+   * Save ID (snapshot unique name)
+   */
+  saveId: string;
+
+  /**
+   * Human readable description of the save
+   */
+  description: string;
+
+  /**
+   * Last modified timestamp
+   */
+  lastModifiedTimestamp: number;
+
+  /**
+   * Played time in milliseconds, or -1 if unknown
+   */
+  playedTime: number;
+
+  /**
+   * Progress value, or -1 if unknown
+   */
+  progressValue: number;
+
+  /**
+   * Size of the stored (encoded) data in bytes. Only known for saves mirrored on this device.
+   */
+  size?: number;
+}
+
+export interface ListSavedGamesResult {
+  /**
+   * Metadata of all saves
+   */
+  saves: SavedGameMetadata[];
+
+  /**
+   * True if the list came from the in-memory index
+   */
+  fromCache?: boolean;
+}
+
+export interface ShowSavedGamesOptions extends UiCallOptions {
+  /**
+   * Title to show in the saved games UI
+   */
+  title: string;
+  
+  /**
+   * Whether to allow creating new saves
+   */
+  allowAddButton?: boolean;
+  
+  /**
+   * Whether to allow deleting saves
+   */
+  allowDelete?: boolean;
+  
+  /**
+   * Maximum number of saves to show
+   */
+  maxSavedGames?: number;
+}
+
+export interface SaveResult {
+  /**
+   * Whether save was successful
+   */
+  success: boolean;
+  
+  /**
+   * Save ID of the saved game
+   */
+  saveId?: string;
+
+  /**
+   * True if the data matched the last commit and no commit was made
+   */
+  unchanged?: boolean;
+
+  /**
+   * True if this call's data was written to the cloud
+   */
+  committed?: boolean;
+
+  /**
+   * Autosave only: true if newer data replaced this call's data before the commit
+   */
+  coalesced?: boolean;
+
+  /**
+   * xxHash64 (hex) of the saved data
+   */
+  contentHash?: string;
+  
+  /**
+   * Error message if save failed
+   */
+  error?: string;
+}
+
+export interface LoadGameResult {
+  /**
+   * Whether data was successfully loaded
+   */
+  success: boolean;
+  
+  /**
+   * Save ID that was loaded
+   */
+  saveId?: string;
+  
+  /**
+   * The loaded save data
+   */
+  data?: string;
+
+  /**
+   * How `data` is encoded: 'utf8' text or 'base64' binary
+   */
+  encoding?: 'utf8' | 'base64';
+
+  /**
+   * Whether the snapshot was stored compressed
+   */
+  compressed?: boolean;
+
+  /**
+   * xxHash64 (hex) of the loaded data
+   */
+  contentHash?: string;
+  
+  /**
+   * Description of the save
+   */
+  description?: string;
+  
+  /**
+   * Last modified timestamp
+   */
+  lastModifiedTimestamp?: number;
+
+  /**
+   * Whether the data was served from the local mirror
+   */
+  fromCache?: boolean;
+
+  /**
+   * Stream only: `streamId` of the chunk events
+   */
+  streamId?: string;
+
+  /**
+   * Stream only: number of chunk events sent
+   */
+  chunks?: number;
+
+  /**
+   * Stream only: size of the decoded data in bytes
+   */
+  size?: number;
+  
+  /**
+   * Error message if load failed. After a failed stream, already received chunks should be discarded.
+   */
+  error?: string;
+}
+
+export interface SaveFileResult extends SaveResult {
+  /**
+   * Size of the saved file in bytes
+   */
+  size?: number;
+}
+
+export interface LoadGameFileResult extends Omit<LoadGameResult, 'data' | 'streamId' | 'chunks'> {
+  /**
+   * Absolute path of the written file
+   */
+  path?: string;
+
+  /**
+   * Size of the written file in bytes
+   */
+  size?: number;
 }
@@ -1,6 +1,6 @@
 import { WebPlugin } from '@capacitor/core';
 
-import type { AchievementOptions, IncrementAchievementOptions, LeaderboardOptions, LoadGameOptions, LoadGameResult, PGServicePlugin, PlayerInfo, SaveGameOptions, SaveResult, ShowSavedGamesOptions, SignInResult, SubmitScoreOptions } from './definitions';
+import type { AchievementBatchItem, AchievementInfo, AchievementOptions, BatchResult, ConfigureOptions, EventBatchItem, FlushAchievementIncrementsResult, FlushEventsResult, FlushScoresResult, GetAchievementsOptions, GetPlayerInfoOptions, IncrementAchievementOptions, IncrementAchievementsOptions, IncrementEventOptions, IncrementEventResult, IncrementEventsOptions, IsSignedInOptions, LeaderboardBatchItem, LeaderboardOptions, LeaderboardVariantOptions, ListSavedGamesOptions, ListSavedGamesResult, LoadCurrentPlayerScoreResult, LoadEventsOptions, LoadEventsResult, LoadGameFileOptions, LoadGameFileResult, LoadGameOptions, LoadGameResult, LoadScoresOptions, LoadScoresResult, MetricsResult, PGServicePlugin, PlayerInfo, SaveFileResult, SaveGameFileOptions, SaveGameOptions, SaveResult, ShowSavedGamesOptions, SignInResult, SubmitScoreOptions, SubmitScoresOptions, UiCallOptions, UnlockAchievementsOptions } from './definitions';
 
 export class PGServiceWeb extends WebPlugin implements PGServicePlugin {
   constructor() {
@@ -12,6 +12,10 @@ export class PGServiceWeb extends WebPlugin implements PGServicePlugin {
     return options;
   }
 
+  async configure(_options: ConfigureOptions): Promise<void> {
+    console.warn('Google Play Games Services are not available on web platform.');
+  }
+
   async signIn(): Promise<SignInResult> {
     console.warn('Google Play Games Services are not available on web platform.');
     return { isSignedIn: false };
@@ -21,12 +25,12 @@ export class PGServiceWeb extends WebPlugin implements PGServicePlugin {
     console.warn('Google Play Games Services are not available on web platform.');
   }
 
-  async isSignedIn(): Promise<SignInResult> {
+  async isSignedIn(_options?: IsSignedInOptions): Promise<SignInResult> {
     console.warn('Google Play Games Services are not available on web platform.');
     return { isSignedIn: false };
   }
 
-  async getPlayerInfo(): Promise<PlayerInfo> {
+  async getPlayerInfo(_options?: GetPlayerInfoOptions): Promise<PlayerInfo> {
     console.warn('Google Play Games Services are not available on web platform.');
     return {
       playerId: '',
@@ -34,11 +38,11 @@ export class PGServiceWeb extends WebPlugin implements PGServicePlugin {
     };
   }
 
-  async showLeaderboard(options: LeaderboardOptions): Promise<void> {
+  async showLeaderboard(options: LeaderboardOptions & UiCallOptions): Promise<void> {
     console.warn(`Google Play Games Services are not available on web platform. Cannot show leaderboard: ${options.leaderboardId}`);
   }
 
-  async showAllLeaderboards(): Promise<void> {
+  async showAllLeaderboards(_options?: UiCallOptions): Promise<void> {
     console.warn('Google Play Games Services are not available on web platform. Cannot show all leaderboards.');
   }
 
@@ -46,22 +50,95 @@ export class PGServiceWeb extends WebPlugin implements PGServicePlugin {
     console.warn(`Google Play Games Services are not available on web platform. Cannot submit score: ${options.score} to leaderboard: ${options.leaderboardId}`);
   }
 
-  async showAchievements(): Promise<void> {
+  async submitScores(options: SubmitScoresOptions): Promise<BatchResult<LeaderboardBatchItem>> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot submit scores.');
+    return {
+      results: options.scores.map((s) => ({ leaderboardId: s.leaderboardId, success: false, error: 'Not available on web platform' })),
+    };
+  }
+
+  async loadTopScores(options: LoadScoresOptions): Promise<LoadScoresResult> {
+    console.warn(`Google Play Games Services are not available on web platform. Cannot load top scores of leaderboard: ${options.leaderboardId}`);
+    return { scores: [], page: options.page ?? 0, fromCache: false, stale: false };
+  }
+
+  async loadPlayerCenteredScores(options: LoadScoresOptions): Promise<LoadScoresResult> {
+    console.warn(`Google Play Games Services are not available on web platform. Cannot load player centered scores of leaderboard: ${options.leaderboardId}`);
+    return { scores: [], page: options.page ?? 0, fromCache: false, stale: false };
+  }
+
+  async loadCurrentPlayerScore(options: LeaderboardVariantOptions): Promise<LoadCurrentPlayerScoreResult> {
+    console.warn(`Google Play Games Services are not available on web platform. Cannot load player score of leaderboard: ${options.leaderboardId}`);
+    return { fromCache: false, stale: false };
+  }
+
+  async flushScores(): Promise<FlushScoresResult> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot flush queued scores.');
+    return { submitted: 0, failed: 0, dropped: 0, pending: 0 };
+  }
+
+  async showAchievements(_options?: UiCallOptions): Promise<void> {
     console.warn('Google Play Games Services are not available on web platform. Cannot show achievements.');
   }
 
+  async getAchievements(_options?: GetAchievementsOptions): Promise<{ achievements: AchievementInfo[] }> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot get achievements.');
+    return { achievements: [] };
+  }
+
   async unlockAchievement(options: AchievementOptions): Promise<void> {
     console.warn(`Google Play Games Services are not available on web platform. Cannot unlock achievement: ${options.achievementId}`);
   }
 
+  async unlockAchievements(options: UnlockAchievementsOptions): Promise<BatchResult<AchievementBatchItem>> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot unlock achievements.');
+    return {
+      results: options.achievementIds.map((id) => ({ achievementId: id, success: false, error: 'Not available on web platform' })),
+    };
+  }
+
   async incrementAchievement(options: IncrementAchievementOptions): Promise<void> {
     console.warn(`Google Play Games Services are not available on web platform. Cannot increment achievement: ${options.achievementId} by ${options.steps} steps`);
   }
 
+  async incrementAchievements(options: IncrementAchievementsOptions): Promise<BatchResult<AchievementBatchItem>> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot increment achievements.');
+    return {
+      results: options.increments.map((i) => ({ achievementId: i.achievementId, success: false, error: 'Not available on web platform' })),
+    };
+  }
+
+  async flushAchievementIncrements(): Promise<FlushAchievementIncrementsResult> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot flush achievement increments.');
+    return { achievements: 0, steps: 0, failed: 0, dropped: 0 };
+  }
+
   async revealAchievement(options: AchievementOptions): Promise<void> {
     console.warn(`Google Play Games Services are not available on web platform. Cannot reveal achievement: ${options.achievementId}`);
   }
 
+  async incrementEvent(options: IncrementEventOptions): Promise<IncrementEventResult> {
+    console.warn(`Google Play Games Services are not available on web platform. Cannot increment event: ${options.eventId}`);
+    return { success: false, pending: 0 };
+  }
+
+  async incrementEvents(options: IncrementEventsOptions): Promise<BatchResult<EventBatchItem>> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot increment events.');
+    return {
+      results: options.increments.map((i) => ({ eventId: i.eventId, success: false, error: 'Not available on web platform' })),
+    };
+  }
+
+  async flushEvents(): Promise<FlushEventsResult> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot flush events.');
+    return { events: 0, amount: 0, failed: 0 };
+  }
+
+  async loadEvents(_options?: LoadEventsOptions): Promise<LoadEventsResult> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot load events.');
+    return { events: [], fromCache: false };
+  }
+
   async saveGameData(options: SaveGameOptions): Promise<SaveResult> {
     console.warn(`Google Play Games Services are not available on web platform. Cannot save game data with ID: ${options.saveId || 'auto-generated'}`);
     return { success: false, error: 'Not available on web platform' };
@@ -72,19 +149,42 @@ export class PGServiceWeb extends WebPlugin implements PGServicePlugin {
     return { success: false, error: 'Not available on web platform' };
   }
 
+  async saveGameFile(options: SaveGameFileOptions): Promise<SaveFileResult> {
+    console.warn(`Google Play Games Services are not available on web platform. Cannot save game file: ${options.path}`);
+    return { success: false, error: 'Not available on web platform' };
+  }
+
+  async loadGameFile(options: LoadGameFileOptions): Promise<LoadGameFileResult> {
+    console.warn(`Google Play Games Services are not available on web platform. Cannot load game data with ID: ${options.saveId}`);
+    return { success: false, error: 'Not available on web platform' };
+  }
+
   async showSavedGames(options: ShowSavedGamesOptions): Promise<LoadGameResult> {
     console.warn(`Google Play Games Services are not available on web platform. Cannot show saved games with title: ${options.title}`);
     return { success: false, error: 'Not available on web platform' };
   }
 
+  async listSavedGames(_options?: ListSavedGamesOptions): Promise<ListSavedGamesResult> {
+    console.warn('Google Play Games Services are not available on web platform. Cannot list saved games.');
+    return { saves: [] };
+  }
+
   async addListener(
-    _eventName: 'signInStatusChanged',
-    _listenerFunc: (result: SignInResult) => void,
+    _eventName: string,
+    _listenerFunc: (event: any) => void,
   ): Promise<any> {
     console.warn('Google Play Games Services are not available on web. Event listeners will not be triggered.');
     return Promise.resolve({ remove: () => {} });
   }
 
+  async getMetrics(): Promise<MetricsResult> {
+    return { since: 0, timestamp: Date.now(), operations: {}, payloads: {} };
+  }
+
+  async resetMetrics(): Promise<void> {
+    console.warn('Google Play Games Services are not available on web platform. No metrics to reset.');
+  }
+
   async removeAllListeners(): Promise<void> {
     console.warn('Google Play Games Services are not available on web. No listeners to remove.');
   }